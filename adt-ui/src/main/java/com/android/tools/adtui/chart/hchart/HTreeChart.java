@@ -31,10 +31,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.util.*;
 
 /**
  * A chart which renders nodes using a horizontal flow. That is, while normal trees are vertical,
@@ -75,11 +72,25 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
   @NotNull
   private final Range myYRange;
 
+  /**
+   * Nodes laid out for the current view, in breadth-first order, and their rectangles in component
+   * coordinates, stored as consecutive (x, y, width, height) values to avoid an allocation per node.
+   */
   @NotNull
-  private final List<Rectangle2D.Float> myRectangles;
+  private final List<N> myNodes;
 
   @NotNull
-  private final List<N> myNodes;
+  private float[] myNodeRectangles = new float[4 * 64];
+
+  /**
+   * Nodes waiting to be laid out, and for each of them, the start of the last sibling merged into it
+   * because they all fit into the same pixel.
+   */
+  @NotNull
+  private final List<N> myLayoutQueue = new ArrayList<>();
+
+  @NotNull
+  private double[] myLayoutQueueMergedStarts = new double[64];
 
   private boolean myRootVisible;
 
@@ -95,6 +106,20 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
   @NotNull
   private final HTreeChartReducer<N> myReducer;
 
+  /**
+   * Index for hit-testing the drawn rectangles: the indices of the drawn nodes grouped by row and
+   * sorted by x within each row, the y coordinate of each row (in increasing order) and the offset
+   * in {@link #myHitOrder} where each row starts (with an extra entry for the end of the last row).
+   */
+  @NotNull
+  private int[] myHitOrder = new int[0];
+
+  @NotNull
+  private float[] myRowTops = new float[0];
+
+  @NotNull
+  private int[] myRowStarts = new int[1];
+
   @Nullable
   private Image myCanvas;
 
@@ -113,7 +138,6 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
    */
   @VisibleForTesting
   public HTreeChart(@Nullable Range globalXRange, @NotNull Range viewXRange, Orientation orientation, @NotNull HTreeChartReducer<N> reducer) {
-    myRectangles = new ArrayList<>();
     myNodes = new ArrayList<>();
     myDrawnNodes = new ArrayList<>();
     myDrawnRectangles = new ArrayList<>();
@@ -157,7 +181,6 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
 
   private void changed() {
     myDataUpdated = true;
-    myCachedMaxHeight = calculateMaximumHeight();
     opaqueRepaint();
   }
 
@@ -165,8 +188,8 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
   protected void draw(Graphics2D g, Dimension dim) {
     long startTime = System.nanoTime();
     if (myDataUpdated) {
-      // Nulling out the canvas will trigger a render pass, below
-      updateNodesAndClearCanvas();
+      // Nulling out the canvas will trigger a layout and render pass, below
+      myCanvas = null;
       myDataUpdated = false;
     }
     g.setFont(getFont());
@@ -185,6 +208,8 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
     }
 
     if (myCanvas == null || ImageUtil.getUserHeight(myCanvas) != dim.height || ImageUtil.getUserWidth(myCanvas) != dim.width) {
+      // The layout only contains what is visible at the current size, so it needs updating as well
+      layoutNodes(dim);
       redrawToCanvas(dim);
     }
     UIUtil.drawImage(g, myCanvas, 0, 0, null);
@@ -208,19 +233,9 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
     myDrawnNodes.addAll(myNodes);
 
     myDrawnRectangles.clear();
-    // Transform
-    for (Rectangle2D.Float rect : myRectangles) {
-      Rectangle2D.Float newRect = new Rectangle2D.Float();
-      newRect.x = rect.x * (float)dim.getWidth();
-      newRect.y = rect.y;
-      newRect.width = Math.max(0, rect.width * (float)dim.getWidth() - BORDER_PLUS_PADDING);
-      newRect.height = rect.height;
-
-      if (myOrientation == HTreeChart.Orientation.BOTTOM_UP) {
-        newRect.y = (float)(dim.getHeight() - newRect.y - newRect.getHeight());
-      }
-
-      myDrawnRectangles.add(newRect);
+    for (int i = 0; i < myNodes.size(); ++i) {
+      myDrawnRectangles.add(new Rectangle2D.Float(myNodeRectangles[4 * i], myNodeRectangles[4 * i + 1],
+                                                  myNodeRectangles[4 * i + 2], myNodeRectangles[4 * i + 3]));
     }
 
     myReducer.reduce(myDrawnRectangles, myDrawnNodes);
@@ -233,54 +248,214 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
     }
 
     g.dispose();
+    buildHitIndex();
   }
 
-  private void updateNodesAndClearCanvas() {
+  /**
+   * Computes the rectangles of the nodes visible in a view of the given size.
+   *
+   * Nodes outside of the X range are skipped, as are the subtrees of nodes which are narrower than
+   * a pixel (they can't show more detail than the node itself) and of nodes below the visible
+   * area. Siblings which all fit into the same pixel are merged into the first of them right away,
+   * using the same rules as the default reducer. This relies on the children of a node being
+   * sorted by start and not overlapping, which lets us binary search for the ones in range.
+   */
+  private void layoutNodes(@NotNull Dimension dim) {
     myNodes.clear();
-    myRectangles.clear();
-    myCanvas = null;
-    if (myRoot == null) {
+    myLayoutQueue.clear();
+    if (myRoot == null || myXRange.getLength() == 0) {
       return;
     }
 
+    double rangePerPixel = myXRange.getLength() / dim.getWidth();
+    int rowHeight = mDefaultFontMetrics.getHeight() + BORDER_PLUS_PADDING;
     if (inRange(myRoot)) {
-      myNodes.add(myRoot);
-      myRectangles.add(createRectangle(myRoot));
+      enqueue(myRoot, myRoot.getStart());
     }
 
-    int head = 0;
-    while (head < myNodes.size()) {
-      N curNode = myNodes.get(head++);
+    for (int head = 0; head < myLayoutQueue.size(); ++head) {
+      N node = myLayoutQueue.get(head);
+      double y = (double)rowHeight * node.getDepth() - myYRange.getMin();
+      if (y > dim.getHeight()) {
+        // This row, and all the rows of its subtree, are below the visible area
+        continue;
+      }
+      if (y + mDefaultFontMetrics.getHeight() >= 0 && (node != myRoot || myRootVisible)) {
+        addNodeRectangle(node, myLayoutQueueMergedStarts[head], (float)y, dim);
+      }
+      if ((node.getEnd() - node.getStart()) / rangePerPixel >= 1) {
+        enqueueChildrenInRange(node, rangePerPixel);
+      }
+    }
+  }
 
-      for (int i = 0; i < curNode.getChildCount(); ++i) {
-        N child = curNode.getChildAt(i);
-        if (inRange(child)) {
-          myNodes.add(child);
-          myRectangles.add(createRectangle(child));
-        }
+  private void enqueueChildrenInRange(@NotNull N node, double rangePerPixel) {
+    int childCount = node.getChildCount();
+    int i = firstChildEndingAfter(node, myXRange.getMin(), 0);
+    while (i < childCount) {
+      N child = node.getChildAt(i);
+      if (child.getStart() > myXRange.getMax()) {
+        break;
+      }
+
+      double startPixel = Math.floor((child.getStart() - myXRange.getMin()) / rangePerPixel);
+      double endPixel = Math.floor((child.getEnd() - myXRange.getMin()) / rangePerPixel);
+      if (startPixel < endPixel) {
+        enqueue(child, child.getStart());
+        ++i;
+        continue;
+      }
+
+      // The child is inside a single pixel, merge it with all the following siblings which end in that pixel
+      double pixelEnd = myXRange.getMin() + (startPixel + 1) * rangePerPixel;
+      int next = firstChildEndingAfter(node, pixelEnd, i + 1);
+      enqueue(child, node.getChildAt(next - 1).getStart());
+      i = next;
+    }
+  }
+
+  /**
+   * Returns the index of the first child of {@code node}, starting at {@code fromIndex}, which ends
+   * at or after {@code time}, or the child count if there is none.
+   */
+  private static <N extends HNode<N>> int firstChildEndingAfter(@NotNull N node, double time, int fromIndex) {
+    int low = fromIndex;
+    int high = node.getChildCount();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (node.getChildAt(mid).getEnd() < time) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
       }
     }
-    if (!myRootVisible && !myNodes.isEmpty()) {
-      myNodes.remove(0);
-      myRectangles.remove(0);
+    return low;
+  }
+
+  private void enqueue(@NotNull N node, double lastMergedStart) {
+    int index = myLayoutQueue.size();
+    if (index == myLayoutQueueMergedStarts.length) {
+      myLayoutQueueMergedStarts = Arrays.copyOf(myLayoutQueueMergedStarts, index * 2);
     }
+    myLayoutQueue.add(node);
+    myLayoutQueueMergedStarts[index] = lastMergedStart;
+  }
+
+  private void addNodeRectangle(@NotNull N node, double lastMergedStart, float y, @NotNull Dimension dim) {
+    float left = toX(node.getStart(), dim);
+    float right = toX(node.getEnd(), dim);
+    // Like DefaultHTreeChartReducer, a merged rectangle extends to the (padded) end of the last node merged into it,
+    // which for nodes inside a pixel is where that node starts.
+    float width = Math.max(Math.max(0, right - left - BORDER_PLUS_PADDING), toX(lastMergedStart, dim) - left);
+    float height = mDefaultFontMetrics.getHeight();
+    if (myOrientation == HTreeChart.Orientation.BOTTOM_UP) {
+      y = (float)(dim.getHeight() - y - height);
+    }
+
+    int index = myNodes.size();
+    if (4 * index == myNodeRectangles.length) {
+      myNodeRectangles = Arrays.copyOf(myNodeRectangles, myNodeRectangles.length * 2);
+    }
+    myNodeRectangles[4 * index] = left;
+    myNodeRectangles[4 * index + 1] = y;
+    myNodeRectangles[4 * index + 2] = width;
+    myNodeRectangles[4 * index + 3] = height;
+    myNodes.add(node);
   }
 
   private boolean inRange(@NotNull N node) {
     return node.getStart() <= myXRange.getMax() && node.getEnd() >= myXRange.getMin();
   }
 
-  @NotNull
-  private Rectangle2D.Float createRectangle(@NotNull N node) {
-    float left = (float)Math.max(0, (node.getStart() - myXRange.getMin()) / myXRange.getLength());
-    float right = (float)Math.min(1, (node.getEnd() - myXRange.getMin()) / myXRange.getLength());
-    Rectangle2D.Float rect = new Rectangle2D.Float();
-    rect.x = left;
-    rect.y = (float)((mDefaultFontMetrics.getHeight() + BORDER_PLUS_PADDING) * node.getDepth()
-                     - getYRange().getMin());
-    rect.width = right - left;
-    rect.height = mDefaultFontMetrics.getHeight();
-    return rect;
+  /**
+   * Converts a time to an x coordinate, clamped to the visible area.
+   */
+  private float toX(double time, @NotNull Dimension dim) {
+    float fraction = (float)Math.max(0, Math.min(1, (time - myXRange.getMin()) / myXRange.getLength()));
+    return fraction * (float)dim.getWidth();
+  }
+
+  /**
+   * Builds the index used by {@link #getNodeAt(Point)} from the drawn rectangles. A reducer is
+   * free to reorder the rectangles, so this doesn't assume anything about their order, but it
+   * is linear in the common case of rows drawn one after the other from left to right.
+   */
+  private void buildHitIndex() {
+    int count = myDrawnRectangles.size();
+    List<int[]> rows = new ArrayList<>(); // {start, end} ranges of drawn indices with the same y
+    boolean rowsSorted = true;
+    int rowStart = 0;
+    for (int i = 1; i <= count; ++i) {
+      if (i == count || myDrawnRectangles.get(i).y != myDrawnRectangles.get(rowStart).y) {
+        rows.add(new int[]{rowStart, i});
+        rowStart = i;
+      }
+      else if (myDrawnRectangles.get(i).x < myDrawnRectangles.get(i - 1).x) {
+        rowsSorted = false;
+      }
+    }
+
+    if (!rowsSorted || !isSortedByY(rows)) {
+      // Unusual order: fall back to sorting everything by (y, x)
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble((Integer i) -> myDrawnRectangles.get(i).y)
+        .thenComparingDouble(i -> myDrawnRectangles.get(i).x));
+      myHitOrder = new int[count];
+      rows.clear();
+      rowStart = 0;
+      for (int i = 0; i < count; ++i) {
+        myHitOrder[i] = order[i];
+        if (i > 0 && myDrawnRectangles.get(order[i]).y != myDrawnRectangles.get(order[i - 1]).y) {
+          rows.add(new int[]{rowStart, i});
+          rowStart = i;
+        }
+      }
+      if (count > 0) {
+        rows.add(new int[]{rowStart, count});
+      }
+    }
+    else {
+      // Rows may be in decreasing y order (e.g. bottom-up charts), lay them out in increasing order
+      if (rows.size() > 1 && myDrawnRectangles.get(rows.get(0)[0]).y > myDrawnRectangles.get(rows.get(1)[0]).y) {
+        Collections.reverse(rows);
+      }
+      myHitOrder = new int[count];
+      int offset = 0;
+      for (int[] row : rows) {
+        for (int i = row[0]; i < row[1]; ++i) {
+          myHitOrder[offset++] = i;
+        }
+      }
+    }
+
+    myRowTops = new float[rows.size()];
+    myRowStarts = new int[rows.size() + 1];
+    int offset = 0;
+    for (int r = 0; r < rows.size(); ++r) {
+      myRowTops[r] = myDrawnRectangles.get(myHitOrder[offset]).y;
+      myRowStarts[r] = offset;
+      offset += rows.get(r)[1] - rows.get(r)[0];
+    }
+    myRowStarts[rows.size()] = offset;
+  }
+
+  /**
+   * Returns whether the rows, given as ranges in drawn order, are in strictly increasing or strictly decreasing y order.
+   */
+  private boolean isSortedByY(@NotNull List<int[]> rows) {
+    boolean increasing = true;
+    boolean decreasing = true;
+    for (int r = 1; r < rows.size(); ++r) {
+      float previous = myDrawnRectangles.get(rows.get(r - 1)[0]).y;
+      float current = myDrawnRectangles.get(rows.get(r)[0]).y;
+      increasing &= previous < current;
+      decreasing &= previous > current;
+    }
+    return increasing || decreasing;
   }
 
   private double positionToRange(double x) {
@@ -293,21 +468,61 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
 
   public void setHTree(@Nullable N root) {
     this.myRoot = root;
+    // Only depends on the tree, so don't walk it again every time the range changes
+    myCachedMaxHeight = calculateMaximumHeight();
     changed();
   }
 
   @Nullable
   public N getNodeAt(Point point) {
-    if (point != null) {
-      for (int i = 0; i < myDrawnNodes.size(); ++i) {
-        if (contains(myDrawnRectangles.get(i), point)) {
-          return myDrawnNodes.get(i);
-        }
+    if (point == null) {
+      return null;
+    }
+
+    // Find the last row starting at or above the point, then the last rectangle in that row starting at or before it
+    int row = lastIndexAtOrBefore(myRowTops, 0, myRowTops.length, (float)point.getY());
+    if (row < 0) {
+      return null;
+    }
+    int low = myRowStarts[row];
+    int high = myRowStarts[row + 1];
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (myDrawnRectangles.get(myHitOrder[mid]).x <= point.getX()) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    // Empty rectangles may share their x with the next one, so keep looking left until we are past the point
+    for (int i = low - 1; i >= myRowStarts[row]; --i) {
+      Rectangle2D.Float rect = myDrawnRectangles.get(myHitOrder[i]);
+      if (contains(rect, point)) {
+        return myDrawnNodes.get(myHitOrder[i]);
+      }
+      if (rect.getMaxX() < point.getX()) {
+        break;
       }
     }
     return null;
   }
 
+  private static int lastIndexAtOrBefore(@NotNull float[] sortedValues, int from, int to, float value) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sortedValues[mid] <= value) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low - 1;
+  }
+
   private static boolean contains(@NotNull Rectangle2D rectangle, @NotNull Point p) {
     return rectangle.getMinX() <= p.getX() && p.getX() <= rectangle.getMaxX() &&
            rectangle.getMinY() <= p.getY() && p.getY() <= rectangle.getMaxY();
@@ -449,7 +664,7 @@ public class HTreeChart<N extends HNode<N>> extends AnimatedComponent {
     }
 
     int maxDepth = -1;
-    Queue<N> queue = new LinkedList<>();
+    Queue<N> queue = new ArrayDeque<>();
     queue.add(myRoot);
 
     while (!queue.isEmpty()) {
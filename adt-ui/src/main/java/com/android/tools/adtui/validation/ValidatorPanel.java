@@ -23,15 +23,21 @@ import com.android.tools.idea.observable.core.BoolValueProperty;
 import com.android.tools.idea.observable.core.ObservableBool;
 import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.ui.components.JBLabel;
+import com.intellij.util.concurrency.PooledThreadExecutor;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import static com.intellij.xml.util.XmlStringUtil.escapeString;
 import static com.intellij.xml.util.XmlStringUtil.isWrappedInHtml;
@@ -48,6 +54,7 @@ public final class ValidatorPanel extends JPanel implements Disposable {
 
   private final ListenerManager myListeners = new ListenerManager();
   private final List<Validator.Result> myResults = new ArrayList<>();
+  private final List<Future<?>> myPendingValidations = new ArrayList<>();
   private final BoolProperty myHasErrors = new BoolValueProperty();
 
   private JPanel myRootPanel;
@@ -55,8 +62,26 @@ public final class ValidatorPanel extends JPanel implements Disposable {
   private JPanel mySouthPanel;
   private JBLabel myValidationLabel;
 
+  @NotNull private final Executor myBackgroundExecutor;
+  @NotNull private final Executor myUiExecutor;
+
   public ValidatorPanel(@NotNull Disposable parentDisposable, @NotNull JComponent innerPanel) {
+    this(parentDisposable, innerPanel, PooledThreadExecutor.INSTANCE,
+         runnable -> ApplicationManager.getApplication().invokeLater(runnable, ModalityState.any()));
+  }
+
+  /**
+   * @param backgroundExecutor runs the validators registered with {@link #registerBackgroundValidator}
+   * @param uiExecutor         applies their results back on the UI thread
+   */
+  @VisibleForTesting
+  ValidatorPanel(@NotNull Disposable parentDisposable,
+                 @NotNull JComponent innerPanel,
+                 @NotNull Executor backgroundExecutor,
+                 @NotNull Executor uiExecutor) {
     super(new BorderLayout());
+    myBackgroundExecutor = backgroundExecutor;
+    myUiExecutor = uiExecutor;
 
     add(myRootPanel);
     myRootPanel.add(innerPanel);
@@ -81,16 +106,53 @@ public final class ValidatorPanel extends JPanel implements Disposable {
   public <T> void registerValidator(@NotNull ObservableValue<T> value, @NotNull Validator<T> validator) {
     int index = myResults.size();
     myResults.add(Validator.Result.OK);
+    myPendingValidations.add(null);
+    myListeners.listenAndFire(value, sender -> setResult(index, validator.validate(value.get())));
+  }
+
+  /**
+   * Like {@link #registerValidator(ObservableValue, Validator)}, but for validators that are too
+   * expensive to run on the UI thread (e.g. ones that hit the disk or the network). The validator
+   * is run on a pooled thread with a snapshot of the value, and its result is applied back on the
+   * UI thread. If the value changes again before validation finishes, the pending validation is
+   * cancelled and its result is discarded. Until then, the previous result stays in effect.
+   *
+   * Validators registered this way should be thread-safe and should not read other UI state.
+   */
+  public <T> void registerBackgroundValidator(@NotNull ObservableValue<T> value, @NotNull Validator<T> validator) {
+    int index = myResults.size();
+    myResults.add(Validator.Result.OK);
+    myPendingValidations.add(null);
     myListeners.listenAndFire(value, sender -> {
-      Validator.Result oldValue = myResults.get(index);
-      Validator.Result newValue = validator.validate(value.get());
-      if (!newValue.equals(oldValue)) {
-        myResults.set(index, newValue);
-        updateValidationLabel();
+      Future<?> pending = myPendingValidations.get(index);
+      if (pending != null) {
+        pending.cancel(true);
       }
+
+      T snapshot = value.get();
+      FutureTask<?>[] self = new FutureTask<?>[1];
+      self[0] = new FutureTask<>(() -> {
+        Validator.Result newValue = validator.validate(snapshot);
+        myUiExecutor.execute(() -> {
+          if (myPendingValidations.get(index) != self[0] || Disposer.isDisposed(this)) {
+            return; // Superseded by a newer validation, or no longer shown
+          }
+          myPendingValidations.set(index, null);
+          setResult(index, newValue);
+        });
+      }, null);
+      myPendingValidations.set(index, self[0]);
+      myBackgroundExecutor.execute(self[0]);
     });
   }
 
+  private void setResult(int index, @NotNull Validator.Result newValue) {
+    if (!newValue.equals(myResults.get(index))) {
+      myResults.set(index, newValue);
+      updateValidationLabel();
+    }
+  }
+
   /**
    * Registers a target observable boolean as a simple test which, if {@code false}, means
    * the {@code message} should be shown with the specified {@code severity}.
@@ -169,6 +231,11 @@ public final class ValidatorPanel extends JPanel implements Disposable {
   @Override
   public void dispose() {
     myListeners.releaseAll();
+    for (Future<?> pending : myPendingValidations) {
+      if (pending != null) {
+        pending.cancel(true);
+      }
+    }
   }
 
   @VisibleForTesting
@@ -22,6 +22,10 @@ import com.google.common.truth.Truth.assertThat
 import org.junit.Before
 import org.junit.Test
 import java.awt.Dimension
+import java.awt.Graphics2D
+import java.awt.Point
+import java.awt.geom.Rectangle2D
+import java.io.ByteArrayOutputStream
 
 class HTreeChartTest {
   private lateinit var myUi: FakeUi
@@ -300,6 +304,74 @@ class HTreeChartTest {
     assertThat(myRange.max).isWithin(EPSILON).of(100.0)
   }
 
+  @Test
+  fun testSubPixelNodesAreMergedAndTheirChildrenSkipped() {
+    val renderer = RecordingRenderer()
+    val chart = createWideTreeChart(renderer)
+    myUi = FakeUi(chart)
+    myUi.render(ByteArrayOutputStream())
+
+    // Root, "a", "b", and the 100 children of "b" merged into 50 rectangles (2 per pixel), without any of their children
+    assertThat(renderer.renderedNodes.count { it.depth == 2 }).isEqualTo(50)
+    assertThat(renderer.renderedNodes.count { it.depth == 3 }).isEqualTo(0)
+    assertThat(renderer.renderedNodes.size).isEqualTo(53)
+  }
+
+  @Test
+  fun testGetNodeAt() {
+    val renderer = RecordingRenderer()
+    val chart = createWideTreeChart(renderer)
+    myUi = FakeUi(chart)
+    myUi.render(ByteArrayOutputStream())
+
+    val rowHeight = chart.getFontMetrics(chart.font).height + 2
+    assertThat(chart.getNodeAt(Point(20, 1))?.data).isEqualTo("root")
+    assertThat(chart.getNodeAt(Point(20, rowHeight + 1))?.data).isEqualTo("a")
+    assertThat(chart.getNodeAt(Point(70, rowHeight + 1))?.data).isEqualTo("b")
+    // Between "a" and "b"
+    assertThat(chart.getNodeAt(Point(45, rowHeight + 1))).isNull()
+    // Two tiny nodes per pixel, the first of each pair represents the pair
+    assertThat(chart.getNodeAt(Point(60, 2 * rowHeight + 1))?.data).isEqualTo("b20")
+    // Below the deepest row
+    assertThat(chart.getNodeAt(Point(60, 4 * rowHeight + 1))).isNull()
+  }
+
+  /**
+   * Returns a top-down chart, 100 pixels wide, of a tree where the root and its children "a" and "b" are many pixels
+   * wide, and the 100 children of "b" are each half a pixel wide and have a child of their own.
+   */
+  private fun createWideTreeChart(renderer: HRenderer<DefaultHNode<String>>): HTreeChart<DefaultHNode<String>> {
+    val root = DefaultHNode("root", 0, 10000)
+    val a = DefaultHNode("a", 0, 4000)
+    val b = DefaultHNode("b", 5000, 10000)
+    a.depth = 1
+    b.depth = 1
+    root.addChild(a)
+    root.addChild(b)
+    for (i in 0 until 100) {
+      val child = DefaultHNode("b$i", 5000L + i * 50, 5000L + (i + 1) * 50)
+      child.depth = 2
+      val grandchild = DefaultHNode("b$i-child", child.start, child.end)
+      grandchild.depth = 3
+      child.addChild(grandchild)
+      b.addChild(child)
+    }
+
+    val chart = HTreeChart<DefaultHNode<String>>(null, Range(0.0, 10000.0), HTreeChart.Orientation.TOP_DOWN)
+    chart.setHRenderer(renderer)
+    chart.setHTree(root)
+    chart.size = Dimension(100, 200)
+    return chart
+  }
+
+  private class RecordingRenderer : HRenderer<DefaultHNode<String>> {
+    val renderedNodes = mutableListOf<DefaultHNode<String>>()
+
+    override fun render(g: Graphics2D, node: DefaultHNode<String>, drawingArea: Rectangle2D, isFocused: Boolean) {
+      renderedNodes.add(node)
+    }
+  }
+
   companion object {
     private const val EPSILON = 1e-3
   }
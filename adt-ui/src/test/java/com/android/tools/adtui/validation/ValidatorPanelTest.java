@@ -26,6 +26,9 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -141,6 +144,54 @@ public class ValidatorPanelTest {
     });
   }
 
+  @Test
+  public void registerBackgroundValidatorAppliesLatestResult() {
+    // Background validations are queued and run by hand, so the test controls when each one completes.
+    Queue<Runnable> backgroundTasks = new ArrayDeque<>();
+    Disposable disposable = Disposer.newDisposable();
+    try {
+      ValidatorPanel panel = new ValidatorPanel(disposable, new JPanel(), backgroundTasks::add, Runnable::run);
+      IntProperty shouldBePositive = new IntValueProperty(0);
+      AtomicInteger validations = new AtomicInteger();
+
+      panel.registerBackgroundValidator(shouldBePositive, value -> {
+        validations.incrementAndGet();
+        return value >= 0 ? Validator.Result.OK : new Validator.Result(Validator.Severity.ERROR, "Negative value: " + value);
+      });
+      assertThat(backgroundTasks).hasSize(1);
+      backgroundTasks.remove().run();
+      assertThat(panel.hasErrors().get()).isFalse();
+
+      // Nothing changes until the validation has run
+      shouldBePositive.set(-100);
+      assertThat(panel.hasErrors().get()).isFalse();
+      backgroundTasks.remove().run();
+      assertThat(panel.hasErrors().get()).isTrue();
+      assertThat(panel.getValidationLabel().getText()).isEqualTo("Negative value: -100");
+
+      // A validation superseded before it starts is cancelled, so only the latest value is validated
+      shouldBePositive.set(-1);
+      shouldBePositive.set(100);
+      assertThat(backgroundTasks).hasSize(2);
+      backgroundTasks.remove().run();
+      assertThat(validations.get()).isEqualTo(2);
+      assertThat(panel.hasErrors().get()).isTrue();
+      backgroundTasks.remove().run();
+      assertThat(validations.get()).isEqualTo(3);
+      assertThat(panel.hasErrors().get()).isFalse();
+      assertThatNoMessageIsVisible(panel);
+
+      // Pending validations are cancelled when the panel goes away
+      shouldBePositive.set(-5);
+      Disposer.dispose(disposable);
+      backgroundTasks.remove().run();
+      assertThat(validations.get()).isEqualTo(3);
+    }
+    finally {
+      Disposer.dispose(disposable);
+    }
+  }
+
   @Test
   public void hasErrorsOnlyTrueIfErrorIsFound() {
     createPanel(panel -> {
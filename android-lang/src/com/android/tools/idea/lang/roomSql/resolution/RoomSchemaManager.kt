@@ -25,6 +25,7 @@ import com.intellij.psi.search.searches.AnnotatedElementsSearch
 import com.intellij.psi.util.CachedValueProvider
 import com.intellij.psi.util.CachedValuesManager
 import com.intellij.psi.util.PsiModificationTracker
+import com.intellij.psi.util.PsiTreeUtil
 import com.intellij.psi.util.PsiUtil
 
 private val LOG = Logger.getInstance(RoomSchemaManager::class.java)
@@ -48,7 +49,12 @@ class RoomSchemaManager(val project: Project) {
   private val constantEvaluationHelper = JavaPsiFacade.getInstance(project).constantEvaluationHelper
   private val pointerManager = SmartPointerManager.getInstance(project)
 
-  /** Builds the schema using IJ indexes. */
+  /**
+   * Builds the schema using IJ indexes.
+   *
+   * Only the annotation index queries are re-run here. Entities and databases are cached per class by [getEntity] and
+   * [getDatabase], so a change to one class does not cause the columns of every other entity to be recomputed.
+   */
   private fun buildSchema(psiFile: PsiFile): RoomSchema? {
     LOG.debug("Recalculating Room schema for file ", psiFile)
     val scope = ResolveScopeManager.getInstance(project).getResolveScope(psiFile)
@@ -59,28 +65,59 @@ class RoomSchemaManager(val project: Project) {
     val daoAnnotation = psiFacade.findClass(DAO_ANNOTATION_NAME, scope) ?: return annotationNotFound("Dao", psiFile)
 
     val entities = AnnotatedElementsSearch.searchPsiClasses(entityAnnotation, scope)
-        .mapNotNullTo(HashSet()) { this.createEntity(it) }
+        .mapNotNullTo(HashSet()) { getEntity(it) }
     val databases = AnnotatedElementsSearch.searchPsiClasses(databaseAnnotation, scope)
-        .mapNotNullTo(HashSet()) { this.createDatabase(it, pointerManager) }
+        .mapNotNullTo(HashSet()) { getDatabase(it) }
     val daos = AnnotatedElementsSearch.searchPsiClasses(daoAnnotation, scope)
         .mapTo(HashSet()) { Dao(pointerManager.createSmartPsiElementPointer(it)) }
 
     return RoomSchema(databases, entities, daos)
   }
 
-  private fun createEntity(psiClass: PsiClass): Entity? {
+  /**
+   * Returns the [Entity] defined by [psiClass], cached in the class.
+   *
+   * The entity is recomputed only when one of the files it was computed from changes: the class itself, its
+   * superclasses, the types of `@Embedded` fields and the classes of constants used in Room annotations.
+   */
+  private fun getEntity(psiClass: PsiClass): Entity? = CachedValuesManager.getCachedValue(psiClass, CachedValueProvider {
+    val dependencies = Dependencies()
+    CachedValueProvider.Result(createEntity(psiClass, dependencies), *dependencies.toArray())
+  })
+
+  /**
+   * Returns the [RoomDatabase] defined by [psiClass], cached in the class.
+   *
+   * The database is recomputed when its file changes or, if it lists any entities, after a change to java structure,
+   * since the entity classes may be added, moved or renamed in other files.
+   */
+  private fun getDatabase(psiClass: PsiClass): RoomDatabase? = CachedValuesManager.getCachedValue(psiClass, CachedValueProvider {
+    val dependencies = Dependencies()
+    dependencies.add(psiClass)
+    CachedValueProvider.Result(createDatabase(psiClass, pointerManager, dependencies), *dependencies.toArray())
+  })
+
+  private fun createEntity(psiClass: PsiClass, dependencies: Dependencies): Entity? {
     val (tableName, tableNameElement) = getNameAndNameElement(
-        psiClass, annotationName = ENTITY_ANNOTATION_NAME, annotationAttributeName = "tableName") ?: return null
+        psiClass, annotationName = ENTITY_ANNOTATION_NAME, annotationAttributeName = "tableName", dependencies = dependencies)
+        ?: return null
 
     return Entity(
         pointerManager.createSmartPsiElementPointer(psiClass),
         tableName,
         pointerManager.createSmartPsiElementPointer(tableNameElement),
-        findColumns(psiClass).toSet()
+        findColumns(psiClass, dependencies).toSet()
     )
   }
 
-  private fun findColumns(psiClass: PsiClass, namePrefix: String = ""): Sequence<EntityColumn> {
+  private fun findColumns(psiClass: PsiClass, dependencies: Dependencies, namePrefix: String = ""): Sequence<EntityColumn> {
+    generateSequence(psiClass) { it.superClass }.forEach { currentClass ->
+      dependencies.add(currentClass)
+      if (currentClass.extendsList?.referenceElements?.any { it.resolve() == null } == true) {
+        dependencies.addJavaStructureDependency()
+      }
+    }
+
     return psiClass.allFields
         .asSequence()
         .filterNot { it.modifierList?.hasModifierProperty(PsiModifier.STATIC) == true }
@@ -88,12 +125,13 @@ class RoomSchemaManager(val project: Project) {
         .flatMap{ psiField ->
           val embeddedAnnotation = psiField.modifierList?.findAnnotation(EMBEDDED_ANNOTATION_NAME)
           if (embeddedAnnotation != null) {
-            findEmbeddedFields(psiField, embeddedAnnotation, namePrefix)
+            findEmbeddedFields(psiField, embeddedAnnotation, namePrefix, dependencies)
           } else {
             val thisField = getNameAndNameElement(
                 psiField,
                 annotationName = COLUMN_INFO_ANNOTATION_NAME,
-                annotationAttributeName = "name")
+                annotationAttributeName = "name",
+                dependencies = dependencies)
                 ?.let { (columnName, columnNameElement) ->
                   EntityColumn(
                       pointerManager.createSmartPsiElementPointer(psiField),
@@ -107,24 +145,38 @@ class RoomSchemaManager(val project: Project) {
         }
   }
 
-  private fun findEmbeddedFields(embeddedField: PsiField, embeddedAnnotation: PsiAnnotation, currentPrefix: String): Sequence<EntityColumn> {
+  private fun findEmbeddedFields(
+      embeddedField: PsiField,
+      embeddedAnnotation: PsiAnnotation,
+      currentPrefix: String,
+      dependencies: Dependencies
+  ): Sequence<EntityColumn> {
     val newPrefix = embeddedAnnotation.findAttributeValue("prefix")
+        ?.also(dependencies::addReferencedClasses)
         ?.let { constantEvaluationHelper.computeConstantExpression(it) }
         ?.toString()
         ?: ""
 
-    val embeddedClass = PsiUtil.resolveClassInClassTypeOnly(embeddedField.type) ?: return emptySequence()
+    val embeddedClass = PsiUtil.resolveClassInClassTypeOnly(embeddedField.type) ?: run {
+      dependencies.addJavaStructureDependency()
+      return emptySequence()
+    }
 
-    return findColumns(embeddedClass, currentPrefix + newPrefix)
+    return findColumns(embeddedClass, dependencies, currentPrefix + newPrefix)
   }
 
-  private fun createDatabase(psiClass: PsiClass, pointerManager: SmartPointerManager): RoomDatabase? {
+  private fun createDatabase(
+      psiClass: PsiClass,
+      pointerManager: SmartPointerManager,
+      dependencies: Dependencies
+  ): RoomDatabase? {
     val entitiesElementValue: HashSet<PsiClassPointer>? =
         psiClass.modifierList
             ?.findAnnotation(DATABASE_ANNOTATION_NAME)
             ?.findDeclaredAttributeValue("entities")
             ?.let { it as? PsiArrayInitializerMemberValue }
             ?.initializers
+            ?.also { if (it.isNotEmpty()) dependencies.addJavaStructureDependency() }
             ?.mapNotNullTo(HashSet()) {
               val classObjectAccessExpression = it as? PsiClassObjectAccessExpression ?: return@mapNotNullTo null
               PsiUtil.resolveClassInClassTypeOnly(classObjectAccessExpression.operand.type)
@@ -139,12 +191,18 @@ class RoomSchemaManager(val project: Project) {
     return null
   }
 
-  private fun <T> getNameAndNameElement(element: T, annotationName: String, annotationAttributeName: String): Pair<String, PsiElement>?
+  private fun <T> getNameAndNameElement(
+      element: T,
+      annotationName: String,
+      annotationAttributeName: String,
+      dependencies: Dependencies
+  ): Pair<String, PsiElement>?
       where T : PsiModifierListOwner,
             T : PsiNamedElement {
     val nameAttribute = element.modifierList
         ?.findAnnotation(annotationName)
         ?.findDeclaredAttributeValue(annotationAttributeName)
+        ?.also(dependencies::addReferencedClasses)
 
     val name = nameAttribute
         ?.let { constantEvaluationHelper.computeConstantExpression(it) }
@@ -155,3 +213,41 @@ class RoomSchemaManager(val project: Project) {
     return Pair(name, nameAttribute ?: element)
   }
 }
+
+/**
+ * Files whose modification invalidates a cached [Entity] or [RoomDatabase].
+ *
+ * Elements without a containing file (e.g. light classes) and references that cannot be resolved yet make the value
+ * depend on [PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT] instead, since the class they point to may be
+ * declared in a file that is not a dependency.
+ */
+private class Dependencies {
+  private val dependencies = HashSet<Any>()
+
+  fun add(element: PsiElement) {
+    dependencies.add(element.containingFile ?: PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT)
+  }
+
+  /** Invalidates the value after a change to java structure, e.g. when a reference used to compute it did not resolve. */
+  fun addJavaStructureDependency() {
+    dependencies.add(PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT)
+  }
+
+  /** Adds the classes declaring constants referenced from an annotation value, e.g. `@Entity(tableName = Tables.USERS)`. */
+  fun addReferencedClasses(annotationValue: PsiAnnotationMemberValue) {
+    add(annotationValue)
+    PsiTreeUtil.processElements(annotationValue) { element ->
+      if (element is PsiReferenceExpression) {
+        val resolved = element.resolve()
+        when (resolved) {
+          null -> addJavaStructureDependency()
+          is PsiClass -> add(resolved)
+          is PsiMember -> resolved.containingClass?.let(this::add)
+        }
+      }
+      true
+    }
+  }
+
+  fun toArray(): Array<Any> = dependencies.toTypedArray()
+}
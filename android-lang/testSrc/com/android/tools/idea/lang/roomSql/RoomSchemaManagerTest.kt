@@ -208,6 +208,53 @@ class RoomSchemaManagerTest : RoomLightTestCase() {
             daos = emptySet()))
   }
 
+  fun testDatabases_entityDeclaredLater() {
+    val database = myFixture.addClass(
+        """
+        package com.example;
+
+        import android.arch.persistence.room.Database;
+
+        @Database(entities = {User.class}, version = 1)
+        public class AppDatabase {}
+        """.trimIndent())
+
+    assertThat(getSchema(database).databases.single().entities).isEmpty()
+
+    myFixture.addRoomEntity("com.example.User")
+
+    assertThat(getSchema(database).databases.single().entities).containsExactly(myFixture.classPointer("com.example.User"))
+  }
+
+  fun testColums_embeddedClassDeclaredLater() {
+    val user = myFixture.addClass(
+        """
+        package com.example;
+
+        import android.arch.persistence.room.Embedded;
+        import android.arch.persistence.room.Entity;
+
+        @Entity
+        public class User {
+          private String name;
+          @Embedded private Address address;
+        }
+        """.trimIndent())
+
+    assertThat(getSchema(user).entities.single().columns.map { it.name }).containsExactly("name")
+
+    myFixture.addClass(
+        """
+        package com.example;
+
+        public class Address {
+          private String street;
+        }
+        """.trimIndent())
+
+    assertThat(getSchema(user).entities.single().columns.map { it.name }).containsExactly("name", "street")
+  }
+
   fun testDaos() {
     myFixture.addRoomEntity("com.example.User")
 
@@ -350,4 +397,53 @@ class RoomSchemaManagerTest : RoomLightTestCase() {
             databases = emptySet(),
             daos = emptySet()))
   }
+
+  fun testEntities_unrelatedChangeKeepsEntity() {
+    val user = myFixture.addRoomEntity("com.example.User", "name" ofType "String")
+    val other = myFixture.addClass(
+        """
+        package com.example;
+
+        public class Other {}
+        """.trimIndent())
+
+    val entity = getSchema(user).entities.single()
+
+    myFixture.openFileInEditor(other.containingFile.virtualFile)
+    myFixture.editor.caretModel.moveToOffset(other.containingFile.text.indexOf('{') + 1)
+    myFixture.type("int field;")
+    PsiDocumentManager.getInstance(project).commitAllDocuments()
+
+    assertThat(getSchema(user).entities.single()).isSameAs(entity)
+  }
+
+  fun testColums_inheritance_baseClassChanged() {
+    val base = myFixture.addClass(
+        """
+        package com.example;
+
+        public abstract class NamedBase {
+          private String name;
+        }
+        """.trimIndent())
+
+    val user = myFixture.addClass(
+        """
+        package com.example;
+
+        import android.arch.persistence.room.Entity;
+
+        @Entity
+        public class User extends NamedBase {}
+        """.trimIndent())
+
+    assertThat(getSchema(user).entities.single().columns.map { it.name }).containsExactly("name")
+
+    myFixture.openFileInEditor(base.containingFile.virtualFile)
+    myFixture.editor.caretModel.moveToOffset(myFixture.editor.document.getLineEndOffset(3))
+    myFixture.type("private int age;")
+    PsiDocumentManager.getInstance(project).commitAllDocuments()
+
+    assertThat(getSchema(user).entities.single().columns.map { it.name }).containsExactly("name", "age")
+  }
 }
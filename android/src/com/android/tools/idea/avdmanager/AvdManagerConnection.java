@@ -284,8 +284,8 @@ public class AvdManagerConnection {
   }
 
   /**
-   * @param forceRefresh if true the manager will read the AVD list from disk. If false, the cached version in memory
-   *                     is returned if available
+   * @param forceRefresh if true the manager will reload the AVDs which changed on disk (see {@link AvdRegistry}). If false, the cached
+   *                     version in memory is returned if available
    * @return a list of AVDs currently present on the system.
    */
   @NotNull
@@ -293,9 +293,11 @@ public class AvdManagerConnection {
     if (!initIfNecessary()) {
       return ImmutableList.of();
     }
+    assert mySdkHandler != null;
+    AvdRegistry registry = AvdRegistry.getInstance(myAvdManager, mySdkHandler);
     if (forceRefresh) {
       try {
-        myAvdManager.reloadAvds(SDK_LOG);
+        registry.refresh(SDK_LOG);
       }
       catch (AndroidLocation.AndroidLocationException e) {
         IJ_LOG.error("Could not find Android SDK!", e);
@@ -306,6 +308,8 @@ public class AvdManagerConnection {
     for (AvdInfo info : avdInfos) {
       if (info.getStatus() == AvdInfo.AvdStatus.ERROR_DEVICE_CHANGED) {
         updateDeviceChanged(info);
+        // Make sure the AVD is reloaded, even if the config.ini file was rewritten without changing its stamp.
+        registry.invalidate(info);
         needsRefresh = true;
       }
     }
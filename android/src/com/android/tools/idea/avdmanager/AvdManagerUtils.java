@@ -29,10 +29,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class AvdManagerUtils {
-  public static boolean reloadAvds(@NotNull AvdManager manager, @NotNull Project project) {
+  /**
+   * Reloads the AVDs of the given manager which changed on disk, showing an error dialog if they can't be loaded.
+   */
+  public static boolean reloadAvds(@NotNull AvdManager manager, @NotNull AndroidFacet facet) {
+    Project project = facet.getModule().getProject();
     try {
       MessageBuildingSdkLog log = new MessageBuildingSdkLog();
-      manager.reloadAvds(log);
+      AvdRegistry.getInstance(manager, AndroidSdkData.getSdkHolder(facet)).refresh(log);
       if (!log.getErrorMessage().isEmpty()) {
         String message = AndroidBundle.message("cant.load.avds.error.prefix") + ' ' + log.getErrorMessage();
         Messages.showErrorDialog(project, message, CommonBundle.getErrorTitle());
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.avdmanager;
+
+import com.android.prefs.AndroidLocation;
+import com.android.repository.io.FileOp;
+import com.android.sdklib.internal.avd.AvdInfo;
+import com.android.sdklib.internal.avd.AvdManager;
+import com.android.sdklib.repository.AndroidSdkHandler;
+import com.android.utils.ILogger;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Keeps the AVDs loaded by an {@link AvdManager} up to date with the AVD folder, without re-reading every AVD each time.
+ *
+ * <p>{@link AvdManager#reloadAvds(ILogger)} parses the .ini file and the config.ini file of every AVD, and checks its system image
+ * and skin. Instead, the registry remembers the stamps of the files each AVD was loaded from, and only reloads the AVDs whose files
+ * changed. The stamps include the system image and skin folders of the AVD, so its status is updated once the SDK packages it needs
+ * are installed or removed. Adding or removing an AVD still reloads all of them, since that's the only way the manager picks those
+ * up. There is one registry per manager, so all the AVD lists and pickers share the same parsed AVDs.
+ */
+final class AvdRegistry {
+  private static final String INI_EXTENSION = ".ini";
+  private static final String CONFIG_INI = "config.ini";
+
+  private static final Map<AvdManager, AvdRegistry> ourRegistries = ContainerUtil.createWeakMap();
+
+  /**
+   * Weak, as {@link #ourRegistries} only lets go of the registry once its manager is collected.
+   */
+  @NotNull private final WeakReference<AvdManager> myManager;
+  @NotNull private final FileOp myFileOp;
+  @Nullable private final File mySdkLocation;
+
+  /**
+   * The stamps of the .ini files in the AVD folder, or {@code null} if the AVDs haven't been loaded through this registry yet.
+   */
+  @Nullable private Map<File, Long> myIniStamps;
+  @NotNull private final Map<String, Map<File, Long>> myAvdStamps = new HashMap<>();
+
+  @NotNull
+  static synchronized AvdRegistry getInstance(@NotNull AvdManager manager, @NotNull AndroidSdkHandler handler) {
+    return ourRegistries.computeIfAbsent(manager, m -> new AvdRegistry(m, handler.getFileOp(), handler.getLocation()));
+  }
+
+  private AvdRegistry(@NotNull AvdManager manager, @NotNull FileOp fileOp, @Nullable File sdkLocation) {
+    myManager = new WeakReference<>(manager);
+    myFileOp = fileOp;
+    mySdkLocation = sdkLocation;
+  }
+
+  /**
+   * Reloads the AVDs which changed on disk since they were last loaded.
+   */
+  synchronized void refresh(@NotNull ILogger log) throws AndroidLocation.AndroidLocationException {
+    AvdManager manager = myManager.get();
+    if (manager == null) {
+      return;
+    }
+    File avdFolder = manager.getBaseAvdFolder();
+    Map<File, Long> iniStamps = getIniStamps(avdFolder);
+    if (myIniStamps == null || !myIniStamps.keySet().equals(iniStamps.keySet())) {
+      manager.reloadAvds(log);
+      myAvdStamps.clear();
+      for (AvdInfo info : manager.getAllAvds()) {
+        myAvdStamps.put(info.getName(), getAvdStamps(info));
+      }
+      myIniStamps = iniStamps;
+      return;
+    }
+
+    for (AvdInfo info : manager.getAllAvds()) {
+      File iniFile = new File(avdFolder, info.getName() + INI_EXTENSION);
+      Map<File, Long> avdStamps = getAvdStamps(info);
+      if (!Objects.equals(iniStamps.get(iniFile), myIniStamps.get(iniFile)) || !avdStamps.equals(myAvdStamps.get(info.getName()))) {
+        AvdInfo reloaded = manager.reloadAvd(info, log);
+        myAvdStamps.put(reloaded.getName(), getAvdStamps(reloaded));
+      }
+    }
+    myIniStamps = iniStamps;
+  }
+
+  /**
+   * Makes the next {@link #refresh(ILogger)} reload the given AVD, even if its files look unchanged. Used after the AVD is modified
+   * within the same tick of the file system's clock.
+   */
+  synchronized void invalidate(@NotNull AvdInfo info) {
+    myAvdStamps.remove(info.getName());
+  }
+
+  @NotNull
+  private Map<File, Long> getIniStamps(@NotNull File avdFolder) {
+    Map<File, Long> stamps = new HashMap<>();
+    for (File file : myFileOp.listFiles(avdFolder)) {
+      if (file.getName().endsWith(INI_EXTENSION) && myFileOp.isFile(file)) {
+        stamps.put(file, getStamp(file));
+      }
+    }
+    return stamps;
+  }
+
+  @NotNull
+  private Map<File, Long> getAvdStamps(@NotNull AvdInfo info) {
+    Map<File, Long> stamps = new HashMap<>();
+    File configFile = new File(info.getDataFolderPath(), CONFIG_INI);
+    stamps.put(configFile, getStamp(configFile));
+    addSdkFolderStamp(stamps, info.getProperties().get(AvdManager.AVD_INI_IMAGES_1));
+    addSdkFolderStamp(stamps, info.getProperties().get(AvdManager.AVD_INI_SKIN_PATH));
+    return stamps;
+  }
+
+  private void addSdkFolderStamp(@NotNull Map<File, Long> stamps, @Nullable String path) {
+    if (path == null || path.isEmpty()) {
+      return;
+    }
+    File folder = new File(path);
+    if (!folder.isAbsolute()) {
+      if (mySdkLocation == null) {
+        return;
+      }
+      folder = new File(mySdkLocation, path);
+    }
+    stamps.put(folder, getStamp(folder));
+  }
+
+  private long getStamp(@NotNull File file) {
+    if (!myFileOp.exists(file)) {
+      return -1;
+    }
+    return 31 * myFileOp.lastModified(file) + (myFileOp.isFile(file) ? myFileOp.length(file) : 0);
+  }
+}
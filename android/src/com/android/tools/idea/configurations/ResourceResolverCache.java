@@ -46,9 +46,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
 
 import static com.android.SdkConstants.DOT_PNG;
 import static com.android.SdkConstants.PREFIX_RESOURCE_REF;
@@ -80,9 +78,22 @@ public class ResourceResolverCache {
   @VisibleForTesting
   final Map<String, Map<ResourceType, ResourceValueMap>> myFrameworkResourceMap;
 
+  /** The full configurations of the cached configured app resources, by the same key, used to update them on edits */
+  private final Map<String, FolderConfiguration> myAppResourceConfigurations;
+
   /** The generation timestamp of our most recently cached app resources, used to invalidate on edits */
   private long myCachedGeneration;
 
+  /** The generation timestamps of each resource type in our cached app resources, used to only update the edited types */
+  private final Map<ResourceType, Long> myCachedTypeGenerations = new EnumMap<>(ResourceType.class);
+
+  /**
+   * The ids declared by all the libraries, merged in library order, and the list of libraries they were computed from. Looking up an id
+   * used to go through every library.
+   */
+  private Map<String, Integer> myLibraryIds;
+  private List<FileResourceRepository> myLibraryIdsSource;
+
   /** Map from API level to framework resources */
   private SparseArray<AndroidTargetData> myFrameworkResources = new SparseArray<>();
 
@@ -97,6 +108,7 @@ public class ResourceResolverCache {
     myManager = manager;
     myResolverMap = Maps.newHashMap();
     myAppResourceMap = Maps.newHashMap();
+    myAppResourceConfigurations = Maps.newHashMap();
     myFrameworkResourceMap = Maps.newHashMap();
   }
 
@@ -110,14 +122,12 @@ public class ResourceResolverCache {
       return ResourceResolver.create(Collections.emptyMap(), Collections.emptyMap(), null, false);
     }
     if (myCachedGeneration != resources.getModificationCount()) {
-      myResolverMap.clear();
-      myAppResourceMap.clear();
+      // Store the modification counts as soon as possible. This ensures that if there is any modification of resources while the
+      // resolver is being created, it will be cleared subsequently.
+      myCachedGeneration = resources.getModificationCount();
+      updateAppResources(resources);
     }
 
-    // Store the modification count as soon as possible. This ensures that if there is any modification of resources while the
-    // resolver is being created, it will be cleared subsequently.
-    myCachedGeneration = resources.getModificationCount();
-
     // When looking up the configured project and framework resources, the theme doesn't matter, so we look up only
     // by the configuration qualifiers; for example, here's a sample key:
     // -ldltr-sw384dp-w384dp-h640dp-normal-notlong-port-notnight-xhdpi-finger-keyssoft-nokeys-navhidden-nonav-1280x768-v17
@@ -140,25 +150,14 @@ public class ResourceResolverCache {
       if (target == null) {
         frameworkResources = Collections.emptyMap();
       } else {
-        ResourceRepository frameworkRes = getFrameworkResources(fullConfiguration, target);
-        if (frameworkRes == null) {
-          frameworkResources = Collections.emptyMap();
-        }
-        else {
-          // get the framework resource values based on the current config
-          frameworkResources = myFrameworkResourceMap.get(configurationKey);
+        // get the framework resource values based on the current config
+        frameworkResources = myFrameworkResourceMap.get(configurationKey);
+        if (frameworkResources == null) {
+          frameworkResources = getConfiguredFrameworkResources(fullConfiguration, target);
           if (frameworkResources == null) {
-            frameworkResources = frameworkRes.getConfiguredResources(fullConfiguration);
-
-            // Fix up assets. We're only doing this in limited cases for now; specifically Froyo (since the Gingerbread
-            // assets replaced the look for the same theme; that doesn't happen to the same extend for Holo)
-            if (target instanceof CompatibilityRenderTarget && target.getVersion().getApiLevel() == 8) {
-              IAndroidTarget realTarget = ((CompatibilityRenderTarget)target).getRealTarget();
-              if (realTarget != null) {
-                replaceDrawableBitmaps(frameworkResources, target, realTarget);
-              }
-            }
-
+            frameworkResources = Collections.emptyMap();
+          }
+          else {
             myFrameworkResourceMap.put(configurationKey, frameworkResources);
           }
         }
@@ -170,6 +169,7 @@ public class ResourceResolverCache {
         // Get the project resource values based on the current config.
         configuredAppRes = ReadAction.compute(() -> resources.getConfiguredResources(fullConfiguration));
         myAppResourceMap.put(configurationKey, configuredAppRes);
+        myAppResourceConfigurations.put(configurationKey, FolderConfiguration.copyOf(fullConfiguration));
       }
 
       // Resource Resolver
@@ -178,18 +178,11 @@ public class ResourceResolverCache {
       String themeName = ResourceHelper.styleToTheme(themeStyle);
       resolver = ResourceResolver.create(configuredAppRes, frameworkResources, themeName, isProjectTheme);
 
+      Map<String, Integer> libraryIds = getLibraryIds(resources);
       resolver.setLibrariesIdProvider(new RenderResources.ResourceIdProvider() {
         @Override
         public Integer getId(ResourceType resType, String resName) {
-          for (FileResourceRepository library : resources.getLibraries()) {
-            Integer id = library.getAllDeclaredIds().get(resName);
-
-            if (id != null) {
-              return id;
-            }
-          }
-
-          return null;
+          return libraryIds.get(resName);
         }
       });
 
@@ -210,6 +203,66 @@ public class ResourceResolverCache {
     return resolver;
   }
 
+  /**
+   * Brings the configured app resources up to date after an edit. Only the maps of the resource types which were modified since they
+   * were computed are configured again, so that editing a single value doesn't require configuring every resource of the app again,
+   * for every configuration. The resolvers are always recreated, since they precompute the style hierarchy and are expected to change
+   * when the resources do.
+   */
+  private void updateAppResources(@NotNull AppResourceRepository resources) {
+    myResolverMap.clear();
+
+    List<ResourceType> modifiedTypes = new ArrayList<>();
+    for (ResourceType type : ResourceType.values()) {
+      long generation = resources.getModificationCount(type);
+      Long cachedGeneration = myCachedTypeGenerations.put(type, generation);
+      if (cachedGeneration == null || cachedGeneration != generation) {
+        modifiedTypes.add(type);
+      }
+    }
+
+    if (modifiedTypes.size() == ResourceType.values().length) {
+      myAppResourceMap.clear();
+      myAppResourceConfigurations.clear();
+      return;
+    }
+
+    for (Map.Entry<String, Map<ResourceType, ResourceValueMap>> entry : myAppResourceMap.entrySet()) {
+      FolderConfiguration configuration = myAppResourceConfigurations.get(entry.getKey());
+      // The maps may still be used by resolvers handed out before the edit, so they are copied rather than updated in place.
+      Map<ResourceType, ResourceValueMap> configuredAppRes = new EnumMap<>(ResourceType.class);
+      configuredAppRes.putAll(entry.getValue());
+      ReadAction.run(() -> {
+        for (ResourceType type : modifiedTypes) {
+          configuredAppRes.put(type, resources.getConfiguredResources(type, configuration));
+        }
+      });
+      entry.setValue(configuredAppRes);
+    }
+  }
+
+  /**
+   * Returns the ids declared by the libraries of the given app resources, recomputing them only when the libraries change.
+   */
+  @NotNull
+  private Map<String, Integer> getLibraryIds(@NotNull AppResourceRepository resources) {
+    List<FileResourceRepository> libraries = resources.getLibraries();
+    if (myLibraryIds == null || myLibraryIdsSource != libraries) {
+      Map<String, Integer> libraryIds = new HashMap<>();
+      for (FileResourceRepository library : libraries) {
+        Map<String, Integer> declaredIds = library.getAllDeclaredIds();
+        if (declaredIds != null) {
+          for (Map.Entry<String, Integer> entry : declaredIds.entrySet()) {
+            libraryIds.putIfAbsent(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+      myLibraryIds = libraryIds;
+      myLibraryIdsSource = libraries;
+    }
+    return myLibraryIds;
+  }
+
   /**
    * Returns a {@link ResourceRepository} for the framework resources based on the current configuration selection.
    *
@@ -217,23 +270,50 @@ public class ResourceResolverCache {
    */
   @Nullable
   public ResourceRepository getFrameworkResources(@NotNull FolderConfiguration configuration, @NotNull IAndroidTarget target) {
-    int apiLevel = target.getVersion().getFeatureLevel();
+    AndroidTargetData targetData = getTargetData(target);
+    if (targetData == null) {
+      return null;
+    }
 
-    LocaleQualifier locale = configuration.getLocaleQualifier();
-    boolean needLocales = locale != null && !locale.hasFakeValue() || myManager.getLocale() != Locale.ANY;
+    try {
+      return targetData.getFrameworkResources(needsLocales(configuration));
+    }
+    catch (IOException e) {
+      LOG.error(e);
+    }
+    return null;
+  }
 
-    AndroidTargetData targetData = myFrameworkResources.get(apiLevel);
-    if (targetData == null) {
-      AndroidPlatform platform = AndroidPlatform.getInstance(myManager.getModule());
-      if (platform == null) {
+  /**
+   * Returns the framework resource values for the given configuration, or {@code null} if the framework resources are not found.
+   * Except for the simulated Froyo target, whose assets are fixed up, the values are shared with the other modules and projects
+   * using the same platform (see {@link AndroidTargetData#getConfiguredFrameworkResources}).
+   */
+  @Nullable
+  private Map<ResourceType, ResourceValueMap> getConfiguredFrameworkResources(@NotNull FolderConfiguration configuration,
+                                                                              @NotNull IAndroidTarget target) {
+    // Fix up assets. We're only doing this in limited cases for now; specifically Froyo (since the Gingerbread
+    // assets replaced the look for the same theme; that doesn't happen to the same extend for Holo)
+    if (target instanceof CompatibilityRenderTarget && target.getVersion().getApiLevel() == 8) {
+      ResourceRepository frameworkRes = getFrameworkResources(configuration, target);
+      if (frameworkRes == null) {
         return null;
       }
-      targetData = platform.getSdkData().getTargetData(target); // uses soft ref
-      myFrameworkResources.put(apiLevel, targetData);
+      Map<ResourceType, ResourceValueMap> frameworkResources = frameworkRes.getConfiguredResources(configuration);
+      IAndroidTarget realTarget = ((CompatibilityRenderTarget)target).getRealTarget();
+      if (realTarget != null) {
+        replaceDrawableBitmaps(frameworkResources, target, realTarget);
+      }
+      return frameworkResources;
+    }
+
+    AndroidTargetData targetData = getTargetData(target);
+    if (targetData == null) {
+      return null;
     }
 
     try {
-      return targetData.getFrameworkResources(needLocales);
+      return targetData.getConfiguredFrameworkResources(configuration, needsLocales(configuration));
     }
     catch (IOException e) {
       LOG.error(e);
@@ -241,6 +321,27 @@ public class ResourceResolverCache {
     return null;
   }
 
+  private boolean needsLocales(@NotNull FolderConfiguration configuration) {
+    LocaleQualifier locale = configuration.getLocaleQualifier();
+    return locale != null && !locale.hasFakeValue() || myManager.getLocale() != Locale.ANY;
+  }
+
+  @Nullable
+  private AndroidTargetData getTargetData(@NotNull IAndroidTarget target) {
+    int apiLevel = target.getVersion().getFeatureLevel();
+
+    AndroidTargetData targetData = myFrameworkResources.get(apiLevel);
+    if (targetData == null) {
+      AndroidPlatform platform = AndroidPlatform.getInstance(myManager.getModule());
+      if (platform == null) {
+        return null;
+      }
+      targetData = platform.getSdkData().getTargetData(target); // uses soft ref
+      myFrameworkResources.put(apiLevel, targetData);
+    }
+    return targetData;
+  }
+
   /**
    * Replaces drawable bitmaps with those from the real older target. This helps the simulated platform look more genuine,
    * since a lot of the look comes from the nine patch assets. For example, when used to simulate Froyo, the checkboxes
@@ -328,8 +429,12 @@ public class ResourceResolverCache {
 
   public void reset() {
     myCachedGeneration = 0;
+    myCachedTypeGenerations.clear();
     myAppResourceMap.clear();
+    myAppResourceConfigurations.clear();
     myResolverMap.clear();
+    myLibraryIds = null;
+    myLibraryIdsSource = null;
   }
 
   /**
@@ -350,6 +455,7 @@ public class ResourceResolverCache {
     if (myCustomConfigurationKey != null) {
       myFrameworkResourceMap.remove(myCustomConfigurationKey);
       myAppResourceMap.remove(myCustomConfigurationKey);
+      myAppResourceConfigurations.remove(myCustomConfigurationKey);
     }
     if (myCustomResolverKey != null) {
       myResolverMap.remove(myCustomResolverKey);
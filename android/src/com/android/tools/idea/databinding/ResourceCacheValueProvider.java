@@ -32,7 +32,7 @@ abstract public class ResourceCacheValueProvider<T> implements CachedValueProvid
     public long getModificationCount() {
       LocalResourceRepository moduleResources = ModuleResourceRepository.findExistingInstance(myFacet);
       // make sure it changes if facet's module resource availability changes
-      long version = moduleResources == null ? Integer.MIN_VALUE : moduleResources.getModificationCount();
+      long version = moduleResources == null ? Integer.MIN_VALUE : moduleResources.getDataBindingModificationCount();
       if (version != myLastVersion) {
         myLastVersion = version;
         myVersion ++;
@@ -17,26 +17,36 @@ package com.android.tools.idea.editors.layoutInspector;
 
 import com.android.layoutinspector.LayoutInspectorCaptureOptions;
 import com.android.layoutinspector.model.ViewNode;
+import com.google.common.io.ByteStreams;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+/**
+ * The view hierarchy and preview image of a layout inspector capture (.li) file.
+ *
+ * <p>The file is read as a stream instead of being loaded in memory as a whole. The bytes of the view hierarchy are read into their own
+ * array and parsed on a pooled thread, while the preview image is decoded straight from the file.
+ */
 public class LayoutFileData {
   @Nullable private final BufferedImage myBufferedImage;
   @Nullable private final ViewNode myNode;
 
   public LayoutFileData(@NotNull VirtualFile file) throws IOException {
-    byte[] previewBytes;
-
-    ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(file.contentsToByteArray()));
+    Future<ViewNode> node = null;
 
-    try {
+    try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(file.getInputStream()))) {
       // Parse options
       LayoutInspectorCaptureOptions options = new LayoutInspectorCaptureOptions();
       options.parse(input.readUTF());
@@ -44,20 +54,44 @@ public class LayoutFileData {
       // Parse view node
       byte[] nodeBytes = new byte[input.readInt()];
       input.readFully(nodeBytes);
-      myNode = ViewNode.parseFlatString(nodeBytes);
-      if (getNode() == null) {
-        throw new IOException("Error parsing view node");
-      }
+      node = ApplicationManager.getApplication().executeOnPooledThread(() -> ViewNode.parseFlatString(nodeBytes));
 
       // Preview image
-      previewBytes = new byte[input.readInt()];
-      input.readFully(previewBytes);
+      int previewLength = input.readInt();
+      myBufferedImage = readImage(ByteStreams.limit(input, previewLength));
     }
-    finally {
-      input.close();
+    catch (Throwable e) {
+      if (node != null) {
+        // Don't leave the view node being parsed for nothing.
+        node.cancel(true);
+      }
+      throw e;
+    }
+
+    myNode = getNode(node);
+    if (getNode() == null) {
+      throw new IOException("Error parsing view node");
     }
+  }
 
-    myBufferedImage = ImageIO.read(new ByteArrayInputStream(previewBytes));
+  @Nullable
+  private static BufferedImage readImage(@NotNull InputStream input) throws IOException {
+    // ImageIO.read(InputStream) caches the stream in a temporary file by default, which is much slower than caching it in memory.
+    return ImageIO.read(new MemoryCacheImageInputStream(input));
+  }
+
+  @Nullable
+  private static ViewNode getNode(@NotNull Future<ViewNode> node) throws IOException {
+    try {
+      return node.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while parsing view node", e);
+    }
+    catch (ExecutionException e) {
+      throw new IOException("Error parsing view node", e.getCause());
+    }
   }
 
   @Nullable
@@ -25,6 +25,8 @@ import com.intellij.util.containers.HashSet;
 import org.jetbrains.android.facet.AndroidFacet;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+
 final class AddKeyAction extends AnAction {
   private final StringResourceViewPanel myPanel;
 
@@ -59,9 +61,7 @@ final class AddKeyAction extends AnAction {
       return;
     }
 
-    WriteCommandAction.runWriteCommandAction(project, () -> {
-      StringPsiUtils.addString(file, key, dialog.getDefaultValue());
-      myPanel.reloadData();
-    });
+    WriteCommandAction.runWriteCommandAction(project, () -> StringPsiUtils.addString(file, key, dialog.getDefaultValue()));
+    myPanel.getTable().getModel().reloadKeys(Collections.singletonList(key));
   }
 }
@@ -34,6 +34,7 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -103,10 +104,9 @@ final class AddLocaleAction extends AnAction {
       return;
     }
 
-    WriteCommandAction.runWriteCommandAction(project, () -> {
-      StringPsiUtils.addString(file, key, resource.getDefaultValueAsString());
-      myPanel.reloadData();
-    });
+    WriteCommandAction.runWriteCommandAction(project, () -> StringPsiUtils.addString(file, key, resource.getDefaultValueAsString()));
+    // Only the key gets a value in the new locale; the new column is added along with it
+    myPanel.getTable().getModel().reloadKeys(Collections.singletonList(key));
   }
 
   @NotNull
@@ -69,7 +69,7 @@ final class RemoveLocaleMouseListener extends MouseAdapter {
 
     item.addActionListener(e -> {
       StringsWriteUtils.removeLocale(locale, myPanel.getFacet(), this);
-      myPanel.reloadData();
+      myPanel.getTable().getModel().reloadChangedKeys();
     });
 
     JPopupMenu menu = new JBPopupMenu();
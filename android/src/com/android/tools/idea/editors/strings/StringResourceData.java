@@ -40,16 +40,28 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class StringResourceData {
   private final AndroidFacet myFacet;
+  private final StringResourceRepository myRepository;
+
+  /**
+   * The keys in table order. A null value means the {@link StringResource} of the key hasn't been created yet: creating one
+   * resolves the XML tag of each of its items, which is too slow to do for every key up front in projects with many strings.
+   */
   private final Map<StringResourceKey, StringResource> myKeyToResourceMap;
 
-  public StringResourceData(@NotNull AndroidFacet facet,
-                            @NotNull Map<StringResourceKey, StringResource> keyToResourceMap) {
+  @Nullable
+  private Set<Locale> myLocales;
+
+  StringResourceData(@NotNull AndroidFacet facet,
+                     @NotNull StringResourceRepository repository,
+                     @NotNull Collection<StringResourceKey> keys) {
     myFacet = facet;
-    myKeyToResourceMap = keyToResourceMap;
+    myRepository = repository;
+    myKeyToResourceMap = new LinkedHashMap<>(keys.size());
+
+    keys.forEach(key -> myKeyToResourceMap.put(key, null));
   }
 
   public void changeKeyName(@NotNull StringResourceKey key, @NotNull String newName) {
@@ -190,16 +202,62 @@ public class StringResourceData {
   public StringResource getStringResource(@NotNull StringResourceKey key) {
     StringResource resource = myKeyToResourceMap.get(key);
 
-    if (resource == null) {
+    if (resource != null) {
+      return resource;
+    }
+
+    if (!myKeyToResourceMap.containsKey(key)) {
       throw new IllegalArgumentException(key.toString());
     }
 
+    resource = new StringResource(key, myRepository, myFacet.getModule().getProject());
+    myKeyToResourceMap.put(key, resource);
+
     return resource;
   }
 
   @NotNull
   public Collection<StringResource> getResources() {
-    return myKeyToResourceMap.values();
+    return myKeyToResourceMap.keySet().stream()
+      .map(this::getStringResource)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Picks up changes to the items of the key in the repository. The {@link StringResource} of the key is recreated the next time
+   * it's requested, and a key which isn't known yet is added after all the others.
+   *
+   * @return false if the key no longer has any items and was removed
+   */
+  public boolean reload(@NotNull StringResourceKey key) {
+    myLocales = null;
+
+    if (!myRepository.containsKey(key)) {
+      myKeyToResourceMap.remove(key);
+      return false;
+    }
+
+    myKeyToResourceMap.put(key, null);
+    return true;
+  }
+
+  /**
+   * Makes the locales be collected from the repository again, e.g. after strings files were added or removed.
+   */
+  public void reloadLocales() {
+    myLocales = null;
+  }
+
+  /**
+   * Returns the keys whose {@link StringResource} has been created, and may therefore hold values from before the latest
+   * changes to the repository.
+   */
+  @NotNull
+  public List<StringResourceKey> getLoadedKeys() {
+    return myKeyToResourceMap.entrySet().stream()
+      .filter(entry -> entry.getValue() != null)
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList());
   }
 
   @NotNull
@@ -209,19 +267,17 @@ public class StringResourceData {
 
   @NotNull
   public List<Locale> getLocaleList() {
-    return getTranslatedLocaleStream()
-      .distinct()
+    return getLocaleSet().stream()
       .sorted(Locale.LANGUAGE_NAME_COMPARATOR)
       .collect(Collectors.toList());
   }
 
   @NotNull
   Set<Locale> getLocaleSet() {
-    return getTranslatedLocaleStream().collect(Collectors.toSet());
-  }
+    if (myLocales == null) {
+      myLocales = Collections.unmodifiableSet(myRepository.getTranslatedLocales());
+    }
 
-  @NotNull
-  private Stream<Locale> getTranslatedLocaleStream() {
-    return myKeyToResourceMap.values().stream().flatMap(resource -> resource.getTranslatedLocales().stream());
+    return myLocales;
   }
 }
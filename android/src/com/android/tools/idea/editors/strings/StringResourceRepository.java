@@ -26,7 +26,6 @@ import com.android.tools.idea.res.ModuleResourceRepository.EmptyRepository;
 import com.android.tools.idea.res.MultiResourceRepository;
 import com.android.tools.idea.res.ResourceFolderRepository;
 import com.google.common.collect.Maps;
-import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.android.facet.AndroidFacet;
 import org.jetbrains.annotations.NotNull;
@@ -96,22 +95,35 @@ public class StringResourceRepository {
     return new StringResourceRepository(repository);
   }
 
+  /**
+   * Returns the data of the translations editor. Only the keys are collected up front; the {@link StringResource} of a key is
+   * created the first time it's requested.
+   */
   @NotNull
   public final StringResourceData getData(@NotNull AndroidFacet facet) {
-    Map<StringResourceKey, StringResource> map = new LinkedHashMap<>();
-    Project project = facet.getModule().getProject();
+    return new StringResourceData(facet, this, getKeys());
+  }
+
+  /**
+   * Returns the keys of all the strings, after applying pending changes to the repositories.
+   */
+  @NotNull
+  public final Set<StringResourceKey> getKeys() {
+    Set<StringResourceKey> keys = new LinkedHashSet<>();
 
     myResourceDirectoryRespositoryMap.entrySet().stream()
+      .peek(entry -> entry.getValue().sync())
       .flatMap(StringResourceRepository::getKeys)
-      .forEach(key -> map.put(key, new StringResource(key, this, project)));
+      .forEach(keys::add);
 
     if (myDynamicResourceRepository != null) {
+      myDynamicResourceRepository.sync();
       myDynamicResourceRepository.getItemsOfType(ResourceType.STRING).stream()
         .map(name -> new StringResourceKey(name, null))
-        .forEach(key -> map.put(key, new StringResource(key, this, project)));
+        .forEach(keys::add);
     }
 
-    return new StringResourceData(facet, map);
+    return keys;
   }
 
   @NotNull
@@ -125,6 +137,54 @@ public class StringResourceRepository {
     return getItems(getRepository(key), key);
   }
 
+  /**
+   * Returns whether the key still has any items, after applying pending changes to the repository it belongs to. Unlike the
+   * other methods, the key doesn't need to come from this repository (e.g. it may be a key just added in a new resource folder).
+   */
+  final boolean containsKey(@NotNull StringResourceKey key) {
+    VirtualFile directory = key.getDirectory();
+    LocalResourceRepository repository = directory == null ? myDynamicResourceRepository : myResourceDirectoryRespositoryMap.get(directory);
+
+    if (repository == null) {
+      return false;
+    }
+
+    repository.sync();
+    return !getItems(repository, key).isEmpty();
+  }
+
+  /**
+   * Returns the locales of all the string translations. Cheaper than asking every {@link StringResource} for its translated
+   * locales since the items don't need to be resolved to XML tags.
+   */
+  @NotNull
+  final Set<Locale> getTranslatedLocales() {
+    Set<Locale> locales = new HashSet<>();
+    Stream.concat(myResourceDirectoryRespositoryMap.values().stream(), Stream.of(myDynamicResourceRepository))
+      .filter(Objects::nonNull)
+      .forEach(repository -> addTranslatedLocales(repository, locales));
+
+    return locales;
+  }
+
+  private static void addTranslatedLocales(@NotNull AbstractResourceRepository repository, @NotNull Set<Locale> locales) {
+    for (String name : repository.getItemsOfType(ResourceType.STRING)) {
+      Collection<ResourceItem> items = repository.getResourceItem(ResourceType.STRING, name);
+
+      if (items == null) {
+        continue;
+      }
+
+      for (ResourceItem item : items) {
+        LocaleQualifier qualifier = item.getConfiguration().getLocaleQualifier();
+
+        if (qualifier != null) {
+          locales.add(Locale.create(qualifier));
+        }
+      }
+    }
+  }
+
   @Nullable
   final ResourceItem getDefaultValue(@NotNull StringResourceKey key) {
     return getItem(key, item -> item.getConfiguration().getLocaleQualifier() == null);
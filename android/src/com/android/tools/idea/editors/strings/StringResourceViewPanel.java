@@ -15,6 +15,7 @@
  */
 package com.android.tools.idea.editors.strings;
 
+import com.android.resources.ResourceFolderType;
 import com.android.tools.adtui.font.FontUtil;
 import com.android.tools.idea.actions.BrowserHelpAction;
 import com.android.tools.idea.editors.strings.table.StringResourceTable;
@@ -23,6 +24,10 @@ import com.android.tools.idea.editors.strings.table.StringTableCellEditor;
 import com.android.tools.idea.model.AndroidModuleInfo;
 import com.android.tools.idea.model.MergedManifest;
 import com.android.tools.idea.rendering.Locale;
+import com.android.tools.idea.res.ResourceNotificationManager;
+import com.android.tools.idea.res.ResourceNotificationManager.ChangeSet;
+import com.android.tools.idea.res.ResourceNotificationManager.Reason;
+import com.android.tools.idea.res.ResourceNotificationManager.ResourceChangeListener;
 import com.google.common.annotations.VisibleForTesting;
 import com.intellij.icons.AllIcons;
 import com.intellij.ide.BrowserUtil;
@@ -46,6 +51,7 @@ import javax.swing.event.*;
 import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Set;
 
 final class StringResourceViewPanel implements Disposable, HyperlinkListener {
   private static final boolean HIDE_TRANSLATION_ORDER_LINK = Boolean.getBoolean("hide.order.translations");
@@ -64,6 +70,18 @@ final class StringResourceViewPanel implements Disposable, HyperlinkListener {
   private DeleteStringAction myDeleteAction;
   private RemoveKeysAction myRemoveKeysAction;
 
+  private final ResourceChangeListener myResourceChangeListener = new ResourceChangeListener() {
+    @Override
+    public void resourcesChanged(@NotNull Set<Reason> reason) {
+      StringResourceViewPanel.this.resourcesChanged(reason, true);
+    }
+
+    @Override
+    public void resourcesChanged(@NotNull ChangeSet changeSet) {
+      StringResourceViewPanel.this.resourcesChanged(changeSet.getReasons(), changeSet.affects(ResourceFolderType.VALUES));
+    }
+  };
+
   StringResourceViewPanel(AndroidFacet facet, Disposable parentDisposable) {
     myFacet = facet;
 
@@ -82,6 +100,7 @@ final class StringResourceViewPanel implements Disposable, HyperlinkListener {
 
     initTable();
     Disposer.register(parentDisposable, this);
+    ResourceNotificationManager.getInstance(facet.getModule().getProject()).addListener(myResourceChangeListener, facet, null, null);
 
     myLoadingPanel.setLoadingText("Loading string resource data");
     myLoadingPanel.startLoading();
@@ -93,6 +112,20 @@ final class StringResourceViewPanel implements Disposable, HyperlinkListener {
 
   @Override
   public void dispose() {
+    ResourceNotificationManager.getInstance(myFacet.getModule().getProject()).removeListener(myResourceChangeListener, myFacet, null, null);
+  }
+
+  /**
+   * Edits of the string resources, in the editor or elsewhere, are applied to the rows they affect. Only a change of the
+   * resource folders themselves reloads the whole table. Edits which only touched other folder types, such as layouts, are skipped.
+   */
+  private void resourcesChanged(@NotNull Set<Reason> reason, boolean valuesChanged) {
+    if (reason.contains(Reason.GRADLE_SYNC) || reason.contains(Reason.VARIANT_CHANGED)) {
+      reloadData();
+    }
+    else if (reason.contains(Reason.RESOURCE_EDIT) && valuesChanged && myTable.getData() != null) {
+      myTable.getModel().reloadChangedKeys();
+    }
   }
 
   public void removeSelectedKeys() {
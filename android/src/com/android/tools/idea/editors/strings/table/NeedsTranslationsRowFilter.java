@@ -32,12 +32,17 @@ public final class NeedsTranslationsRowFilter extends StringResourceTableRowFilt
 
   @Override
   public boolean include(@NotNull Entry<? extends StringResourceTableModel, ? extends Integer> entry) {
-    if ((boolean)entry.getValue(UNTRANSLATABLE_COLUMN)) {
+    StringResourceTableModel model = entry.getModel();
+    return model.include(this, entry.getIdentifier(), row -> needsTranslations(model, row));
+  }
+
+  private static boolean needsTranslations(@NotNull StringResourceTableModel model, int row) {
+    if ((boolean)model.getValueAt(row, UNTRANSLATABLE_COLUMN)) {
       return false;
     }
 
-    return IntStream.range(DEFAULT_VALUE_COLUMN, entry.getValueCount())
-      .mapToObj(entry::getStringValue)
+    return IntStream.range(DEFAULT_VALUE_COLUMN, model.getColumnCount())
+      .mapToObj(column -> (String)model.getValueAt(row, column))
       .anyMatch(String::isEmpty);
   }
 }
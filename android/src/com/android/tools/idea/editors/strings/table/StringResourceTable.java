@@ -32,15 +32,23 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.table.*;
+import java.awt.Component;
+import java.awt.FontMetrics;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.stream.IntStream;
 
 public final class StringResourceTable extends FixedColumnTable implements DataProvider, PasteProvider {
+  /**
+   * Maximum number of key names measured to find the widest key. Larger tables are sampled evenly.
+   */
+  private static final int MAX_MEASURED_KEYS = 1000;
+
   @Nullable
   private StringResourceTableColumnFilter myColumnFilter;
 
@@ -222,11 +230,29 @@ public final class StringResourceTable extends FixedColumnTable implements DataP
   @NotNull
   @VisibleForTesting
   public OptionalInt getKeyColumnPreferredWidth() {
-    return IntStream.range(0, getModel().getRowCount())
-      .map(row -> getPreferredWidth(getCellRendererAtModel(row, StringResourceTableModel.KEY_COLUMN),
-                                    getModel().getValueAt(row, StringResourceTableModel.KEY_COLUMN), row,
-                                    StringResourceTableModel.KEY_COLUMN))
-      .max();
+    // Rendering a key validates its row, which loads the string resource of the key. Instead of rendering every row, measure the
+    // names of a sample of the keys with the renderer's font metrics and only render the widest one, so that the rows keep being
+    // loaded lazily as they're scrolled into view.
+    StringResourceTableModel model = getModel();
+    int rowCount = model.getRowCount();
+
+    if (rowCount == 0) {
+      return OptionalInt.empty();
+    }
+
+    TableCellRenderer renderer = getCellRendererAtModel(0, StringResourceTableModel.KEY_COLUMN);
+    FontMetrics metrics = (renderer instanceof Component ? (Component)renderer : this).getFontMetrics(getFont());
+    int step = Math.max(1, rowCount / MAX_MEASURED_KEYS);
+
+    int widestRow = IntStream.iterate(0, row -> row + step)
+      .limit((rowCount + step - 1) / step)
+      .boxed()
+      .max(Comparator.comparingInt(row -> metrics.stringWidth(model.getKey(row).getName())))
+      .orElse(0);
+
+    return OptionalInt.of(getPreferredWidth(getCellRendererAtModel(widestRow, StringResourceTableModel.KEY_COLUMN),
+                                            model.getValueAt(widestRow, StringResourceTableModel.KEY_COLUMN), widestRow,
+                                            StringResourceTableModel.KEY_COLUMN));
   }
 
   @NotNull
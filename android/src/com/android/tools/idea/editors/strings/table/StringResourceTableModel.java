@@ -26,9 +26,10 @@ import org.jetbrains.android.facet.AndroidFacet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.function.IntPredicate;
 
 public class StringResourceTableModel extends AbstractTableModel {
   public static final int KEY_COLUMN = 0;
@@ -40,7 +41,13 @@ public class StringResourceTableModel extends AbstractTableModel {
   private final StringResourceRepository myRepository;
   private final StringResourceData myData;
   private final List<StringResourceKey> myKeys;
-  private final List<Locale> myLocales;
+  private List<Locale> myLocales;
+
+  /**
+   * The rows included by each active row filter, as far as they have been evaluated. Kept up to date by
+   * {@link #fireTableChanged(TableModelEvent)} so that refiltering after an edit only evaluates the edited rows.
+   */
+  private final Map<StringResourceTableRowFilter, RowFilterResults> myRowFilterResults = new WeakHashMap<>();
 
   StringResourceTableModel() {
     myRepository = StringResourceRepository.create();
@@ -58,6 +65,88 @@ public class StringResourceTableModel extends AbstractTableModel {
     myLocales = data.getLocaleList();
   }
 
+  /**
+   * Applies changes to the given keys in the repository as row level deltas: rows of changed keys are updated, new keys are
+   * appended and keys without any items left are removed. The columns are only rebuilt if the set of locales changed.
+   */
+  public void reloadKeys(@NotNull Collection<StringResourceKey> keys) {
+    assert myData != null;
+
+    Map<StringResourceKey, Integer> rows = new HashMap<>();
+    for (int row = 0; row < myKeys.size(); row++) {
+      rows.put(myKeys.get(row), row);
+    }
+
+    List<Integer> removedRows = new ArrayList<>();
+    List<StringResourceKey> addedKeys = new ArrayList<>();
+
+    for (StringResourceKey key : new LinkedHashSet<>(keys)) {
+      Integer row = rows.get(key);
+
+      if (myData.reload(key)) {
+        if (row == null) {
+          addedKeys.add(key);
+        }
+        else {
+          fireTableRowsUpdated(row, row);
+        }
+      }
+      else if (row != null) {
+        removedRows.add(row);
+      }
+    }
+
+    // From the last row up, so the rows still to remove keep their index
+    removedRows.sort(Collections.reverseOrder());
+    for (int row : removedRows) {
+      myKeys.remove(row);
+      fireTableRowsDeleted(row, row);
+    }
+
+    for (StringResourceKey key : addedKeys) {
+      myKeys.add(key);
+      fireTableRowsInserted(myKeys.size() - 1, myKeys.size() - 1);
+    }
+
+    List<Locale> locales = myData.getLocaleList();
+
+    if (!locales.equals(myLocales)) {
+      myLocales = locales;
+      fireTableStructureChanged();
+    }
+  }
+
+  /**
+   * Picks up the changes made to the string resources since the model was created or last updated, e.g. by an edit of a strings
+   * file outside of the editor, through {@link #reloadKeys}. The keys which were added or removed are found by comparing the keys
+   * of the repository with the rows; of the other keys, only the ones whose values were already loaded are reloaded, the values
+   * of the others are read when they are first shown.
+   */
+  public void reloadChangedKeys() {
+    assert myData != null;
+
+    Set<StringResourceKey> repositoryKeys = myRepository.getKeys();
+    Set<StringResourceKey> changedKeys = new LinkedHashSet<>(myData.getLoadedKeys());
+
+    for (StringResourceKey key : myKeys) {
+      if (!repositoryKeys.contains(key)) {
+        changedKeys.add(key);
+      }
+    }
+
+    Set<StringResourceKey> rowKeys = new HashSet<>(myKeys);
+
+    for (StringResourceKey key : repositoryKeys) {
+      if (!rowKeys.contains(key)) {
+        changedKeys.add(key);
+      }
+    }
+
+    // A locale may have been added or removed along with strings files whose keys aren't loaded
+    myData.reloadLocales();
+    reloadKeys(changedKeys);
+  }
+
   @NotNull
   public StringResourceRepository getRepository() {
     return myRepository;
@@ -199,6 +288,42 @@ public class StringResourceTableModel extends AbstractTableModel {
     }
   }
 
+  /**
+   * Returns whether the filter includes the row, evaluating the predicate only if the row changed since it was last evaluated
+   * for the filter.
+   */
+  boolean include(@NotNull StringResourceTableRowFilter filter, int row, @NotNull IntPredicate predicate) {
+    RowFilterResults results = myRowFilterResults.computeIfAbsent(filter, f -> new RowFilterResults());
+
+    if (!results.myEvaluatedRows.get(row)) {
+      results.myIncludedRows.set(row, predicate.test(row));
+      results.myEvaluatedRows.set(row);
+    }
+
+    return results.myIncludedRows.get(row);
+  }
+
+  @Override
+  public void fireTableChanged(@NotNull TableModelEvent event) {
+    int firstRow = event.getFirstRow();
+    int lastRow = event.getLastRow();
+
+    for (RowFilterResults results : myRowFilterResults.values()) {
+      if (firstRow == TableModelEvent.HEADER_ROW || lastRow == Integer.MAX_VALUE) {
+        results.myEvaluatedRows.clear();
+      }
+      else if (event.getType() == TableModelEvent.UPDATE) {
+        results.myEvaluatedRows.clear(firstRow, lastRow + 1);
+      }
+      else {
+        // Inserted and deleted rows shift the indices of the rows after them
+        results.myEvaluatedRows.clear(firstRow, Math.max(results.myEvaluatedRows.length(), firstRow));
+      }
+    }
+
+    super.fireTableChanged(event);
+  }
+
   @Nullable
   public String getCellProblem(int row, int column) {
     switch (column) {
@@ -216,4 +341,9 @@ public class StringResourceTableModel extends AbstractTableModel {
         return getStringResourceAt(row).validateTranslation(locale);
     }
   }
+
+  private static final class RowFilterResults {
+    private final BitSet myEvaluatedRows = new BitSet();
+    private final BitSet myIncludedRows = new BitSet();
+  }
 }
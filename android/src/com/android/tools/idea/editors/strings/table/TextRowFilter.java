@@ -28,8 +28,13 @@ public class TextRowFilter extends StringResourceTableRowFilter {
 
   @Override
   public boolean include(Entry<? extends StringResourceTableModel, ? extends Integer> entry) {
-    for (int i = 0; i < entry.getValueCount(); i++) {
-      String text = entry.getStringValue(i);
+    StringResourceTableModel model = entry.getModel();
+    return model.include(this, entry.getIdentifier(), row -> containsText(model, row));
+  }
+
+  private boolean containsText(@NotNull StringResourceTableModel model, int row) {
+    for (int i = 0; i < model.getColumnCount(); i++) {
+      String text = model.getValueAt(row, i).toString();
       if (text.contains(myText)) {
         return true;
       }
@@ -20,13 +20,17 @@ import com.android.tools.idea.experimental.codeanalysis.datastructs.PsiCFGClass;
 import com.android.tools.idea.experimental.codeanalysis.utils.PsiCFGAnalysisUtil;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
+import com.intellij.util.ArrayUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class CodeAnalysisMain {
 
@@ -36,6 +40,10 @@ public class CodeAnalysisMain {
 
   private PsiCFGScene mScene;
 
+  //The modification stamps of the files the classes of the current scene
+  //were built from. Only the files whose stamp changed are rebuilt.
+  private Map<PsiFile, Long> mFileStamps = Maps.newHashMap();
+
   private CodeAnalysisMain(Project project) {
     mProject = project;
   }
@@ -55,11 +63,6 @@ public class CodeAnalysisMain {
   public void analyze(@NotNull AnalysisScope scope) {
 
 //    PsiDocumentManager.getInstance(mProject).commitAllDocuments();
-    //Create a mScene for this project.
-    //Each project has its own mScene.
-    mScene = PsiCFGScene.createFreshInstance(mProject);
-    PsiCFGAnalysisUtil AnalysisUtil = mScene.analysisUtil;
-
     //Get list of java files available in this project
     int fileCount = scope.getFileCount();
     //LOG.info("File count in scope " + fileCount);
@@ -67,17 +70,54 @@ public class CodeAnalysisMain {
     //LOG.info("File count in visitor " + allFilesInScope.length);
     //outputFileNames(allFilesInScope);
 
-    //Extract all java classes from java files.
+    Map<PsiFile, Long> fileStamps = Maps.newHashMap();
+    for (PsiFile file : allFilesInScope) {
+      fileStamps.put(file, file.getModificationStamp());
+    }
+
+    //Create a mScene for this project.
+    //Each project has its own mScene.
+    if (mScene == null || mScene != PsiCFGScene.getInstance(mProject)) {
+      mScene = PsiCFGScene.createFreshInstance(mProject);
+      mFileStamps = Maps.newHashMap();
+    }
+
+    //Files that were added, removed or modified since the scene was built.
+    Set<PsiFile> changedFiles = Sets.newHashSet();
+    for (PsiFile file : Sets.union(mFileStamps.keySet(), fileStamps.keySet())) {
+      if (!Objects.equals(mFileStamps.get(file), fileStamps.get(file))) {
+        changedFiles.add(file);
+      }
+    }
+    if (changedFiles.isEmpty()) {
+      return;
+    }
+
+    //The CFGs of the unchanged files that invoke methods of the changed files
+    //refer to the classes and methods being replaced, so they are rebuilt too.
+    //Their own classes and methods are kept, so nothing else refers to stale objects.
+    Set<PsiFile> invokingFiles = Sets.newHashSet(Sets.difference(mScene.getFilesInvoking(changedFiles), changedFiles));
+    mScene.removeClassesDeclaredIn(changedFiles);
+    PsiCFGClass[] invokingClasses = mScene.resetClassesDeclaredIn(invokingFiles);
+    mFileStamps = fileStamps;
+    PsiCFGAnalysisUtil AnalysisUtil = mScene.analysisUtil;
+
+    //Extract all java classes from the added and modified java files.
     //Consider these classes are application classes.
     //As they are written by developer
-    initiateProjectClassesFromPsiFile(allFilesInScope);
-    PsiCFGClass[] allClasses = mScene.getAllApplicationClasses();
+    ArrayList<PsiFile> filesToParse = Lists.newArrayList();
+    for (PsiFile file : allFilesInScope) {
+      if (changedFiles.contains(file)) {
+        filesToParse.add(file);
+      }
+    }
+    PsiCFGClass[] newClasses = initiateProjectClassesFromPsiFile(filesToParse.toArray(PsiFile.EMPTY_ARRAY));
 
     //Perform the analysis
     AnalysisUtil.performStage0();
-    AnalysisUtil.performStage1();
+    AnalysisUtil.performStage1(newClasses);
     AnalysisUtil.performStage2();
-    AnalysisUtil.performStage3();
+    AnalysisUtil.performStage3(ArrayUtil.mergeArrays(newClasses, invokingClasses));
     AnalysisUtil.performStage4();
     //AnalysisUtil.summarizeStage();
     AnalysisUtil.performStage5();
@@ -103,7 +143,8 @@ public class CodeAnalysisMain {
     return retList.toArray(PsiFile.EMPTY_ARRAY);
   }
 
-  private void initiateProjectClassesFromPsiFile(@NotNull PsiFile[] files) {
+  private PsiCFGClass[] initiateProjectClassesFromPsiFile(@NotNull PsiFile[] files) {
+    ArrayList<PsiCFGClass> retList = Lists.newArrayList();
 
     for (PsiFile pFile : files) {
       if (!(pFile instanceof PsiJavaFile)) {
@@ -111,9 +152,10 @@ public class CodeAnalysisMain {
       }
       PsiClass[] curClassesInFile = extractProjectClasses(pFile);
       for (PsiClass curClass : curClassesInFile) {
-        mScene.createPsiCFGClass(curClass, pFile, true);
+        retList.add(mScene.createPsiCFGClass(curClass, pFile, true));
       }
     }
+    return retList.toArray(PsiCFGClass.EMPTY_ARRAY);
   }
 
   private PsiClass[] extractProjectClasses(PsiFile pFile) {
@@ -19,7 +19,14 @@ import com.android.tools.idea.experimental.codeanalysis.callgraph.Callgraph;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.PsiCFGClass;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.PsiCFGMethod;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.BlockGraph;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.Graph;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.MethodGraph;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.node.GraphNode;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.stmt.AssignStmt;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.stmt.Stmt;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.value.InvokeExpr;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.value.NewExpr;
+import com.android.tools.idea.experimental.codeanalysis.datastructs.value.Value;
 import com.android.tools.idea.experimental.codeanalysis.utils.CFGUtil;
 import com.android.tools.idea.experimental.codeanalysis.utils.PsiCFGAnalysisUtil;
 import com.android.tools.idea.experimental.codeanalysis.utils.PsiCFGDebugUtil;
@@ -30,6 +37,7 @@ import com.google.common.collect.Sets;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
@@ -99,6 +107,113 @@ public class PsiCFGScene {
     return mInvocationNodes.toArray(GraphNode.EMPTY_ARRAY);
   }
 
+  /**
+   * Get the files whose methods invoke a method or a constructor
+   * of a class declared in one of the given files.
+   * @param files The files that declare the invoked classes
+   * @return A new set of the files that contain the invocations.
+   */
+  @NotNull
+  public Set<PsiFile> getFilesInvoking(@NotNull Set<PsiFile> files) {
+    Set<PsiFile> retSet = Sets.newHashSet();
+    for (GraphNode node : mInvocationNodes) {
+      for (Stmt stmt : node.getStatements()) {
+        if (!(stmt instanceof AssignStmt)) {
+          continue;
+        }
+        Value rOp = ((AssignStmt)stmt).getROp();
+        PsiCFGMethod target = null;
+        if (rOp instanceof InvokeExpr) {
+          target = ((InvokeExpr)rOp).getMethod();
+        }
+        else if (rOp instanceof NewExpr) {
+          target = ((NewExpr)rOp).getConstructorInvocation();
+        }
+        if (target != null && files.contains(target.getDeclaringClass().getDeclearingFile())) {
+          PsiFile invokingFile = getDeclaringFile(node);
+          if (invokingFile != null) {
+            retSet.add(invokingFile);
+          }
+        }
+      }
+    }
+    return retSet;
+  }
+
+  /**
+   * Remove the application classes declared in the given files, together
+   * with the nested classes, the lambdas and the invocation nodes created
+   * while constructing the control flow graphs of their methods.
+   * @param files The files that were modified or removed
+   */
+  public void removeClassesDeclaredIn(@NotNull Set<PsiFile> files) {
+    removeDeclaredIn(files, false);
+  }
+
+  /**
+   * Prepare the application classes declared in the given files for
+   * the reconstruction of the control flow graphs of their methods.
+   * The classes and their methods are kept, so the graphs of other
+   * files that refer to them stay valid. The nested classes, the lambdas
+   * and the invocation nodes created for the current graphs are removed.
+   * @param files The files whose graphs need to be constructed again
+   * @return The top level and inner classes declared in these files.
+   */
+  @NotNull
+  public PsiCFGClass[] resetClassesDeclaredIn(@NotNull Set<PsiFile> files) {
+    return removeDeclaredIn(files, true);
+  }
+
+  private PsiCFGClass[] removeDeclaredIn(@NotNull Set<PsiFile> files, boolean keepClasses) {
+    if (files.isEmpty()) {
+      return PsiCFGClass.EMPTY_ARRAY;
+    }
+    ArrayList<PsiCFGClass> keptClasses = Lists.newArrayList();
+
+    Iterator<PsiCFGClass> appClasses = mAppPsiClassPsiCFGClassMap.values().iterator();
+    while (appClasses.hasNext()) {
+      PsiCFGClass clazz = appClasses.next();
+      if (!files.contains(clazz.getDeclearingFile())) {
+        continue;
+      }
+      if (keepClasses && !clazz.isNested()) {
+        clazz.clearDeclaredClasses();
+        keptClasses.add(clazz);
+      }
+      else {
+        appClasses.remove();
+        mAppClassNamePsiMap.values().remove(clazz);
+      }
+    }
+
+    Iterator<PsiCFGClass> lambdaClasses = mLambdaPsiCFGClassMap.values().iterator();
+    while (lambdaClasses.hasNext()) {
+      if (files.contains(lambdaClasses.next().getDeclearingFile())) {
+        lambdaClasses.remove();
+      }
+    }
+
+    Iterator<GraphNode> invocationNodes = mInvocationNodes.iterator();
+    while (invocationNodes.hasNext()) {
+      if (files.contains(getDeclaringFile(invocationNodes.next()))) {
+        invocationNodes.remove();
+      }
+    }
+    return keptClasses.toArray(PsiCFGClass.EMPTY_ARRAY);
+  }
+
+  @Nullable
+  private static PsiFile getDeclaringFile(@NotNull GraphNode node) {
+    Graph parentGraph = node.getParentGraph();
+    while (parentGraph != null && !(parentGraph instanceof MethodGraph)) {
+      parentGraph = parentGraph.getParentGraph();
+    }
+    if (parentGraph == null) {
+      return null;
+    }
+    return ((MethodGraph)parentGraph).getPsiCFGMethod().getDeclaringClass().getDeclearingFile();
+  }
+
   /**
    * Get the Scene object for this project.
    * The original idea is that the CFG does not need be recreated each time it is used.
@@ -19,10 +19,6 @@ import com.android.tools.idea.experimental.codeanalysis.datastructs.PsiCFGMethod
 import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.Graph;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.MethodGraph;
 import com.android.tools.idea.experimental.codeanalysis.datastructs.graph.node.GraphNode;
-import com.google.common.base.Supplier;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
 
 import java.util.Collection;
@@ -31,30 +27,37 @@ import java.util.Set;
 /**
  * Callgraph class which store the call graph
  * built from the Callgraph Builder
+ *
+ * Methods and graph nodes are numbered once by the shared indexes below,
+ * and every edge map stores its edges as int adjacency arrays over these ids.
  */
 public class Callgraph {
 
+  public final CallgraphIndex<PsiCFGMethod> methodIndex = new CallgraphIndex<>();
+
+  public final CallgraphIndex<GraphNode> nodeIndex = new CallgraphIndex<>();
+
   //A map from GraphNode that contains an invocation statement to the target PsiCFGMethods.
-  public Multimap<GraphNode, PsiCFGMethod> callerNodeToMethodsMap;
+  public CallgraphEdges<GraphNode, PsiCFGMethod> callerNodeToMethodsMap;
 
   //A map from the taret PsiCFGMethod BACK to the invocation GraphNode.
-  public Multimap<PsiCFGMethod, GraphNode> calleeMethodToCallerGraphNodeMap;
+  public CallgraphEdges<PsiCFGMethod, GraphNode> calleeMethodToCallerGraphNodeMap;
 
   //Callee GraphNode is the EntryNode
   //A map from GraphNode that contains the invocation statement to the GraphNodes which are the
   //EntryNode of target methods.
-  public Multimap<GraphNode, GraphNode> callerNodeToCalleeNodeMap;
+  public CallgraphEdges<GraphNode, GraphNode> callerNodeToCalleeNodeMap;
 
   //Callee GraphNode here is the ExitNode
   //A map from GraphNode that is the ExitNode of the target method back to the GraphNodes that
   //contains the invocation statements.
-  public Multimap<GraphNode, GraphNode> calleeNodeToCallerNodeMap;
+  public CallgraphEdges<GraphNode, GraphNode> calleeNodeToCallerNodeMap;
 
   //A map from the method that contains the invocation statement to the target methods.
-  public Multimap<PsiCFGMethod, PsiCFGMethod> callerMethodToCalleeMethodMap;
+  public CallgraphEdges<PsiCFGMethod, PsiCFGMethod> callerMethodToCalleeMethodMap;
 
   //A map from the target method back to the methods that contains the invocation.
-  public Multimap<PsiCFGMethod, PsiCFGMethod> calleeMethodToCallerMethodReturnMap;
+  public CallgraphEdges<PsiCFGMethod, PsiCFGMethod> calleeMethodToCallerMethodReturnMap;
 
 
   public PsiCFGMethod[] findCalleeMethodForGraphNode(GraphNode node) {
@@ -103,61 +106,25 @@ public class Callgraph {
   public Set<PsiCFGMethod> allMethodsInGraph;
 
   protected Callgraph() {
-    this.callerNodeToMethodsMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<PsiCFGMethod>>() {
-        @Override
-        public Set<PsiCFGMethod> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
-
-    this.calleeMethodToCallerGraphNodeMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<GraphNode>>() {
-        @Override
-        public Set<GraphNode> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
-
-    this.callerNodeToCalleeNodeMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<GraphNode>>() {
-        @Override
-        public Set<GraphNode> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
-
-    this.calleeNodeToCallerNodeMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<GraphNode>>() {
-        @Override
-        public Set<GraphNode> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
-
-    this.callerMethodToCalleeMethodMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<PsiCFGMethod>>() {
-        @Override
-        public Set<PsiCFGMethod> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
-
-    this.calleeMethodToCallerMethodReturnMap = Multimaps.newSetMultimap(
-      Maps.newHashMap(), new Supplier<Set<PsiCFGMethod>>() {
-        @Override
-        public Set<PsiCFGMethod> get() {
-          return Sets.newHashSet();
-        }
-      }
-    );
+    this.callerNodeToMethodsMap = new CallgraphEdges<>(nodeIndex, methodIndex);
+    this.calleeMethodToCallerGraphNodeMap = new CallgraphEdges<>(methodIndex, nodeIndex);
+    this.callerNodeToCalleeNodeMap = new CallgraphEdges<>(nodeIndex, nodeIndex);
+    this.calleeNodeToCallerNodeMap = new CallgraphEdges<>(nodeIndex, nodeIndex);
+    this.callerMethodToCalleeMethodMap = new CallgraphEdges<>(methodIndex, methodIndex);
+    this.calleeMethodToCallerMethodReturnMap = new CallgraphEdges<>(methodIndex, methodIndex);
     allMethodsInGraph = Sets.newHashSet();
+  }
 
+  /**
+   * Compact the edges added by the builder into their adjacency arrays.
+   */
+  public void compact() {
+    callerNodeToMethodsMap.compact();
+    calleeMethodToCallerGraphNodeMap.compact();
+    callerNodeToCalleeNodeMap.compact();
+    calleeNodeToCallerNodeMap.compact();
+    callerMethodToCalleeMethodMap.compact();
+    calleeMethodToCallerMethodReturnMap.compact();
   }
 
 }
@@ -76,6 +76,7 @@ public class CallgraphBuilder {
 
       processSingleInvocation(invocationNode);
     }
+    mCallGraphInstance.compact();
   }
 
   /**
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.experimental.codeanalysis.callgraph;
+
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A set of call graph edges stored as int-indexed adjacency arrays.
+ *
+ * Edges are appended to two int lists while the call graph is built.
+ * On the first lookup they are compacted into a CSR layout: the targets
+ * of the key with id i are stored in mTargets[mOffsets[i]..mOffsets[i + 1]),
+ * sorted and without duplicates, so the map has the same set semantics
+ * as the SetMultimaps it replaces.
+ */
+public class CallgraphEdges<K, V> {
+
+  private final CallgraphIndex<K> mKeyIndex;
+
+  private final CallgraphIndex<V> mValueIndex;
+
+  private TIntArrayList mPendingSources = new TIntArrayList();
+
+  private TIntArrayList mPendingTargets = new TIntArrayList();
+
+  private int[] mOffsets = new int[1];
+
+  private int[] mTargets = new int[0];
+
+  public CallgraphEdges(@NotNull CallgraphIndex<K> keyIndex, @NotNull CallgraphIndex<V> valueIndex) {
+    mKeyIndex = keyIndex;
+    mValueIndex = valueIndex;
+  }
+
+  public void put(@NotNull K key, @NotNull V value) {
+    mPendingSources.add(mKeyIndex.getOrCreateId(key));
+    mPendingTargets.add(mValueIndex.getOrCreateId(value));
+  }
+
+  public boolean containsKey(@NotNull K key) {
+    compact();
+    int id = mKeyIndex.getId(key);
+    return id >= 0 && id < mOffsets.length - 1 && mOffsets[id + 1] > mOffsets[id];
+  }
+
+  /**
+   * @return An immutable view of the targets of the key, empty if the key has no edges.
+   */
+  @NotNull
+  public Collection<V> get(@NotNull K key) {
+    compact();
+    int id = mKeyIndex.getId(key);
+    if (id < 0 || id >= mOffsets.length - 1) {
+      return Collections.emptyList();
+    }
+    final int start = mOffsets[id];
+    final int end = mOffsets[id + 1];
+    return new AbstractList<V>() {
+      @Override
+      public V get(int index) {
+        return mValueIndex.getObject(mTargets[start + index]);
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+    };
+  }
+
+  /**
+   * @return The ids of the targets of the key with the given id.
+   */
+  @NotNull
+  public int[] getTargetIds(int keyId) {
+    compact();
+    if (keyId < 0 || keyId >= mOffsets.length - 1) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(mTargets, mOffsets[keyId], mOffsets[keyId + 1]);
+  }
+
+  @NotNull
+  public Set<K> keySet() {
+    compact();
+    Set<K> keys = new LinkedHashSet<>();
+    for (int i = 0; i < mOffsets.length - 1; i++) {
+      if (mOffsets[i + 1] > mOffsets[i]) {
+        keys.add(mKeyIndex.getObject(i));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * @return The number of distinct edges.
+   */
+  public int size() {
+    compact();
+    return mTargets.length;
+  }
+
+  /**
+   * Merge the edges added since the last lookup into the adjacency arrays.
+   */
+  public void compact() {
+    if (mPendingSources.isEmpty()) {
+      return;
+    }
+    int keyCount = mKeyIndex.size();
+    int oldKeyCount = mOffsets.length - 1;
+
+    //Count the edges of every key, existing and pending
+    int[] offsets = new int[keyCount + 1];
+    for (int i = 0; i < oldKeyCount; i++) {
+      offsets[i + 1] = mOffsets[i + 1] - mOffsets[i];
+    }
+    for (int i = 0; i < mPendingSources.size(); i++) {
+      offsets[mPendingSources.get(i) + 1]++;
+    }
+    for (int i = 0; i < keyCount; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+
+    //Scatter the edges into their buckets
+    int[] targets = new int[offsets[keyCount]];
+    int[] fill = Arrays.copyOf(offsets, keyCount);
+    for (int i = 0; i < oldKeyCount; i++) {
+      for (int j = mOffsets[i]; j < mOffsets[i + 1]; j++) {
+        targets[fill[i]++] = mTargets[j];
+      }
+    }
+    for (int i = 0; i < mPendingSources.size(); i++) {
+      targets[fill[mPendingSources.get(i)]++] = mPendingTargets.get(i);
+    }
+
+    //Sort each bucket and drop duplicated edges
+    int size = 0;
+    int start = 0;
+    for (int i = 0; i < keyCount; i++) {
+      int end = offsets[i + 1];
+      Arrays.sort(targets, start, end);
+      offsets[i] = size;
+      for (int j = start; j < end; j++) {
+        if (j == start || targets[j] != targets[j - 1]) {
+          targets[size++] = targets[j];
+        }
+      }
+      start = end;
+    }
+    offsets[keyCount] = size;
+
+    mOffsets = offsets;
+    mTargets = size == targets.length ? targets : Arrays.copyOf(targets, size);
+    mPendingSources = new TIntArrayList();
+    mPendingTargets = new TIntArrayList();
+  }
+}
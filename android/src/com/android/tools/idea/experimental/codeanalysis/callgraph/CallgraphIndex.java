@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.experimental.codeanalysis.callgraph;
+
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+
+/**
+ * Assigns dense int ids to the methods or graph nodes of a call graph,
+ * so the edges can be stored as int arrays. Ids are assigned in the
+ * order the objects are first seen.
+ */
+public class CallgraphIndex<T> {
+
+  private final TObjectIntHashMap<T> mIds = new TObjectIntHashMap<>();
+
+  private final ArrayList<T> mObjects = new ArrayList<>();
+
+  public int getOrCreateId(@NotNull T object) {
+    if (mIds.containsKey(object)) {
+      return mIds.get(object);
+    }
+    int id = mObjects.size();
+    mIds.put(object, id);
+    mObjects.add(object);
+    return id;
+  }
+
+  /**
+   * @return The id of the object, or -1 if it is not in the graph.
+   */
+  public int getId(@NotNull T object) {
+    return mIds.containsKey(object) ? mIds.get(object) : -1;
+  }
+
+  @NotNull
+  public T getObject(int id) {
+    return mObjects.get(id);
+  }
+
+  public int size() {
+    return mObjects.size();
+  }
+}
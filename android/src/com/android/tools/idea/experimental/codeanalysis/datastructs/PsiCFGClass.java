@@ -157,6 +157,17 @@ public class PsiCFGClass implements PsiAnnotationOwner {
     return this.mDirectSubClasses;
   }
 
+  /**
+   * Forget the super class, the interfaces and the sub classes,
+   * so that the class hierarchy can be computed again.
+   */
+  public void clearClassHierarchy() {
+    this.mSuperCFGClass = null;
+    this.mImplementedInterfacesSet.clear();
+    this.mDirectSubClasses.clear();
+    this.mDirectSubInterfaces.clear();
+  }
+
   /**
    * Add interface class that extends this interface.
    * @param interfaze The subinterface
@@ -304,6 +315,17 @@ public class PsiCFGClass implements PsiAnnotationOwner {
     return this.mDirectOverriddenInterface;
   }
 
+  /**
+   * Forget the nested classes and lambdas declared in the methods
+   * of this class, before the control flow graphs of its methods
+   * are constructed again.
+   */
+  public void clearDeclaredClasses() {
+    this.declaredAnonymousClass.clear();
+    this.declaredLambda.clear();
+    this.nestedInnerClassMap.clear();
+  }
+
   public PsiCFGClass addAnonymousClass(PsiCFGClass anonymousClass) {
     int curCount = declaredAnonymousClass.size() + 1;
     anonymousClass.qualifiedClassName = this.qualifiedClassName + "$" + curCount;
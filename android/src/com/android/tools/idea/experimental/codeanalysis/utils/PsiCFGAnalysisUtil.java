@@ -57,7 +57,13 @@ public class PsiCFGAnalysisUtil {
    * create wrapper objects for the Fields and Methods.
    */
   public void performStage1() {
-    PsiCFGClass[] appClasses = mScene.getAllApplicationClasses();
+    performStage1(mScene.getAllApplicationClasses());
+  }
+
+  /**
+   * Perform the Stage1 for the given application classes only.
+   */
+  public void performStage1(@NotNull PsiCFGClass[] appClasses) {
     for (PsiCFGClass curClass : appClasses) {
       parseFields(curClass);
       parseMethods(curClass);
@@ -70,8 +76,24 @@ public class PsiCFGAnalysisUtil {
    */
   public void performStage2() {
     PsiCFGClass[] appClasses = mScene.getAllApplicationClasses();
+    PsiCFGClass[] libraryClasses = mScene.getAllLibraryClasses();
+
+    //The scene may be reused after some of its classes were rebuilt,
+    //so the hierarchy is always computed from scratch.
+    //Classes nested in methods get no hierarchy, as they did not exist
+    //yet when this stage ran on a fresh scene.
+    for (PsiCFGClass cfgClazz : libraryClasses) {
+      cfgClazz.clearClassHierarchy();
+    }
     for (PsiCFGClass cfgClazz : appClasses) {
-      setClassHierarchyForApplicationClass(cfgClazz);
+      if (!cfgClazz.isNested()) {
+        cfgClazz.clearClassHierarchy();
+      }
+    }
+    for (PsiCFGClass cfgClazz : appClasses) {
+      if (!cfgClazz.isNested()) {
+        setClassHierarchyForApplicationClass(cfgClazz);
+      }
     }
   }
 
@@ -81,8 +103,14 @@ public class PsiCFGAnalysisUtil {
    * class, including the constructor and the init code
    */
   public void performStage3() {
-    PsiCFGClass[] appClasses = mScene.getAllApplicationClasses();
+    performStage3(mScene.getAllApplicationClasses());
+  }
 
+  /**
+   * Perform the Stage3 for the given application classes only.
+   * The graphs of the other classes are left untouched.
+   */
+  public void performStage3(@NotNull PsiCFGClass[] appClasses) {
     mScene.workingList.clear();
     mScene.workingList.addAll(Arrays.asList(appClasses));
 
@@ -28,7 +28,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface GradleBuildModel extends GradleFileModel {
   @Nullable
@@ -41,6 +43,14 @@ public interface GradleBuildModel extends GradleFileModel {
     return GradleModelProvider.get().getBuildModel(module);
   }
 
+  /**
+   * Parses the build files of the given modules. The models share the build files of their parent modules, so they must be used together.
+   */
+  @NotNull
+  static Map<Module, GradleBuildModel> get(@NotNull Project project, @NotNull Collection<Module> modules) {
+    return GradleModelProvider.get().getBuildModels(project, modules);
+  }
+
   @NotNull
   static GradleBuildModel parseBuildFile(@NotNull VirtualFile file, @NotNull Project project) {
     return GradleModelProvider.get().parseBuildFile(file, project);
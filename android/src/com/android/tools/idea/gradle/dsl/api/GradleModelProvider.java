@@ -24,6 +24,9 @@ import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Map;
+
 public abstract class GradleModelProvider {
 
   @NotNull
@@ -37,6 +40,9 @@ public abstract class GradleModelProvider {
   @Nullable
   public abstract GradleBuildModel getBuildModel(@NotNull Module module);
 
+  @NotNull
+  public abstract Map<Module, GradleBuildModel> getBuildModels(@NotNull Project project, @NotNull Collection<Module> modules);
+
   @NotNull
   public abstract GradleBuildModel parseBuildFile(@NotNull VirtualFile file, @NotNull Project project);
 
@@ -27,6 +27,9 @@ import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Map;
+
 public class GradleModelSource extends GradleModelProvider {
 
   @Nullable
@@ -41,6 +44,12 @@ public class GradleModelSource extends GradleModelProvider {
     return GradleBuildModelImpl.get(module);
   }
 
+  @NotNull
+  @Override
+  public Map<Module, GradleBuildModel> getBuildModels(@NotNull Project project, @NotNull Collection<Module> modules) {
+    return GradleBuildModelImpl.get(project, modules);
+  }
+
   @NotNull
   @Override
   public GradleBuildModel parseBuildFile(@NotNull VirtualFile file, @NotNull Project project) {
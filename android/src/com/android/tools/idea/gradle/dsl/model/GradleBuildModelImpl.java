@@ -17,7 +17,6 @@ package com.android.tools.idea.gradle.dsl.model;
 
 import com.android.tools.idea.gradle.dsl.api.BuildScriptModel;
 import com.android.tools.idea.gradle.dsl.api.GradleBuildModel;
-import com.android.tools.idea.gradle.dsl.api.GradleSettingsModel;
 import com.android.tools.idea.gradle.dsl.api.android.AndroidModel;
 import com.android.tools.idea.gradle.dsl.api.dependencies.DependenciesModel;
 import com.android.tools.idea.gradle.dsl.api.ext.ExtModel;
@@ -46,8 +45,10 @@ import com.android.tools.idea.gradle.dsl.parser.java.JavaDslElement;
 import com.android.tools.idea.gradle.dsl.parser.repositories.RepositoriesDslElement;
 import com.android.tools.idea.gradle.plugin.AndroidPluginInfo;
 import com.google.common.collect.ImmutableList;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.containers.HashSet;
@@ -58,9 +59,11 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.android.SdkConstants.FN_GRADLE_PROPERTIES;
 import static com.android.tools.idea.Projects.getBaseDirPath;
@@ -99,45 +102,72 @@ public class GradleBuildModelImpl extends GradleFileModelImpl implements GradleB
     return parseBuildFile(file, project, "<Unknown>");
   }
 
+  /**
+   * Parses the settings file and the parent module build files again for every call, since the returned model is not meant to see the
+   * changes made through other models. Callers building the models of several modules should use {@link #get(Project, Collection)}.
+   */
   @NotNull
   public static GradleBuildModel parseBuildFile(@NotNull VirtualFile file, @NotNull Project project, @NotNull String moduleName) {
+    return new GradleBuildModelImpl(parseBuildDslFile(file, project, moduleName, new GradleDslFileCache(project)));
+  }
+
+  /**
+   * Parses the build files of the given modules concurrently, under the current progress indicator. The models share the parsed settings
+   * file and parent module build files, so they must be used together: a change made to a parent module through one of them is seen by
+   * all of them.
+   */
+  @NotNull
+  public static Map<Module, GradleBuildModel> get(@NotNull Project project, @NotNull Collection<Module> modules) {
+    GradleDslFileCache cache = new GradleDslFileCache(project);
+    Map<Module, GradleBuildModel> models = new ConcurrentHashMap<>();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(new ArrayList<>(modules), ProgressManager.getInstance().getProgressIndicator(),
+                                                              true /* fail fast */, module -> {
+        VirtualFile file = getGradleBuildFile(module);
+        if (file != null) {
+          models.put(module, new GradleBuildModelImpl(parseBuildDslFile(file, project, module.getName(), cache)));
+        }
+        return true;
+      });
+    return models;
+  }
+
+  @NotNull
+  static GradleBuildFile parseBuildDslFile(@NotNull VirtualFile file,
+                                           @NotNull Project project,
+                                           @NotNull String moduleName,
+                                           @NotNull GradleDslFileCache cache) {
     GradleBuildFile buildDslFile = new GradleBuildFile(file, project, moduleName);
     ApplicationManager.getApplication().runReadAction(() -> {
-      populateWithParentModuleSubProjectsProperties(buildDslFile);
+      populateWithParentModuleSubProjectsProperties(buildDslFile, cache);
       populateSiblingDslFileWithGradlePropertiesFile(buildDslFile);
       buildDslFile.parse();
     });
-    return new GradleBuildModelImpl(buildDslFile);
+    return buildDslFile;
   }
 
-  private static void populateWithParentModuleSubProjectsProperties(@NotNull GradleBuildFile buildDslFile) {
-    GradleSettingsModel gradleSettingsModel = GradleSettingsModelImpl.get(buildDslFile.getProject());
-    if (gradleSettingsModel == null) {
+  private static void populateWithParentModuleSubProjectsProperties(@NotNull GradleBuildFile buildDslFile,
+                                                                    @NotNull GradleDslFileCache cache) {
+    GradleDslFile parentModuleDslFile = cache.getParentModuleDslFile(buildDslFile.getDirectoryPath());
+    if (parentModuleDslFile == null) {
       return;
     }
+    buildDslFile.setParentModuleDslFile(parentModuleDslFile);
 
-    String modulePath = gradleSettingsModel.moduleWithDirectory(buildDslFile.getDirectoryPath());
-    if (modulePath == null) {
-      return;
+    // The parent module files may be shared by several sub modules, so rather than moving their subprojects elements into this file, the
+    // blocks applying to sub projects are parsed again into this file, starting from the root project.
+    List<GradleDslFile> ancestorDslFiles = new ArrayList<>();
+    for (GradleDslFile file = parentModuleDslFile; file != null; file = file.getParentModuleDslFile()) {
+      ancestorDslFiles.add(0, file);
     }
-
-    GradleBuildModel parentModuleModel = gradleSettingsModel.getParentModuleModel(modulePath);
-    if (parentModuleModel == null || !(parentModuleModel instanceof GradleBuildModelImpl)) {
-      return;
+    for (GradleDslFile ancestorDslFile : ancestorDslFiles) {
+      buildDslFile.getParser().parseSubProjectsBlocks(ancestorDslFile);
     }
 
-    GradleBuildModelImpl parentModuleModelImpl = (GradleBuildModelImpl)parentModuleModel;
-
-    GradleDslFile parentModuleDslFile = parentModuleModelImpl.myGradleDslFile;
-    buildDslFile.setParentModuleDslFile(parentModuleDslFile);
-
-    SubProjectsDslElement subProjectsDslElement =
-      parentModuleDslFile.getPropertyElement(SUBPROJECTS_BLOCK_NAME, SubProjectsDslElement.class);
+    SubProjectsDslElement subProjectsDslElement = buildDslFile.getPropertyElement(SUBPROJECTS_BLOCK_NAME, SubProjectsDslElement.class);
     if (subProjectsDslElement == null) {
       return;
     }
 
-    buildDslFile.setParsedElement(SUBPROJECTS_BLOCK_NAME, subProjectsDslElement);
     for (Map.Entry<String, GradleDslElement> entry : subProjectsDslElement.getPropertyElements().entrySet()) {
       buildDslFile.setParsedElement(entry.getKey(), entry.getValue());
     }
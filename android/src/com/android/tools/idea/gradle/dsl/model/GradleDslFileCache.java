@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.dsl.model;
+
+import com.android.tools.idea.gradle.dsl.parser.files.GradleDslFile;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.android.tools.idea.Projects.getBaseDirPath;
+import static com.android.tools.idea.gradle.util.GradleUtil.getGradleSettingsFile;
+import static com.intellij.openapi.vfs.VfsUtil.findFileByIoFile;
+
+/**
+ * The parsed settings file and parent module build files of one batch of build models.
+ *
+ * <p>Parsing the build file of a module needs the settings file and the whole chain of its parent module build files, to inherit their
+ * {@code subprojects} blocks and to resolve references to their properties. The models parsed with the same cache share those files, so
+ * the root build file is parsed once per batch instead of once per module. Since the shared files are mutable, a cache must only be used
+ * for models which are used together, like the models of all the modules shown by the Project Structure dialog: a change made to a
+ * parent module through one of them is seen by all of them. A model parsed on its own gets a cache of its own.
+ */
+final class GradleDslFileCache {
+  @NotNull private final Project myProject;
+  @NotNull private final Map<VirtualFile, GradleDslFile> myBuildFiles = new HashMap<>();
+  @Nullable private GradleSettingsModelImpl mySettingsModel;
+  private boolean mySettingsParsed;
+
+  GradleDslFileCache(@NotNull Project project) {
+    myProject = project;
+  }
+
+  /**
+   * Returns the parsed build file of the parent module of the module in the given directory.
+   */
+  @Nullable
+  GradleDslFile getParentModuleDslFile(@NotNull File moduleDirectory) {
+    return runReadAction(() -> {
+      GradleSettingsModelImpl settingsModel = getSettingsModel();
+      if (settingsModel == null) {
+        return null;
+      }
+      String modulePath = settingsModel.moduleWithDirectory(moduleDirectory);
+      String parentModulePath = modulePath != null ? settingsModel.parentModule(modulePath) : null;
+      return parentModulePath != null ? getBuildDslFile(settingsModel, parentModulePath) : null;
+    });
+  }
+
+  /**
+   * Takes the read lock before the cache lock, as parsing needs read access: taking them in the opposite order could deadlock with a
+   * pending write action.
+   */
+  @Nullable
+  private <T> T runReadAction(@NotNull Computable<T> computable) {
+    return ApplicationManager.getApplication().runReadAction((Computable<T>)() -> {
+      synchronized (this) {
+        return computable.compute();
+      }
+    });
+  }
+
+  @Nullable
+  private GradleSettingsModelImpl getSettingsModel() {
+    if (!mySettingsParsed) {
+      VirtualFile settingsFile = getGradleSettingsFile(getBaseDirPath(myProject));
+      if (settingsFile != null) {
+        mySettingsModel = (GradleSettingsModelImpl)GradleSettingsModelImpl.parseBuildFile(settingsFile, myProject, "settings");
+      }
+      mySettingsParsed = true;
+    }
+    return mySettingsModel;
+  }
+
+  @Nullable
+  private GradleDslFile getBuildDslFile(@NotNull GradleSettingsModelImpl settingsModel, @NotNull String modulePath) {
+    File buildFilePath = settingsModel.buildFile(modulePath);
+    VirtualFile buildFile = buildFilePath != null ? findFileByIoFile(buildFilePath, true) : null;
+    if (buildFile == null) {
+      return null;
+    }
+
+    GradleDslFile buildDslFile = myBuildFiles.get(buildFile);
+    if (buildDslFile == null) {
+      // Parsing the build file goes through this cache again for its own parent module, so that one is cached first.
+      String moduleName = modulePath.substring(modulePath.lastIndexOf(':') + 1);
+      buildDslFile = GradleBuildModelImpl.parseBuildDslFile(buildFile, myProject, moduleName, this);
+      myBuildFiles.put(buildFile, buildDslFile);
+    }
+    return buildDslFile;
+  }
+}
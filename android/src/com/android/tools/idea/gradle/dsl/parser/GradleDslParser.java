@@ -48,6 +48,12 @@ public interface GradleDslParser {
    */
   void parse();
 
+  /**
+   * Parses the blocks of {@code parentModuleDslFile} which apply to its sub projects ({@code subprojects} and {@code allprojects}) into
+   * the {@link GradleDslFile} of this parser. This method REQUIRES read access.
+   */
+  void parseSubProjectsBlocks(@NotNull GradleDslFile parentModuleDslFile);
+
   /**
    * Converts a given {@link Object} to the language specific {@link PsiElement}, this method is used to convert newly set or parsed values.
    * This method does NOT REQUIRE read access.
@@ -79,6 +85,9 @@ public interface GradleDslParser {
     @Override
     public void parse() { }
 
+    @Override
+    public void parseSubProjectsBlocks(@NotNull GradleDslFile parentModuleDslFile) { }
+
     @Override
     @Nullable
     public PsiElement convertToPsiElement(@NotNull Object literal) {
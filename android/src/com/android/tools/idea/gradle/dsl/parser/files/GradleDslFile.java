@@ -20,7 +20,6 @@ import com.android.tools.idea.gradle.dsl.parser.GradleDslWriter;
 import com.android.tools.idea.gradle.dsl.parser.elements.GradlePropertiesDslElement;
 import com.android.tools.idea.gradle.dsl.parser.groovy.GroovyDslParser;
 import com.android.tools.idea.gradle.dsl.parser.groovy.GroovyDslWriter;
-import com.google.common.collect.Sets;
 import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
@@ -33,7 +32,10 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.plugins.groovy.lang.psi.GroovyFile;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import static com.intellij.openapi.vfs.VfsUtilCore.virtualToIoFile;
@@ -44,7 +46,8 @@ import static com.intellij.openapi.vfs.VfsUtilCore.virtualToIoFile;
 public abstract class GradleDslFile extends GradlePropertiesDslElement {
   @NotNull private final VirtualFile myFile;
   @NotNull private final Project myProject;
-  @NotNull private final Set<GradleDslFile> myChildModuleDslFiles = Sets.newHashSet();
+  // Sub modules parsed in the same batch share their parent module file, and may be parsed concurrently.
+  @NotNull private final Set<GradleDslFile> myChildModuleDslFiles = Collections.synchronizedSet(new HashSet<>());
   @NotNull private final GradleDslWriter myGradleDslWriter;
   @NotNull private final GradleDslParser myGradleDslParser;
 
@@ -117,7 +120,9 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
 
   @NotNull
   public Collection<GradleDslFile> getChildModuleDslFiles() {
-    return myChildModuleDslFiles;
+    synchronized (myChildModuleDslFiles) {
+      return new ArrayList<>(myChildModuleDslFiles);
+    }
   }
 
   /**
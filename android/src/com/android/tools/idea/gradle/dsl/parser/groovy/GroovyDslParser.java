@@ -163,6 +163,39 @@ public class GroovyDslParser implements GradleDslParser {
     }));
   }
 
+  @Override
+  public void parseSubProjectsBlocks(@NotNull GradleDslFile parentModuleDslFile) {
+    ApplicationManager.getApplication().assertReadAccessAllowed();
+
+    PsiElement parentPsiFile = parentModuleDslFile.getPsiElement();
+    if (!(parentPsiFile instanceof GroovyFile)) {
+      return;
+    }
+
+    for (PsiElement element = parentPsiFile.getFirstChild(); element != null; element = element.getNextSibling()) {
+      if (!(element instanceof GrMethodCallExpression)) {
+        continue;
+      }
+      GrMethodCallExpression expression = (GrMethodCallExpression)element;
+      GrReferenceExpression referenceExpression = findChildOfType(expression, GrReferenceExpression.class);
+      if (referenceExpression == null) {
+        continue;
+      }
+      String name = referenceExpression.getText();
+      GrClosableBlock[] closureArguments = expression.getClosureArguments();
+      if (!(SUBPROJECTS_BLOCK_NAME.equals(name) || "allprojects".equals(name)) ||
+          closureArguments.length == 0 || expression.getArgumentList().getAllArguments().length > 0) {
+        continue;
+      }
+
+      GradlePropertiesDslElement blockElement = getBlockElement(ImmutableList.of(SUBPROJECTS_BLOCK_NAME), myDslFile);
+      if (blockElement != null) {
+        blockElement.setPsiElement(closureArguments[0]);
+        parse(closureArguments[0], blockElement);
+      }
+    }
+  }
+
   @Override
   @Nullable
   public PsiElement convertToPsiElement(@NotNull Object literal) {
@@ -55,8 +55,10 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.android.tools.idea.gradle.project.sync.ng.AndroidModuleProcessor.MODULE_GRADLE_MODELS_KEY;
 import static com.android.tools.idea.gradle.project.sync.ng.GradleSyncProgress.notifyProgress;
@@ -172,12 +174,9 @@ abstract class ModuleSetup {
 
       notifyModuleConfigurationStarted(indicator);
 
-      List<Module> modules = Arrays.asList(ModuleManager.getInstance(myProject).getModules());
       List<GradleFacet> gradleFacets = new ArrayList<>();
-
       ModuleFinder moduleFinder = myModuleFinderFactory.create(myProject);
-
-      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(modules, indicator, true /* fail fast */, module -> {
+      for (Module module : ModuleManager.getInstance(myProject).getModules()) {
         GradleFacet gradleFacet = GradleFacet.getInstance(module);
         if (gradleFacet != null) {
           String gradlePath = gradleFacet.getConfiguration().GRADLE_PROJECT_PATH;
@@ -186,12 +185,31 @@ abstract class ModuleSetup {
             gradleFacets.add(gradleFacet);
           }
         }
-        return true;
+      }
+
+      // The models of each module are cached separately, so they are deserialized concurrently. The modules are then set up one at a
+      // time, since that updates the shared modifiable models.
+      Map<GradleFacet, CachedModuleModels> cachesByFacet = new ConcurrentHashMap<>();
+      AtomicReference<ModelNotFoundInCacheException> failure = new AtomicReference<>();
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(gradleFacets, indicator, true /* fail fast */, gradleFacet -> {
+        try {
+          CachedModuleModels moduleModelsCache = projectModels.findCacheForModule(gradleFacet.getConfiguration().GRADLE_PROJECT_PATH);
+          if (moduleModelsCache != null) {
+            cachesByFacet.put(gradleFacet, moduleModelsCache);
+          }
+          return true;
+        }
+        catch (ModelNotFoundInCacheException e) {
+          failure.compareAndSet(null, e);
+          return false;
+        }
       });
+      if (failure.get() != null) {
+        throw failure.get();
+      }
 
       for (GradleFacet gradleFacet : gradleFacets) {
-        String gradlePath = gradleFacet.getConfiguration().GRADLE_PROJECT_PATH;
-        CachedModuleModels moduleModelsCache = projectModels.findCacheForModule(gradlePath);
+        CachedModuleModels moduleModelsCache = cachesByFacet.get(gradleFacet);
         if (moduleModelsCache != null) {
           setUpModule(gradleFacet, moduleModelsCache, moduleFinder);
         }
@@ -245,7 +263,7 @@ abstract class ModuleSetup {
       if (globalLibraryMap != null) {
         myDependenciesFactory.setUpGlobalLibraryMap(globalLibraryMap);
       }
-      createAndSetUpModules(projectModels, cache);
+      createAndSetUpModules(projectModels, cache, indicator);
       myProjectDataNodeSetup.setupProjectDataNode(projectModels, myProject);
       myAndroidModuleProcessor.processAndroidModels(myAndroidModules);
       myProjectCleanup.cleanUpProject(myProject, myModelsProvider, indicator);
@@ -261,7 +279,9 @@ abstract class ModuleSetup {
     // TODO(alruiz): reconcile with https://github.com/JetBrains/intellij-community/commit/6d425f7
     private static final String ROOT_PROJECT_PATH_KEY = "external.root.project.path";
 
-    private void createAndSetUpModules(@NotNull SyncProjectModels projectModels, @NotNull CachedProjectModels cache) {
+    private void createAndSetUpModules(@NotNull SyncProjectModels projectModels,
+                                       @NotNull CachedProjectModels cache,
+                                       @NotNull ProgressIndicator indicator) {
       populateModuleBuildFolders(projectModels);
       List<ModuleSetupInfo> moduleSetupInfos = new ArrayList<>();
 
@@ -286,6 +306,23 @@ abstract class ModuleSetup {
         }
       }
 
+      // The Android models resolve their dependencies through the shared IdeDependenciesFactory, which is not thread-safe (and is kept by
+      // the models), so they are created one at a time.
+      for (ModuleSetupInfo moduleSetupInfo : moduleSetupInfos) {
+        AndroidProject androidProject = moduleSetupInfo.moduleModels.findModel(AndroidProject.class);
+        if (androidProject != null) {
+          moduleSetupInfo.androidModel = createAndroidModel(moduleSetupInfo.module, androidProject);
+        }
+      }
+
+      // Creating the other IDE models doesn't touch the IDE project, so it is done concurrently for all modules. Setting up the modules
+      // from those models updates the shared modifiable models, which are not thread-safe; that is done afterwards, and the modifiable
+      // models are then committed at once by the caller.
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(moduleSetupInfos, indicator, true /* fail fast */, moduleSetupInfo -> {
+        createModels(moduleSetupInfo);
+        return true;
+      });
+
       for (ModuleSetupInfo moduleSetupInfo : moduleSetupInfos) {
         setUpModule(moduleSetupInfo, moduleFinder);
       }
@@ -314,6 +351,50 @@ abstract class ModuleSetup {
       }
     }
 
+    /**
+     * Creates the IDE models of a module from the models obtained from Gradle, other than its Android model, which is created beforehand.
+     * It must not modify the module, since it is called concurrently for all modules.
+     */
+    private void createModels(@NotNull ModuleSetupInfo setupInfo) {
+      Module module = setupInfo.module;
+      GradleModuleModels moduleModels = setupInfo.moduleModels;
+
+      File moduleRootFolderPath = findModuleRootFolderPath(module);
+      assert moduleRootFolderPath != null;
+
+      GradleProject gradleProject = moduleModels.findModel(GradleProject.class);
+      AndroidProject androidProject = moduleModels.findModel(AndroidProject.class);
+      if (androidProject != null) {
+        if (setupInfo.androidModel != null) {
+          // "Native" projects also both AndroidProject and AndroidNativeProject
+          NativeAndroidProject nativeAndroidProject = moduleModels.findModel(NativeAndroidProject.class);
+          if (nativeAndroidProject != null) {
+            IdeNativeAndroidProject copy = myNativeAndroidProjectFactory.create(nativeAndroidProject);
+            setupInfo.ndkModel = new NdkModuleModel(module.getName(), moduleRootFolderPath, copy);
+          }
+        }
+        else {
+          // This is an Android module without variants. Treat as a non-buildable Java module.
+          assert gradleProject != null;
+          setupInfo.javaModel = myJavaModuleModelFactory.create(gradleProject, androidProject);
+        }
+        return;
+      }
+
+      // This is a Java module.
+      JavaProject javaProject = moduleModels.findModel(JavaProject.class);
+      if (gradleProject != null && javaProject != null) {
+        setupInfo.javaModel = myJavaModuleModelFactory.create(moduleRootFolderPath, gradleProject, javaProject /* regular Java module */);
+        return;
+      }
+
+      // This is a Jar/Aar module or root module.
+      ArtifactModel jarAarProject = moduleModels.findModel(ArtifactModel.class);
+      if (gradleProject != null && jarAarProject != null) {
+        setupInfo.javaModel = myJavaModuleModelFactory.create(moduleRootFolderPath, gradleProject, jarAarProject);
+      }
+    }
+
     private void setUpModule(@NotNull ModuleSetupInfo setupInfo, @NotNull ModuleFinder moduleFinder) {
       Module module = setupInfo.module;
       GradleModuleModels moduleModels = setupInfo.moduleModels;
@@ -321,24 +402,17 @@ abstract class ModuleSetup {
 
       module.putUserData(MODULE_GRADLE_MODELS_KEY, moduleModels);
 
-      File moduleRootFolderPath = findModuleRootFolderPath(module);
-      assert moduleRootFolderPath != null;
-
       ModuleSetupContext context = myModuleSetupFactory.create(module, myModelsProvider, moduleFinder, moduleModels);
 
-      AndroidProject androidProject = moduleModels.findModel(AndroidProject.class);
-      if (androidProject != null) {
-        AndroidModuleModel androidModel = createAndroidModel(module, androidProject);
+      if (moduleModels.findModel(AndroidProject.class) != null) {
+        AndroidModuleModel androidModel = setupInfo.androidModel;
         if (androidModel != null) {
           myAndroidModuleSetup.setUpModule(context, androidModel, false /* sync not skipped */);
           myAndroidModules.add(module);
           cachedModels.addModel(androidModel);
 
-          // "Native" projects also both AndroidProject and AndroidNativeProject
-          NativeAndroidProject nativeAndroidProject = moduleModels.findModel(NativeAndroidProject.class);
-          if (nativeAndroidProject != null) {
-            IdeNativeAndroidProject copy = myNativeAndroidProjectFactory.create(nativeAndroidProject);
-            NdkModuleModel ndkModel = new NdkModuleModel(module.getName(), moduleRootFolderPath, copy);
+          NdkModuleModel ndkModel = setupInfo.ndkModel;
+          if (ndkModel != null) {
             myNdkModuleSetup.setUpModule(context, ndkModel, false /* sync not skipped */);
             cachedModels.addModel(ndkModel);
           }
@@ -346,10 +420,8 @@ abstract class ModuleSetup {
         else {
           // This is an Android module without variants. Treat as a non-buildable Java module.
           removeAndroidFacetFrom(module);
-          GradleProject gradleProject = moduleModels.findModel(GradleProject.class);
-          assert gradleProject != null;
-
-          JavaModuleModel javaModel = myJavaModuleModelFactory.create(gradleProject, androidProject);
+          JavaModuleModel javaModel = setupInfo.javaModel;
+          assert javaModel != null;
           myJavaModuleSetup.setUpModule(context, javaModel, false /* sync not skipped */);
           cachedModels.addModel(javaModel);
         }
@@ -360,26 +432,16 @@ abstract class ModuleSetup {
       // This is not an Android module. Remove any AndroidFacet set in a previous sync operation.
       removeAllFacets(myModelsProvider.getModifiableFacetModel(module), NdkFacet.getFacetTypeId());
 
-      // This is a Java module.
-      JavaProject javaProject = moduleModels.findModel(JavaProject.class);
-      GradleProject gradleProject = moduleModels.findModel(GradleProject.class);
-      if (gradleProject != null && javaProject != null) {
-        JavaModuleModel javaModel = myJavaModuleModelFactory.create(moduleRootFolderPath, gradleProject,
-                                                                    javaProject /* regular Java module */);
+      JavaModuleModel javaModel = setupInfo.javaModel;
+      if (javaModel != null) {
         myJavaModuleSetup.setUpModule(context, javaModel, false /* sync not skipped */);
         cachedModels.addModel(javaModel);
 
-        myExtraModelsManager.applyModelsToModule(moduleModels, module, myModelsProvider);
-        myExtraModelsManager.addJavaModelsToCache(module, cachedModels);
-        return;
-      }
-
-      // This is a Jar/Aar module or root module.
-      ArtifactModel jarAarProject = moduleModels.findModel(ArtifactModel.class);
-      if (gradleProject != null && jarAarProject != null) {
-        JavaModuleModel javaModel = myJavaModuleModelFactory.create(moduleRootFolderPath, gradleProject, jarAarProject);
-        myJavaModuleSetup.setUpModule(context, javaModel, false /* sync not skipped */);
-        cachedModels.addModel(javaModel);
+        if (moduleModels.findModel(JavaProject.class) != null) {
+          // This is a Java module.
+          myExtraModelsManager.applyModelsToModule(moduleModels, module, myModelsProvider);
+          myExtraModelsManager.addJavaModelsToCache(module, cachedModels);
+        }
       }
     }
 
@@ -411,6 +473,11 @@ abstract class ModuleSetup {
     @NotNull final GradleModuleModels moduleModels;
     @NotNull final CachedModuleModels cachedModels;
 
+    // Created concurrently for all modules, before setting them up.
+    @Nullable AndroidModuleModel androidModel;
+    @Nullable NdkModuleModel ndkModel;
+    @Nullable JavaModuleModel javaModel;
+
     ModuleSetupInfo(@NotNull Module module, @NotNull GradleModuleModels moduleModels, @NotNull CachedModuleModels cachedModels) {
       this.module = module;
       this.moduleModels = moduleModels;
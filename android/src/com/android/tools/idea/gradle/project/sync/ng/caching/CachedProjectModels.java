@@ -26,15 +26,32 @@ import org.jetbrains.annotations.Nullable;
 import java.io.*;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.android.tools.idea.gradle.util.GradleUtil.getCacheFolderRootPath;
 import static com.intellij.openapi.util.io.FileUtil.ensureExists;
 
-public class CachedProjectModels implements Serializable {
-  // Increase the value when adding/removing fields or when changing the serialization/deserialization mechanism.
-  private static final long serialVersionUID = 1L;
+/**
+ * The models of all the modules of a project, saved after a successful sync so that the project can be set up from them when it is
+ * opened again, without syncing.
+ *
+ * <p>The cache file starts with a header (magic number, format version and number of modules), followed by one section per module: its
+ * Gradle path, and the checksum, size and data of its compressed serialized models. Loading the file only reads the sections and verifies
+ * their checksums, so that a cache which can't be used is discarded before deserializing anything. The models of a module are
+ * deserialized when the module is first looked up, independently of the other modules, so several modules can be deserialized
+ * concurrently.
+ */
+public class CachedProjectModels {
+  // Increase the value when changing the format of the cache file, or the serialized form of the models.
+  @VisibleForTesting
+  static final int FORMAT_VERSION = 4;
+  private static final int MAGIC = 0x47524D43;
+  private static final String CACHE_FILE_NAME = "gradle_models.bin";
+  private static final String LEGACY_CACHE_FILE_NAME = "gradle_models.ser";
 
   public static class Factory {
     @NotNull
@@ -48,39 +65,87 @@ public class CachedProjectModels implements Serializable {
     public CachedProjectModels loadFromDisk(@NotNull Project project) {
       File cacheFilePath = getCacheFilePath(project);
       if (cacheFilePath.isFile()) {
-        try (FileInputStream fis = new FileInputStream(cacheFilePath)) {
-          try (ObjectInputStream ois = new ObjectInputStream(fis)) {
-            return (CachedProjectModels)ois.readObject();
-          }
-          catch (Throwable e) {
-            getLog().warn(String.format("Failed to load Gradle models from '%1$s'", cacheFilePath.getPath()), e);
-          }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFilePath)))) {
+          return read(in, cacheFilePath);
         }
         catch (Throwable e) {
-          getLog().warn(String.format("Failed to access '%1$s' while loading Gradle models", cacheFilePath.getPath()), e);
+          getLog().warn(String.format("Failed to load Gradle models from '%1$s'", cacheFilePath.getPath()), e);
         }
       }
       return null;
     }
+
+    @Nullable
+    private static CachedProjectModels read(@NotNull DataInputStream in, @NotNull File cacheFilePath) throws IOException {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        getLog().info(String.format("Ignoring Gradle models in '%1$s', saved in an unsupported format", cacheFilePath.getPath()));
+        return null;
+      }
+      Map<String, byte[]> serializedModels = new HashMap<>();
+      int moduleCount = in.readInt();
+      for (int i = 0; i < moduleCount; i++) {
+        String gradlePath = in.readUTF();
+        long checksum = in.readLong();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        if (checksum(data) != checksum) {
+          getLog().warn(String.format("Ignoring corrupted Gradle models in '%1$s'", cacheFilePath.getPath()));
+          return null;
+        }
+        serializedModels.put(gradlePath, data);
+      }
+      return new CachedProjectModels(serializedModels);
+    }
   }
 
   // Key: module's Gradle path.
-  private final Map<String, CachedModuleModels> myModelsByModulePath = new HashMap<>();
+  private final Map<String, CachedModuleModels> myModelsByModulePath = new ConcurrentHashMap<>();
+  // Key: module's Gradle path. The models read from disk, until they are deserialized.
+  private final Map<String, byte[]> mySerializedModelsByModulePath = new ConcurrentHashMap<>();
 
   @VisibleForTesting
   CachedProjectModels() {
   }
 
+  private CachedProjectModels(@NotNull Map<String, byte[]> serializedModelsByModulePath) {
+    mySerializedModelsByModulePath.putAll(serializedModelsByModulePath);
+  }
+
   @NotNull
   public CachedModuleModels addModule(@NotNull Module module, @NotNull String gradlePath) {
     CachedModuleModels cache = new CachedModuleModels(module, gradlePath);
+    mySerializedModelsByModulePath.remove(gradlePath);
     myModelsByModulePath.put(gradlePath, cache);
     return cache;
   }
 
+  /**
+   * Returns the models of the module with the given Gradle path, deserializing them on the first call. Can be called concurrently for
+   * different modules.
+   *
+   * @throws ModelNotFoundInCacheException if the models can't be deserialized.
+   */
   @Nullable
-  public CachedModuleModels findCacheForModule(@NotNull String gradlePath) {
-    return myModelsByModulePath.get(gradlePath);
+  public CachedModuleModels findCacheForModule(@NotNull String gradlePath) throws ModelNotFoundInCacheException {
+    CachedModuleModels cache = myModelsByModulePath.get(gradlePath);
+    if (cache != null) {
+      return cache;
+    }
+    byte[] data = mySerializedModelsByModulePath.get(gradlePath);
+    if (data == null) {
+      // Either the module is unknown, or another thread deserialized it meanwhile (the models are added before the data is removed).
+      return myModelsByModulePath.get(gradlePath);
+    }
+
+    try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+      cache = (CachedModuleModels)in.readObject();
+    }
+    catch (Throwable e) {
+      throw new ModelNotFoundInCacheException("Failed to load cached models of module " + gradlePath, e);
+    }
+    CachedModuleModels existing = myModelsByModulePath.putIfAbsent(gradlePath, cache);
+    mySerializedModelsByModulePath.remove(gradlePath);
+    return existing != null ? existing : cache;
   }
 
   @NotNull
@@ -92,7 +157,7 @@ public class CachedProjectModels implements Serializable {
   @VisibleForTesting
   @NotNull
   static File getCacheFilePath(@NotNull Project project) {
-    return new File(getCacheFolderRootPath(project), "gradle_models.ser");
+    return new File(getCacheFolderRootPath(project), CACHE_FILE_NAME);
   }
 
   @NotNull
@@ -104,40 +169,55 @@ public class CachedProjectModels implements Serializable {
       catch (IOException e) {
         getLog().warn(String.format("Failed to create folders for path '%1$s'", path.getPath()), e);
       }
-      try (FileOutputStream fos = new FileOutputStream(path)) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-          oos.writeObject(this);
-        }
-        catch (Throwable e) {
-          getLog().warn(String.format("Failed to save Gradle models to path '%1$s'", path.getPath()), e);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+        Map<String, byte[]> serializedModels = serialize();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(serializedModels.size());
+        for (Map.Entry<String, byte[]> entry : serializedModels.entrySet()) {
+          byte[] data = entry.getValue();
+          out.writeUTF(entry.getKey());
+          out.writeLong(checksum(data));
+          out.writeInt(data.length);
+          out.write(data);
         }
       }
       catch (Throwable e) {
-        getLog().warn(String.format("Failed to open path '%1$s'", path.getPath()), e);
+        getLog().warn(String.format("Failed to save Gradle models to path '%1$s'", path.getPath()), e);
+      }
+      // Cache file written by previous versions, in a format which is no longer read.
+      File legacyPath = new File(path.getParentFile(), LEGACY_CACHE_FILE_NAME);
+      if (legacyPath.isFile() && !legacyPath.delete()) {
+        getLog().info(String.format("Failed to delete obsolete Gradle models in '%1$s'", legacyPath.getPath()));
       }
     });
   }
 
+  /**
+   * Serializes the models of each module separately. Modules which were read from disk but never looked up are written back as they are.
+   */
   @NotNull
-  private static Logger getLog() {
-    return Logger.getInstance(CachedProjectModels.class);
+  private Map<String, byte[]> serialize() throws IOException {
+    Map<String, byte[]> serializedModels = new HashMap<>(mySerializedModelsByModulePath);
+    for (Map.Entry<String, CachedModuleModels> entry : myModelsByModulePath.entrySet()) {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(buffer))) {
+        out.writeObject(entry.getValue());
+      }
+      serializedModels.put(entry.getKey(), buffer.toByteArray());
+    }
+    return serializedModels;
   }
 
-  @Override
-  public boolean equals(Object o) {
-    if (this == o) {
-      return true;
-    }
-    if (!(o instanceof CachedProjectModels)) {
-      return false;
-    }
-    CachedProjectModels cache = (CachedProjectModels)o;
-    return Objects.equals(myModelsByModulePath, cache.myModelsByModulePath);
+  private static long checksum(@NotNull byte[] data) {
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    return crc.getValue();
   }
 
-  @Override
-  public int hashCode() {
-    return Objects.hash(myModelsByModulePath);
+  @NotNull
+  private static Logger getLog() {
+    return Logger.getInstance(CachedProjectModels.class);
   }
 
   @Override
@@ -21,4 +21,8 @@ public class ModelNotFoundInCacheException extends Exception {
   public ModelNotFoundInCacheException(@NotNull Class<?> modelType) {
     super("Failed to find cached model of type " + modelType.getSimpleName());
   }
+
+  public ModelNotFoundInCacheException(@NotNull String message, @NotNull Throwable cause) {
+    super(message, cause);
+  }
 }
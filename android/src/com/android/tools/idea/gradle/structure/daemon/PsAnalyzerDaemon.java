@@ -32,18 +32,32 @@ import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.Ref;
 import com.intellij.util.EventDispatcher;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.update.MergingUpdateQueue;
 import com.intellij.util.ui.update.Update;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.EventListener;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.android.tools.idea.gradle.structure.model.PsIssue.Severity.UPDATE;
 import static com.android.tools.idea.gradle.structure.model.PsIssueType.LIBRARY_UPDATES_AVAILABLE;
+import static com.android.tools.idea.gradle.structure.model.PsIssueType.PROJECT_ANALYSIS;
 import static com.intellij.util.ui.update.MergingUpdateQueue.ANY_COMPONENT;
 
+/**
+ * Analyzes the modules of the project in the background. Each module is analyzed as a separate task on a bounded pool, so modules are
+ * analyzed in parallel while a new request for a module cancels the pending analysis of that same module. The dependencies a module was
+ * last analyzed with are remembered as a hash, and a module is not analyzed again until they change.
+ */
 public class PsAnalyzerDaemon extends PsDaemon {
   private static final Logger LOG = Logger.getInstance(PsAnalyzerDaemon.class);
 
@@ -54,6 +68,13 @@ public class PsAnalyzerDaemon extends PsDaemon {
   @NotNull private final Map<Class<?>, PsModelAnalyzer<?>> myModelAnalyzers = Maps.newHashMap();
   @NotNull private final AtomicBoolean myRunning = new AtomicBoolean(true);
 
+  @NotNull private final ExecutorService myAnalysisExecutor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Project Structure Analyzer",
+                                                         Math.min(4, Runtime.getRuntime().availableProcessors()));
+  @NotNull private final Map<PsModel, Future<?>> myPendingAnalyses = new ConcurrentHashMap<>();
+  @NotNull private final Map<PsModel, Integer> myAnalyzedDependencyHashes = new ConcurrentHashMap<>();
+  @NotNull private final AtomicInteger myPendingAnalysisCount = new AtomicInteger();
+
   @NotNull private final EventDispatcher<IssuesUpdatedListener> myIssuesUpdatedEventDispatcher =
     EventDispatcher.create(IssuesUpdatedListener.class);
 
@@ -149,23 +170,104 @@ public class PsAnalyzerDaemon extends PsDaemon {
     return myRunning.get();
   }
 
+  @Override
+  public void stop() {
+    super.stop();
+    for (Future<?> future : myPendingAnalyses.values()) {
+      if (future.cancel(false)) {
+        myPendingAnalysisCount.decrementAndGet();
+      }
+    }
+    myPendingAnalyses.clear();
+    myRunning.set(false);
+  }
+
+  @Override
+  public void dispose() {
+    super.dispose();
+    myAnalysisExecutor.shutdown();
+  }
+
   public void queueCheck(@NotNull PsModel model) {
     myMainQueue.queue(new AnalyzeStructure(model));
   }
 
   private void doCheck(@NotNull PsModel model) {
-    myRunning.set(true);
     PsModelAnalyzer<?> analyzer = myModelAnalyzers.get(model.getClass());
     if (analyzer == null) {
       LOG.info("Failed to find analyzer for model of type " + model.getClass().getName());
       return;
     }
+    myRunning.set(true);
+    myPendingAnalysisCount.incrementAndGet();
+    Future<?> future = myAnalysisExecutor.submit(() -> {
+      try {
+        analyze(model, analyzer);
+      }
+      catch (Throwable e) {
+        LOG.error("Failed to analyze " + model, e);
+      }
+      finally {
+        myPendingAnalysisCount.decrementAndGet();
+        myResultsUpdaterQueue.queue(new IssuesComputed(model));
+      }
+    });
+    Future<?> previous = myPendingAnalyses.put(model, future);
+    if (previous != null && previous.cancel(false)) {
+      // The cancelled task never ran, so it is not going to update the counter itself.
+      myPendingAnalysisCount.decrementAndGet();
+    }
+  }
+
+  private void analyze(@NotNull PsModel model, @NotNull PsModelAnalyzer<?> analyzer) {
     ReadAction.run(() -> {
-      if (!isStopped()) {
-        analyzer.analyze(model, myIssues);
+      if (isStopped()) {
+        return;
+      }
+      Integer dependencyHash = computeDependencyHash(model);
+      if (dependencyHash != null && dependencyHash.equals(myAnalyzedDependencyHashes.get(model))) {
+        // Nothing the analysis depends on changed since the module was last analyzed: its issues are still current.
+        return;
+      }
+      analyzer.analyze(model, myIssues);
+      if (dependencyHash != null && !isStopped()) {
+        myAnalyzedDependencyHashes.put(model, dependencyHash);
       }
     });
-    myResultsUpdaterQueue.queue(new IssuesComputed(model));
+  }
+
+  /**
+   * Returns a hash of the dependencies of the given module, as declared in its build file and as resolved by the last sync, or
+   * {@code null} if the analysis of the given model can't be memoized.
+   */
+  @Nullable
+  private static Integer computeDependencyHash(@NotNull PsModel model) {
+    AtomicInteger hash = new AtomicInteger();
+    Consumer<PsDependency> hashDependency = dependency -> {
+      int dependencyHash = Objects.hash(dependency.toText(PsDependency.TextType.PLAIN_TEXT), dependency.getJoinedConfigurationNames(),
+                                        dependency.isDeclared());
+      if (dependency instanceof PsLibraryDependency) {
+        PsLibraryDependency libraryDependency = (PsLibraryDependency)dependency;
+        dependencyHash = 31 * dependencyHash + Objects.hash(String.valueOf(libraryDependency.getDeclaredSpec()),
+                                                            libraryDependency.getResolvedSpec().toString(),
+                                                            libraryDependency.hasPromotedVersion());
+      }
+      hash.set(31 * hash.get() + dependencyHash);
+    };
+    if (model instanceof PsAndroidModule) {
+      PsAndroidModule androidModule = (PsAndroidModule)model;
+      // Sync issues are reported against the dependencies, and they come from the Gradle model of the last sync.
+      hash.set(System.identityHashCode(androidModule.getGradleModel()));
+      androidModule.forEachDependency(hashDependency::accept);
+      return hash.get();
+    }
+    if (model instanceof PsJavaModule) {
+      PsJavaModule javaModule = (PsJavaModule)model;
+      hash.set(System.identityHashCode(javaModule.getGradleModel()));
+      javaModule.forEachDependency(hashDependency::accept);
+      return hash.get();
+    }
+    return null;
   }
 
   @Override
@@ -187,6 +289,10 @@ public class PsAnalyzerDaemon extends PsDaemon {
 
   public void removeIssues(@NotNull PsIssueType type) {
     myIssues.remove(type);
+    if (type == PROJECT_ANALYSIS) {
+      // A module is only skipped while the issues of its last analysis are kept, so the modules need to be analyzed again.
+      myAnalyzedDependencyHashes.clear();
+    }
     myResultsUpdaterQueue.queue(new IssuesComputed(getContext().getProject()));
   }
 
@@ -224,7 +330,7 @@ public class PsAnalyzerDaemon extends PsDaemon {
         return;
       }
       myIssuesUpdatedEventDispatcher.getMulticaster().issuesUpdated(myModel);
-      myRunning.set(false);
+      myRunning.set(myPendingAnalysisCount.get() > 0);
     }
   }
 
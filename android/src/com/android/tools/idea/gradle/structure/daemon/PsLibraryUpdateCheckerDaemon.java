@@ -29,18 +29,17 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.intellij.openapi.Disposable;
-import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.EventDispatcher;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.update.MergingUpdateQueue;
 import com.intellij.util.ui.update.Update;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
-import java.util.EventListener;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,11 +48,17 @@ import static com.intellij.openapi.util.text.StringUtil.isNotEmpty;
 import static com.intellij.util.ui.update.MergingUpdateQueue.ANY_COMPONENT;
 
 public class PsLibraryUpdateCheckerDaemon extends PsDaemon {
+  private static final Logger LOG = Logger.getInstance(PsLibraryUpdateCheckerDaemon.class);
+  private static final int MAX_PARALLEL_REPOSITORY_SEARCHES = 4;
+
   @NotNull private final MergingUpdateQueue myMainQueue;
   @NotNull private final MergingUpdateQueue myResultsUpdaterQueue;
 
   @NotNull private final AtomicBoolean myRunning = new AtomicBoolean(true);
 
+  @NotNull private final ExecutorService mySearchExecutor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Project Structure Library Update Search", MAX_PARALLEL_REPOSITORY_SEARCHES);
+
   @NotNull private final EventDispatcher<AvailableUpdatesListener> myEventDispatcher =
     EventDispatcher.create(AvailableUpdatesListener.class);
 
@@ -108,47 +113,55 @@ public class PsLibraryUpdateCheckerDaemon extends PsDaemon {
     return myRunning.get();
   }
 
+  /**
+   * Searches for the given libraries in the given repositories. Each repository gets all the requests in a single batch (see
+   * {@link ArtifactRepository#search(Collection)}), and the repositories are searched on a bounded pool, instead of one pooled thread
+   * per repository and library.
+   */
   private void search(@NotNull Collection<ArtifactRepository> repositories,
                       @NotNull Collection<LibraryUpdateId> ids) {
     myRunning.set(true);
     getAvailableUpdates().clear();
 
-    int resultCount = repositories.size() * ids.size();
-    List<Future<SearchResult>> jobs = Lists.newArrayListWithExpectedSize(resultCount);
-
-    Set<SearchRequest> requests = Sets.newHashSet();
+    Set<SearchRequest> requests = Sets.newLinkedHashSet();
     ids.forEach(id -> {
       SearchRequest request = new SearchRequest(id.getName(), id.getGroupId(), 1, 0);
       requests.add(request);
     });
 
-    Set<SearchResult> results = Sets.newHashSet();
-    List<Exception> errors = Lists.newArrayList();
-
-    Application application = ApplicationManager.getApplication();
-    application.executeOnPooledThread(() -> {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      List<Future<Map<SearchRequest, SearchResult>>> jobs = Lists.newArrayListWithExpectedSize(repositories.size());
       for (ArtifactRepository repository : repositories) {
-        for (SearchRequest request : requests) {
-          jobs.add(application.executeOnPooledThread(() -> repository.search(request)));
-        }
+        jobs.add(mySearchExecutor.submit(() -> isStopped() ? Collections.<SearchRequest, SearchResult>emptyMap() : repository.search(requests)));
       }
 
-      for (Future<SearchResult> job : jobs) {
+      Set<SearchResult> results = Sets.newHashSet();
+      for (Future<Map<SearchRequest, SearchResult>> job : jobs) {
+        if (isStopped()) {
+          job.cancel(false);
+          continue;
+        }
         try {
-          SearchResult result = Futures.getChecked(job, Exception.class);
-          List<FoundArtifact> artifacts = result.getArtifacts();
-          if (artifacts.size() == 1) {
-            FoundArtifact artifact = artifacts.get(0);
-            if (!artifact.getVersions().isEmpty()) {
-              results.add(result);
+          for (SearchResult result : Futures.getChecked(job, Exception.class).values()) {
+            List<FoundArtifact> artifacts = result.getArtifacts();
+            if (artifacts.size() == 1) {
+              FoundArtifact artifact = artifacts.get(0);
+              if (!artifact.getVersions().isEmpty()) {
+                results.add(result);
+              }
             }
           }
         }
         catch (Exception e) {
-          errors.add(e);
+          LOG.info("Failed to search for library updates", e);
         }
       }
 
+      if (isStopped()) {
+        myRunning.set(false);
+        return;
+      }
+
       AvailableLibraryUpdates updates = getAvailableUpdates();
 
       for (SearchResult result : results) {
@@ -23,12 +23,17 @@ import com.android.tools.idea.gradle.structure.model.java.PsJavaModule;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import static com.android.tools.idea.gradle.util.GradleUtil.getGradlePath;
@@ -44,9 +49,11 @@ public class PsProject extends PsModel {
     super(null);
     myProject = project;
 
-    for (Module resolvedModel : ModuleManager.getInstance(myProject).getModules()) {
+    Module[] resolvedModels = ModuleManager.getInstance(myProject).getModules();
+    Map<Module, GradleBuildModel> parsedModels = parseBuildModels(myProject, resolvedModels);
+    for (Module resolvedModel : resolvedModels) {
       String gradlePath = getGradlePath(resolvedModel);
-      GradleBuildModel parsedModel = GradleBuildModel.get(resolvedModel);
+      GradleBuildModel parsedModel = parsedModels.get(resolvedModel);
       if (gradlePath != null && parsedModel != null) {
         // Only Gradle-based modules are displayed in the PSD.
         PsModule module = null;
@@ -70,6 +77,18 @@ public class PsProject extends PsModel {
     }
   }
 
+  /**
+   * Parses the build files of the given modules concurrently, off the UI thread, while showing a modal progress dialog. The models share
+   * the build files of their parent modules, which are only parsed once.
+   */
+  @NotNull
+  private static Map<Module, GradleBuildModel> parseBuildModels(@NotNull Project project, @NotNull Module[] modules) {
+    Ref<Map<Module, GradleBuildModel>> parsedModels = new Ref<>(Collections.emptyMap());
+    ProgressManager.getInstance().runProcessWithProgressSynchronously(
+      () -> parsedModels.set(GradleBuildModel.get(project, Arrays.asList(modules))), "Reading Gradle Build Files", false, project);
+    return parsedModels.get();
+  }
+
   @Nullable
   public PsModule findModuleByName(@NotNull String moduleName) {
     for (PsModule model : myModules) {
@@ -15,9 +15,25 @@
  */
 package com.android.tools.idea.gradle.structure.model.repositories.search;
 
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 public abstract class ArtifactRepository {
+  private static final int MAX_PARALLEL_REMOTE_REQUESTS = 8;
+
+  /**
+   * Sends the requests of a batch to remote repositories in parallel, as each one mostly waits for the network.
+   */
+  private static final ExecutorService ourRemoteSearchExecutor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Artifact Repository Search", MAX_PARALLEL_REMOTE_REQUESTS);
+
   @NotNull
   public abstract String getName();
 
@@ -35,4 +51,54 @@ public abstract class ArtifactRepository {
 
   @NotNull
   protected abstract SearchResult doSearch(@NotNull SearchRequest request) throws Exception;
+
+  /**
+   * Searches for all the given requests, returning the results in the order of the requests. By default the requests are sent one at a
+   * time, or in parallel for remote repositories; repositories which can answer several requests at a lower cost override
+   * {@link #doSearch(Collection)}.
+   */
+  @NotNull
+  public final Map<SearchRequest, SearchResult> search(@NotNull Collection<SearchRequest> requests) {
+    try {
+      return doSearch(requests);
+    }
+    catch (Exception e) {
+      Map<SearchRequest, SearchResult> results = new LinkedHashMap<>();
+      for (SearchRequest request : requests) {
+        results.put(request, new SearchResult(getName(), e));
+      }
+      return results;
+    }
+  }
+
+  @NotNull
+  protected Map<SearchRequest, SearchResult> doSearch(@NotNull Collection<SearchRequest> requests) throws Exception {
+    Map<SearchRequest, SearchResult> results = new LinkedHashMap<>();
+    if (!isRemote() || requests.size() < 2) {
+      for (SearchRequest request : requests) {
+        results.put(request, search(request));
+      }
+      return results;
+    }
+
+    Map<SearchRequest, Future<SearchResult>> jobs = new LinkedHashMap<>();
+    for (SearchRequest request : requests) {
+      jobs.put(request, ourRemoteSearchExecutor.submit(() -> search(request)));
+    }
+    try {
+      for (Map.Entry<SearchRequest, Future<SearchResult>> job : jobs.entrySet()) {
+        try {
+          results.put(job.getKey(), job.getValue().get());
+        }
+        catch (ExecutionException e) {
+          results.put(job.getKey(), new SearchResult(getName(), e.getCause() instanceof Exception ? (Exception)e.getCause() : e));
+        }
+      }
+    }
+    finally {
+      // Only left running if waiting was interrupted.
+      jobs.values().forEach(job -> job.cancel(true));
+    }
+    return results;
+  }
 }
@@ -29,8 +29,7 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.intellij.openapi.util.JDOMUtil.loadDocument;
@@ -62,7 +61,19 @@ public class LocalMavenRepository extends ArtifactRepository {
   @Override
   @NotNull
   protected SearchResult doSearch(@NotNull SearchRequest request) {
-    List<FoundArtifact> foundArtifacts = Lists.newArrayList();
+    return doSearch(Collections.singletonList(request)).get(request);
+  }
+
+  /**
+   * Walks the repository once for all the given requests, instead of once per request.
+   */
+  @Override
+  @NotNull
+  protected Map<SearchRequest, SearchResult> doSearch(@NotNull Collection<SearchRequest> requests) {
+    Map<SearchRequest, List<FoundArtifact>> foundArtifacts = new LinkedHashMap<>();
+    for (SearchRequest request : requests) {
+      foundArtifacts.put(request, Lists.newArrayList());
+    }
 
     try {
       walkFileTree(myRootLocation, new SimpleFileVisitor<Path>() {
@@ -72,18 +83,26 @@ public class LocalMavenRepository extends ArtifactRepository {
           File mavenMetadataFile = new File(parent, "maven-metadata.xml");
 
           if (mavenMetadataFile.isFile()) {
-            Match match = isMatch(mavenMetadataFile, request);
-            if (match != null) {
-              List<GradleVersion> versions = Lists.newArrayList();
-              for (File child : notNullize(parent.listFiles())) {
-                if (child.isDirectory()) {
-                  String version = child.getName();
-                  versions.add(GradleVersion.parse(version));
+            Element rootElement = loadMetadata(mavenMetadataFile);
+            if (rootElement != null) {
+              List<GradleVersion> versions = null;
+              for (Map.Entry<SearchRequest, List<FoundArtifact>> entry : foundArtifacts.entrySet()) {
+                Match match = isMatch(rootElement, entry.getKey());
+                if (match != null) {
+                  if (versions == null) {
+                    versions = Lists.newArrayList();
+                    for (File child : notNullize(parent.listFiles())) {
+                      if (child.isDirectory()) {
+                        String version = child.getName();
+                        versions.add(GradleVersion.parse(version));
+                      }
+                    }
+                  }
+
+                  FoundArtifact artifact = new FoundArtifact(myName, match.groupId, match.artifactName, versions);
+                  entry.getValue().add(artifact);
                 }
               }
-
-              FoundArtifact artifact = new FoundArtifact(myName, match.groupId, match.artifactName, versions);
-              foundArtifacts.add(artifact);
             }
             return SKIP_SUBTREE;
           }
@@ -96,37 +115,16 @@ public class LocalMavenRepository extends ArtifactRepository {
       Logger.getInstance(LocalMavenRepository.class).warn(msg, e);
     }
 
-    return new SearchResult(myName, foundArtifacts, foundArtifacts.size());
+    Map<SearchRequest, SearchResult> results = new LinkedHashMap<>();
+    foundArtifacts.forEach((request, artifacts) -> results.put(request, new SearchResult(myName, artifacts, artifacts.size())));
+    return results;
   }
 
   @Nullable
-  private static Match isMatch(@NotNull File mavenMetadataFile, @NotNull SearchRequest request) {
-    String groupId = request.getGroupId();
-    String artifactName = request.getArtifactName();
-
+  private static Element loadMetadata(@NotNull File mavenMetadataFile) {
     try {
       Document document = loadDocument(mavenMetadataFile);
-      Element rootElement = document.getRootElement();
-      if (rootElement != null) {
-        Element groupIdElement = rootElement.getChild("groupId");
-        if (groupId != null && groupIdElement == null) {
-          return null;
-        }
-        groupId = nullToEmpty(groupId);
-        String currentGroupId = nullToEmpty(groupIdElement.getValue());
-        if (!currentGroupId.contains(groupId)) {
-          return null;
-        }
-
-        Element artifactIdElement = rootElement.getChild("artifactId");
-        if (artifactIdElement == null) {
-          return null;
-        }
-        String currentArtifactName = artifactIdElement.getValue();
-        if (currentArtifactName.contains(artifactName)) {
-          return new Match(currentArtifactName, nullToEmpty(currentGroupId));
-        }
-      }
+      return document.getRootElement();
     }
     catch (Throwable e) {
       String msg = String.format("Failed to parse '%1$s'", mavenMetadataFile.getPath());
@@ -135,6 +133,32 @@ public class LocalMavenRepository extends ArtifactRepository {
     return null;
   }
 
+  @Nullable
+  private static Match isMatch(@NotNull Element rootElement, @NotNull SearchRequest request) {
+    String groupId = request.getGroupId();
+    String artifactName = request.getArtifactName();
+
+    Element groupIdElement = rootElement.getChild("groupId");
+    if (groupIdElement == null) {
+      return null;
+    }
+    groupId = nullToEmpty(groupId);
+    String currentGroupId = nullToEmpty(groupIdElement.getValue());
+    if (!currentGroupId.contains(groupId)) {
+      return null;
+    }
+
+    Element artifactIdElement = rootElement.getChild("artifactId");
+    if (artifactIdElement == null) {
+      return null;
+    }
+    String currentArtifactName = artifactIdElement.getValue();
+    if (currentArtifactName.contains(artifactName)) {
+      return new Match(currentArtifactName, currentGroupId);
+    }
+    return null;
+  }
+
   private static class Match {
     @NotNull final String artifactName;
     @NotNull final String groupId;
@@ -22,10 +22,12 @@ import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.xml.*;
+import com.intellij.reference.SoftReference;
 import com.intellij.util.containers.HashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -48,11 +50,15 @@ import java.util.Map;
  * text and comment nodes.)
  */
 class DomPsiConverter {
+  private static final Key<SoftReference<CachedDocument>> DOCUMENT_KEY = Key.create("android.lint.dom.document");
+
   private DomPsiConverter() {
   }
 
   /**
-   * Convert the given {@link XmlFile} to a DOM tree
+   * Convert the given {@link XmlFile} to a DOM tree. The tree is softly cached until the file's
+   * modification stamp changes, so repeated lint runs over an unchanged file share the DOM nodes
+   * they have already wrapped without keeping the trees of all analyzed files in memory.
    *
    * @param xmlFile the file to be converted
    * @return a corresponding W3C DOM tree
@@ -60,12 +66,20 @@ class DomPsiConverter {
   @Nullable
   public static Document convert(@NotNull XmlFile xmlFile) {
     try {
+      long modificationStamp = xmlFile.getModificationStamp();
+      CachedDocument cached = SoftReference.dereference(xmlFile.getUserData(DOCUMENT_KEY));
+      if (cached != null && cached.myModificationStamp == modificationStamp) {
+        return cached.myDocument;
+      }
+
       XmlDocument xmlDocument = xmlFile.getDocument();
       if (xmlDocument == null) {
         return null;
       }
 
-      return convert(xmlDocument);
+      Document document = convert(xmlDocument);
+      xmlFile.putUserData(DOCUMENT_KEY, new SoftReference<>(new CachedDocument(modificationStamp, document)));
+      return document;
     }
     catch (ProcessCanceledException e) {
       // Ignore: common occurrence, e.g. we're running lint as part of an editor background
@@ -406,31 +420,34 @@ class DomPsiConverter {
     @NotNull
     @Override
     public DomNodeList getChildNodes() {
-      if (myChildren == null) {
-        PsiElement[] children = myElement.getChildren();
-        if (children.length > 0) {
-          DomNodeList list = new DomNodeList();
-          myChildren = list;
-          // True except for in DomDocument, which has custom getChildNodes
-          assert myOwner != null;
-
-          for (PsiElement child : children) {
-            if (child instanceof XmlTag) {
-              list.add(new DomElement(myOwner, this, (XmlTag) child));
-            } else if (child instanceof XmlText) {
-              list.add(new DomText(myOwner, this, (XmlText) child));
-            } else if (child instanceof XmlComment) {
-              list.add(new DomComment(myOwner, this, (XmlComment) child));
-            } else {
-              // Skipping other types for now; lint doesn't care about them.
-              // TODO: Consider whether we need CDATA.
+      // The converted tree is cached and may be shared by lint runs on different threads
+      synchronized (this) {
+        if (myChildren == null) {
+          PsiElement[] children = myElement.getChildren();
+          if (children.length > 0) {
+            DomNodeList list = new DomNodeList();
+            // True except for in DomDocument, which has custom getChildNodes
+            assert myOwner != null;
+
+            for (PsiElement child : children) {
+              if (child instanceof XmlTag) {
+                list.add(new DomElement(myOwner, this, (XmlTag) child));
+              } else if (child instanceof XmlText) {
+                list.add(new DomText(myOwner, this, (XmlText) child));
+              } else if (child instanceof XmlComment) {
+                list.add(new DomComment(myOwner, this, (XmlComment) child));
+              } else {
+                // Skipping other types for now; lint doesn't care about them.
+                // TODO: Consider whether we need CDATA.
+              }
             }
+            myChildren = list;
+          } else {
+            myChildren = EMPTY;
           }
-        } else {
-          myChildren = EMPTY;
         }
+        return myChildren;
       }
-      return myChildren;
     }
 
     @Nullable
@@ -692,16 +709,18 @@ class DomPsiConverter {
     @NotNull
     @Override
     public DomNodeList getChildNodes() {
-      if (myChildren == null) {
-        DomNodeList list = new DomNodeList();
-        myChildren = list;
-        DomNode documentElement = (DomNode)getDocumentElement();
-        if (documentElement != null) {
-          list.add(documentElement);
+      synchronized (this) {
+        if (myChildren == null) {
+          DomNodeList list = new DomNodeList();
+          DomNode documentElement = (DomNode)getDocumentElement();
+          if (documentElement != null) {
+            list.add(documentElement);
+          }
+          myChildren = list;
         }
-      }
 
-      return myChildren;
+        return myChildren;
+      }
     }
 
     // From org.w3c.dom.Document:
@@ -721,15 +740,17 @@ class DomPsiConverter {
     @Nullable
     @Override
     public Element getDocumentElement() {
-      if (myRoot == null) {
-        XmlTag rootTag = myPsiDocument.getRootTag();
-        if (rootTag == null) {
-          return null;
+      synchronized (this) {
+        if (myRoot == null) {
+          XmlTag rootTag = myPsiDocument.getRootTag();
+          if (rootTag == null) {
+            return null;
+          }
+          myRoot = new DomElement(this, this, rootTag);
         }
-        myRoot = new DomElement(this, this, rootTag);
-      }
 
-      return myRoot;
+        return myRoot;
+      }
     }
 
     @NotNull
@@ -943,16 +964,18 @@ class DomPsiConverter {
         return application.runReadAction((Computable<NamedNodeMap>)this::getAttributes);
       }
 
-      if (myAttributes == null) {
-        XmlAttribute[] attributes = myTag.getAttributes();
-        if (attributes.length == 0) {
-         myAttributes = EMPTY_ATTRIBUTES;
-        } else {
-          myAttributes = new DomNamedNodeMap(this, attributes);
+      synchronized (this) {
+        if (myAttributes == null) {
+          XmlAttribute[] attributes = myTag.getAttributes();
+          if (attributes.length == 0) {
+           myAttributes = EMPTY_ATTRIBUTES;
+          } else {
+            myAttributes = new DomNamedNodeMap(this, attributes);
+          }
         }
-      }
 
-      return myAttributes;
+        return myAttributes;
+      }
     }
 
     // From org.w3c.dom.Element:
@@ -1333,4 +1356,14 @@ class DomPsiConverter {
       throw new UnsupportedOperationException(); // Not supported
     }
   }
+
+  private static final class CachedDocument {
+    private final long myModificationStamp;
+    @NotNull private final Document myDocument;
+
+    private CachedDocument(long modificationStamp, @NotNull Document document) {
+      myModificationStamp = modificationStamp;
+      myDocument = document;
+    }
+  }
 }
@@ -109,7 +109,8 @@ public class ConfigureAndroidProjectStep extends ModelWizardStep<NewProjectModel
     });
 
     Expression<File> locationFile = model.projectLocation().transform(File::new);
-    myValidatorPanel.registerValidator(locationFile, PathValidator.createDefault("project location"));
+    // Checking the location walks up its parent directories on disk, which can stall the UI on slow or network drives.
+    myValidatorPanel.registerBackgroundValidator(locationFile, PathValidator.createDefault("project location"));
 
     myValidatorPanel.registerValidator(model.packageName(),
                                        value -> Validator.Result.fromNullableMessage(WizardUtils.validatePackageName(value)));
@@ -46,6 +46,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -158,6 +159,14 @@ public abstract class LocalResourceRepository extends AbstractResourceRepository
 
   private volatile long myGeneration;
 
+  /**
+   * The generations of the last changes known to only affect resources of a given type, and of the last change which may have affected
+   * resources of any type. See {@link #getModificationCount(ResourceType)}.
+   */
+  private final Object GENERATION_LOCK = new Object();
+  @GuardedBy("GENERATION_LOCK") private final Map<ResourceType, Long> myTypeGenerations = new EnumMap<>(ResourceType.class);
+  @GuardedBy("GENERATION_LOCK") private long myUntypedGeneration;
+
   private final Object RESOURCE_DIRS_LOCK = new Object();
   @Nullable private Set<VirtualFile> myResourceDirs;
 
@@ -289,7 +298,34 @@ public abstract class LocalResourceRepository extends AbstractResourceRepository
   }
 
   protected void setModificationCount(long count) {
-    myGeneration = count;
+    synchronized (GENERATION_LOCK) {
+      myUntypedGeneration = count;
+      myGeneration = count;
+    }
+  }
+
+  /**
+   * Like {@link #setModificationCount(long)}, for a change which only affected resources of the given types.
+   */
+  protected void setModificationCount(long count, @NotNull ResourceType... types) {
+    synchronized (GENERATION_LOCK) {
+      for (ResourceType type : types) {
+        myTypeGenerations.put(type, count);
+      }
+      myGeneration = count;
+    }
+  }
+
+  /**
+   * Returns the generation of the last change which may have affected resources of the given type. This lets clients which hold data
+   * derived from the resources of each type (e.g. configured resource maps) only recompute the stale parts. Changes that aren't known
+   * to only affect some types count as changes of all types.
+   */
+  public long getModificationCount(@NotNull ResourceType type) {
+    synchronized (GENERATION_LOCK) {
+      Long typeGeneration = myTypeGenerations.get(type);
+      return typeGeneration != null ? Math.max(typeGeneration, myUntypedGeneration) : myUntypedGeneration;
+    }
   }
 
   @Nullable
@@ -334,6 +370,15 @@ public abstract class LocalResourceRepository extends AbstractResourceRepository
     return null;
   }
 
+  /**
+   * Returns the generation of the last change which may have affected the data-binding layouts of this repository, i.e. the result of
+   * {@link #getDataBindingResourceFiles()} or the contents of its {@link DataBindingInfo}s. Unlike {@link #getModificationCount()},
+   * it doesn't change when e.g. a string is edited, so the binding classes derived from the layouts don't need to be computed again.
+   */
+  public long getDataBindingModificationCount() {
+    return getModificationCount();
+  }
+
   @VisibleForTesting
   public boolean isScanPending(@NonNull PsiFile psiFile) {
     return false;
@@ -51,6 +51,10 @@ public abstract class MultiResourceRepository extends LocalResourceRepository {
   @GuardedBy("ITEM_MAP_LOCK")
   private long[] myModificationCounts;
 
+  /** The generation of the last change of the children, or invalidation by one of them, which may have affected all resource types */
+  @GuardedBy("ITEM_MAP_LOCK")
+  private long myUntypedGeneration;
+
   @GuardedBy("ITEM_MAP_LOCK")
   private ResourceTable myFullTable;
 
@@ -83,6 +87,7 @@ public abstract class MultiResourceRepository extends LocalResourceRepository {
         }
       }
       setModificationCount(ourModificationCounter.incrementAndGet());
+      myUntypedGeneration = super.getModificationCount();
       myChildren = children;
       myModificationCounts = new long[children.size()];
       if (children.size() == 1) {
@@ -136,6 +141,28 @@ public abstract class MultiResourceRepository extends LocalResourceRepository {
     }
   }
 
+  @Override
+  public long getModificationCount(@NotNull ResourceType type) {
+    synchronized (ITEM_MAP_LOCK) {
+      long generation = myUntypedGeneration;
+      for (int i = myChildren.size() - 1; i >= 0; i--) {
+        generation = Math.max(generation, myChildren.get(i).getModificationCount(type));
+      }
+      return generation;
+    }
+  }
+
+  @Override
+  public long getDataBindingModificationCount() {
+    synchronized (ITEM_MAP_LOCK) {
+      long generation = myUntypedGeneration;
+      for (int i = myChildren.size() - 1; i >= 0; i--) {
+        generation = Math.max(generation, myChildren.get(i).getDataBindingModificationCount());
+      }
+      return generation;
+    }
+  }
+
   @Nullable
   @Override
   public DataBindingInfo getDataBindingInfoForLayout(String layoutName) {
@@ -154,7 +181,7 @@ public abstract class MultiResourceRepository extends LocalResourceRepository {
   @Override
   public Map<String, DataBindingInfo> getDataBindingResourceFiles() {
     synchronized (ITEM_MAP_LOCK) {
-      long modificationCount = getModificationCount();
+      long modificationCount = getDataBindingModificationCount();
       if (myDataBindingResourceFilesModificationCount == modificationCount) {
         return myDataBindingResourceFiles;
       }
@@ -319,6 +346,7 @@ public abstract class MultiResourceRepository extends LocalResourceRepository {
       myCachedHasResourcesOfType.clear();
       myFullTable = null;
       setModificationCount(ourModificationCounter.incrementAndGet());
+      myUntypedGeneration = super.getModificationCount();
 
       invalidateParentCaches();
     }
@@ -15,6 +15,7 @@
  */
 package com.android.tools.idea.res;
 
+import com.android.annotations.VisibleForTesting;
 import com.android.ide.common.rendering.api.AttrResourceValue;
 import com.android.ide.common.rendering.api.DeclareStyleableResourceValue;
 import com.android.ide.common.rendering.api.ResourceValue;
@@ -34,6 +35,7 @@ import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Type;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.android.tools.idea.LogAnonymizerUtil.anonymizeClassName;
 import static com.android.tools.idea.LogAnonymizerUtil.isPublicClass;
@@ -62,13 +64,25 @@ import static org.jetbrains.org.objectweb.asm.Opcodes.*;
  * dependencies. It is not straight-forward to get the list of dependencies after the creation of the resource
  * repositories for each aar. So, we use the app's resource repository and generate the R file from it. This
  * will break custom libraries that use reflection on the R class, but meh.
+ * <p>
+ * Since the R classes of all the libraries hold the same ids, the ids of each resource type are only computed once,
+ * and can be computed ahead of time with {@link #computeIds()}. The generated inner classes are kept as well, so the
+ * class loaders created for each render don't generate them again. Both are dropped along with the generator when the
+ * dynamic ids of the app resources are reset.
  */
 public class ResourceClassGenerator {
   private static final Logger LOG = Logger.getInstance(ResourceClassGenerator.class);
 
+  /** Name of the throwaway R class generated by {@link #computeIds()}, which only keeps the computed ids. */
+  private static final String ID_COMPUTATION_CLASS_NAME = "com.android.tools.idea.res.R";
+
   private Map<ResourceType, TObjectIntHashMap<String>> myCache;
   /** For int[] in styleables. The ints in styleables are stored in {@link #myCache}. */
   private Map<String, List<Integer>> myStyleableCache;
+  /** The bytecode of the inner R classes (e.g. R$string) generated so far, by fully qualified class name. */
+  private final Map<String, byte[]> myClassCache = new HashMap<>();
+  private int myGeneratedClassCount;
+  private long myGenerationTimeNs;
   @NotNull private final AppResourceRepository myAppResources;
 
   private ResourceClassGenerator(@NotNull AppResourceRepository appResources) {
@@ -88,9 +102,61 @@ public class ResourceClassGenerator {
 
   /**
    * @param fqcn Fully qualified class name (as accepted by ClassLoader, or as returned by Class.getName())
+   * @return the bytecode of the class, which may be shared with other callers and must not be modified
+   */
+  @Nullable
+  public synchronized byte[] generate(String fqcn) {
+    byte[] data = myClassCache.get(fqcn);
+    if (data != null) {
+      return data;
+    }
+
+    long start = System.nanoTime();
+    data = doGenerate(fqcn);
+    long elapsed = System.nanoTime() - start;
+    myGeneratedClassCount++;
+    myGenerationTimeNs += elapsed;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("  generated %s in %d ms (%d classes in %d ms so far)", anonymizeClassName(fqcn),
+                              TimeUnit.NANOSECONDS.toMillis(elapsed), myGeneratedClassCount,
+                              TimeUnit.NANOSECONDS.toMillis(myGenerationTimeNs)));
+    }
+    // The outer R class lists the resource types currently available, so it isn't kept.
+    if (data != null && fqcn.indexOf('$') != -1) {
+      myClassCache.put(fqcn, data);
+    }
+    return data;
+  }
+
+  /**
+   * Computes the ids of the resources of every type ahead of time, e.g. in the background after a sync, so that generating
+   * the R classes of the libraries afterwards only needs to write their fields.
    */
+  public synchronized void computeIds() {
+    long start = System.nanoTime();
+    Set<ResourceType> types = EnumSet.noneOf(ResourceType.class);
+    for (ResourceType type : myAppResources.getAvailableResourceTypes()) {
+      types.add(type == ResourceType.DECLARE_STYLEABLE ? ResourceType.STYLEABLE : type);
+    }
+    for (ResourceType type : types) {
+      doGenerate(ID_COMPUTATION_CLASS_NAME + "$" + type.getName());
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("computeIds() for %d resource types in %d ms", types.size(),
+                              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+  }
+
+  /**
+   * Returns the number of classes generated (rather than returned from the cache) by {@link #generate(String)}.
+   */
+  @VisibleForTesting
+  synchronized int getGeneratedClassCount() {
+    return myGeneratedClassCount;
+  }
+
   @Nullable
-  public byte[] generate(String fqcn) {
+  private byte[] doGenerate(@NotNull String fqcn) {
     String className = fqcn.replace('.', '/');
 
     if (LOG.isDebugEnabled()) {
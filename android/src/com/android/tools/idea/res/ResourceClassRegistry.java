@@ -18,48 +18,121 @@ package com.android.tools.idea.res;
 import com.android.annotations.VisibleForTesting;
 import com.android.ide.common.xml.AndroidManifestParser;
 import com.android.io.FileWrapper;
+import com.android.resources.ResourceFolderType;
 import com.android.tools.idea.projectsystem.FilenameConstants;
 import com.google.common.collect.Maps;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.containers.HashSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.android.SdkConstants.ANDROID_MANIFEST_XML;
 import static com.android.SdkConstants.DOT_AAR;
+import static com.android.tools.idea.projectsystem.ProjectSystemSyncUtil.PROJECT_SYSTEM_SYNC_TOPIC;
 
 /**
  * A registry for class lookup of resource classes (R classes).
+ * <p>
+ * After each successful sync, while a layout is open, the ids of the R classes of the modules depending on libraries are computed
+ * in the background, so that the next render doesn't have to compute them for every library R class it loads.
  */
 public class ResourceClassRegistry implements ProjectComponent {
 
   private final Map<AppResourceRepository, ResourceClassGenerator> myGeneratorMap = Maps.newHashMap();
+  /**
+   * The packages of the AAR directories, along with the time stamp of the manifest they were read from. Each module class loader
+   * looks them up for all the AARs of its module.
+   */
+  private final Map<File, Pair<Long, String>> myAarPackages = new ConcurrentHashMap<>();
   private final Project myProject;
   private Collection<String> myPackages;
+  /**
+   * Whether a {@link #computeIds()} run is already queued, so that the syncs finishing before it starts only cause one run.
+   */
+  private final AtomicBoolean myComputeIdsPending = new AtomicBoolean();
 
   @SuppressWarnings("WeakerAccess")  // Accessed via reflection.
   public ResourceClassRegistry(Project project) {
     myProject = project;
   }
 
+  @Override
+  public void projectOpened() {
+    myProject.getMessageBus().connect(myProject).subscribe(PROJECT_SYSTEM_SYNC_TOPIC, result -> {
+      if (result.isSuccessful() && myComputeIdsPending.compareAndSet(false, true)) {
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+          // Cleared before computing, so that a sync finishing while the ids are being computed queues another run.
+          myComputeIdsPending.set(false);
+          computeIds();
+        });
+      }
+    });
+  }
+
   public void addLibrary(@NotNull AppResourceRepository appResources, @Nullable String pkg) {
     if (pkg != null && !pkg.isEmpty()) {
-      if (myPackages == null) {
-        myPackages = new HashSet<>();
+      synchronized (this) {
+        if (myPackages == null) {
+          myPackages = new HashSet<>();
+        }
+        myPackages.add(pkg);
       }
-      myPackages.add(pkg);
-      if (!myGeneratorMap.containsKey(appResources)) {
-        ResourceClassGenerator generator = ResourceClassGenerator.create(appResources);
-        myGeneratorMap.put(appResources, generator);
+      getGenerator(appResources);
+    }
+  }
+
+  @NotNull
+  private synchronized ResourceClassGenerator getGenerator(@NotNull AppResourceRepository appResources) {
+    return myGeneratorMap.computeIfAbsent(appResources, ResourceClassGenerator::create);
+  }
+
+  /**
+   * Computes the ids of the R classes of the modules which depend on libraries, ahead of their first render. Nothing is computed
+   * while no layout is open, since there is no render to prepare for; the ids are then computed by the first render as needed.
+   */
+  private void computeIds() {
+    if (myProject.isDisposed() || !hasOpenLayoutFile()) {
+      return;
+    }
+    for (Module module : ModuleManager.getInstance(myProject).getModules()) {
+      // One read action per module, so that pending write actions don't wait for all of them.
+      ReadAction.run(() -> {
+        if (module.isDisposed()) {
+          return;
+        }
+        AppResourceRepository appResources = AppResourceRepository.findExistingInstance(module);
+        if (appResources != null) {
+          List<FileResourceRepository> libraries = appResources.getLibraries();
+          if (libraries != null && !libraries.isEmpty()) {
+            getGenerator(appResources).computeIds();
+          }
+        }
+      });
+    }
+  }
+
+  private boolean hasOpenLayoutFile() {
+    for (VirtualFile file : FileEditorManager.getInstance(myProject).getOpenFiles()) {
+      if (ResourceHelper.getFolderType(file) == ResourceFolderType.LAYOUT) {
+        return true;
       }
     }
+    return false;
   }
 
   public void addAarLibrary(@NotNull AppResourceRepository appResources, @NotNull File aarDir) {
@@ -76,13 +149,21 @@ public class ResourceClassRegistry implements ProjectComponent {
   public String getAarPackage(@NotNull File aarDir) {
     File manifest = new File(aarDir, ANDROID_MANIFEST_XML);
     if (manifest.exists()) {
+      long timeStamp = manifest.lastModified();
+      Pair<Long, String> cached = myAarPackages.get(aarDir);
+      if (cached != null && cached.first == timeStamp) {
+        return cached.second;
+      }
+      String pkg;
       try {
-        return AndroidManifestParser.parse(new FileWrapper(manifest)).getPackage();
+        pkg = AndroidManifestParser.parse(new FileWrapper(manifest)).getPackage();
       }
       catch (Exception e) {
         // No go
-        return null;
+        pkg = null;
       }
+      myAarPackages.put(aarDir, Pair.create(timeStamp, pkg));
+      return pkg;
     }
 
     return null;
@@ -95,11 +176,13 @@ public class ResourceClassRegistry implements ProjectComponent {
     if (index != -1 && name.charAt(index + 1) == 'R' && (index == name.length() - 2 || name.charAt(index + 2) == '$') && index > 1) {
       // If this is an R class or one of its inner classes.
       String pkg = name.substring(0, index);
-      if (myPackages != null && myPackages.contains(pkg)) {
-        ResourceClassGenerator generator = myGeneratorMap.get(appRepo);
-        if (generator != null) {
-          return generator.generate(name);
-        }
+      ResourceClassGenerator generator;
+      synchronized (this) {
+        generator = myPackages != null && myPackages.contains(pkg) ? myGeneratorMap.get(appRepo) : null;
+      }
+      // Generate outside of the lock, so the modules don't wait for each other.
+      if (generator != null) {
+        return generator.generate(name);
       }
     }
     return null;
@@ -111,7 +194,10 @@ public class ResourceClassRegistry implements ProjectComponent {
    * NoSuchFieldError. The method also resets the dynamic ids generated in {@link AppResourceRepository}.
    */
   public void clearCache() {
-    myGeneratorMap.clear();
+    synchronized (this) {
+      myGeneratorMap.clear();
+    }
+    myAarPackages.clear();
     for (Module module : ModuleManager.getInstance(myProject).getModules()) {
       AppResourceRepository appResources = AppResourceRepository.findExistingInstance(module);
       if (appResources != null) {
@@ -120,7 +206,7 @@ public class ResourceClassRegistry implements ProjectComponent {
     }
   }
 
-  void clearCache(AppResourceRepository appResources) {
+  synchronized void clearCache(AppResourceRepository appResources) {
     myGeneratorMap.remove(appResources);
   }
 
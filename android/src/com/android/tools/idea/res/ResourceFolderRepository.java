@@ -103,6 +103,8 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
   // qualifiedName -> PsiResourceFile
   private Map<String, DataBindingInfo> myDataBindingResourceFiles = Maps.newHashMap();
   private long myDataBindingResourceFilesModificationCount = Long.MIN_VALUE;
+  /** The generation of the last time a layout was scanned for data-binding, see {@link #getDataBindingModificationCount()}. */
+  private volatile long myDataBindingGeneration;
   private final Object SCAN_LOCK = new Object();
   private Set<PsiFile> myPendingScans;
   private InitialScanState myInitialScanState;
@@ -594,7 +596,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
   @NotNull
   @Override
   public Map<String, DataBindingInfo> getDataBindingResourceFiles() {
-    long modificationCount = getModificationCount();
+    long modificationCount = getDataBindingModificationCount();
     if (myDataBindingResourceFilesModificationCount == modificationCount) {
       return myDataBindingResourceFiles;
     }
@@ -694,11 +696,23 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
     info.replaceItems(items, modificationCount);
   }
 
+  /**
+   * The data-binding layouts only depend on the layout files, the ids declared in them and their data-binding tags, which are
+   * scanned again through {@link #scanDataBinding}, so edits of the other resources don't affect them.
+   */
+  @Override
+  public long getDataBindingModificationCount() {
+    return Math.max(myDataBindingGeneration,
+                    Math.max(getModificationCount(ResourceType.LAYOUT), getModificationCount(ResourceType.ID)));
+  }
+
   private void scanDataBinding(PsiResourceFile resourceFile, long modificationCount) {
     if (resourceFile.getFolderType() != LAYOUT) {
       resourceFile.setDataBindingInfo(null);
       return;
     }
+    // Only layouts have data-binding info, so scanning the other resource files doesn't invalidate the data-binding layouts.
+    myDataBindingGeneration = ourModificationCounter.incrementAndGet();
     XmlTag layout = getLayoutTag(resourceFile.getPsiFile());
     if (layout == null) {
       resourceFile.setDataBindingInfo(null);
@@ -1304,7 +1318,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                       ResourceItem item = new PsiResourceItem(name, type, myNamespace, tag, psiFile);
                       map.put(name, item);
                       resourceFile.addItems(Collections.singletonList(item));
-                      setModificationCount(ourModificationCounter.incrementAndGet());
+                      setModificationCount(ourModificationCounter.incrementAndGet(), type);
                       invalidateParentCaches(myNamespace, type);
                       return;
                     }
@@ -1322,7 +1336,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                 ResourceItem parentItem = findValueResourceItem(parentTag, psiFile);
                 if (parentItem instanceof PsiResourceItem) {
                   if (((PsiResourceItem)parentItem).recomputeValue()) {
-                    setModificationCount(ourModificationCounter.incrementAndGet());
+                    setModificationCount(ourModificationCounter.incrementAndGet(), parentItem.getType());
                   }
                   return;
                 }
@@ -1367,7 +1381,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                     assert resFile instanceof PsiResourceFile;
                     PsiResourceFile resourceFile = (PsiResourceFile)resFile;
                     resourceFile.addItems(ids);
-                    setModificationCount(ourModificationCounter.incrementAndGet());
+                    setModificationCount(ourModificationCounter.incrementAndGet(), ResourceType.ID);
                     invalidateParentCaches(myNamespace, ResourceType.ID);
                   }
                 }
@@ -1468,7 +1482,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                   ResourceItem resourceItem = findValueResourceItem(parentTag, psiFile);
                   if (resourceItem instanceof PsiResourceItem) {
                     if (((PsiResourceItem)resourceItem).recomputeValue()) {
-                      setModificationCount(ourModificationCounter.incrementAndGet());
+                      setModificationCount(ourModificationCounter.incrementAndGet(), resourceItem.getType());
                     }
 
                     if (resourceItem.getType() == ResourceType.ATTR) {
@@ -1477,7 +1491,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                         ResourceItem declareStyleable = findValueResourceItem(parentTag, psiFile);
                         if (declareStyleable instanceof PsiResourceItem) {
                           if (((PsiResourceItem)declareStyleable).recomputeValue()) {
-                            setModificationCount(ourModificationCounter.incrementAndGet());
+                            setModificationCount(ourModificationCounter.incrementAndGet(), declareStyleable.getType());
                           }
                         }
                       }
@@ -1515,7 +1529,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                         return;
                       }
                       if (removeItems(resourceFile, type, name, true)) {
-                        setModificationCount(ourModificationCounter.incrementAndGet());
+                        setModificationCount(ourModificationCounter.incrementAndGet(), type);
                         invalidateParentCaches(myNamespace, type);
                       }
                     }
@@ -1698,7 +1712,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                               map.put(newName, newItem);
                               resourceFile.addItem(newItem);
                             }
-                            setModificationCount(ourModificationCounter.incrementAndGet());
+                            setModificationCount(ourModificationCounter.incrementAndGet(), ResourceType.ID);
                             invalidateParentCaches(myNamespace, ResourceType.ID);
                             return;
                           }
@@ -1746,7 +1760,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                             map.put(newName, newItem);
                             resourceFile.addItem(newItem);
                           }
-                          setModificationCount(ourModificationCounter.incrementAndGet());
+                          setModificationCount(ourModificationCounter.incrementAndGet(), ResourceType.ID);
                           invalidateParentCaches(myNamespace, ResourceType.ID);
                           return;
                         }
@@ -1809,7 +1823,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                   ResourceItem resourceItem = findValueResourceItem(parentTag, psiFile);
                   if (resourceItem instanceof PsiResourceItem) {
                     if (((PsiResourceItem)resourceItem).recomputeValue()) {
-                      setModificationCount(ourModificationCounter.incrementAndGet());
+                      setModificationCount(ourModificationCounter.incrementAndGet(), resourceItem.getType());
                     }
                     return;
                   }
@@ -1876,7 +1890,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                             assert false : item;
                           }
                         }
-                        setModificationCount(ourModificationCounter.incrementAndGet());
+                        setModificationCount(ourModificationCounter.incrementAndGet(), type);
                         invalidateParentCaches(myNamespace, type);
 
                         // Invalidate surrounding declare styleable if any
@@ -1904,7 +1918,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
                       ResourceItem resourceItem = findValueResourceItem(parentTag, psiFile);
                       if (resourceItem instanceof PsiResourceItem) {
                         if (((PsiResourceItem)resourceItem).recomputeValue()) {
-                          setModificationCount(ourModificationCounter.incrementAndGet());
+                          setModificationCount(ourModificationCounter.incrementAndGet(), resourceItem.getType());
                         }
                         return;
                       }
@@ -2001,7 +2015,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
           if (item instanceof PsiResourceItem) {
             boolean cleared = ((PsiResourceItem)item).recomputeValue();
             if (cleared) { // Only bump revision if this is a value which has already been observed!
-              setModificationCount(ourModificationCounter.incrementAndGet());
+              setModificationCount(ourModificationCounter.incrementAndGet(), item.getType());
             }
           }
           return;
@@ -2020,7 +2034,7 @@ public final class ResourceFolderRepository extends LocalResourceRepository {
             // Edited XML value
             boolean cleared = ((PsiResourceItem)item).recomputeValue();
             if (cleared) { // Only bump revision if this is a value which has already been observed!
-              setModificationCount(ourModificationCounter.incrementAndGet());
+              setModificationCount(ourModificationCounter.incrementAndGet(), item.getType());
             }
           }
           break;
@@ -24,10 +24,12 @@ import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.configurations.ConfigurationListener;
 import com.android.tools.idea.databinding.DataBindingUtil;
 import com.android.tools.idea.project.AndroidProjectBuildNotifications;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.ModificationTracker;
@@ -37,6 +39,7 @@ import com.intellij.openapi.vfs.newvfs.BulkFileListener;
 import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
 import com.intellij.psi.*;
 import com.intellij.psi.xml.*;
+import com.intellij.util.Alarm;
 import com.intellij.util.messages.MessageBusConnection;
 import org.intellij.images.fileTypes.ImageFileTypeManager;
 import org.jetbrains.android.facet.AndroidFacet;
@@ -44,6 +47,7 @@ import org.jetbrains.android.facet.ResourceFolderManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.android.SdkConstants.ANDROID_PREFIX;
 import static com.android.SdkConstants.PREFIX_RESOURCE_REF;
@@ -67,7 +71,7 @@ import static com.android.SdkConstants.PREFIX_RESOURCE_REF;
  * <p/>
  * Also note that
  * <ul>
- * <li>Resource editing events are not delivered synchronously</li>
+ * <li>Resource editing events are not delivered synchronously; events arriving within a short window are delivered together</li>
  * <li>No locks are held when the listener are notified</li>
  * <li>All events are delivered on the event dispatch (UI) thread</li>
  * <li>Add listener or remove listener can be done from any thread</li>
@@ -75,6 +79,13 @@ import static com.android.SdkConstants.PREFIX_RESOURCE_REF;
  */
 @SuppressWarnings({"SynchronizeOnThis", "UseOfSystemOutOrSystemErr"})
 public class ResourceNotificationManager {
+  private static final Logger LOG = Logger.getInstance(ResourceNotificationManager.class);
+
+  /**
+   * How long to wait after the first event of a change set for more events, in milliseconds
+   */
+  private static final int CHANGE_SET_WINDOW_MS = 100;
+
   private final Project myProject;
 
   /**
@@ -113,12 +124,45 @@ public class ResourceNotificationManager {
    */
   private EnumSet<Reason> myEvents = EnumSet.noneOf(Reason.class);
 
+  /**
+   * Files edited or changed since the last notification
+   */
+  private Set<VirtualFile> myChangedFiles = new HashSet<>();
+
+  /**
+   * Configurations changed since the last notification
+   */
+  private Set<Configuration> myChangedConfigurations = new HashSet<>();
+
+  /**
+   * Whether an event since the last notification could not be attributed to a file or configuration, such as a Gradle sync, so that
+   * any resource may have changed
+   */
+  private boolean myAllResourcesChanged;
+
+  /**
+   * Number of change sets delivered to the listeners so far, to identify them in the logs
+   */
+  private long myChangeSetCount;
+
+  /**
+   * Delays the delivery of a change set, so that the events following the first one are delivered along with it
+   */
+  private final Alarm myChangeSetAlarm;
+
+  /**
+   * How long the current change sets wait for more events, in milliseconds; 0 delivers each change set as soon as the pending
+   * Swing events are processed
+   */
+  private int myChangeSetWindowMs = CHANGE_SET_WINDOW_MS;
+
   /**
    * Do not instantiate directly; this is a {@link ProjectComponent} and its lifecycle is managed by the IDE;
    * use {@link #getInstance(Project)} instead
    */
   public ResourceNotificationManager(Project project) {
     myProject = project;
+    myChangeSetAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, project);
   }
 
   /**
@@ -262,43 +306,114 @@ public class ResourceNotificationManager {
    * Something happened. Either schedule a notification or if one is already pending, do nothing.
    */
   private void notice(Reason reason) {
-    myEvents.add(reason);
+    notice(reason, null, null);
+  }
+
+  /**
+   * Like {@link #notice(Reason)}, but also records the file or configuration the event came from, so that the change set can tell its
+   * listeners which resource folder types were affected
+   */
+  private void notice(Reason reason, @Nullable VirtualFile file, @Nullable Configuration configuration) {
     synchronized (CHANGE_PENDING_LOCK) {
+      myEvents.add(reason);
+      if (file != null) {
+        myChangedFiles.add(file);
+      }
+      if (configuration != null) {
+        myChangedConfigurations.add(configuration);
+      }
+      if (file == null && configuration == null) {
+        myAllResourcesChanged = true;
+      }
       if (myPendingNotify) {
         return;
       }
       myPendingNotify = true;
     }
+    if (myChangeSetWindowMs <= 0) {
+      ApplicationManager.getApplication().invokeLater(this::endChangeSet);
+    }
+    else {
+      // Bulk operations such as VCS updates or refactorings produce many events in a row: gather them into a single change set,
+      // rather than notifying the listeners (and re-rendering) for each of them.
+      myChangeSetAlarm.addRequest(this::endChangeSet, myChangeSetWindowMs);
+    }
+  }
+
+  /**
+   * Sets how long a change set waits for more events after its first one, in milliseconds. Tests which check the notifications right
+   * after each edit use 0, so that every change set is delivered once the pending Swing events are processed.
+   */
+  @VisibleForTesting
+  void setChangeSetWindowMs(int changeSetWindowMs) {
+    myChangeSetWindowMs = changeSetWindowMs;
+  }
+
+  /**
+   * Ends the current change set right away rather than when its window elapses, so that tests can control which events are delivered
+   * together. The change set is delivered once the pending Swing events are processed.
+   */
+  @VisibleForTesting
+  void flushChangeSet() {
+    myChangeSetAlarm.cancelAllRequests();
+    endChangeSet();
+  }
+
+  private void endChangeSet() {
+    synchronized (CHANGE_PENDING_LOCK) {
+      if (!myPendingNotify) {
+        return;
+      }
+      myPendingNotify = false;
+    }
+    // Ensure that the notify happens after all pending Swing Runnables
+    // have been processed, including any created *after* the initial notice()
+    // call which scheduled this runnable, since they could for example be
+    // ResourceFolderRepository#rescan() Runnables, and we want those to finish
+    // before the final notify. Notice how we clear the pending notify flag
+    // above though, such that if another event appears between the first
+    // invoke later and the second, it will schedule another complete notification
+    // event.
     ApplicationManager.getApplication().invokeLater(() -> {
+      EnumSet<Reason> reason;
+      Set<VirtualFile> files;
+      Set<Configuration> configurations;
+      boolean allResourcesChanged;
       synchronized (CHANGE_PENDING_LOCK) {
-        if (!myPendingNotify) {
-          return;
-        }
-        myPendingNotify = false;
-      }
-      // Ensure that the notify happens after all pending Swing Runnables
-      // have been processed, including any created *after* the initial notice()
-      // call which scheduled this runnable, since they could for example be
-      // ResourceFolderRepository#rescan() Runnables, and we want those to finish
-      // before the final notify. Notice how we clear the pending notify flag
-      // above though, such that if another event appears between the first
-      // invoke later and the second, it will schedule another complete notification
-      // event.
-      ApplicationManager.getApplication().invokeLater(() -> {
-        EnumSet<Reason> reason1 = myEvents;
+        reason = myEvents;
+        files = myChangedFiles;
+        configurations = myChangedConfigurations;
+        allResourcesChanged = myAllResourcesChanged;
         myEvents = EnumSet.noneOf(Reason.class);
-        notifyListeners(reason1);
-        myEvents.clear();
-      });
+        myChangedFiles = new HashSet<>();
+        myChangedConfigurations = new HashSet<>();
+        myAllResourcesChanged = false;
+      }
+      if (reason.isEmpty()) {
+        // Already delivered along with an earlier change set
+        return;
+      }
+      Set<ResourceFolderType> folderTypes = null;
+      if (!allResourcesChanged) {
+        // Computed once here rather than by each listener
+        folderTypes = EnumSet.noneOf(ResourceFolderType.class);
+        for (VirtualFile file : files) {
+          ResourceFolderType folderType = ResourceHelper.getFolderType(file);
+          if (folderType != null) {
+            folderTypes.add(folderType);
+          }
+        }
+      }
+      notifyListeners(new ChangeSet(++myChangeSetCount, reason, folderTypes, configurations));
     });
   }
 
-  private void notifyListeners(@NonNull EnumSet<Reason> reason) {
+  private void notifyListeners(@NonNull ChangeSet changeSet) {
     ApplicationManager.getApplication().assertIsDispatchThread();
 
     for (ModuleEventObserver moduleEventObserver : myModuleToObserverMap.values()) {
       // Not every module may have pending changes; each one will check
-      moduleEventObserver.notifyListeners(reason);
+      moduleEventObserver.notifyListeners(changeSet);
     }
   }
 
@@ -353,7 +468,8 @@ public class ResourceNotificationManager {
       }
     }
 
-    private void notifyListeners(@NonNull EnumSet<Reason> reason) {
+    private void notifyListeners(@NonNull ChangeSet changeSet) {
+      Set<Reason> reason = changeSet.getReasons();
       long generation = AppResourceRepository.getOrCreateInstance(myFacet).getModificationCount();
       if (reason.size() == 1 && reason.contains(Reason.RESOURCE_EDIT) && generation == myGeneration) {
         // Notified of an edit in some file that could potentially affect the resources, but
@@ -369,7 +485,12 @@ public class ResourceNotificationManager {
         listeners = Lists.newArrayList(myListeners);
       }
       for (ResourceChangeListener listener : listeners) {
-        listener.resourcesChanged(reason);
+        long start = System.nanoTime();
+        listener.resourcesChanged(changeSet);
+        if (LOG.isDebugEnabled()) {
+          long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          LOG.debug(String.format("Change set %1$d %2$s: %3$s took %4$d ms", changeSet.getVersion(), reason, listener, elapsedMs));
+        }
       }
     }
 
@@ -496,10 +617,10 @@ public class ResourceNotificationManager {
             }
           }
         }
-        notice(Reason.EDIT);
+        noticeEdit(Reason.EDIT, event);
       }
       else {
-        notice(Reason.RESOURCE_EDIT);
+        noticeEdit(Reason.RESOURCE_EDIT, event);
       }
     }
 
@@ -523,9 +644,9 @@ public class ResourceNotificationManager {
           }
         }
 
-        notice(Reason.EDIT);
+        noticeEdit(Reason.EDIT, event);
       } else {
-        notice(Reason.RESOURCE_EDIT);
+        noticeEdit(Reason.RESOURCE_EDIT, event);
       }
     }
 
@@ -566,10 +687,10 @@ public class ResourceNotificationManager {
             }
           }
         }
-        notice(Reason.EDIT);
+        noticeEdit(Reason.EDIT, event);
       }
       else {
-        notice(Reason.RESOURCE_EDIT);
+        noticeEdit(Reason.RESOURCE_EDIT, event);
       }
     }
 
@@ -634,6 +755,14 @@ public class ResourceNotificationManager {
       return false;
     }
 
+    private void noticeEdit(@NonNull Reason reason, @NonNull PsiTreeChangeEvent event) {
+      PsiFile file = event.getFile();
+      if (file == null && event.getChild() instanceof PsiFile) {
+        file = (PsiFile)event.getChild();
+      }
+      notice(reason, file != null ? file.getVirtualFile() : null, null);
+    }
+
     private void check(PsiTreeChangeEvent event) {
       if (isIgnorable(event)) {
         return;
@@ -642,12 +771,12 @@ public class ResourceNotificationManager {
       if (isRelevantFile(event)) {
         final PsiFile file = event.getFile();
         if (file != null) {
-          notice(Reason.EDIT);
+          noticeEdit(Reason.EDIT, event);
           return;
         }
       }
 
-      notice(Reason.RESOURCE_EDIT);
+      noticeEdit(Reason.RESOURCE_EDIT, event);
     }
   }
 
@@ -702,8 +831,7 @@ public class ResourceNotificationManager {
           return ResourceFolderType.DRAWABLE == resType ||
                  ResourceFolderType.MIPMAP == resType;
         })
-        .findAny()
-        .ifPresent((e) -> notice(Reason.IMAGE_RESOURCE_CHANGED));
+        .forEach((e) -> notice(Reason.IMAGE_RESOURCE_CHANGED, e.getFile(), null));
     }
 
     private boolean hasListeners() {
@@ -751,7 +879,7 @@ public class ResourceNotificationManager {
     @Override
     public boolean changed(int flags) {
       if ((flags & MASK_RENDERING) != 0) {
-        notice(Reason.CONFIGURATION_CHANGED);
+        notice(Reason.CONFIGURATION_CHANGED, null, myConfiguration);
       }
       return true;
     }
@@ -808,6 +936,81 @@ public class ResourceNotificationManager {
      * @param reason the set of reasons that the resources have changed since the last notification
      */
     void resourcesChanged(@NotNull Set<Reason> reason);
+
+    /**
+     * One or more resources have changed. Listeners which can skip work for the resource folder types a change set does not affect
+     * override this method; by default it only passes on the reasons.
+     *
+     * @param changeSet the change set delivered since the last notification
+     */
+    default void resourcesChanged(@NotNull ChangeSet changeSet) {
+      resourcesChanged(changeSet.getReasons());
+    }
+  }
+
+  /**
+   * The events gathered into a single notification, along with what they affected. It is computed once for all the listeners.
+   */
+  public static class ChangeSet {
+    private final long myVersion;
+    private final Set<Reason> myReasons;
+    @Nullable private final Set<ResourceFolderType> myChangedFolderTypes;
+    private final Set<Configuration> myChangedConfigurations;
+
+    @VisibleForTesting
+    ChangeSet(long version,
+              @NonNull Set<Reason> reasons,
+              @Nullable Set<ResourceFolderType> changedFolderTypes,
+              @NonNull Set<Configuration> changedConfigurations) {
+      myVersion = version;
+      myReasons = Collections.unmodifiableSet(reasons);
+      myChangedFolderTypes = changedFolderTypes != null ? Collections.unmodifiableSet(changedFolderTypes) : null;
+      myChangedConfigurations = Collections.unmodifiableSet(changedConfigurations);
+    }
+
+    /**
+     * Returns the number of this change set; change sets are numbered in the order they are delivered
+     */
+    public long getVersion() {
+      return myVersion;
+    }
+
+    /**
+     * Returns the set of reasons that the resources have changed since the last notification
+     */
+    @NonNull
+    public Set<Reason> getReasons() {
+      return myReasons;
+    }
+
+    /**
+     * Returns the resource folder types of the files edited or changed in this change set, or null if some of its events (such as a
+     * Gradle sync) may have changed resources of any type
+     */
+    @Nullable
+    public Set<ResourceFolderType> getChangedFolderTypes() {
+      return myChangedFolderTypes;
+    }
+
+    /**
+     * Returns whether this change set may have changed resources in folders of the given type
+     */
+    public boolean affects(@NonNull ResourceFolderType folderType) {
+      return myChangedFolderTypes == null || myChangedFolderTypes.contains(folderType);
+    }
+
+    /**
+     * Returns the configurations whose rendering parameters changed in this change set
+     */
+    @NonNull
+    public Set<Configuration> getChangedConfigurations() {
+      return myChangedConfigurations;
+    }
+
+    @Override
+    public String toString() {
+      return "ChangeSet " + myVersion + " " + myReasons;
+    }
   }
 
   /**
@@ -237,7 +237,7 @@ public class SampleDataResourceRepository extends LocalResourceRepository {
     addPredefinedItems(projectItems);
     myFullTable.put(null, ResourceType.SAMPLE_DATA, projectItems.build());
 
-    setModificationCount(ourModificationCounter.incrementAndGet());
+    setModificationCount(ourModificationCounter.incrementAndGet(), ResourceType.SAMPLE_DATA);
 
     invalidateParentCaches(null, ResourceType.SAMPLE_DATA);
   }
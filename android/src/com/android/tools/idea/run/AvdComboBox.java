@@ -154,7 +154,7 @@ public abstract class AvdComboBox extends ComboboxWithBrowseButton {
   @NotNull
   public List<AvdInfo> getAllAvds(AndroidFacet facet) {
     AvdManager manager = AvdManagerUtils.getAvdManagerSilently(facet);
-    return manager != null && AvdManagerUtils.reloadAvds(manager, facet.getModule().getProject())
+    return manager != null && AvdManagerUtils.reloadAvds(manager, facet)
            ? Arrays.asList(manager.getAllAvds())
            : ImmutableList.of();
   }
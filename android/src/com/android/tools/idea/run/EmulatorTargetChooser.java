@@ -145,7 +145,7 @@ public class EmulatorTargetChooser {
   @NotNull
   private static List<AvdInfo> getValidCompatibleAvds(@NotNull AndroidFacet facet) {
     AvdManager manager = AvdManagerUtils.getAvdManagerSilently(facet);
-    if (manager == null || !AvdManagerUtils.reloadAvds(manager, facet.getModule().getProject())) {
+    if (manager == null || !AvdManagerUtils.reloadAvds(manager, facet)) {
       return ImmutableList.of();
     }
 
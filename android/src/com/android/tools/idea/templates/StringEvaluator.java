@@ -17,12 +17,13 @@ package com.android.tools.idea.templates;
 
 import com.android.annotations.NonNull;
 import com.android.annotations.Nullable;
-import freemarker.cache.TemplateLoader;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Map;
@@ -35,24 +36,29 @@ import java.util.Map;
  * full template files (from resources, merging into existing files etc) this
  * evaluator supports only simple strings, referencing only values from the
  * provided map (and builtin functions).
+ * <p>
+ * Parsed expressions are shared by all evaluators, since the same constraints
+ * are evaluated again every time a wizard parameter changes.
  */
-public class StringEvaluator implements TemplateLoader {
-  private Configuration myFreemarker;
-  private String myCurrentExpression;
+public class StringEvaluator {
+  private static final Configuration ourFreemarker = new FreemarkerConfiguration();
 
-  private static final String BOOLEAN_TEMPLATE = "<#if (%s)>true<#else>false</#if>";
+  private static final LoadingCache<String, Template> ourTemplates = CacheBuilder.newBuilder()
+    .maximumSize(500)
+    .build(new CacheLoader<String, Template>() {
+      @Override
+      public Template load(@NonNull String expression) throws IOException {
+        return new Template(expression, new StringReader(expression), ourFreemarker);
+      }
+    });
 
-  public StringEvaluator() {
-    myFreemarker = new FreemarkerConfiguration();
-    myFreemarker.setTemplateLoader(this);
-  }
+  private static final String BOOLEAN_TEMPLATE = "<#if (%s)>true<#else>false</#if>";
 
   /** Evaluates the given expression, with the given set of arguments */
   @Nullable
   public String evaluate(@NonNull String expression, @NonNull Map<String, Object> inputs) {
     try {
-      myCurrentExpression = expression;
-      Template inputsTemplate = myFreemarker.getTemplate(expression);
+      Template inputsTemplate = ourTemplates.get(expression);
       StringWriter out = new StringWriter();
       Map<String, Object> args = FreemarkerUtils.createParameterMap(inputs);
       inputsTemplate.process(args, out);
@@ -65,32 +71,10 @@ public class StringEvaluator implements TemplateLoader {
 
   public boolean evaluateBooleanExpression(@NonNull String expression, @NonNull Map<String, Object> inputs, boolean defaultValue) {
     try {
-      myCurrentExpression = String.format(BOOLEAN_TEMPLATE, expression);
-      String result = evaluate(myCurrentExpression, inputs);
+      String result = evaluate(String.format(BOOLEAN_TEMPLATE, expression), inputs);
       return Boolean.parseBoolean(result);
     } catch (Exception e) {
       return defaultValue;
     }
   }
-
-  // ---- Implements TemplateLoader ----
-
-  @Override
-  public Object findTemplateSource(String name) throws IOException {
-    return myCurrentExpression;
-  }
-
-  @Override
-  public long getLastModified(Object templateSource) {
-    return 0;
-  }
-
-  @Override
-  public Reader getReader(Object templateSource, String encoding) throws IOException {
-    return new StringReader(myCurrentExpression);
-  }
-
-  @Override
-  public void closeTemplateSource(Object templateSource) throws IOException {
-  }
 }
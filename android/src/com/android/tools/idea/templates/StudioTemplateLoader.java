@@ -50,6 +50,25 @@ public final class StudioTemplateLoader implements TemplateLoader {
     myLastTemplateFolders.push(templateFolder);
   }
 
+  /**
+   * Returns a {@link TemplateLoader} for the names returned by {@link #findTemplate} of loaders with the given template root
+   * folder. Unlike this loader it doesn't keep track of the folder of the last template loaded (FreeMarker already resolves
+   * the names of included templates against the name of the including template), so it can be shared by multiple rendering
+   * contexts and threads.
+   */
+  @NotNull
+  static TemplateLoader createSharedLoader(@NotNull File templateRootFolder) {
+    return new SharedTemplateLoader(templateRootFolder);
+  }
+
+  /**
+   * Return the root folder of the templates the names returned by {@link #findTemplate} refer to.
+   */
+  @NotNull
+  public File getTemplateRootFolder() {
+    return myTemplateRootFolder;
+  }
+
   /**
    * Push the folder of the last template loaded as a temporary relative reference.
    * This can be useful if we need to resolve other references that are (or could be) relative
@@ -160,20 +179,22 @@ public final class StudioTemplateLoader implements TemplateLoader {
    */
   @NotNull
   private File resolveName(@NotNull String name) throws IOException {
-    File file;
+    File file = resolveRootName(myTemplateRootFolder, name);
+    if (file == null) {
+      file = new File(myLastTemplateFolders.peek(), name);
+    }
+    return file;
+  }
+
+  @Nullable
+  private static File resolveRootName(@NotNull File templateRootFolder, @NotNull String name) {
     if (name.startsWith(ROOT)) {
-      file = new File(myTemplateRootFolder, name.substring(ROOT.length()));
+      return new File(templateRootFolder, name.substring(ROOT.length()));
     }
     else if (name.startsWith(ROOT_FILE)) {
-      file = new File(myTemplateRootFolder, name.substring(ROOT_FILE.length()));
-    }
-    else if (myLastTemplateFolders != null) {
-      file = new File(myLastTemplateFolders.peek(), name);
+      return new File(templateRootFolder, name.substring(ROOT_FILE.length()));
     }
-    else {
-      file = new File(myTemplateRootFolder, name);
-    }
-    return file;
+    return null;
   }
 
   @NotNull
@@ -185,6 +206,41 @@ public final class StudioTemplateLoader implements TemplateLoader {
     return folder != null ? folder : templateFolder;
   }
 
+  /**
+   * Stateless loader returned by {@link #createSharedLoader}. Names which aren't relative to the template root folder are
+   * resolved against the root folder itself.
+   */
+  private static final class SharedTemplateLoader implements TemplateLoader {
+    private final File myTemplateRootFolder;
+
+    private SharedTemplateLoader(@NotNull File templateRootFolder) {
+      myTemplateRootFolder = templateRootFolder;
+    }
+
+    @Override
+    @Nullable
+    public Object findTemplateSource(@NotNull String name) throws IOException {
+      File file = resolveRootName(myTemplateRootFolder, name);
+      return TemplateSource.open(file != null ? file : new File(myTemplateRootFolder, name));
+    }
+
+    @Override
+    public long getLastModified(Object source) {
+      return ((TemplateSource)source).getLastModified();
+    }
+
+    @Override
+    @NotNull
+    public Reader getReader(@NotNull Object source, @NotNull String encoding) throws IOException {
+      return new InputStreamReader(((TemplateSource)source).getInputStream(), encoding);
+    }
+
+    @Override
+    public void closeTemplateSource(Object source) throws IOException {
+      ((TemplateSource)source).close();
+    }
+  }
+
   /**
    * Helper class for handling template source files.
    */
@@ -363,6 +363,9 @@ public class Template {
 
     enforceParameterTypes(metadata, context.getParamMap());
 
+    // Read and parse the template files on pooled threads while rendering, rather than under the write action
+    TemplateManager.getInstance().preloadTemplates(myTemplateRoot);
+
     try {
       runWriteCommandAction(context.getProject(), context.getCommandName(), () -> {
         processFile(context, new File(TEMPLATE_XML_NAME));
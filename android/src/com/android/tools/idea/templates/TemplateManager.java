@@ -48,6 +48,8 @@ import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.platform.templates.github.ZipUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import freemarker.template.Configuration;
 import icons.AndroidArtworkIcons;
 import org.jetbrains.android.facet.AndroidFacet;
 import org.jetbrains.android.sdk.AndroidSdkData;
@@ -59,6 +61,10 @@ import org.w3c.dom.Document;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
 
 import static com.android.SdkConstants.*;
 import static com.android.tools.idea.templates.Template.TEMPLATE_XML_NAME;
@@ -85,10 +91,23 @@ public class TemplateManager {
   public static final Set<String> EXCLUDED_TEMPLATES = ImmutableSet.of();
   private static final String TEMPLATE_ZIP_NAME = "templates.zip";
 
+  /** Maximum number of threads used to load FreeMarker templates ahead of time, see {@link #preloadTemplates}. */
+  private static final int MAX_TEMPLATE_LOADING_THREADS = 4;
+  private static final ExecutorService ourTemplateLoader =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Template Loader", MAX_TEMPLATE_LOADING_THREADS);
+  private static final Pattern FTL_FILE_PATTERN = Pattern.compile(".*\\" + DOT_FTL);
+
+  /**
+   * Cache for {@link #getTemplateMetadata(File)}, keyed by template root folder. Entries are reused as long as the template.xml
+   * file hasn't been modified.
+   */
+  private final Map<File, MetadataEntry> myTemplateMap = new ConcurrentHashMap<>();
+
   /**
-   * Cache for {@link #getTemplateMetadata(File)}
+   * FreeMarker configurations keyed by template root folder. Each one caches the templates it parsed (checking the modification
+   * time of the template files), so they're shared by all rendering contexts instead of being parsed again for every wizard step.
    */
-  private Map<File, TemplateMetadata> myTemplateMap;
+  private final Map<File, Configuration> myFreemarkerConfigurations = new ConcurrentHashMap<>();
 
   /** Lock protecting access to {@link #myCategoryTable} */
   private final Object CATEGORY_TABLE_LOCK = new Object();
@@ -547,9 +566,7 @@ public class TemplateManager {
   @GuardedBy("CATEGORY_TABLE_LOCK")
   private Table<String, String, File> getCategoryTable(boolean forceReload, @Nullable Project project) {
     if (myCategoryTable == null || forceReload) {
-      if (myTemplateMap != null) {
-        myTemplateMap.clear();
-      }
+      myTemplateMap.clear();
       myCategoryTable = TreeBasedTable.create();
       for (File categoryDirectory : listFiles(getTemplateRootFolder())) {
         for (File newTemplate : listFiles(categoryDirectory)) {
@@ -706,18 +723,15 @@ public class TemplateManager {
 
   @Nullable
   private TemplateMetadata getTemplateMetadata(@NotNull File templateRoot, boolean userDefinedTemplate) {
-    if (myTemplateMap != null) {
-      TemplateMetadata metadata = myTemplateMap.get(templateRoot);
-      if (metadata != null) {
-        return metadata;
-      }
-    }
-    else {
-      myTemplateMap = Maps.newHashMap();
+    File templateFile = new File(templateRoot, TEMPLATE_XML_NAME);
+    long lastModified = templateFile.lastModified();
+
+    MetadataEntry entry = myTemplateMap.get(templateRoot);
+    if (entry != null && entry.myLastModified == lastModified) {
+      return entry.myMetadata;
     }
 
     try {
-      File templateFile = new File(templateRoot, TEMPLATE_XML_NAME);
       if (templateFile.isFile()) {
         String xml = Files.toString(templateFile, Charsets.UTF_8);
         Document doc;
@@ -729,7 +743,7 @@ public class TemplateManager {
         }
         if (doc != null && doc.getDocumentElement() != null) {
           TemplateMetadata metadata = new TemplateMetadata(doc);
-          myTemplateMap.put(templateRoot, metadata);
+          myTemplateMap.put(templateRoot, new MetadataEntry(metadata, lastModified));
           return metadata;
         }
       }
@@ -741,6 +755,44 @@ public class TemplateManager {
     return null;
   }
 
+  /**
+   * Returns the FreeMarker configuration to render the templates under the given root folder with (see
+   * {@link StudioTemplateLoader#findTemplate(File)} for how templates are named). Parsed templates are cached by the returned
+   * configuration, which is thread safe.
+   */
+  @NotNull
+  public Configuration getFreemarkerConfiguration(@NotNull File templateRootFolder) {
+    return myFreemarkerConfigurations.computeIfAbsent(templateRootFolder, folder -> {
+      Configuration configuration = new FreemarkerConfiguration();
+      configuration.setTemplateLoader(StudioTemplateLoader.createSharedLoader(folder));
+      return configuration;
+    });
+  }
+
+  /**
+   * Starts loading the FreeMarker templates (.ftl files) of the given template folder into the cache of the configuration for its
+   * root folder, and returns without waiting for them. Templates are rendered in a write command action, so this should be called
+   * before entering it: the files are then read and parsed on pooled threads while the render proceeds, instead of one after the
+   * other while the write action is held. Templates which fail to load are skipped; the error is reported when the template is
+   * actually rendered.
+   */
+  @NotNull
+  public CompletableFuture<Void> preloadTemplates(@NotNull File templateFolder) {
+    StudioTemplateLoader loader = new StudioTemplateLoader(templateFolder);
+    Configuration configuration = getFreemarkerConfiguration(loader.getTemplateRootFolder());
+
+    return CompletableFuture
+      .supplyAsync(() -> FileUtil.findFilesByMask(FTL_FILE_PATTERN, templateFolder), ourTemplateLoader)
+      .thenCompose(files -> CompletableFuture.allOf(files.stream().map(file -> CompletableFuture.runAsync(() -> {
+        try {
+          configuration.getTemplate(loader.findTemplate(file));
+        }
+        catch (IOException e) {
+          LOG.debug(e);
+        }
+      }, ourTemplateLoader)).toArray(CompletableFuture[]::new)));
+  }
+
   /**
    * Do a sanity check to see if we have templates that look compatible, otherwise we get really strange problems. The existence
    * of a gradle wrapper in the templates directory is a good sign.
@@ -771,4 +823,14 @@ public class TemplateManager {
   private static File[] listFiles(@NotNull File root) {
     return FileOpUtils.create().listFiles(root);
   }
+
+  private static final class MetadataEntry {
+    @NotNull private final TemplateMetadata myMetadata;
+    private final long myLastModified;
+
+    private MetadataEntry(@NotNull TemplateMetadata metadata, long lastModified) {
+      myMetadata = metadata;
+      myLastModified = lastModified;
+    }
+  }
 }
@@ -15,10 +15,10 @@
  */
 package com.android.tools.idea.templates.recipe;
 
-import com.android.tools.idea.templates.FreemarkerConfiguration;
 import com.android.tools.idea.templates.FreemarkerUtils;
 import com.android.tools.idea.templates.StudioTemplateLoader;
 import com.android.tools.idea.templates.Template;
+import com.android.tools.idea.templates.TemplateManager;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
@@ -94,8 +94,7 @@ public class RenderingContext {
     myDryRun = dryRun;
     myShowErrors = showErrors;
     myLoader = new StudioTemplateLoader(initialTemplatePath);
-    myFreemarker = new FreemarkerConfiguration();
-    myFreemarker.setTemplateLoader(myLoader);
+    myFreemarker = TemplateManager.getInstance().getFreemarkerConfiguration(myLoader.getTemplateRootFolder());
     mySourceFiles = outSourceFiles != null ? outSourceFiles : Lists.newArrayList();
     myTargetFiles = outTargetFiles != null ? outTargetFiles : Lists.newArrayList();
     myFilesToOpen = outOpenFiles != null ? outOpenFiles : Lists.newArrayList();
@@ -131,7 +131,12 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
     if (issues.isEmpty()) {
       return null;
     }
-    return new State(module, vFile, file.getText(), issues);
+    final State state = new State(module, vFile, file.getText(), issues, LintEditorResultCache.getConfigurationStamp(module));
+    final List<ProblemData> cachedProblems = LintEditorResultCache.lookup(file, state);
+    if (cachedProblems != null) {
+      state.setCachedProblems(cachedProblems);
+    }
+    return state;
   }
 
   public static boolean isKotlin(FileType fileType) {
@@ -141,6 +146,9 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
 
   @Override
   public State doAnnotate(final State state) {
+    if (state.isFromCache()) {
+      return state;
+    }
     final LintIdeClient client = LintIdeClient.forEditor(state);
     try {
       EnumSet<Scope> scope;
@@ -184,7 +192,11 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
       request.setScope(scope);
 
       LintDriver lint = new LintDriver(new LintIdeIssueRegistry(), client, request);
+      long start = System.nanoTime();
       lint.analyze();
+      if (!lint.isCanceled()) {
+        LintEditorResultCache.store(state, System.nanoTime() - start);
+      }
     }
     finally {
       Disposer.dispose(client);
@@ -11,6 +11,7 @@ import com.android.tools.lint.client.api.LintRequest;
 import com.android.tools.lint.detector.api.Issue;
 import com.android.tools.lint.detector.api.LintUtils;
 import com.android.tools.lint.detector.api.Scope;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.codeInspection.GlobalInspectionContext;
@@ -28,18 +29,23 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.module.impl.scopes.ModuleWithDependenciesScope;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.SensitiveProgressWrapper;
 import com.intellij.openapi.progress.util.ProgressWrapper;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.LocalSearchScope;
 import com.intellij.psi.search.SearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.containers.HashMap;
 import org.jetbrains.android.facet.AndroidFacet;
 import org.jetbrains.annotations.NotNull;
@@ -47,11 +53,26 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static org.jetbrains.android.inspections.lint.AndroidLintInspectionBase.LINT_INSPECTION_PREFIX;
 
 class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExtension<AndroidLintGlobalInspectionContext> {
   static final Key<AndroidLintGlobalInspectionContext> ID = Key.create("AndroidLintGlobalInspectionContext");
+  private static final Logger LOG = Logger.getInstance(AndroidLintGlobalInspectionContext.class);
+  /** Maximum number of modules analyzed at the same time; lint analysis is memory hungry. */
+  private static final int MAX_LINT_THREADS = 4;
+  private static final int MAX_LOGGED_ISSUES = 20;
+  /** How often the inspection's indicator is checked for cancellation while waiting for the parallel analyses. */
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+  /** Shared by all batch inspections, so concurrent inspection runs don't multiply the number of lint threads. */
+  private static final ExecutorService ourExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+    "Android Lint", Math.min(MAX_LINT_THREADS, Runtime.getRuntime().availableProcessors()));
   private Map<Issue, Map<File, List<ProblemData>>> myResults;
   private LintBaseline myBaseline;
   private Issue myEnabledIssue;
@@ -233,12 +254,46 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
       }
     }
 
-    LintRequest request = new LintIdeRequest(client, project, files, modules, false);
-    request.setScope(lintScope);
-    final LintDriver lint = new LintDriver(new LintIdeIssueRegistry(), client, request);
-
-    // Baseline analysis?
+    // Each module can be analyzed on its own, with the modules it depends on as lint library projects; the baseline however
+    // is shared by all modules, so it forces a single analysis.
     myBaseline = null;
+    File baselineFile = findBaselineFile(modules);
+    if (files == null && baselineFile == null && modules.size() > 1) {
+      analyzeInParallel(project, orderModules(modules), problemMap, scope, issues, lintScope, indicator);
+    }
+    else {
+      LintRequest request = new LintIdeRequest(client, project, files, modules, false);
+      request.setScope(lintScope);
+      final LintDriver lint = new LintDriver(new LintIdeIssueRegistry(), client, request);
+
+      if (baselineFile != null) {
+        myBaseline = new LintBaseline(client, baselineFile);
+        lint.setBaseline(myBaseline);
+        if (!baselineFile.isFile()) {
+          myBaseline.setWriteOnClose(true);
+        } else if (AndroidLintLintBaselineInspection.ourUpdateBaselineNextRun) {
+          myBaseline.setRemoveFixed(true);
+          myBaseline.setWriteOnClose(true);
+        }
+      }
+
+      long start = System.currentTimeMillis();
+      lint.analyze();
+      logStatistics(1, problemMap, System.currentTimeMillis() - start);
+    }
+
+    registerDynamicTools(globalTools);
+
+    AndroidLintLintBaselineInspection.clearNextRunState();
+
+    myResults = problemMap;
+  }
+
+  /**
+   * Returns the lint baseline file configured for the first Gradle module in the list, if any.
+   */
+  @Nullable
+  private static File findBaselineFile(@NotNull List<Module> modules) {
     for (Module module : modules) {
       AndroidModuleModel model = AndroidModuleModel.get(module);
       if (model != null) {
@@ -254,15 +309,7 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
                   baselineFile = new File(FileUtil.toSystemDependentName(path), baselineFile.getPath());
                 }
               }
-              myBaseline = new LintBaseline(client, baselineFile);
-              lint.setBaseline(myBaseline);
-              if (!baselineFile.isFile()) {
-                myBaseline.setWriteOnClose(true);
-              } else if (AndroidLintLintBaselineInspection.ourUpdateBaselineNextRun) {
-                myBaseline.setRemoveFixed(true);
-                myBaseline.setWriteOnClose(true);
-              }
-
+              return baselineFile;
             }
           } catch (Throwable unsupported) {
             // During 2.3 development some builds may have this method, others may not
@@ -271,9 +318,269 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
         break;
       }
     }
+    return null;
+  }
+
+  /**
+   * Orders the modules so that each one comes after the modules it depends on, such that the analyses of the modules at the
+   * bottom of the dependency graph, which don't wait on anything, are started first.
+   */
+  @NotNull
+  private static List<Module> orderModules(@NotNull List<Module> modules) {
+    return ReadAction.compute(
+      () -> dependenciesFirst(modules, module -> Arrays.asList(ModuleRootManager.getInstance(module).getDependencies())));
+  }
+
+  /**
+   * Orders the nodes so that each one comes after the nodes it depends on, including through nodes which are not in the list.
+   * Nodes which don't depend on each other keep the order of the list, and nodes in or depending on a dependency cycle are added
+   * last, in the order of the list.
+   */
+  @VisibleForTesting
+  @NotNull
+  static <T> List<T> dependenciesFirst(@NotNull List<T> nodes, @NotNull Function<T, Collection<T>> dependencies) {
+    Map<T, Integer> indices = new HashMap<>();
+    for (T node : nodes) {
+      indices.putIfAbsent(node, indices.size());
+    }
+
+    // Kahn's algorithm over the dependencies between the listed nodes
+    Map<T, Integer> inDegrees = new LinkedHashMap<>();
+    Map<T, List<T>> dependents = new HashMap<>();
+    for (T node : indices.keySet()) {
+      int inDegree = 0;
+      Set<T> visited = new HashSet<>();
+      Deque<T> queue = new ArrayDeque<>(dependencies.apply(node));
+      while (!queue.isEmpty()) {
+        T dependency = queue.remove();
+        if (!visited.add(dependency) || dependency.equals(node)) {
+          continue;
+        }
+        if (indices.containsKey(dependency)) {
+          // The dependencies of a listed node are ordered before it, so there is no need to look further
+          dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(node);
+          inDegree++;
+        }
+        else {
+          queue.addAll(dependencies.apply(dependency));
+        }
+      }
+      inDegrees.put(node, inDegree);
+    }
+
+    List<T> sorted = new ArrayList<>(indices.size());
+    PriorityQueue<T> ready = new PriorityQueue<>(Comparator.comparing(indices::get));
+    for (Map.Entry<T, Integer> entry : inDegrees.entrySet()) {
+      if (entry.getValue() == 0) {
+        ready.add(entry.getKey());
+      }
+    }
+    while (!ready.isEmpty()) {
+      T node = ready.remove();
+      inDegrees.remove(node);
+      sorted.add(node);
+      for (T dependent : dependents.getOrDefault(node, Collections.emptyList())) {
+        if (inDegrees.merge(dependent, -1, Integer::sum) == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+    List<T> cyclic = new ArrayList<>(inDegrees.keySet());
+    cyclic.sort(Comparator.comparing(indices::get));
+    sorted.addAll(cyclic);
+    return sorted;
+  }
+
+  /**
+   * Runs a separate lint analysis for each module on the shared lint thread pool, and merges the results into
+   * {@code problemMap}. Lint acquires read actions itself as it visits files, so the analyses don't block write actions
+   * for their whole duration.
+   * <p>
+   * Each analysis sees the modules its module depends on as lint library projects, so that checks which look across modules
+   * (e.g. unused resources, or API levels of library code) still see them. The problems reported in the files of another
+   * module are dropped, as they are reported by the analysis of that module: this way every problem is reported once.
+   */
+  private static void analyzeInParallel(@NotNull Project project,
+                                        @NotNull List<Module> modules,
+                                        @NotNull Map<Issue, Map<File, List<ProblemData>>> problemMap,
+                                        @NotNull AnalysisScope scope,
+                                        @NotNull Set<Issue> issues,
+                                        @Nullable EnumSet<Scope> lintScope,
+                                        @Nullable ProgressIndicator indicator) {
+    // The analyses wait for read actions from helper threads, so this must not run in a write action.
+    assert !ApplicationManager.getApplication().isWriteAccessAllowed();
+
+    long start = System.currentTimeMillis();
+    List<Map<Issue, Map<File, List<ProblemData>>>> results = runInParallel(ourExecutor, modules, module -> {
+      Map<Issue, Map<File, List<ProblemData>>> moduleProblems = new HashMap<>();
+      LintIdeClient client = LintIdeClient.forBatch(project, moduleProblems, scope, issues);
+      LintRequest request = new LintIdeRequest(client, project, null, Collections.singletonList(module), false);
+      request.setScope(lintScope);
+      LintDriver lint = new LintDriver(new LintIdeIssueRegistry(), client, request);
+      if (indicator != null) {
+        // Run under the caller's indicator, so cancelling the inspection also cancels the analysis
+        ProgressManager.getInstance().runProcess(lint::analyze, new SensitiveProgressWrapper(indicator));
+      }
+      else {
+        lint.analyze();
+      }
+      // Problems in files outside of all modules (which are rare) are kept from the first analysis only
+      return ownProblems(project, module, module == modules.get(0), moduleProblems);
+    }, indicator);
+
+    for (Map<Issue, Map<File, List<ProblemData>>> result : results) {
+      mergeProblems(problemMap, result);
+    }
+    logStatistics(modules.size(), problemMap, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Returns the problems of {@code problems} which are located in the files of the given module.
+   */
+  @NotNull
+  private static Map<Issue, Map<File, List<ProblemData>>> ownProblems(@NotNull Project project,
+                                                                      @NotNull Module module,
+                                                                      boolean keepUnowned,
+                                                                      @NotNull Map<Issue, Map<File, List<ProblemData>>> problems) {
+    return ReadAction.compute(() -> {
+      Map<File, Boolean> owned = new HashMap<>();
+      Map<Issue, Map<File, List<ProblemData>>> result = new HashMap<>();
+      for (Map.Entry<Issue, Map<File, List<ProblemData>>> issueEntry : problems.entrySet()) {
+        for (Map.Entry<File, List<ProblemData>> fileEntry : issueEntry.getValue().entrySet()) {
+          boolean isOwned = owned.computeIfAbsent(fileEntry.getKey(), file -> {
+            VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(file);
+            Module owner = virtualFile != null ? ModuleUtilCore.findModuleForFile(virtualFile, project) : null;
+            return owner != null ? owner == module : keepUnowned;
+          });
+          if (isOwned) {
+            result.computeIfAbsent(issueEntry.getKey(), issue -> new HashMap<>()).put(fileEntry.getKey(), fileEntry.getValue());
+          }
+        }
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Applies {@code task} to each of the inputs on the given executor, and returns the results in the order of the inputs.
+   * <p>
+   * If a task fails, the others still run to completion, and the failed inputs are then retried one by one on the calling
+   * thread (a failure may be caused by contention between the parallel analyses, e.g. running out of memory). Inputs which
+   * fail again are reported as errors and left out of the results. Cancelling the indicator or interrupting the calling thread
+   * throws a {@link ProcessCanceledException} right away; the caller's indicator is otherwise left alone.
+   */
+  @VisibleForTesting
+  @NotNull
+  static <T, R> List<R> runInParallel(@NotNull ExecutorService executor,
+                                      @NotNull List<T> inputs,
+                                      @NotNull Function<T, R> task,
+                                      @Nullable ProgressIndicator indicator) {
+    List<Future<R>> jobs = Lists.newArrayList();
+    for (T input : inputs) {
+      jobs.add(executor.submit(() -> task.apply(input)));
+    }
 
-    lint.analyze();
+    List<R> results = new ArrayList<>(inputs.size());
+    List<T> failed = new ArrayList<>();
+    try {
+      for (int i = 0; i < jobs.size(); i++) {
+        try {
+          results.add(waitFor(jobs.get(i), indicator));
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof ProcessCanceledException) {
+            throw (ProcessCanceledException)cause;
+          }
+          LOG.warn("Parallel lint analysis of " + inputs.get(i) + " failed, retrying sequentially", cause);
+          failed.add(inputs.get(i));
+        }
+      }
+    }
+    finally {
+      for (Future<?> job : jobs) {
+        job.cancel(false);
+      }
+    }
 
+    for (T input : failed) {
+      if (indicator != null) {
+        indicator.checkCanceled();
+      }
+      try {
+        results.add(task.apply(input));
+      }
+      catch (ProcessCanceledException e) {
+        throw e;
+      }
+      catch (RuntimeException e) {
+        LOG.error("Lint analysis of " + input + " failed", e);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Waits for the given job, checking the indicator for cancellation while it runs.
+   */
+  private static <R> R waitFor(@NotNull Future<R> job, @Nullable ProgressIndicator indicator) throws ExecutionException {
+    while (true) {
+      if (indicator != null) {
+        indicator.checkCanceled();
+      }
+      try {
+        return job.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException ignored) {
+        // Still running
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ProcessCanceledException(e);
+      }
+    }
+  }
+
+  private static void mergeProblems(@NotNull Map<Issue, Map<File, List<ProblemData>>> target,
+                                    @NotNull Map<Issue, Map<File, List<ProblemData>>> source) {
+    for (Map.Entry<Issue, Map<File, List<ProblemData>>> issueEntry : source.entrySet()) {
+      Map<File, List<ProblemData>> targetFiles = target.computeIfAbsent(issueEntry.getKey(), issue -> new HashMap<>());
+      for (Map.Entry<File, List<ProblemData>> fileEntry : issueEntry.getValue().entrySet()) {
+        targetFiles.computeIfAbsent(fileEntry.getKey(), file -> new ArrayList<>()).addAll(fileEntry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Logs how long the analysis took and which issues were reported most often, to help finding the checks dominating
+   * batch inspection times.
+   */
+  private static void logStatistics(int analysisCount,
+                                    @NotNull Map<Issue, Map<File, List<ProblemData>>> problemMap,
+                                    long durationMs) {
+    if (!LOG.isDebugEnabled()) {
+      return;
+    }
+
+    List<Map.Entry<Issue, Integer>> counts = new ArrayList<>();
+    for (Map.Entry<Issue, Map<File, List<ProblemData>>> entry : problemMap.entrySet()) {
+      int count = 0;
+      for (List<ProblemData> problems : entry.getValue().values()) {
+        count += problems.size();
+      }
+      counts.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+    }
+    counts.sort((a, b) -> b.getValue() - a.getValue());
+
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("Lint ran %1$d analyses in %2$d ms", analysisCount, durationMs));
+    for (Map.Entry<Issue, Integer> entry : counts.subList(0, Math.min(MAX_LOGGED_ISSUES, counts.size()))) {
+      sb.append(String.format("\n  %1$s: %2$d", entry.getKey().getId(), entry.getValue()));
+    }
+    LOG.debug(sb.toString());
+  }
+
+  private static void registerDynamicTools(@NotNull List<Tools> globalTools) {
     List<Tools> tools = AndroidLintInspectionBase.getDynamicTools();
     AndroidLintInspectionBase.resetDynamicTools();
     if (tools != null) {
@@ -293,10 +600,6 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
         }
       }
     }
-
-    AndroidLintLintBaselineInspection.clearNextRunState();
-
-    myResults = problemMap;
   }
 
   @Nullable
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.android.inspections.lint;
+
+import com.android.tools.idea.res.AppResourceRepository;
+import com.android.tools.lint.detector.api.Issue;
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.xml.XmlText;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the most recent on-the-fly lint results of each file, so the {@link AndroidLintExternalAnnotator} does not have
+ * to run lint again when the highlighting pass is restarted without the file having changed (e.g. when switching editors).
+ * <p>
+ * Results are keyed by the file content, the set of enabled issues and a configuration stamp which changes whenever the
+ * project structure, the files on disk, the Java structure of the project or the resources of the module change. In
+ * addition, an edit which only changes the amount of whitespace between two tokens on a single line reuses the previous
+ * results, with their ranges shifted. Lint cannot run a subset of its detectors on a subset of the elements of a file, so
+ * any other edit runs the full analysis again.
+ */
+final class LintEditorResultCache {
+  private static final Logger LOG = Logger.getInstance(LintEditorResultCache.class);
+  private static final Key<Entry> RESULTS_KEY = Key.create("android.lint.editor.results");
+
+  /** How often (in number of lookups) to log the cache statistics. */
+  private static final int LOG_INTERVAL = 100;
+
+  private static final AtomicLong ourHitCount = new AtomicLong();
+  private static final AtomicLong ourShiftedHitCount = new AtomicLong();
+  private static final AtomicLong ourMissCount = new AtomicLong();
+  private static final AtomicLong ourAnalyzeCount = new AtomicLong();
+  private static final AtomicLong ourAnalyzeNanos = new AtomicLong();
+
+  private LintEditorResultCache() {
+  }
+
+  /**
+   * Returns a stamp which changes whenever something outside of the analyzed file changes that may affect its lint results.
+   * This includes unsaved edits of the module's other resource files, which are not seen by the VFS modification count.
+   */
+  static long getConfigurationStamp(@NotNull Module module) {
+    final Project project = module.getProject();
+    final AppResourceRepository resources = AppResourceRepository.getOrCreateInstance(module);
+
+    // Each of these is monotonically increasing, so the sum only stays the same if none of them changed
+    return VirtualFileManager.getInstance().getModificationCount() +
+           ProjectRootModificationTracker.getInstance(project).getModificationCount() +
+           PsiManager.getInstance(project).getModificationTracker().getJavaStructureModificationCount() +
+           (resources != null ? resources.getModificationCount() : 0);
+  }
+
+  /**
+   * Looks up the results of a previous analysis matching the given state. Must be called in a read action, since whitespace
+   * edits are recognized by looking at the PSI of the file.
+   *
+   * @return the problems to report, or null if lint needs to run
+   */
+  @Nullable
+  static List<ProblemData> lookup(@NotNull PsiFile file, @NotNull State state) {
+    final Entry entry = state.getMainFile().getUserData(RESULTS_KEY);
+    List<ProblemData> problems = null;
+
+    if (entry != null && entry.myConfigurationStamp == state.getConfigurationStamp() && entry.myIssues.equals(state.getIssues())) {
+      final String content = state.getMainFileContent();
+
+      if (entry.myContent.equals(content)) {
+        ourHitCount.incrementAndGet();
+        problems = entry.myProblems;
+      }
+      else {
+        problems = shiftForWhitespaceEdit(file, entry.myContent, content, entry.myProblems);
+
+        if (problems != null) {
+          ourShiftedHitCount.incrementAndGet();
+        }
+      }
+    }
+    if (problems == null) {
+      ourMissCount.incrementAndGet();
+    }
+    logStatistics();
+    return problems;
+  }
+
+  /**
+   * Records the results of a completed analysis of the state's main file.
+   */
+  static void store(@NotNull State state, long analyzeNanos) {
+    ourAnalyzeCount.incrementAndGet();
+    ourAnalyzeNanos.addAndGet(analyzeNanos);
+
+    final VirtualFile file = state.getMainFile();
+    if (state.isDirty()) {
+      file.putUserData(RESULTS_KEY, null);
+      return;
+    }
+    file.putUserData(RESULTS_KEY, new Entry(state.getMainFileContent(), state.getIssues(), state.getConfigurationStamp(),
+                                            new ArrayList<>(state.getProblems())));
+  }
+
+  /**
+   * If {@code newContent} only differs from {@code oldContent} by the amount of whitespace in a single run of whitespace
+   * separating two tokens, without adding or removing line breaks, returns the given problems with their ranges adjusted to
+   * the new content. Otherwise returns null.
+   */
+  @VisibleForTesting
+  @Nullable
+  static List<ProblemData> shiftForWhitespaceEdit(@NotNull PsiFile file,
+                                                  @NotNull String oldContent,
+                                                  @NotNull String newContent,
+                                                  @NotNull List<ProblemData> problems) {
+    final int oldLength = oldContent.length();
+    final int newLength = newContent.length();
+    final int maxCommon = Math.min(oldLength, newLength);
+
+    int prefix = 0;
+    while (prefix < maxCommon && oldContent.charAt(prefix) == newContent.charAt(prefix)) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < maxCommon - prefix && oldContent.charAt(oldLength - suffix - 1) == newContent.charAt(newLength - suffix - 1)) {
+      suffix++;
+    }
+
+    final int oldEnd = oldLength - suffix;
+    final int newEnd = newLength - suffix;
+    if (!isInlineWhitespace(oldContent, prefix, oldEnd) || !isInlineWhitespace(newContent, prefix, newEnd)) {
+      return null;
+    }
+
+    // The edit must neither join nor split tokens: it has to be inside a non-empty run of whitespace in the old content,
+    // and inside a single whitespace element in the new one (which is not the content of an XML text node)
+    final boolean oldRunEmpty = prefix == oldEnd &&
+                                (prefix == 0 || !Character.isWhitespace(oldContent.charAt(prefix - 1))) &&
+                                (oldEnd == oldLength || !Character.isWhitespace(oldContent.charAt(oldEnd)));
+    if (oldRunEmpty || !isInWhitespaceElement(file, prefix, newEnd)) {
+      return null;
+    }
+
+    final int delta = newEnd - oldEnd;
+    final List<ProblemData> shifted = new ArrayList<>(problems.size());
+    for (ProblemData problem : problems) {
+      final TextRange range = problem.getTextRange();
+      final TextRange newRange;
+
+      if (range.getEndOffset() <= prefix) {
+        newRange = range;
+      }
+      else if (range.getStartOffset() >= oldEnd) {
+        newRange = range.shiftRight(delta);
+      }
+      else if (range.getStartOffset() <= prefix && range.getEndOffset() >= oldEnd) {
+        newRange = new TextRange(range.getStartOffset(), range.getEndOffset() + delta);
+      }
+      else {
+        // The problem starts or ends inside the edited whitespace; we can't tell where it belongs now
+        return null;
+      }
+      shifted.add(newRange == range ? problem : new ProblemData(problem.getIssue(), problem.getMessage(), newRange,
+                                                                problem.getConfiguredSeverity(), problem.getQuickfixData()));
+    }
+    return shifted;
+  }
+
+  private static boolean isInlineWhitespace(@NotNull String content, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char c = content.charAt(i);
+      if (!Character.isWhitespace(c) || c == '\n' || c == '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isInWhitespaceElement(@NotNull PsiFile file, int start, int end) {
+    PsiElement element = file.findElementAt(start);
+    if (!(element instanceof PsiWhiteSpace) && start > 0) {
+      element = file.findElementAt(start - 1);
+    }
+    if (!(element instanceof PsiWhiteSpace) || element.getParent() instanceof XmlText) {
+      return false;
+    }
+    final TextRange range = element.getTextRange();
+    return range.getStartOffset() <= start && range.getEndOffset() >= end;
+  }
+
+  private static void logStatistics() {
+    if (!LOG.isDebugEnabled()) {
+      return;
+    }
+    final long hits = ourHitCount.get();
+    final long shiftedHits = ourShiftedHitCount.get();
+    final long misses = ourMissCount.get();
+    final long lookups = hits + shiftedHits + misses;
+
+    if (lookups % LOG_INTERVAL == 0) {
+      final long analyzeCount = ourAnalyzeCount.get();
+      final long averageMs = analyzeCount > 0 ? TimeUnit.NANOSECONDS.toMillis(ourAnalyzeNanos.get() / analyzeCount) : 0;
+      LOG.debug(String.format("Editor lint results: %1$d lookups, %2$.1f%% hit rate (%3$d whitespace edits), " +
+                              "%4$d analyses taking %5$d ms on average",
+                              lookups, 100.0 * (hits + shiftedHits) / lookups, shiftedHits, analyzeCount, averageMs));
+    }
+  }
+
+  private static final class Entry {
+    @NotNull final String myContent;
+    @NotNull final Set<Issue> myIssues;
+    final long myConfigurationStamp;
+    @NotNull final List<ProblemData> myProblems;
+
+    Entry(@NotNull String content, @NotNull Set<Issue> issues, long configurationStamp, @NotNull List<ProblemData> problems) {
+      myContent = content;
+      myIssues = issues;
+      myConfigurationStamp = configurationStamp;
+      myProblems = problems;
+    }
+  }
+}
@@ -19,17 +19,21 @@ public class State {
   private final String myMainFileContent;
   private final List<ProblemData> myProblems = new ArrayList<ProblemData>();
   private final Set<Issue> myIssues;
+  private final long myConfigurationStamp;
 
   private volatile boolean myDirty;
+  private boolean myFromCache;
 
   State(@NotNull Module module,
         @NotNull VirtualFile mainFile,
         @NotNull String mainFileContent,
-        @NotNull Set<Issue> issues) {
+        @NotNull Set<Issue> issues,
+        long configurationStamp) {
     myModule = module;
     myMainFile = mainFile;
     myMainFileContent = mainFileContent;
     myIssues = issues;
+    myConfigurationStamp = configurationStamp;
   }
 
   @NotNull
@@ -64,4 +68,20 @@ public class State {
   public Set<Issue> getIssues() {
     return myIssues;
   }
+
+  public long getConfigurationStamp() {
+    return myConfigurationStamp;
+  }
+
+  /**
+   * Fills in the problems from a previous analysis, so lint doesn't need to run again.
+   */
+  void setCachedProblems(@NotNull List<ProblemData> problems) {
+    myProblems.addAll(problems);
+    myFromCache = true;
+  }
+
+  public boolean isFromCache() {
+    return myFromCache;
+  }
 }
@@ -21,6 +21,8 @@ import com.android.annotations.VisibleForTesting;
 import com.android.annotations.concurrency.GuardedBy;
 import com.android.tools.idea.layoutlib.LayoutLibrary;
 import com.android.ide.common.resources.FrameworkResources;
+import com.android.ide.common.resources.ResourceValueMap;
+import com.android.ide.common.resources.configuration.FolderConfiguration;
 import com.android.resources.ResourceType;
 import com.android.sdklib.IAndroidTarget;
 import com.android.tools.idea.AndroidPsiUtils;
@@ -49,6 +51,8 @@ import org.jetbrains.annotations.Nullable;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,6 +61,8 @@ import java.util.Set;
  */
 public class AndroidTargetData {
   private static final Logger LOG = Logger.getInstance("#org.jetbrains.android.sdk.AndroidTargetData");
+  @VisibleForTesting
+  static final int MAX_CONFIGURED_FRAMEWORK_RESOURCES = 32;
 
   private final AndroidSdkData mySdkData;
   private final IAndroidTarget myTarget;
@@ -73,6 +79,21 @@ public class AndroidTargetData {
   private volatile MyStaticConstantsData myStaticConstantsData;
   private FrameworkResources myFrameworkResources;
 
+  /**
+   * Framework resource values configured for the most recently used configurations, by configuration key, and the framework
+   * resources they were computed from.
+   */
+  @GuardedBy("this")
+  private final Map<String, Map<ResourceType, ResourceValueMap>> myConfiguredFrameworkResources =
+    new LinkedHashMap<String, Map<ResourceType, ResourceValueMap>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Map<ResourceType, ResourceValueMap>> eldest) {
+        return size() > MAX_CONFIGURED_FRAMEWORK_RESOURCES;
+      }
+    };
+  @GuardedBy("this")
+  private FrameworkResources myConfiguredFrameworkResourcesSource;
+
   public AndroidTargetData(@NotNull AndroidSdkData sdkData, @NotNull IAndroidTarget target) {
     mySdkData = sdkData;
     myTarget = target;
@@ -234,6 +255,31 @@ public class AndroidTargetData {
     return myFrameworkResources;
   }
 
+  /**
+   * Returns the framework resource values for the given configuration. The target data is shared by all the projects using the same
+   * SDK, so the values are only computed once per configuration for all of them, instead of once per module. The returned map can't be
+   * modified, and neither must the value maps it contains.
+   */
+  @Nullable
+  public synchronized Map<ResourceType, ResourceValueMap> getConfiguredFrameworkResources(@NotNull FolderConfiguration configuration,
+                                                                                          boolean withLocale) throws IOException {
+    FrameworkResources frameworkResources = getFrameworkResources(withLocale);
+    if (frameworkResources == null) {
+      return null;
+    }
+    if (frameworkResources != myConfiguredFrameworkResourcesSource) {
+      myConfiguredFrameworkResources.clear();
+      myConfiguredFrameworkResourcesSource = frameworkResources;
+    }
+    String key = configuration.getUniqueKey();
+    Map<ResourceType, ResourceValueMap> configuredResources = myConfiguredFrameworkResources.get(key);
+    if (configuredResources == null) {
+      configuredResources = Collections.unmodifiableMap(frameworkResources.getConfiguredResources(configuration));
+      myConfiguredFrameworkResources.put(key, configuredResources);
+    }
+    return configuredResources;
+  }
+
   /**
    * This method can return null when the user is changing the SDK setting in their project.
    */
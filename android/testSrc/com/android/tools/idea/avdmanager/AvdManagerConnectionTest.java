@@ -256,6 +256,43 @@ public class AvdManagerConnectionTest extends AndroidTestCase {
     assertTrue(cmdLine.getCommandLineString().contains(COLD_BOOT_ONCE_COMMAND));
   }
 
+  public void testRegistryOnlyReloadsChangedAvds() throws Exception {
+    MockLog log = new MockLog();
+    for (String name : new String[]{"unchangedAvd", "changedAvd"}) {
+      File folder = AvdInfo.getDefaultAvdFolder(mAvdManager, name, mFileOp, false);
+      assertNotNull(mAvdManager.createAvd(folder, name, mSystemImage, null, null, null, null, null, false, false, true, false, log));
+    }
+    AvdRegistry registry = AvdRegistry.getInstance(mAvdManager, mAndroidSdkHandler);
+    registry.refresh(log);
+    AvdInfo unchanged = mAvdManager.getAvd("unchangedAvd", false);
+    AvdInfo changed = mAvdManager.getAvd("changedAvd", false);
+    assertNotNull(unchanged);
+    assertNotNull(changed);
+
+    // Nothing changed on disk, so nothing is reloaded
+    registry.refresh(log);
+    assertSame(unchanged, mAvdManager.getAvd("unchangedAvd", false));
+    assertSame(changed, mAvdManager.getAvd("changedAvd", false));
+
+    File configIniFile = new File(changed.getDataFolderPath(), "config.ini");
+    Map<String, String> iniProperties =
+      ProjectProperties.parsePropertyFile(new FileOpFileWrapper(configIniFile, mFileOp, false), log);
+    iniProperties.put(AVD_INI_FORCE_COLD_BOOT_MODE, "yes");
+    try (OutputStreamWriter iniWriter = new OutputStreamWriter(mFileOp.newFileOutputStream(configIniFile), Charsets.UTF_8)) {
+      for (Map.Entry<String, String> mapEntry : iniProperties.entrySet()) {
+        iniWriter.write(String.format("%1$s=%2$s\n", mapEntry.getKey(), mapEntry.getValue()));
+      }
+    }
+
+    // Only the AVD whose config.ini changed is reloaded
+    registry.refresh(log);
+    assertSame(unchanged, mAvdManager.getAvd("unchangedAvd", false));
+    AvdInfo reloaded = mAvdManager.getAvd("changedAvd", false);
+    assertNotNull(reloaded);
+    assertNotSame(changed, reloaded);
+    assertEquals("yes", reloaded.getProperties().get(AVD_INI_FORCE_COLD_BOOT_MODE));
+  }
+
   public void testGetHardwareProperties() {
     recordEmulatorHardwareProperties(mFileOp);
     assertEquals("800M", mAvdManagerConnection.getSdCardSizeFromHardwareProperties());
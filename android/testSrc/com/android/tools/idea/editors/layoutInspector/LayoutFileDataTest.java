@@ -17,10 +17,12 @@ package com.android.tools.idea.editors.layoutInspector;
 
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
 import org.jetbrains.android.AndroidTestCase;
+import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 
 public class LayoutFileDataTest extends AndroidTestCase {
@@ -37,4 +39,30 @@ public class LayoutFileDataTest extends AndroidTestCase {
     assertNotNull(fileData.getNode());
     assertEquals(3, fileData.getNode().getChildCount());
   }
+
+  public void testParsingLayoutFileFromChunkedStream() throws IOException {
+    File testData = Paths.get(getTestDataPath(), "editors/layoutInspector/LayoutCapture.li").toFile();
+    byte[] contents = Files.readAllBytes(testData.toPath());
+    // Returns a few bytes per read, like a stream over a slow file system does.
+    VirtualFile layoutFile = new LightVirtualFile("LayoutCapture.li") {
+      @NotNull
+      @Override
+      public InputStream getInputStream() {
+        return new FilterInputStream(new ByteArrayInputStream(contents)) {
+          @Override
+          public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+          }
+        };
+      }
+    };
+    LayoutFileData fileData = new LayoutFileData(layoutFile);
+
+    assertNotNull(fileData.getBufferedImage());
+    assertEquals(1920, fileData.getBufferedImage().getHeight());
+    assertEquals(1080, fileData.getBufferedImage().getWidth());
+
+    assertNotNull(fileData.getNode());
+    assertEquals(3, fileData.getNode().getChildCount());
+  }
 }
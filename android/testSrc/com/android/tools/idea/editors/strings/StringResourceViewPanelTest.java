@@ -23,8 +23,12 @@ import com.android.tools.idea.editors.strings.table.StringTableCellEditor;
 import com.android.tools.idea.res.ModuleResourceRepository;
 import com.android.tools.idea.res.MultiResourceRepository;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
 import org.jetbrains.android.AndroidTestCase;
 import org.jetbrains.annotations.NotNull;
 import org.mockito.Mockito;
@@ -37,6 +41,7 @@ public final class StringResourceViewPanelTest extends AndroidTestCase {
   private Disposable myParentDisposable;
   private StringResourceViewPanel myPanel;
   private StringResourceTable myTable;
+  private VirtualFile myResourceDirectory;
 
   @Override
   protected void setUp() throws Exception {
@@ -46,8 +51,8 @@ public final class StringResourceViewPanelTest extends AndroidTestCase {
     myPanel = new StringResourceViewPanel(myFacet, myParentDisposable);
     myTable = myPanel.getTable();
 
-    VirtualFile resourceDirectory = myFixture.copyDirectoryToProject("stringsEditor/base/res", "res");
-    MultiResourceRepository parent = ModuleResourceRepository.createForTest(myFacet, Collections.singletonList(resourceDirectory));
+    myResourceDirectory = myFixture.copyDirectoryToProject("stringsEditor/base/res", "res");
+    MultiResourceRepository parent = ModuleResourceRepository.createForTest(myFacet, Collections.singletonList(myResourceDirectory));
 
     myPanel.getTable().setModel(new StringResourceTableModel(StringResourceRepository.create(parent), myFacet));
 
@@ -119,6 +124,50 @@ public final class StringResourceViewPanelTest extends AndroidTestCase {
     assertEquals("key9", getValueAt(6, 0));
   }
 
+  public void testReloadKeysAppendsNewKey() {
+    myTable.setRowFilter(new NeedsTranslationsRowFilter());
+
+    Project project = myFacet.getModule().getProject();
+    StringResourceKey key = new StringResourceKey("key11", myResourceDirectory);
+    XmlFile file = StringPsiUtils.getDefaultStringResourceFile(project, key);
+    assert file != null;
+
+    WriteCommandAction.runWriteCommandAction(project, () -> StringPsiUtils.addString(file, key, "Key 11 default"));
+    myTable.getModel().reloadKeys(Collections.singletonList(key));
+
+    assertEquals(11, myTable.getModel().getRowCount());
+    assertEquals("Key 11 default", myTable.getModel().getValueAt(10, StringResourceTableModel.DEFAULT_VALUE_COLUMN));
+
+    assertEquals(8, myTable.getRowCount());
+    assertEquals("key11", getValueAt(2, 0));
+  }
+
+  public void testReloadChangedKeysPicksUpExternalEdits() {
+    StringResourceTableModel model = myTable.getModel();
+    int row = model.getKeys().indexOf(new StringResourceKey("key1", myResourceDirectory));
+    assertEquals("Key 1 default", model.getValueAt(row, StringResourceTableModel.DEFAULT_VALUE_COLUMN));
+
+    // Edit the strings file directly, as another editor would
+    Project project = myFacet.getModule().getProject();
+    StringResourceKey key = new StringResourceKey("key11", myResourceDirectory);
+    XmlFile file = StringPsiUtils.getDefaultStringResourceFile(project, key);
+    assert file != null && file.getRootTag() != null;
+
+    WriteCommandAction.runWriteCommandAction(project, () -> {
+      for (XmlTag tag : file.getRootTag().findSubTags("string")) {
+        if ("key1".equals(tag.getAttributeValue("name"))) {
+          tag.getValue().setText("Key 1 changed");
+        }
+      }
+      StringPsiUtils.addString(file, key, "Key 11 default");
+    });
+    model.reloadChangedKeys();
+
+    assertEquals(11, model.getRowCount());
+    assertEquals("Key 1 changed", model.getValueAt(row, StringResourceTableModel.DEFAULT_VALUE_COLUMN));
+    assertEquals("Key 11 default", model.getValueAt(10, StringResourceTableModel.DEFAULT_VALUE_COLUMN));
+  }
+
   public void testSelectingCell() {
     myTable.setRowFilter(new NeedsTranslationsRowFilter());
     TableUtils.selectCellAt(myTable, 2, 1);
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.experimental.codeanalysis.callgraph;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CallgraphEdgesTest {
+  private CallgraphIndex<String> myIndex;
+  private CallgraphEdges<String, String> myEdges;
+
+  @Before
+  public void setUp() {
+    // Keys and values share the index, like the method edges of the call graph
+    myIndex = new CallgraphIndex<>();
+    myEdges = new CallgraphEdges<>(myIndex, myIndex);
+  }
+
+  @Test
+  public void compactSortsAndRemovesDuplicateEdges() {
+    myEdges.put("main", "run");
+    myEdges.put("main", "init");
+    myEdges.put("main", "run");
+    myEdges.put("run", "init");
+
+    assertEquals(3, myEdges.size());
+    assertEquals(Arrays.asList("run", "init"), myEdges.get("main")); // in id order
+    assertEquals(Arrays.asList("init"), myEdges.get("run"));
+    assertArrayEquals(new int[]{myIndex.getId("run"), myIndex.getId("init")}, myEdges.getTargetIds(myIndex.getId("main")));
+  }
+
+  @Test
+  public void edgesAddedAfterCompactionAreMerged() {
+    myEdges.put("main", "run");
+    assertEquals(1, myEdges.size());
+
+    myEdges.put("main", "run");
+    myEdges.put("main", "exit");
+    myEdges.put("exit", "cleanup");
+
+    assertEquals(3, myEdges.size());
+    assertEquals(Arrays.asList("run", "exit"), myEdges.get("main"));
+    assertEquals(Arrays.asList("cleanup"), myEdges.get("exit"));
+    assertEquals(ImmutableSet.of("main", "exit"), myEdges.keySet());
+  }
+
+  @Test
+  public void missingKeysHaveNoEdges() {
+    myEdges.put("main", "run");
+
+    assertFalse(myEdges.containsKey("unknown"));
+    assertTrue(myEdges.get("unknown").isEmpty());
+    assertEquals(0, myEdges.getTargetIds(-1).length);
+    assertEquals(0, myEdges.getTargetIds(myIndex.size()).length);
+  }
+
+  @Test
+  public void nodesWithoutEdgesAreNotKeys() {
+    myEdges.put("main", "run");
+    // Known to the shared index, but added after the last compaction and without any edges
+    myIndex.getOrCreateId("unused");
+
+    assertFalse(myEdges.containsKey("run"));
+    assertTrue(myEdges.get("run").isEmpty());
+    assertFalse(myEdges.containsKey("unused"));
+    assertTrue(myEdges.get("unused").isEmpty());
+    assertEquals(0, myEdges.getTargetIds(myIndex.getId("unused")).length);
+    assertEquals(ImmutableSet.of("main"), myEdges.keySet());
+  }
+
+  @Test
+  public void emptyEdges() {
+    assertEquals(0, myEdges.size());
+    assertTrue(myEdges.keySet().isEmpty());
+    assertTrue(myEdges.get("main").isEmpty());
+  }
+}
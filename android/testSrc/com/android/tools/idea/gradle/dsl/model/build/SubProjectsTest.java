@@ -15,10 +15,15 @@
  */
 package com.android.tools.idea.gradle.dsl.model.build;
 
+import com.android.tools.idea.gradle.dsl.api.GradleBuildModel;
 import com.android.tools.idea.gradle.dsl.api.java.JavaModel;
 import com.android.tools.idea.gradle.dsl.model.GradleFileModelTestCase;
+import com.intellij.openapi.module.Module;
 import com.intellij.pom.java.LanguageLevel;
 
+import java.util.Arrays;
+import java.util.Map;
+
 /**
  * Tests subprojects section of the build.gradle file.
  */
@@ -96,4 +101,30 @@ public class SubProjectsTest extends GradleFileModelTestCase {
     assertEquals(LanguageLevel.JDK_1_6, subModuleJava.sourceCompatibility()); // 1_4 is overridden with 1_6
     assertEquals(LanguageLevel.JDK_1_7, subModuleJava.targetCompatibility()); // 1_5 is overridden with 1_7
   }
+
+  public void testSubProjectsSectionWithBatchParsedModels() throws Exception {
+    String settingsText = "include ':" + SUB_MODULE_NAME + "'";
+
+    String mainModuleText = "subprojects { \n" +
+                            "  sourceCompatibility = 1.5\n" +
+                            "}";
+
+    writeToSettingsFile(settingsText);
+    writeToBuildFile(mainModuleText);
+    writeToSubModuleBuildFile("targetCompatibility = 1.6");
+
+    Map<Module, GradleBuildModel> models = GradleBuildModel.get(myProject, Arrays.asList(myModule, mySubModule));
+    JavaModel subModuleJava = models.get(mySubModule).java();
+    assertEquals(LanguageLevel.JDK_1_5, subModuleJava.sourceCompatibility());
+    assertEquals(LanguageLevel.JDK_1_6, subModuleJava.targetCompatibility());
+
+    mainModuleText = "subprojects { \n" +
+                     "  sourceCompatibility = 1.7\n" +
+                     "}";
+    writeToBuildFile(mainModuleText);
+
+    // Each batch parses the parent module again.
+    models = GradleBuildModel.get(myProject, Arrays.asList(myModule, mySubModule));
+    assertEquals(LanguageLevel.JDK_1_7, models.get(mySubModule).java().sourceCompatibility());
+  }
 }
@@ -20,9 +20,8 @@ import com.intellij.testFramework.IdeaTestCase;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.util.Objects;
 import java.util.concurrent.Future;
 
@@ -59,26 +58,50 @@ public class CachedProjectModelsTest extends IdeaTestCase {
     File cacheFilePath = CachedProjectModels.getCacheFilePath(project);
     assertAbout(file()).that(cacheFilePath).isFile();
 
-    CachedProjectModels deserialized = deserialize(cacheFilePath);
-    assertEquals(myCache, deserialized);
+    CachedProjectModels deserialized = new CachedProjectModels.Loader().loadFromDisk(project);
+    assertNotNull(deserialized);
     assertThat(deserialized).isNotSameAs(myCache);
 
     CachedModuleModels deserializedModule1 = deserialized.findCacheForModule(":module1");
+    assertEquals(module1, deserializedModule1);
     Person deserializedP1 = deserializedModule1.findModel(Person.class);
     assertEquals(p1, deserializedP1);
+    assertSame(deserializedModule1, deserialized.findCacheForModule(":module1"));
 
     CachedModuleModels deserializedModule2 = deserialized.findCacheForModule(":module2");
+    assertEquals(module2, deserializedModule2);
     Person deserializedP2 = deserializedModule2.findModel(Person.class);
     assertEquals(p2, deserializedP2);
+
+    assertNull(deserialized.findCacheForModule(":module3"));
   }
 
-  @NotNull
-  private static CachedProjectModels deserialize(@NotNull File path) throws Exception {
-    try (FileInputStream fis = new FileInputStream(path)) {
-      try (ObjectInputStream ois = new ObjectInputStream(fis)) {
-        return (CachedProjectModels)ois.readObject();
-      }
-    }
+  public void testSaveToDiskDeletesLegacyCacheFile() throws Exception {
+    Project project = getProject();
+    File cacheFilePath = CachedProjectModels.getCacheFilePath(project);
+    File legacyCacheFilePath = new File(cacheFilePath.getParentFile(), "gradle_models.ser");
+    assertTrue(legacyCacheFilePath.getParentFile().mkdirs() || legacyCacheFilePath.getParentFile().isDirectory());
+    assertTrue(legacyCacheFilePath.createNewFile());
+
+    myCache.saveToDisk(project).get(10, SECONDS);
+    assertAbout(file()).that(cacheFilePath).isFile();
+    assertFalse(legacyCacheFilePath.exists());
+  }
+
+  public void testLoadFromDiskWithCorruptedModule() throws Exception {
+    CachedModuleModels module1 = myCache.addModule(myModule, ":module1");
+    module1.addModel(new Person("Luke"));
+
+    Project project = getProject();
+    myCache.saveToDisk(project).get(10, SECONDS);
+
+    // Flip the last byte of the file, which belongs to the serialized models.
+    File cacheFilePath = CachedProjectModels.getCacheFilePath(project);
+    byte[] contents = Files.readAllBytes(cacheFilePath.toPath());
+    contents[contents.length - 1] ^= 0xFF;
+    Files.write(cacheFilePath.toPath(), contents);
+
+    assertNull(new CachedProjectModels.Loader().loadFromDisk(project));
   }
 
   public static class Person implements Serializable {
@@ -20,6 +20,10 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.*;
 
@@ -50,7 +54,40 @@ public class ArtifactRepositoryTest {
     assertEquals("failure", result.getError().getMessage());
   }
 
+  @Test
+  public void search_remoteBatchIsSentInParallel() throws Exception {
+    // Each request waits until the other one started, so the batch would time out if the requests were sent one at a time.
+    CountDownLatch started = new CountDownLatch(2);
+    ArtifactRepository repo = new TestArtifactRepository(true) {
+      @NotNull
+      @Override
+      protected SearchResult doSearch(@NotNull SearchRequest request) throws Exception {
+        started.countDown();
+        if (!started.await(10, TimeUnit.SECONDS)) {
+          throw new Exception("timeout");
+        }
+        return super.doSearch(request);
+      }
+    };
+    SearchRequest first = new SearchRequest("artifact", "groupId", 0, 0);
+    SearchRequest second = new SearchRequest("fail", "groupId", 0, 0);
+
+    Map<SearchRequest, SearchResult> results = repo.search(ImmutableList.of(first, second));
+    assertThat(results.keySet()).containsExactly(first, second).inOrder();
+    assertEquals(TEST_RESULT, results.get(first));
+    assertEquals("failure", results.get(second).getError().getMessage());
+  }
+
   private static class TestArtifactRepository extends ArtifactRepository {
+    private final boolean myRemote;
+
+    TestArtifactRepository() {
+      this(false);
+    }
+
+    TestArtifactRepository(boolean remote) {
+      myRemote = remote;
+    }
 
     @NotNull
     @Override
@@ -60,7 +97,7 @@ public class ArtifactRepositoryTest {
 
     @Override
     public boolean isRemote() {
-      return false;
+      return myRemote;
     }
 
     @NotNull
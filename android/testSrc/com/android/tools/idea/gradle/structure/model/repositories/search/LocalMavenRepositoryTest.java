@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.structure.model.repositories.search;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertNull;
+
+public class LocalMavenRepositoryTest {
+  @Rule public TemporaryFolder myTemporaryFolder = new TemporaryFolder();
+
+  private LocalMavenRepository myRepository;
+
+  @Before
+  public void before() throws IOException {
+    File root = myTemporaryFolder.newFolder("m2repository");
+    createArtifact(root, "com.android.support", "appcompat-v7", "25.0.0", "26.0.0");
+    createArtifact(root, "com.android.support", "design", "26.0.0");
+    createArtifact(root, "com.google.guava", "guava", "21.0");
+    myRepository = new LocalMavenRepository(root, "local");
+  }
+
+  @Test
+  public void search_batchMatchesSingleSearches() {
+    SearchRequest appCompat = new SearchRequest("appcompat-v7", "com.android.support", 50, 0);
+    SearchRequest guava = new SearchRequest("guava", "com.google.guava", 50, 0);
+    SearchRequest anyGroup = new SearchRequest("d", null, 50, 0);
+    SearchRequest missing = new SearchRequest("missing", "com.example", 50, 0);
+    List<SearchRequest> requests = ImmutableList.of(appCompat, guava, anyGroup, missing);
+
+    Map<SearchRequest, SearchResult> results = myRepository.search(requests);
+
+    assertThat(results.keySet()).containsExactlyElementsIn(requests).inOrder();
+    for (SearchRequest request : requests) {
+      SearchResult result = results.get(request);
+      assertNull(result.getError());
+      assertThat(result.getArtifactCoordinates())
+        .containsExactlyElementsIn(myRepository.search(request).getArtifactCoordinates());
+    }
+    assertThat(results.get(appCompat).getArtifactCoordinates()).containsExactly("com.android.support:appcompat-v7:26.0.0",
+                                                                                 "com.android.support:appcompat-v7:25.0.0").inOrder();
+    assertThat(results.get(guava).getArtifactCoordinates()).containsExactly("com.google.guava:guava:21.0");
+    assertThat(results.get(anyGroup).getArtifactCoordinates()).containsExactly("com.android.support:design:26.0.0");
+    assertThat(results.get(missing).getArtifacts()).isEmpty();
+  }
+
+  private static void createArtifact(File root, String groupId, String artifactId, String... versions) throws IOException {
+    File artifactFolder = new File(root, groupId.replace('.', '/') + "/" + artifactId);
+    for (String version : versions) {
+      File versionFolder = new File(artifactFolder, version);
+      assertThat(versionFolder.mkdirs()).isTrue();
+    }
+    String metadata = "<metadata>\n" +
+                      "  <groupId>" + groupId + "</groupId>\n" +
+                      "  <artifactId>" + artifactId + "</artifactId>\n" +
+                      "</metadata>\n";
+    Files.write(metadata, new File(artifactFolder, "maven-metadata.xml"), Charsets.UTF_8);
+  }
+}
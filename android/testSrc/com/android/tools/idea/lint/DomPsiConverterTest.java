@@ -18,9 +18,11 @@ package com.android.tools.idea.lint;
 import com.android.ide.common.xml.XmlPrettyPrinter;
 import com.android.utils.XmlUtils;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.xml.XmlFile;
@@ -107,4 +109,26 @@ public class DomPsiConverterTest extends AndroidTestCase {
     assertEquals(1, elementsByTagName.getLength());
     assertEquals("@drawable/icon", elementsByTagName.item(0).getAttributes().getNamedItemNS(ANDROID_URI, "icon").getNodeValue());
   }
+
+  public void testCachedUntilModified() {
+    VirtualFile file = myFixture.copyFileToProject("AndroidManifest.xml", "AndroidManifest.xml");
+    PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(file);
+    assertTrue(psiFile instanceof XmlFile);
+    XmlFile xmlFile = (XmlFile)psiFile;
+
+    Document domDocument = DomPsiConverter.convert(xmlFile);
+    assertNotNull(domDocument);
+    assertSame(domDocument, DomPsiConverter.convert(xmlFile));
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      com.intellij.openapi.editor.Document document = PsiDocumentManager.getInstance(getProject()).getDocument(xmlFile);
+      assertNotNull(document);
+      document.insertString(document.getTextLength(), "\n<!-- comment -->");
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+
+    Document updatedDocument = DomPsiConverter.convert(xmlFile);
+    assertNotNull(updatedDocument);
+    assertNotSame(domDocument, updatedDocument);
+  }
 }
@@ -409,6 +409,26 @@ public class ResourceClassGeneratorTest extends AndroidTestCase {
     styleableTestWithAars(generator);
   }
 
+  public void testGeneratedClassesAreCached() throws Exception {
+    AppResourceRepository appResources = AppResourceRepositoryTest.createTestAppResourceRepository(myFacet);
+    ResourceClassGenerator generator = ResourceClassGenerator.create(appResources);
+    generator.computeIds();
+    assertEquals(0, generator.getGeneratedClassCount());
+
+    byte[] data = generator.generate("pkg.R$id");
+    assertNotNull(data);
+    assertSame(data, generator.generate("pkg.R$id"));
+    assertEquals(1, generator.getGeneratedClassCount());
+
+    // The R classes of the other libraries are generated separately, with the same ids.
+    Class<?> clz = generateClass(generator, "pkg.R$id");
+    Class<?> otherClz = generateClass(generator, "other.pkg.R$id");
+    assertNotNull(clz);
+    assertNotNull(otherClz);
+    assertEquals(clz.getField("id1").get(null), otherClz.getField("id1").get(null));
+    assertEquals(2, generator.getGeneratedClassCount());
+  }
+
   private static void styleableTestWithAars(ResourceClassGenerator generator) throws Exception {
     Class<?> clz = generateClass(generator, "pkg.R$styleable");
     assertNotNull(clz);
@@ -1345,6 +1345,7 @@ public class ResourceFolderRepositoryTest extends AndroidTestCase {
     ResourceValue resourceValue = slideLabel.getResourceValue(false);
     assertNotNull(resourceValue);
     assertEquals("Screeeen Slide", resourceValue.getValue());
+    long integerGeneration = resources.getModificationCount(ResourceType.INTEGER);
 
     WriteCommandAction.runWriteCommandAction(null, new Runnable() {
       @Override
@@ -1354,6 +1355,9 @@ public class ResourceFolderRepositoryTest extends AndroidTestCase {
       }
     });
     assertTrue(generation2 < resources.getModificationCount());
+    // Only the string type was affected by the edit
+    assertEquals(resources.getModificationCount(), resources.getModificationCount(ResourceType.STRING));
+    assertEquals(integerGeneration, resources.getModificationCount(ResourceType.INTEGER));
     resourceValue = slideLabel.getResourceValue(false);
     assertNotNull(resourceValue);
     assertEquals("Scrn Slide", resourceValue.getValue());
@@ -3737,6 +3741,55 @@ public class ResourceFolderRepositoryTest extends AndroidTestCase {
     validateViewWithId(facet, viewsWithIds.get(5), "android.webkit.WebView", "webView1");
   }
 
+  public void testDataBindingModificationCount() throws Exception {
+    VirtualFile layoutFile = myFixture.copyFileToProject(LAYOUT_WITH_DATA_BINDING, "res/layout/layout_with_data_binding.xml");
+    PsiFile layoutPsiFile = PsiManager.getInstance(getProject()).findFile(layoutFile);
+    assertNotNull(layoutPsiFile);
+    VirtualFile valuesFile = myFixture.copyFileToProject(VALUES1, "res/values/myvalues.xml");
+    PsiFile valuesPsiFile = PsiManager.getInstance(getProject()).findFile(valuesFile);
+    assertNotNull(valuesPsiFile);
+    ResourceFolderRepository resources = createRepository();
+    assertNotNull(resources);
+
+    PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    Document valuesDocument = documentManager.getDocument(valuesPsiFile);
+    assertNotNull(valuesDocument);
+    // The first edit switches the values file to Psi, so only the next ones are incremental.
+    int screenSlideOffset = valuesDocument.getText().indexOf("Screen Slide");
+    WriteCommandAction.runWriteCommandAction(null, () -> {
+      valuesDocument.replaceString(screenSlideOffset + 3, screenSlideOffset + 3, "e");
+      documentManager.commitDocument(valuesDocument);
+    });
+    UIUtil.dispatchAllInvocationEvents();
+
+    Map<String, DataBindingInfo> dataBindingFiles = resources.getDataBindingResourceFiles();
+    long generation = resources.getModificationCount();
+    long dataBindingGeneration = resources.getDataBindingModificationCount();
+
+    // Editing a string doesn't affect the data-binding layouts.
+    int screeenSlideOffset = valuesDocument.getText().indexOf("Screeen Slide");
+    WriteCommandAction.runWriteCommandAction(null, () -> {
+      valuesDocument.deleteString(screeenSlideOffset + 3, screeenSlideOffset + 4);
+      documentManager.commitDocument(valuesDocument);
+    });
+    assertTrue(generation < resources.getModificationCount());
+    assertEquals(dataBindingGeneration, resources.getDataBindingModificationCount());
+    assertSame(dataBindingFiles, resources.getDataBindingResourceFiles());
+
+    // Editing the type of a variable does.
+    Document layoutDocument = documentManager.getDocument(layoutPsiFile);
+    assertNotNull(layoutDocument);
+    int typeOffset = layoutDocument.getText().indexOf("type=\"String\"") + "type=\"".length();
+    WriteCommandAction.runWriteCommandAction(null, () -> {
+      layoutDocument.replaceString(typeOffset, typeOffset + "String".length(), "Integer");
+      documentManager.commitDocument(layoutDocument);
+    });
+    UIUtil.dispatchAllInvocationEvents();
+    assertTrue(dataBindingGeneration < resources.getDataBindingModificationCount());
+    DataBindingInfo info = resources.getDataBindingResourceFiles().values().iterator().next();
+    assertEquals("Integer", info.getItems(DataBindingResourceType.VARIABLE).get(0).getExtra(SdkConstants.ATTR_TYPE));
+  }
+
   public void testInitFromHelperThread() throws Exception {
     // By default, unit tests run from the EDT thread, which automatically have read access. Try loading a repository from a
     // helper thread that doesn't have read access to make sure we grab the appropriate read locks.
@@ -15,9 +15,11 @@
  */
 package com.android.tools.idea.res;
 
+import com.android.resources.ResourceFolderType;
 import com.android.resources.ResourceType;
 import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.configurations.ConfigurationManager;
+import com.android.tools.idea.res.ResourceNotificationManager.ChangeSet;
 import com.android.tools.idea.res.ResourceNotificationManager.Reason;
 import com.android.tools.idea.res.ResourceNotificationManager.ResourceChangeListener;
 import com.android.tools.idea.res.ResourceNotificationManager.ResourceVersion;
@@ -39,6 +41,8 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ResourceNotificationManagerTest extends AndroidTestCase {
   public void test() {
@@ -87,6 +91,8 @@ public class ResourceNotificationManagerTest extends AndroidTestCase {
 
     final Configuration configuration1 = ConfigurationManager.getOrCreateInstance(myModule).getConfiguration(layout1.getVirtualFile());
     final ResourceNotificationManager manager = ResourceNotificationManager.getInstance(getProject());
+    // The checks below expect each edit to be delivered in its own change set
+    manager.setChangeSetWindowMs(0);
 
     // Listener 1: Listens for changes in layout 1
     final Ref<Boolean> called1 = new Ref<>(false);
@@ -214,6 +220,68 @@ public class ResourceNotificationManagerTest extends AndroidTestCase {
     // TODO: Test that remove and replace editing also works as expected
   }
 
+  public void testEventsWithinWindowAreDeliveredAsOneChangeSet() {
+    @Language("XML") String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                                  "<FrameLayout xmlns:android=\"http://schemas.android.com/apk/res/android\"\n" +
+                                  "    android:layout_width=\"match_parent\"\n" +
+                                  "    android:layout_height=\"match_parent\">\n" +
+                                  "    <TextView\n" +
+                                  "        android:layout_width=\"match_parent\"\n" +
+                                  "        android:layout_height=\"match_parent\"\n" +
+                                  "        android:text=\"@string/hello\" />\n" +
+                                  "</FrameLayout>";
+    XmlFile layout = (XmlFile)myFixture.addFileToProject("res/layout/my_layout.xml", xml);
+    xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+          "<resources>\n" +
+          "    <string name=\"hello\">Hello</string>\n" +
+          "</resources>";
+    XmlFile values = (XmlFile)myFixture.addFileToProject("res/values/my_values.xml", xml);
+
+    Configuration configuration = ConfigurationManager.getOrCreateInstance(myModule).getConfiguration(layout.getVirtualFile());
+    ResourceNotificationManager manager = ResourceNotificationManager.getInstance(getProject());
+    // Never elapses during the test: the change set is only delivered when flushed below
+    manager.setChangeSetWindowMs((int)TimeUnit.HOURS.toMillis(1));
+
+    AtomicInteger calls = new AtomicInteger();
+    Set<Reason> reasons = EnumSet.noneOf(Reason.class);
+    Set<ResourceFolderType> folderTypes = EnumSet.noneOf(ResourceFolderType.class);
+    ResourceChangeListener listener = new ResourceChangeListener() {
+      @Override
+      public void resourcesChanged(@NotNull Set<Reason> reason) {
+        fail("Expected the change set to be delivered");
+      }
+
+      @Override
+      public void resourcesChanged(@NotNull ChangeSet changeSet) {
+        calls.incrementAndGet();
+        reasons.addAll(changeSet.getReasons());
+        assertNotNull(changeSet.getChangedFolderTypes());
+        folderTypes.addAll(changeSet.getChangedFolderTypes());
+      }
+    };
+    manager.addListener(listener, myFacet, null, null);
+
+    //noinspection ConstantConditions
+    assertEquals("Hello", configuration.getResourceResolver().findResValue("@string/hello", false).getValue());
+    addText(layout, "@string/hello^", "_world");
+    addText(values, "Hello^</string>", " World");
+    addText(layout, "@string/hello_world^", "2");
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(0, calls.get());
+
+    manager.flushChangeSet();
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(1, calls.get());
+    assertEquals(EnumSet.of(Reason.EDIT, Reason.RESOURCE_EDIT), reasons);
+    assertEquals(EnumSet.of(ResourceFolderType.LAYOUT, ResourceFolderType.VALUES), folderTypes);
+
+    // Nothing is left over for another change set
+    manager.flushChangeSet();
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(1, calls.get());
+    manager.removeListener(listener, myFacet, null, null);
+  }
+
   private static void ensureCalled(final Ref<Boolean> called1,
                                    final Ref<Set<Reason>> calledValue1,
                                    final Ref<Boolean> called2,
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.templates;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TemplateManagerTest {
+  @Rule public TemporaryFolder myTemporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void freemarkerConfigurationIsSharedAndResolvesIncludes() throws Exception {
+    File root = myTemporaryFolder.newFolder("templates");
+    File layout = createFile(root, "activities/Basic/root/layout.xml.ftl", "<#include \"../../common/header.ftl\">body");
+    createFile(root, "activities/common/header.ftl", "header ");
+
+    TemplateManager manager = TemplateManager.getInstance();
+    Configuration configuration = manager.getFreemarkerConfiguration(root);
+    assertSame(configuration, manager.getFreemarkerConfiguration(root));
+
+    manager.preloadTemplates(new File(root, "activities/Basic")).get(10, TimeUnit.SECONDS);
+
+    String name = new StudioTemplateLoader(layout.getParentFile()).findTemplate(layout);
+
+    Template template = configuration.getTemplate(name);
+    assertSame(template, configuration.getTemplate(name));
+
+    StringWriter out = new StringWriter();
+    template.process(Collections.emptyMap(), out);
+    assertEquals("header body", out.toString());
+  }
+
+  @Test
+  public void stringEvaluatorsEvaluateSharedExpressions() {
+    StringEvaluator evaluator = new StringEvaluator();
+    assertEquals("3", evaluator.evaluate("${1 + 2}", Collections.emptyMap()));
+    assertEquals("3", new StringEvaluator().evaluate("${1 + 2}", Collections.emptyMap()));
+    assertTrue(evaluator.evaluateBooleanExpression("x == 1", Collections.<String, Object>singletonMap("x", 1), false));
+    assertNull(evaluator.evaluate("${", Collections.emptyMap()));
+  }
+
+  private static File createFile(File root, String path, String contents) throws IOException {
+    File file = new File(root, path);
+    Files.createParentDirs(file);
+    Files.write(contents, file, Charsets.UTF_8);
+    return file;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.android.inspections.lint;
+
+import com.google.common.collect.ImmutableMap;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import junit.framework.TestCase;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AndroidLintGlobalInspectionContextTest extends TestCase {
+  private ExecutorService myExecutor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myExecutor = Executors.newFixedThreadPool(2);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      myExecutor.shutdownNow();
+      myExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testDependenciesFirst() {
+    // app -> lib -> base, test -> lib (through a node which is not analyzed), other has no dependencies
+    Map<String, List<String>> dependencies = ImmutableMap.of(
+      "app", Collections.singletonList("lib"),
+      "lib", Collections.singletonList("base"),
+      "test", Collections.singletonList("external"),
+      "external", Collections.singletonList("lib"));
+    List<String> nodes = Arrays.asList("app", "other", "test", "lib");
+
+    List<String> ordered =
+      AndroidLintGlobalInspectionContext.dependenciesFirst(nodes, node -> dependencies.getOrDefault(node, Collections.emptyList()));
+    assertEquals(Arrays.asList("other", "lib", "app", "test"), ordered);
+  }
+
+  public void testDependenciesFirstKeepsCycles() {
+    Map<String, List<String>> dependencies = ImmutableMap.of(
+      "a", Collections.singletonList("b"),
+      "b", Collections.singletonList("a"),
+      "c", Collections.singletonList("a"));
+    List<String> nodes = Arrays.asList("c", "b", "a", "d");
+
+    List<String> ordered =
+      AndroidLintGlobalInspectionContext.dependenciesFirst(nodes, node -> dependencies.getOrDefault(node, Collections.emptyList()));
+    assertEquals(Arrays.asList("d", "c", "b", "a"), ordered);
+  }
+
+  public void testRunInParallel() {
+    List<Integer> results = AndroidLintGlobalInspectionContext.runInParallel(myExecutor, Arrays.asList(1, 2, 3), i -> i * 10, null);
+    assertEquals(Arrays.asList(10, 20, 30), results);
+  }
+
+  public void testRunInParallelRetriesFailedInputsSequentially() {
+    Thread testThread = Thread.currentThread();
+    Set<Integer> attempted = Collections.synchronizedSet(new HashSet<>());
+
+    List<Integer> results = AndroidLintGlobalInspectionContext.runInParallel(myExecutor, Arrays.asList(1, 2, 3), i -> {
+      if (i == 2 && Thread.currentThread() != testThread) {
+        attempted.add(i);
+        throw new IllegalStateException("Out of memory");
+      }
+      return i * 10;
+    }, null);
+
+    assertTrue(attempted.contains(2));
+    // The failed input doesn't prevent the others from completing, and is retried afterwards
+    assertEquals(Arrays.asList(10, 30, 20), results);
+  }
+
+  public void testRunInParallelPropagatesInterruption() {
+    CountDownLatch release = new CountDownLatch(1);
+    Thread.currentThread().interrupt();
+    try {
+      AndroidLintGlobalInspectionContext.runInParallel(myExecutor, Arrays.asList(1, 2), i -> {
+        try {
+          release.await();
+        }
+        catch (InterruptedException ignored) {
+        }
+        return i;
+      }, null);
+      fail("Expected the interruption to cancel the analysis");
+    }
+    catch (ProcessCanceledException expected) {
+      // Partial results are not returned
+    }
+    finally {
+      Thread.interrupted();
+      release.countDown();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.android.inspections.lint;
+
+import com.android.tools.lint.checks.HardcodedValuesDetector;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.android.AndroidTestCase;
+
+import java.util.Collections;
+import java.util.List;
+
+public class LintEditorResultCacheTest extends AndroidTestCase {
+  private static final String OLD_CONTENT = "<TextView a=\"1\" text=\"Hello\"/>";
+
+  public void testShiftAfterWhitespaceEdit() {
+    String newContent = "<TextView a=\"1\"    text=\"Hello\"/>";
+    PsiFile file = myFixture.configureByText("layout.xml", newContent);
+    int start = OLD_CONTENT.indexOf("text");
+    TextRange oldRange = new TextRange(start, start + "text=\"Hello\"".length());
+
+    List<ProblemData> shifted = LintEditorResultCache.shiftForWhitespaceEdit(file, OLD_CONTENT, newContent, createProblems(oldRange));
+    assertNotNull(shifted);
+    assertEquals(1, shifted.size());
+    assertEquals(oldRange.shiftRight(3), shifted.get(0).getTextRange());
+  }
+
+  public void testNoShiftAfterTokenEdit() {
+    String newContent = "<TextView a=\"1\" text=\"Hello!\"/>";
+    PsiFile file = myFixture.configureByText("layout.xml", newContent);
+
+    assertNull(LintEditorResultCache.shiftForWhitespaceEdit(file, OLD_CONTENT, newContent, createProblems(new TextRange(0, 9))));
+  }
+
+  public void testNoShiftWhenSplittingTokens() {
+    String oldContent = "<TextView a=\"1\" text=\"Hello world\"/>";
+    String newContent = "<TextView a=\"1\" text=\"Hello  world\"/>";
+    PsiFile file = myFixture.configureByText("layout.xml", newContent);
+
+    assertNull(LintEditorResultCache.shiftForWhitespaceEdit(file, oldContent, newContent, createProblems(new TextRange(0, 9))));
+  }
+
+  public void testConfigurationStampTracksResourceEdits() {
+    PsiFile strings = myFixture.addFileToProject("res/values/strings.xml",
+                                                 "<resources><string name=\"greeting\">Hello</string></resources>");
+    long stamp = LintEditorResultCache.getConfigurationStamp(myModule);
+    assertEquals(stamp, LintEditorResultCache.getConfigurationStamp(myModule));
+
+    // An unsaved edit of another resource file may change the results of e.g. a layout, without changing the VFS
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      Document document = PsiDocumentManager.getInstance(getProject()).getDocument(strings);
+      assertNotNull(document);
+      int offset = document.getText().indexOf("Hello");
+      document.replaceString(offset, offset + "Hello".length(), "Hi");
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+    assertFalse(stamp == LintEditorResultCache.getConfigurationStamp(myModule));
+  }
+
+  private static List<ProblemData> createProblems(TextRange range) {
+    return Collections.singletonList(new ProblemData(HardcodedValuesDetector.ISSUE, "Hardcoded string", range, null, null));
+  }
+}
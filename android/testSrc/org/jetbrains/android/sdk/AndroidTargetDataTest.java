@@ -15,6 +15,9 @@
  */
 package org.jetbrains.android.sdk;
 
+import com.android.ide.common.resources.ResourceValueMap;
+import com.android.ide.common.resources.configuration.FolderConfiguration;
+import com.android.resources.ResourceType;
 import com.android.testutils.TestUtils;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
@@ -24,6 +27,7 @@ import net.n3.nanoxml.IXMLBuilder;
 import org.jetbrains.android.AndroidTestCase;
 
 import java.io.*;
+import java.util.Map;
 
 public class AndroidTargetDataTest extends AndroidTestCase {
 
@@ -92,4 +96,28 @@ public class AndroidTargetDataTest extends AndroidTestCase {
     assertEquals("@android:attr/autoSizeText", map.get(0x01010531 + 4));
     assertEquals("@android:id/textAssist", map.get(0x01020041));
   }
+
+  public void testConfiguredFrameworkResourcesAreSharedAndEvicted() throws Exception {
+    AndroidPlatform platform = AndroidPlatform.getInstance(myModule);
+    assertNotNull(platform);
+    AndroidTargetData targetData = AndroidTargetData.getTargetData(platform.getTarget(), myModule);
+    assertNotNull(targetData);
+
+    FolderConfiguration first = FolderConfiguration.getConfigForQualifierString("v1");
+    Map<ResourceType, ResourceValueMap> resources = targetData.getConfiguredFrameworkResources(first, false);
+    assertNotNull(resources);
+    assertSame(resources, targetData.getConfiguredFrameworkResources(first, false));
+    try {
+      resources.clear();
+      fail("The shared framework resources must not be modifiable");
+    }
+    catch (UnsupportedOperationException expected) {
+    }
+
+    // Using more configurations than are kept evicts the least recently used one.
+    for (int i = 2; i <= AndroidTargetData.MAX_CONFIGURED_FRAMEWORK_RESOURCES + 1; i++) {
+      targetData.getConfiguredFrameworkResources(FolderConfiguration.getConfigForQualifierString("v" + i), false);
+    }
+    assertNotSame(resources, targetData.getConfiguredFrameworkResources(first, false));
+  }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.apk.viewer.diff;
+
+import com.android.SdkConstants;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.devrel.gmscore.tools.apk.arsc.*;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedClassDef;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.dexbacked.DexBackedMethod;
+import org.jf.dexlib2.dexbacked.DexBackedMethodImplementation;
+import org.jf.dexlib2.iface.instruction.Instruction;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Computes the difference between two APKs without building a full archive tree for either of them.
+ * <p>
+ * Only the zip central directories are read up front. Entries are matched by path, and entries with the same CRC and
+ * size are reported as unchanged without ever being decompressed. Each entry that did change is handled as a separate
+ * task on a bounded pool: its contents are streamed through a deflater to estimate the download size and, for dex and
+ * arsc entries, parsed into per-class and per-resource-type deltas.
+ */
+public class ApkDiffEngine {
+  private static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  private static final ExecutorService ourExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ApkDiffEngine", MAX_THREADS);
+
+  private static final Comparator<DefaultMutableTreeNode> BY_DIFF_SIZE = Comparator.comparingLong(
+    (DefaultMutableTreeNode node) -> {
+      ApkEntryDelta delta = ApkEntryDelta.fromNode(node);
+      return delta == null ? 0 : Math.abs(delta.getSize());
+    }).reversed();
+
+  private ApkDiffEngine() {
+  }
+
+  @NotNull
+  public static DefaultMutableTreeNode createTreeNode(@NotNull Path oldApk, @NotNull Path newApk) throws IOException {
+    return createTreeNode(oldApk, newApk, ourExecutor);
+  }
+
+  @NotNull
+  static DefaultMutableTreeNode createTreeNode(@NotNull Path oldApk, @NotNull Path newApk, @NotNull ExecutorService executor)
+    throws IOException {
+    try (ZipFile oldZip = new ZipFile(oldApk.toFile());
+         ZipFile newZip = new ZipFile(newApk.toFile())) {
+      Map<String, ZipEntry> oldEntries = readCentralDirectory(oldZip);
+      Map<String, ZipEntry> newEntries = readCentralDirectory(newZip);
+
+      Set<String> paths = new TreeSet<>(oldEntries.keySet());
+      paths.addAll(newEntries.keySet());
+
+      List<Future<DefaultMutableTreeNode>> leaves = Lists.newArrayListWithExpectedSize(paths.size());
+      for (String path : paths) {
+        ZipEntry oldEntry = oldEntries.get(path);
+        ZipEntry newEntry = newEntries.get(path);
+        leaves.add(executor.submit(() -> diffEntry(path, oldZip, oldEntry, newZip, newEntry)));
+      }
+
+      DefaultMutableTreeNode root = new DefaultMutableTreeNode(new ApkEntryDelta(newApk.getFileName().toString(), "/", true));
+      Map<String, DefaultMutableTreeNode> directories = Maps.newHashMap();
+      directories.put("", root);
+      try {
+        for (Future<DefaultMutableTreeNode> leaf : leaves) {
+          DefaultMutableTreeNode node = leaf.get();
+          ApkEntryDelta delta = ApkEntryDelta.fromNode(node);
+          assert delta != null;
+          getDirectoryNode(directories, delta.getPath()).add(node);
+        }
+      }
+      catch (InterruptedException e) {
+        leaves.forEach(f -> f.cancel(true));
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while computing APK diff", e);
+      }
+      catch (ExecutionException e) {
+        leaves.forEach(f -> f.cancel(true));
+        if (e.getCause() instanceof IOException) {
+          throw (IOException)e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+
+      aggregate(root);
+      return root;
+    }
+  }
+
+  @NotNull
+  private static Map<String, ZipEntry> readCentralDirectory(@NotNull ZipFile zip) {
+    Map<String, ZipEntry> entries = Maps.newHashMapWithExpectedSize(zip.size());
+    Enumeration<? extends ZipEntry> e = zip.entries();
+    while (e.hasMoreElements()) {
+      ZipEntry entry = e.nextElement();
+      if (!entry.isDirectory()) {
+        entries.put(entry.getName(), entry);
+      }
+    }
+    return entries;
+  }
+
+  @NotNull
+  private static DefaultMutableTreeNode getDirectoryNode(@NotNull Map<String, DefaultMutableTreeNode> directories, @NotNull String path) {
+    int index = path.lastIndexOf('/');
+    String parentPath = index < 0 ? "" : path.substring(0, index);
+    DefaultMutableTreeNode node = directories.get(parentPath);
+    if (node == null) {
+      node = new DefaultMutableTreeNode(new ApkEntryDelta(parentPath.substring(parentPath.lastIndexOf('/') + 1), parentPath, true));
+      getDirectoryNode(directories, parentPath).add(node);
+      directories.put(parentPath, node);
+    }
+    return node;
+  }
+
+  /** Sums up the sizes of directory nodes from their children and sorts every level by the magnitude of the change. */
+  private static void aggregate(@NotNull DefaultMutableTreeNode node) {
+    ApkEntryDelta delta = ApkEntryDelta.fromNode(node);
+    if (delta == null || node.isLeaf()) {
+      return;
+    }
+
+    List<DefaultMutableTreeNode> children = Lists.newArrayListWithExpectedSize(node.getChildCount());
+    for (int i = 0; i < node.getChildCount(); i++) {
+      DefaultMutableTreeNode child = (DefaultMutableTreeNode)node.getChildAt(i);
+      ApkEntryDelta childDelta = ApkEntryDelta.fromNode(child);
+      if (childDelta != null) {
+        if (childDelta.isDirectory()) {
+          aggregate(child);
+        }
+        delta.add(childDelta);
+      }
+      children.add(child);
+    }
+
+    children.sort(BY_DIFF_SIZE);
+    node.removeAllChildren();
+    children.forEach(node::add);
+  }
+
+  @NotNull
+  private static DefaultMutableTreeNode diffEntry(@NotNull String path,
+                                                  @NotNull ZipFile oldZip,
+                                                  @Nullable ZipEntry oldEntry,
+                                                  @NotNull ZipFile newZip,
+                                                  @Nullable ZipEntry newEntry) throws IOException {
+    ApkEntryDelta delta = new ApkEntryDelta(path.substring(path.lastIndexOf('/') + 1), path, false);
+    DefaultMutableTreeNode node = new DefaultMutableTreeNode(delta);
+
+    long oldSize = oldEntry == null ? 0 : oldEntry.getCompressedSize();
+    long newSize = newEntry == null ? 0 : newEntry.getCompressedSize();
+    delta.setSizes(oldSize, newSize);
+
+    if (isUnchanged(oldEntry, newEntry)) {
+      // Identical content: the download estimate is the same on both sides, so there is no need to inflate the entry.
+      delta.setDownloadSizes(oldSize, newSize);
+      return node;
+    }
+
+    delta.setDownloadSizes(estimateDownloadSize(oldZip, oldEntry), estimateDownloadSize(newZip, newEntry));
+
+    if (path.endsWith(SdkConstants.DOT_DEX)) {
+      addChildDeltas(node, getClassSizes(read(oldZip, oldEntry)), getClassSizes(read(newZip, newEntry)));
+    }
+    else if (path.equals(SdkConstants.FN_RESOURCE_TABLE)) {
+      addChildDeltas(node, getResourceTypeSizes(read(oldZip, oldEntry)), getResourceTypeSizes(read(newZip, newEntry)));
+    }
+    return node;
+  }
+
+  private static boolean isUnchanged(@Nullable ZipEntry oldEntry, @Nullable ZipEntry newEntry) {
+    return oldEntry != null && newEntry != null &&
+           oldEntry.getCrc() != -1 && oldEntry.getCrc() == newEntry.getCrc() &&
+           oldEntry.getSize() == newEntry.getSize();
+  }
+
+  /**
+   * Estimates the number of bytes needed to download an entry by deflating its contents at the maximum compression level.
+   * The contents are streamed, so the entry is never held in memory as a whole.
+   */
+  private static long estimateDownloadSize(@NotNull ZipFile zip, @Nullable ZipEntry entry) throws IOException {
+    if (entry == null) {
+      return 0;
+    }
+
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try (InputStream in = zip.getInputStream(entry)) {
+      CountingOutputStream counter = new CountingOutputStream(ByteStreams.nullOutputStream());
+      try (DeflaterOutputStream out = new DeflaterOutputStream(counter, deflater)) {
+        ByteStreams.copy(in, out);
+      }
+      return counter.getCount();
+    }
+    finally {
+      deflater.end();
+    }
+  }
+
+  @Nullable
+  private static byte[] read(@NotNull ZipFile zip, @Nullable ZipEntry entry) throws IOException {
+    if (entry == null) {
+      return null;
+    }
+
+    try (InputStream in = zip.getInputStream(entry)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  /**
+   * Adds a child node for every key whose size differs between the two maps. Children carry no download size since
+   * classes and resource types are not compressed individually.
+   */
+  private static void addChildDeltas(@NotNull DefaultMutableTreeNode node,
+                                     @NotNull Map<String, Long> oldSizes,
+                                     @NotNull Map<String, Long> newSizes) {
+    ApkEntryDelta parent = ApkEntryDelta.fromNode(node);
+    assert parent != null;
+
+    Set<String> keys = new TreeSet<>(oldSizes.keySet());
+    keys.addAll(newSizes.keySet());
+
+    List<DefaultMutableTreeNode> children = Lists.newArrayList();
+    for (String key : keys) {
+      long oldSize = oldSizes.getOrDefault(key, 0L);
+      long newSize = newSizes.getOrDefault(key, 0L);
+      if (oldSize == newSize && oldSizes.containsKey(key) == newSizes.containsKey(key)) {
+        continue;
+      }
+
+      ApkEntryDelta delta = new ApkEntryDelta(key, parent.getPath() + "/" + key, false);
+      delta.setSizes(oldSize, newSize);
+      delta.setDownloadSizes(ApkEntryDelta.UNKNOWN_SIZE, ApkEntryDelta.UNKNOWN_SIZE);
+      children.add(new DefaultMutableTreeNode(delta));
+    }
+
+    children.sort(BY_DIFF_SIZE);
+    children.forEach(node::add);
+  }
+
+  /** Returns the size in bytes of the code of each class defined in the given dex file, keyed by class name. */
+  @NotNull
+  static Map<String, Long> getClassSizes(@Nullable byte[] dex) {
+    if (dex == null) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, Long> sizes = Maps.newHashMap();
+    DexBackedDexFile dexFile = new DexBackedDexFile(Opcodes.getDefault(), dex);
+    for (DexBackedClassDef classDef : dexFile.getClasses()) {
+      long size = 0;
+      for (DexBackedMethod method : classDef.getMethods()) {
+        DexBackedMethodImplementation implementation = method.getImplementation();
+        if (implementation == null) {
+          continue;
+        }
+        for (Instruction instruction : implementation.getInstructions()) {
+          size += instruction.getCodeUnits() * 2;
+        }
+      }
+      sizes.put(toClassName(classDef.getType()), size);
+    }
+    return sizes;
+  }
+
+  @NotNull
+  private static String toClassName(@NotNull String typeDescriptor) {
+    if (typeDescriptor.startsWith("L") && typeDescriptor.endsWith(";")) {
+      return typeDescriptor.substring(1, typeDescriptor.length() - 1).replace('/', '.');
+    }
+    return typeDescriptor;
+  }
+
+  /** Returns the encoded size in bytes of each resource type (across all configurations), keyed by "package/type". */
+  @NotNull
+  static Map<String, Long> getResourceTypeSizes(@Nullable byte[] arsc) throws IOException {
+    if (arsc == null) {
+      return Collections.emptyMap();
+    }
+
+    List<Chunk> chunks = new BinaryResourceFile(arsc).getChunks();
+    if (chunks.isEmpty() || !(chunks.get(0) instanceof ResourceTableChunk)) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, Long> sizes = Maps.newHashMap();
+    for (PackageChunk packageChunk : ((ResourceTableChunk)chunks.get(0)).getPackages()) {
+      for (TypeSpecChunk typeSpec : packageChunk.getTypeSpecChunks()) {
+        long size = typeSpec.toByteArray().length;
+        for (TypeChunk type : packageChunk.getTypeChunks(typeSpec.getId())) {
+          size += type.toByteArray().length;
+        }
+        sizes.put(packageChunk.getPackageName() + "/" + typeSpec.getTypeName(), size);
+      }
+    }
+    return sizes;
+  }
+}
@@ -20,7 +20,6 @@ import com.android.tools.adtui.common.ColumnTreeBuilder;
 import com.android.tools.apk.analyzer.Archive;
 import com.android.tools.apk.analyzer.Archives;
 import com.android.tools.apk.analyzer.internal.ApkDiffEntry;
-import com.android.tools.apk.analyzer.internal.ApkDiffParser;
 import com.android.tools.apk.analyzer.internal.ApkEntry;
 import com.android.tools.apk.analyzer.internal.ApkFileByFileDiffParser;
 import com.android.tools.idea.apk.viewer.ApkViewPanel.FutureCallBackAdapter;
@@ -38,6 +37,7 @@ import com.intellij.ui.treeStructure.Tree;
 import com.intellij.util.Function;
 import com.intellij.util.containers.Convertor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.ide.PooledThreadExecutor;
 
 import javax.swing.*;
@@ -108,10 +108,8 @@ public class ApkDiffPanel {
   private void constructDiffTree(){
     // construct the main tree
     ListenableFuture<DefaultMutableTreeNode> treeStructureFuture = ourExecutorService.submit(() -> {
-      try (Archive archive1 = Archives.open(VfsUtilCore.virtualToIoFile(myOldApk).toPath());
-           Archive archive2 = Archives.open(VfsUtilCore.virtualToIoFile(myNewApk).toPath())) {
-        return ApkDiffParser.createTreeNode(archive1, archive2);
-      }
+      return ApkDiffEngine.createTreeNode(VfsUtilCore.virtualToIoFile(myOldApk).toPath(),
+                                          VfsUtilCore.virtualToIoFile(myNewApk).toPath());
     });
     FutureCallBackAdapter<DefaultMutableTreeNode> setRootNode = new FutureCallBackAdapter<DefaultMutableTreeNode>() {
       @Override
@@ -133,6 +131,11 @@ public class ApkDiffPanel {
     Convertor<TreePath, String> convertor = new Convertor<TreePath, String>() {
       @Override
       public String convert(TreePath path) {
+        ApkEntryDelta delta = ApkEntryDelta.fromNode(path.getLastPathComponent());
+        if (delta != null) {
+          return delta.getPath();
+        }
+
         ApkEntry e = ApkEntry.fromNode(path.getLastPathComponent());
         if (e == null) {
           return null;
@@ -154,17 +157,22 @@ public class ApkDiffPanel {
                    .setName("Old Size")
                    .setPreferredWidth(150)
                    .setHeaderAlignment(SwingConstants.TRAILING)
-                   .setRenderer(new SizeRenderer(ApkDiffEntry::getOldSize)))
+                   .setRenderer(new SizeRenderer(ApkEntryDelta::getOldSize, ApkDiffEntry::getOldSize)))
       .addColumn(new ColumnTreeBuilder.ColumnBuilder()
                    .setName("New Size")
                    .setPreferredWidth(150)
                    .setHeaderAlignment(SwingConstants.TRAILING)
-                   .setRenderer(new SizeRenderer(ApkDiffEntry::getNewSize)))
+                   .setRenderer(new SizeRenderer(ApkEntryDelta::getNewSize, ApkDiffEntry::getNewSize)))
       .addColumn(new ColumnTreeBuilder.ColumnBuilder()
                    .setName("Diff Size")
                    .setPreferredWidth(150)
                    .setHeaderAlignment(SwingConstants.TRAILING)
-                   .setRenderer(new SizeRenderer(ApkEntry::getSize)));
+                   .setRenderer(new SizeRenderer(ApkEntryDelta::getSize, ApkEntry::getSize)))
+      .addColumn(new ColumnTreeBuilder.ColumnBuilder()
+                   .setName("Download Diff")
+                   .setPreferredWidth(150)
+                   .setHeaderAlignment(SwingConstants.TRAILING)
+                   .setRenderer(new SizeRenderer(ApkEntryDelta::getDownloadSize, null)));
     myColumnTreePane = builder.build();
   }
 
@@ -181,8 +189,7 @@ public class ApkDiffPanel {
   private void setRootNode(@NotNull DefaultMutableTreeNode root) {
     myTreeModel = new DefaultTreeModel(root);
 
-    ApkEntry entry = ApkEntry.fromNode(root);
-    assert entry != null;
+    assert ApkEntryDelta.fromNode(root) != null || ApkEntry.fromNode(root) != null;
 
     myTree.setPaintBusy(false);
     myTree.setRootVisible(true);
@@ -191,10 +198,13 @@ public class ApkDiffPanel {
   }
 
   // Duplicated from ApkViewPanel.SizeRenderer until the diff entries are unified into the ArchiveEntry data class.
+  // Renders both the streaming diff tree (ApkEntryDelta) and the file by file diff tree (ApkEntry).
   public static class SizeRenderer extends ColoredTreeCellRenderer {
-    private Function<ApkEntry, Long> mySizeMapper;
+    private final Function<ApkEntryDelta, Long> myDeltaSizeMapper;
+    @Nullable private final Function<ApkEntry, Long> mySizeMapper;
 
-    public SizeRenderer(Function<ApkEntry, Long> sizeMapper) {
+    public SizeRenderer(@NotNull Function<ApkEntryDelta, Long> deltaSizeMapper, @Nullable Function<ApkEntry, Long> sizeMapper) {
+      myDeltaSizeMapper = deltaSizeMapper;
       mySizeMapper = sizeMapper;
       setTextAlign(SwingConstants.RIGHT);
     }
@@ -207,10 +217,19 @@ public class ApkDiffPanel {
                                       boolean leaf,
                                       int row,
                                       boolean hasFocus) {
+      ApkEntryDelta delta = ApkEntryDelta.fromNode(value);
+      if (delta != null) {
+        long size = myDeltaSizeMapper.fun(delta);
+        if (size != ApkEntryDelta.UNKNOWN_SIZE) {
+          append(getHumanizedSize(size));
+        }
+        return;
+      }
+
       ApkEntry entry = ApkEntry.fromNode(value);
       ApkEntry root = ApkEntry.fromNode(tree.getModel().getRoot());
 
-      if (entry == null || root == null) {
+      if (entry == null || root == null || mySizeMapper == null) {
         return;
       }
 
@@ -230,6 +249,12 @@ public class ApkDiffPanel {
                                       boolean leaf,
                                       int row,
                                       boolean hasFocus) {
+      ApkEntryDelta delta = ApkEntryDelta.fromNode(value);
+      if (delta != null) {
+        append(delta.getName());
+        return;
+      }
+
       ApkEntry entry = ApkEntry.fromNode(value);
       ApkEntry root = ApkEntry.fromNode(tree.getModel().getRoot());
 
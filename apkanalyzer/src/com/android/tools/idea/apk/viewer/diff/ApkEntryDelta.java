@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.apk.viewer.diff;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * A node in the tree produced by {@link ApkDiffEngine}: the sizes of a single file, directory, dex class or resource type
+ * in the old and the new APK. A size of zero on one side means the element does not exist in that APK.
+ */
+public class ApkEntryDelta {
+  /** Download size value used for elements (such as dex classes) that are not compressed on their own. */
+  public static final long UNKNOWN_SIZE = -1;
+
+  @NotNull private final String myName;
+  @NotNull private final String myPath;
+  private final boolean myDirectory;
+  private long myOldSize;
+  private long myNewSize;
+  private long myOldDownloadSize;
+  private long myNewDownloadSize;
+
+  public ApkEntryDelta(@NotNull String name, @NotNull String path, boolean directory) {
+    myName = name;
+    myPath = path;
+    myDirectory = directory;
+  }
+
+  @Nullable
+  public static ApkEntryDelta fromNode(@Nullable Object value) {
+    if (!(value instanceof DefaultMutableTreeNode)) {
+      return null;
+    }
+
+    Object userObject = ((DefaultMutableTreeNode)value).getUserObject();
+    return userObject instanceof ApkEntryDelta ? (ApkEntryDelta)userObject : null;
+  }
+
+  @NotNull
+  public String getName() {
+    return myName;
+  }
+
+  @NotNull
+  public String getPath() {
+    return myPath;
+  }
+
+  /** Returns whether this is a directory whose sizes are the sum of its children's sizes. */
+  public boolean isDirectory() {
+    return myDirectory;
+  }
+
+  public long getOldSize() {
+    return myOldSize;
+  }
+
+  public long getNewSize() {
+    return myNewSize;
+  }
+
+  /** Returns the difference in (compressed) size between the new and the old APK. */
+  public long getSize() {
+    return myNewSize - myOldSize;
+  }
+
+  public long getOldDownloadSize() {
+    return myOldDownloadSize;
+  }
+
+  public long getNewDownloadSize() {
+    return myNewDownloadSize;
+  }
+
+  /** Returns the estimated difference in download size, or {@link #UNKNOWN_SIZE} if it was not computed for this element. */
+  public long getDownloadSize() {
+    if (myOldDownloadSize == UNKNOWN_SIZE || myNewDownloadSize == UNKNOWN_SIZE) {
+      return UNKNOWN_SIZE;
+    }
+    return myNewDownloadSize - myOldDownloadSize;
+  }
+
+  void setSizes(long oldSize, long newSize) {
+    myOldSize = oldSize;
+    myNewSize = newSize;
+  }
+
+  void setDownloadSizes(long oldDownloadSize, long newDownloadSize) {
+    myOldDownloadSize = oldDownloadSize;
+    myNewDownloadSize = newDownloadSize;
+  }
+
+  /** Accumulates the sizes of a child into this (directory) entry. */
+  void add(@NotNull ApkEntryDelta child) {
+    myOldSize += child.myOldSize;
+    myNewSize += child.myNewSize;
+    if (child.myOldDownloadSize != UNKNOWN_SIZE && child.myNewDownloadSize != UNKNOWN_SIZE) {
+      myOldDownloadSize += child.myOldDownloadSize;
+      myNewDownloadSize += child.myNewDownloadSize;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return myName;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.apk.viewer.diff;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ApkDiffEngineTest {
+  @Rule public TemporaryFolder myTemporaryFolder = new TemporaryFolder();
+
+  private ExecutorService myExecutor;
+
+  @Before
+  public void setUp() {
+    myExecutor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    myExecutor.shutdownNow();
+  }
+
+  @Test
+  public void matchesEntriesByPath() throws IOException {
+    File oldApk = createZip("old.apk", ImmutableMap.of("res/raw/same.txt", "unchanged contents",
+                                                       "res/raw/changed.txt", "a",
+                                                       "res/raw/removed.txt", "removed"));
+    File newApk = createZip("new.apk", ImmutableMap.of("res/raw/same.txt", "unchanged contents",
+                                                       "res/raw/changed.txt", "a much longer replacement for the old content",
+                                                       "assets/added.txt", "added"));
+
+    DefaultMutableTreeNode root = ApkDiffEngine.createTreeNode(oldApk.toPath(), newApk.toPath(), myExecutor);
+    ApkEntryDelta rootDelta = ApkEntryDelta.fromNode(root);
+    assertNotNull(rootDelta);
+    assertEquals("new.apk", rootDelta.getName());
+    assertTrue(rootDelta.isDirectory());
+
+    ApkEntryDelta same = findEntry(root, "res/raw/same.txt");
+    assertEquals(0, same.getSize());
+    assertEquals(0, same.getDownloadSize());
+
+    ApkEntryDelta changed = findEntry(root, "res/raw/changed.txt");
+    assertTrue(changed.getSize() > 0);
+    assertTrue(changed.getDownloadSize() > 0);
+
+    ApkEntryDelta removed = findEntry(root, "res/raw/removed.txt");
+    assertEquals(0, removed.getNewSize());
+    assertEquals(-removed.getOldSize(), removed.getSize());
+
+    ApkEntryDelta added = findEntry(root, "assets/added.txt");
+    assertEquals(0, added.getOldSize());
+
+    ApkEntryDelta res = findEntry(root, "res");
+    assertTrue(res.isDirectory());
+    assertEquals(same.getOldSize() + changed.getOldSize() + removed.getOldSize(), res.getOldSize());
+    assertEquals(same.getNewSize() + changed.getNewSize(), res.getNewSize());
+    assertEquals(res.getSize() + added.getSize(), rootDelta.getSize());
+  }
+
+  @Test
+  public void identicalApksHaveNoDelta() throws IOException {
+    Map<String, String> contents = ImmutableMap.of("AndroidManifest.xml", "manifest", "lib/x86/libfoo.so", "native");
+    File oldApk = createZip("old.apk", contents);
+    File newApk = createZip("new.apk", contents);
+
+    DefaultMutableTreeNode root = ApkDiffEngine.createTreeNode(oldApk.toPath(), newApk.toPath(), myExecutor);
+    ApkEntryDelta rootDelta = ApkEntryDelta.fromNode(root);
+    assertNotNull(rootDelta);
+    assertEquals(0, rootDelta.getSize());
+    assertEquals(0, rootDelta.getDownloadSize());
+    assertEquals(2, root.getChildCount());
+  }
+
+  private File createZip(String name, Map<String, String> entries) throws IOException {
+    File file = myTemporaryFolder.newFile(name);
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  private static ApkEntryDelta findEntry(DefaultMutableTreeNode root, String path) {
+    for (int i = 0; i < root.getChildCount(); i++) {
+      DefaultMutableTreeNode child = (DefaultMutableTreeNode)root.getChildAt(i);
+      ApkEntryDelta delta = ApkEntryDelta.fromNode(child);
+      if (delta != null && delta.getPath().equals(path)) {
+        return delta;
+      }
+      if (delta != null && path.startsWith(delta.getPath() + "/")) {
+        return findEntry(child, path);
+      }
+    }
+    throw new AssertionError("No entry for " + path);
+  }
+}
@@ -23,6 +23,7 @@ import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.io.FileUtilRt;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.Consumer;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.HashMap;
 import com.intellij.util.containers.HashSet;
@@ -251,10 +252,26 @@ public class AndroidDexBuilder extends AndroidTargetBuilder<BuildRootDescriptor,
                                @NotNull String outFilePath,
                                @NotNull String[] compileTargets,
                                @NotNull CompileContext context,
-                               @NotNull JpsProject project, @NotNull BuildOutputConsumer outputConsumer,
+                               @NotNull JpsProject project, @Nullable BuildOutputConsumer outputConsumer,
                                @NotNull String builderName,
                                @NotNull String srcTargetName,
                                @Nullable JpsModule module) throws IOException {
+    return runDex(platform, outFilePath, compileTargets, context, project, outputConsumer, builderName, srcTargetName, module, null);
+  }
+
+  /**
+   * @param processConsumer notified of the dx process once it is started, so that callers running dx on a worker thread
+   *                        can destroy it when the build is stopped
+   */
+  public static boolean runDex(@NotNull AndroidPlatform platform,
+                               @NotNull String outFilePath,
+                               @NotNull String[] compileTargets,
+                               @NotNull CompileContext context,
+                               @NotNull JpsProject project, @Nullable BuildOutputConsumer outputConsumer,
+                               @NotNull String builderName,
+                               @NotNull String srcTargetName,
+                               @Nullable JpsModule module,
+                               @Nullable Consumer<Process> processConsumer) throws IOException {
     BuildToolInfo buildToolInfo = platform.getTarget().getBuildToolInfo();
     if (buildToolInfo == null) {
       return false;
@@ -353,6 +370,9 @@ public class AndroidDexBuilder extends AndroidTargetBuilder<BuildRootDescriptor,
     else {
       process = Runtime.getRuntime().exec(commands);
     }
+    if (processConsumer != null) {
+      processConsumer.consume(process);
+    }
     final HashMap<AndroidCompilerMessageKind, List<String>> messages = new HashMap<AndroidCompilerMessageKind, List<String>>(3);
     messages.put(AndroidCompilerMessageKind.ERROR, new ArrayList<String>());
     messages.put(AndroidCompilerMessageKind.WARNING, new ArrayList<String>());
@@ -363,7 +383,8 @@ public class AndroidDexBuilder extends AndroidTargetBuilder<BuildRootDescriptor,
     AndroidJpsUtil.addMessages(context, messages, builderName, srcTargetName);
     final boolean success = messages.get(AndroidCompilerMessageKind.ERROR).isEmpty();
 
-    if (success) {
+    // a null output consumer means the caller registers the output itself (e.g. when dexing on a worker thread)
+    if (success && outputConsumer != null) {
       final List<String> srcFiles = new ArrayList<String>();
 
       for (String compileTargetPath : compileTargets) {
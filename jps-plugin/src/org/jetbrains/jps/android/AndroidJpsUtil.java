@@ -9,6 +9,7 @@ import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.HashSet;
@@ -50,6 +51,8 @@ import org.jetbrains.jps.model.serialization.JpsModelSerializationDataService;
 import org.jetbrains.jps.util.JpsPathUtil;
 
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.regex.Matcher;
 
@@ -64,6 +67,9 @@ public class AndroidJpsUtil {
 
   @NonNls public static final String ANDROID_STORAGE_DIR = "android";
   @NonNls private static final String RESOURCE_CACHE_STORAGE = "res_cache";
+  @NonNls private static final String CRUNCH_CACHE_STORAGE = "crunch_cache";
+  @NonNls public static final String CACHE_TMP_FILE_EXTENSION = ".tmp";
+  public static final long STALE_CACHE_TMP_FILE_AGE_MS = 60 * 60 * 1000;
   @NonNls private static final String INTERMEDIATE_ARTIFACTS_STORAGE = "intermediate_artifacts";
 
   @NonNls public static final String GENERATED_RESOURCES_DIR_NAME = "generated_resources";
@@ -600,6 +606,102 @@ public class AndroidJpsUtil {
     return new File(new File(androidStorage, RESOURCE_CACHE_STORAGE), module.getName());
   }
 
+  /**
+   * Returns the project-wide directory with crunched PNG files keyed by the hash of their sources.
+   */
+  @NotNull
+  public static File getCrunchCacheDir(@NotNull BuildDataPaths dataPaths) {
+    final File androidStorage = new File(dataPaths.getDataStorageRoot(), ANDROID_STORAGE_DIR);
+    return new File(androidStorage, CRUNCH_CACHE_STORAGE);
+  }
+
+  /**
+   * Deletes the temporary files left over by crashed builds from a cache directory, then its least recently used entries
+   * (by modification time, which is bumped on every hit) until the directory fits into {@code maxSize} bytes.
+   * Temporary files younger than {@link #STALE_CACHE_TMP_FILE_AGE_MS} may still be written by another build process,
+   * so they are left alone.
+   */
+  public static void trimCacheDirectory(@NotNull File cacheDir, long maxSize) {
+    final File[] files = cacheDir.listFiles();
+
+    if (files == null) {
+      return;
+    }
+    final List<File> entries = new ArrayList<File>(files.length);
+    final long staleTime = System.currentTimeMillis() - STALE_CACHE_TMP_FILE_AGE_MS;
+    long totalSize = 0;
+
+    for (File file : files) {
+      if (file.getName().endsWith(CACHE_TMP_FILE_EXTENSION)) {
+        if (file.lastModified() < staleTime) {
+          FileUtil.delete(file);
+        }
+        continue;
+      }
+      entries.add(file);
+      totalSize += file.length();
+    }
+    if (totalSize <= maxSize) {
+      return;
+    }
+    final long[] lastModified = new long[entries.size()];
+
+    for (int i = 0; i < lastModified.length; i++) {
+      lastModified[i] = entries.get(i).lastModified();
+    }
+    final List<Integer> order = new ArrayList<Integer>(entries.size());
+
+    for (int i = 0; i < lastModified.length; i++) {
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer i1, Integer i2) {
+        return Long.compare(lastModified[i1], lastModified[i2]);
+      }
+    });
+
+    for (Integer index : order) {
+      if (totalSize <= maxSize) {
+        break;
+      }
+      final File entry = entries.get(index);
+      final long length = entry.length();
+
+      if (FileUtil.delete(entry)) {
+        totalSize -= length;
+      }
+    }
+  }
+
+  /**
+   * Computes the SHA-1 of the file contents, prefixed with {@code salt}, as a hex string.
+   */
+  @NotNull
+  public static String computeContentHash(@NotNull File file, @NotNull String salt) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    digest.update(salt.getBytes("UTF-8"));
+
+    final byte[] buffer = new byte[64 * 1024];
+    final InputStream in = new FileInputStream(file);
+    try {
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, count);
+      }
+    }
+    finally {
+      in.close();
+    }
+    return StringUtil.toHexString(digest.digest());
+  }
+
   @NotNull
   public static File[] getSourceRootsForModuleAndDependencies(@NotNull JpsModule rootModule) {
     final Set<File> result = new HashSet<File>();
@@ -4,6 +4,8 @@ import com.android.tools.idea.jps.AndroidTargetBuilder;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.Consumer;
 import org.jetbrains.android.util.AndroidBuildTestingManager;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -25,7 +27,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * @author Eugene.Kudelevsky
@@ -91,46 +96,205 @@ public class AndroidPreDexBuilder extends AndroidTargetBuilder<AndroidPreDexBuil
     if (platform == null) {
       return false;
     }
-    if (!filesToPreDex.isEmpty()) {
-      final File outputDir = target.getOutputFile(context);
-
-      for (Pair<File, String> pair : filesToPreDex) {
-        context.checkCanceled();
+    if (filesToPreDex.isEmpty()) {
+      return true;
+    }
+    final File outputDir = target.getOutputFile(context);
+    final AndroidPreDexCache cache = AndroidPreDexCache.getInstance(project, platform);
+    final List<PreDexTask> tasks = new ArrayList<PreDexTask>();
+    final DexProcesses processes = new DexProcesses();
 
-        final File srcFile = pair.getFirst();
-        final String moduleName = pair.getSecond();
-        final String srcFilePath = srcFile.getAbsolutePath();
-        final File outputFile;
+    for (Pair<File, String> pair : filesToPreDex) {
+      final File srcFile = pair.getFirst();
+      final String moduleName = pair.getSecond();
+      final String srcFilePath = srcFile.getAbsolutePath();
+      final File outputFile;
+      final String progressText;
 
-        if (moduleName != null) {
-          context.processMessage(new ProgressMessage("Pre-dex [" + moduleName + "]"));
-          outputFile = new File(new File(outputDir, moduleName), srcFile.getName());
-        }
-        else {
-          context.processMessage(new ProgressMessage("Pre-dex: " + srcFile.getName()));
-          final String outputFileName = getOutputFileNameForExternalJar(srcFile);
-
-          if (outputFileName == null) {
-            context.processMessage(new CompilerMessage(BUILDER_NAME, BuildMessage.Kind.ERROR,
-                                                       "Cannot pre-dex file " + srcFilePath + ": incorrect path", srcFilePath));
-            return false;
-          }
-          outputFile = new File(outputDir, outputFileName);
-        }
+      if (moduleName != null) {
+        progressText = "Pre-dex [" + moduleName + "]";
+        outputFile = new File(new File(outputDir, moduleName), srcFile.getName());
+      }
+      else {
+        progressText = "Pre-dex: " + srcFile.getName();
+        final String outputFileName = getOutputFileNameForExternalJar(srcFile);
 
-        if (AndroidJpsUtil.createDirIfNotExist(outputFile.getParentFile(), context, BUILDER_NAME) == null) {
+        if (outputFileName == null) {
+          context.processMessage(new CompilerMessage(BUILDER_NAME, BuildMessage.Kind.ERROR,
+                                                     "Cannot pre-dex file " + srcFilePath + ": incorrect path", srcFilePath));
           return false;
         }
+        outputFile = new File(outputDir, outputFileName);
+      }
 
-        if (!AndroidDexBuilder.runDex(platform, outputFile.getPath(), new String[]{srcFilePath}, context,
-          project, outputConsumer, BUILDER_NAME, srcFile.getName(), null)) {
+      if (AndroidJpsUtil.createDirIfNotExist(outputFile.getParentFile(), context, BUILDER_NAME) == null) {
+        return false;
+      }
+      tasks.add(new PreDexTask(srcFile, outputFile, progressText, platform, project, context, cache, processes));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(
+      getMaxParallelProcesses(), ConcurrencyUtil.newNamedThreadFactory(BUILDER_NAME));
+
+    try {
+      final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(tasks.size());
+
+      for (PreDexTask task : tasks) {
+        futures.add(executor.submit(task));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        if (!waitFor(futures.get(i), context)) {
           return false;
         }
+        // the output consumer is not thread-safe, so outputs are registered here rather than by the workers
+        final PreDexTask task = tasks.get(i);
+        outputConsumer.registerOutputFile(task.myOutputFile, Collections.singletonList(task.mySrcFile.getAbsolutePath()));
+      }
+    }
+    finally {
+      // when the build fails or is canceled, the dx processes still running would otherwise outlive it
+      executor.shutdownNow();
+      processes.destroyAll();
+
+      if (cache != null) {
+        cache.trim();
       }
     }
     return true;
   }
 
+  /**
+   * dx is run in a separate process per jar, so the number of processes is bounded by the number of cores. Build tests
+   * check the exact order of the launched processes, so they always pre-dex sequentially.
+   */
+  private static int getMaxParallelProcesses() {
+    if (AndroidBuildTestingManager.getTestingManager() != null) {
+      return 1;
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors());
+  }
+
+  private static boolean waitFor(@NotNull Future<Boolean> future, @NotNull CompileContext context)
+    throws IOException, ProjectBuildException {
+    while (true) {
+      context.checkCanceled();
+      try {
+        return future.get(100, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException ignored) {
+      }
+      catch (InterruptedException e) {
+        throw new ProjectBuildException(e);
+      }
+      catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+
+        if (cause instanceof IOException) {
+          throw (IOException)cause;
+        }
+        throw new ProjectBuildException(cause);
+      }
+    }
+  }
+
+  /**
+   * The dx processes launched by the workers, which are destroyed once the build of the target is over.
+   */
+  private static class DexProcesses implements Consumer<Process> {
+    private final Set<Process> myProcesses = new HashSet<Process>();
+    private boolean myDestroyed;
+
+    @Override
+    public synchronized void consume(Process process) {
+      if (myDestroyed) {
+        process.destroy();
+      }
+      else {
+        myProcesses.add(process);
+      }
+    }
+
+    synchronized void remove(@NotNull Process process) {
+      myProcesses.remove(process);
+    }
+
+    synchronized void destroyAll() {
+      myDestroyed = true;
+
+      for (Process process : myProcesses) {
+        process.destroy();
+      }
+      myProcesses.clear();
+    }
+  }
+
+  private static class PreDexTask implements Callable<Boolean> {
+    private final File mySrcFile;
+    private final File myOutputFile;
+    private final String myProgressText;
+    private final AndroidPlatform myPlatform;
+    private final JpsProject myProject;
+    private final CompileContext myContext;
+    private final AndroidPreDexCache myCache;
+    private final DexProcesses myProcesses;
+
+    PreDexTask(@NotNull File srcFile,
+               @NotNull File outputFile,
+               @NotNull String progressText,
+               @NotNull AndroidPlatform platform,
+               @NotNull JpsProject project,
+               @NotNull CompileContext context,
+               @Nullable AndroidPreDexCache cache,
+               @NotNull DexProcesses processes) {
+      mySrcFile = srcFile;
+      myOutputFile = outputFile;
+      myProgressText = progressText;
+      myPlatform = platform;
+      myProject = project;
+      myContext = context;
+      myCache = cache;
+      myProcesses = processes;
+    }
+
+    @Override
+    public Boolean call() throws IOException {
+      final String key = myCache != null ? myCache.computeKey(mySrcFile) : null;
+
+      if (key != null && myCache.restore(key, myOutputFile)) {
+        myContext.processMessage(new ProgressMessage(myProgressText + " (cached)"));
+        return true;
+      }
+      myContext.processMessage(new ProgressMessage(myProgressText));
+
+      final Process[] process = new Process[1];
+      final Consumer<Process> processConsumer = new Consumer<Process>() {
+        @Override
+        public void consume(Process p) {
+          process[0] = p;
+          myProcesses.consume(p);
+        }
+      };
+      final boolean success;
+
+      try {
+        success = AndroidDexBuilder.runDex(myPlatform, myOutputFile.getPath(), new String[]{mySrcFile.getAbsolutePath()}, myContext,
+                                           myProject, null, BUILDER_NAME, mySrcFile.getName(), null, processConsumer);
+      }
+      finally {
+        if (process[0] != null) {
+          myProcesses.remove(process[0]);
+        }
+      }
+      if (!success) {
+        return false;
+      }
+      if (key != null) {
+        myCache.store(key, myOutputFile);
+      }
+      return true;
+    }
+  }
+
   public static boolean canBePreDexed(@NotNull File file) {
     return "jar".equals(FileUtilRt.getExtension(file.getName()));
   }
@@ -0,0 +1,158 @@
+package org.jetbrains.jps.android;
+
+import com.android.sdklib.BuildToolInfo;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.android.util.AndroidBuildTestingManager;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.android.model.JpsAndroidDexCompilerConfiguration;
+import org.jetbrains.jps.android.model.JpsAndroidExtensionService;
+import org.jetbrains.jps.incremental.Utils;
+import org.jetbrains.jps.model.JpsProject;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Content-addressed cache of pre-dexed jars, shared by all modules and projects built by this build process.
+ * <p>
+ * An entry is keyed by the hash of the jar contents, the build tools revision and the dx options, so the same library
+ * jar is dexed only once no matter how many modules depend on it. The cache lives in the build system directory and is
+ * trimmed to a maximum size, evicting the least recently used entries first (access time is tracked via the file
+ * modification time, which is bumped on every hit).
+ */
+public class AndroidPreDexCache {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.android.AndroidPreDexCache");
+
+  @NonNls private static final String CACHE_DIR_NAME = "android-pre-dex-cache";
+  @NonNls private static final String MAX_SIZE_PROPERTY = "android.pre.dex.cache.size.mb";
+  private static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  private static final Object ourLock = new Object();
+
+  private final File myCacheDir;
+  private final String myConfigurationKey;
+  private final long myMaxSize;
+
+  AndroidPreDexCache(@NotNull File cacheDir, @NotNull String configurationKey, long maxSize) {
+    myCacheDir = cacheDir;
+    myConfigurationKey = configurationKey;
+    myMaxSize = maxSize;
+  }
+
+  /**
+   * Returns the cache to use for the given project and build tools, or {@code null} if caching is disabled. Caching is
+   * always disabled in build tests, which verify the exact dx invocations.
+   */
+  @Nullable
+  public static AndroidPreDexCache getInstance(@NotNull JpsProject project, @NotNull AndroidPlatform platform) {
+    if (AndroidBuildTestingManager.getTestingManager() != null) {
+      return null;
+    }
+    final BuildToolInfo buildToolInfo = platform.getTarget().getBuildToolInfo();
+
+    if (buildToolInfo == null) {
+      return null;
+    }
+    final long maxSizeMb = Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB);
+
+    if (maxSizeMb <= 0) {
+      return null;
+    }
+    final File cacheDir = new File(Utils.getSystemRoot(), CACHE_DIR_NAME);
+
+    if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+      LOG.info("Cannot create pre-dex cache directory " + cacheDir.getPath());
+      return null;
+    }
+    return new AndroidPreDexCache(cacheDir, getConfigurationKey(project, buildToolInfo), maxSizeMb * 1024 * 1024);
+  }
+
+  @NotNull
+  private static String getConfigurationKey(@NotNull JpsProject project, @NotNull BuildToolInfo buildToolInfo) {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(buildToolInfo.getRevision()).append(';');
+    builder.append(buildToolInfo.getPath(BuildToolInfo.PathId.DX_JAR)).append(';');
+
+    final JpsAndroidDexCompilerConfiguration configuration =
+      JpsAndroidExtensionService.getInstance().getDexCompilerConfiguration(project);
+
+    if (configuration != null) {
+      builder.append(configuration.isOptimize()).append(';');
+      builder.append(configuration.isForceJumbo()).append(';');
+      builder.append(configuration.isCoreLibrary());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Computes the cache key of the given jar. This reads the whole jar, so it should be called on a worker thread.
+   */
+  @NotNull
+  public String computeKey(@NotNull File jar) throws IOException {
+    return AndroidJpsUtil.computeContentHash(jar, myConfigurationKey);
+  }
+
+  /**
+   * Copies the cached dex output for {@code key} to {@code outputFile}.
+   *
+   * @return false if there is no entry for the key or it cannot be copied
+   */
+  public boolean restore(@NotNull String key, @NotNull File outputFile) {
+    final File cached = getEntryFile(key);
+
+    if (!cached.isFile()) {
+      return false;
+    }
+    try {
+      FileUtil.copy(cached, outputFile);
+      //noinspection ResultOfMethodCallIgnored
+      cached.setLastModified(System.currentTimeMillis());
+      return true;
+    }
+    catch (IOException e) {
+      LOG.info("Cannot restore pre-dexed file from cache: " + cached.getPath(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Stores a freshly pre-dexed file under {@code key}. The file is first copied to a temporary name and then renamed, so
+   * concurrent builds never observe a partially written entry.
+   */
+  public void store(@NotNull String key, @NotNull File dexFile) {
+    final File cached = getEntryFile(key);
+
+    if (cached.isFile() || !dexFile.isFile()) {
+      return;
+    }
+    try {
+      final File tmpFile = FileUtil.createTempFile(myCacheDir, key, AndroidJpsUtil.CACHE_TMP_FILE_EXTENSION, true, true);
+      FileUtil.copy(dexFile, tmpFile);
+
+      if (!tmpFile.renameTo(cached)) {
+        FileUtil.delete(tmpFile);
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Cannot store pre-dexed file in cache: " + dexFile.getPath(), e);
+    }
+  }
+
+  /**
+   * Deletes the temporary files left over by crashed builds, then the least recently used entries until the cache fits into
+   * its size limit.
+   */
+  public void trim() {
+    synchronized (ourLock) {
+      AndroidJpsUtil.trimCacheDirectory(myCacheDir, myMaxSize);
+    }
+  }
+
+  @NotNull
+  private File getEntryFile(@NotNull String key) {
+    return new File(myCacheDir, key + ".jar");
+  }
+}
@@ -1,19 +1,26 @@
 package org.jetbrains.jps.android;
 
+import com.android.sdklib.BuildToolInfo;
 import com.android.sdklib.IAndroidTarget;
 import com.android.tools.idea.jps.AndroidTargetBuilder;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.HashMap;
 import org.jetbrains.android.compiler.tools.AndroidApt;
+import org.jetbrains.android.util.AndroidBuildTestingManager;
+import org.jetbrains.android.util.AndroidCommonUtils;
 import org.jetbrains.android.util.AndroidCompilerMessageKind;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.android.builder.AndroidResourceCachingBuildTarget;
 import org.jetbrains.jps.android.model.JpsAndroidModuleExtension;
 import org.jetbrains.jps.builders.BuildOutputConsumer;
 import org.jetbrains.jps.builders.BuildRootDescriptor;
 import org.jetbrains.jps.builders.DirtyFilesHolder;
+import org.jetbrains.jps.builders.FileProcessor;
 import org.jetbrains.jps.incremental.CompileContext;
 import org.jetbrains.jps.incremental.ProjectBuildException;
 import org.jetbrains.jps.incremental.StopBuildException;
@@ -23,10 +30,8 @@ import org.jetbrains.jps.model.module.JpsModule;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author Eugene.Kudelevsky
@@ -34,6 +39,15 @@ import java.util.Map;
 public class AndroidResourceCachingBuilder extends AndroidTargetBuilder<BuildRootDescriptor, AndroidResourceCachingBuildTarget> {
   @NonNls private static final String BUILDER_NAME = "Android Resource Caching";
 
+  @NonNls private static final String CRUNCH_CACHE_SIZE_PROPERTY = "android.crunch.cache.size.mb";
+  private static final long DEFAULT_CRUNCH_CACHE_SIZE_MB = 256;
+
+  // avoid spawning an aapt process for just a couple of files
+  private static final int MIN_BATCH_SIZE = 8;
+
+  // the crunch cache is shared by the modules of the project, which may be built in parallel
+  private static final Object ourCrunchCacheLock = new Object();
+
   protected AndroidResourceCachingBuilder() {
     super(Collections.singletonList(AndroidResourceCachingBuildTarget.MyTargetType.INSTANCE));
   }
@@ -47,12 +61,13 @@ public class AndroidResourceCachingBuilder extends AndroidTargetBuilder<BuildRoo
       return;
     }
 
-    if (!runPngCaching(target, context, outputConsumer)) {
+    if (!runPngCaching(target, holder, context, outputConsumer)) {
       throw new StopBuildException();
     }
   }
 
   private static boolean runPngCaching(AndroidResourceCachingBuildTarget target,
+                                       DirtyFilesHolder<BuildRootDescriptor, AndroidResourceCachingBuildTarget> holder,
                                        CompileContext context,
                                        BuildOutputConsumer outputConsumer) throws IOException {
     final JpsModule module = target.getModule();
@@ -67,9 +82,11 @@ public class AndroidResourceCachingBuilder extends AndroidTargetBuilder<BuildRoo
       return false;
     }
     final File resCacheDir = target.getOutputDir(context);
+    final boolean forced = context.getScope().isBuildForced(target);
+    final boolean incremental = !forced && resCacheDir.isDirectory() && AndroidBuildTestingManager.getTestingManager() == null;
 
     // todo: probably it may be done automatically
-    if (context.getScope().isBuildForced(target) && resCacheDir.exists()) {
+    if (forced && resCacheDir.exists()) {
       if (!FileUtil.delete(resCacheDir)) {
         context.processMessage(new CompilerMessage(BUILDER_NAME, BuildMessage.Kind.ERROR,
                                                    AndroidJpsBundle.message("android.jps.cannot.create.directory", resCacheDir.getPath())));
@@ -101,6 +118,10 @@ public class AndroidResourceCachingBuilder extends AndroidTargetBuilder<BuildRoo
         inputDirs.add(f.getPath());
       }
     }
+
+    if (incremental) {
+      return runIncrementalPngCaching(target, holder, context, outputConsumer, androidTarget, inputDirs, resCacheDir);
+    }
     final Map<AndroidCompilerMessageKind, List<String>> messages =
       AndroidApt.crunch(androidTarget, inputDirs,resCacheDir.getPath());
     AndroidJpsUtil.addMessages(context, messages, BUILDER_NAME, module.getName());
@@ -136,6 +157,250 @@ public class AndroidResourceCachingBuilder extends AndroidTargetBuilder<BuildRoo
     return success;
   }
 
+  /**
+   * Crunches only the PNG files that changed since the previous build, instead of the whole resource directories.
+   * <p>
+   * Each changed file is looked up in a project-wide cache of crunched files keyed by the hash of its contents, so
+   * reverting a change or copying a drawable between modules does not need aapt at all. The rest is split into batches
+   * that are staged into temporary directories and crunched in parallel. Outputs of deleted sources are removed unless
+   * another resource directory still provides a file with the same relative path.
+   */
+  private static boolean runIncrementalPngCaching(@NotNull AndroidResourceCachingBuildTarget target,
+                                                  @NotNull DirtyFilesHolder<BuildRootDescriptor, AndroidResourceCachingBuildTarget> holder,
+                                                  @NotNull final CompileContext context,
+                                                  @NotNull BuildOutputConsumer outputConsumer,
+                                                  @NotNull final IAndroidTarget androidTarget,
+                                                  @NotNull final List<String> inputDirs,
+                                                  @NotNull final File resCacheDir) throws IOException {
+    final Set<String> changedPaths = new LinkedHashSet<String>();
+
+    holder.processDirtyFiles(new FileProcessor<BuildRootDescriptor, AndroidResourceCachingBuildTarget>() {
+      @Override
+      public boolean apply(AndroidResourceCachingBuildTarget target, File file, BuildRootDescriptor root) throws IOException {
+        final String relativePath = FileUtil.getRelativePath(root.getRootFile(), file);
+
+        if (relativePath != null && isPng(file)) {
+          changedPaths.add(relativePath);
+        }
+        return true;
+      }
+    });
+
+    for (String removedPath : holder.getRemovedFiles(target)) {
+      for (String inputDir : inputDirs) {
+        final String relativePath = FileUtil.getRelativePath(new File(inputDir), new File(removedPath));
+
+        if (relativePath != null && !relativePath.startsWith("..") && isPng(new File(removedPath))) {
+          changedPaths.add(relativePath);
+          break;
+        }
+      }
+    }
+    if (changedPaths.isEmpty()) {
+      return true;
+    }
+    final BuildToolInfo buildToolInfo = androidTarget.getBuildToolInfo();
+    final String salt = buildToolInfo != null ? buildToolInfo.getRevision().toString() : "";
+    final File crunchCacheDir = AndroidJpsUtil.getCrunchCacheDir(context.getProjectDescriptor().dataManager.getDataPaths());
+    final Map<String, File> sources = new LinkedHashMap<String, File>();
+    final Map<String, String> keys = new HashMap<String, String>();
+    final Set<String> toCrunch = new LinkedHashSet<String>();
+
+    for (String relativePath : changedPaths) {
+      final File srcFile = findSource(inputDirs, relativePath);
+      final File outputFile = new File(resCacheDir, relativePath);
+
+      if (srcFile == null) {
+        // the source was deleted and no other resource directory overrides it
+        FileUtil.delete(outputFile);
+        continue;
+      }
+      sources.put(relativePath, srcFile);
+      final String key = AndroidJpsUtil.computeContentHash(srcFile, salt + ';' + srcFile.getName().endsWith(".9.png"));
+      keys.put(relativePath, key);
+      final File cachedFile = new File(crunchCacheDir, key + ".png");
+
+      if (!restoreFromCrunchCache(cachedFile, outputFile)) {
+        toCrunch.add(relativePath);
+      }
+    }
+
+    if (!toCrunch.isEmpty() && !crunchInParallel(context, androidTarget, sources, toCrunch, resCacheDir, target.getModule())) {
+      return false;
+    }
+
+    for (Map.Entry<String, File> entry : sources.entrySet()) {
+      final String relativePath = entry.getKey();
+      final File outputFile = new File(resCacheDir, relativePath);
+
+      if (!outputFile.isFile()) {
+        continue;
+      }
+      if (toCrunch.contains(relativePath)) {
+        storeInCrunchCache(crunchCacheDir, keys.get(relativePath), outputFile);
+      }
+      outputConsumer.registerOutputFile(outputFile, Collections.singletonList(entry.getValue().getPath()));
+    }
+
+    if (!toCrunch.isEmpty()) {
+      final long maxSizeMb = Long.getLong(CRUNCH_CACHE_SIZE_PROPERTY, DEFAULT_CRUNCH_CACHE_SIZE_MB);
+
+      synchronized (ourCrunchCacheLock) {
+        AndroidJpsUtil.trimCacheDirectory(crunchCacheDir, maxSizeMb * 1024 * 1024);
+      }
+    }
+    return true;
+  }
+
+  private static boolean restoreFromCrunchCache(@NotNull File cachedFile, @NotNull File outputFile) throws IOException {
+    if (!cachedFile.isFile()) {
+      return false;
+    }
+    FileUtil.copy(cachedFile, outputFile);
+    //noinspection ResultOfMethodCallIgnored
+    cachedFile.setLastModified(System.currentTimeMillis());
+    return true;
+  }
+
+  /**
+   * Copies a crunched file into the cache through a temporary file, so other builds never restore a partially written entry.
+   */
+  static void storeInCrunchCache(@NotNull File crunchCacheDir, @NotNull String key, @NotNull File crunchedFile) throws IOException {
+    final File cachedFile = new File(crunchCacheDir, key + ".png");
+
+    if (cachedFile.isFile() || !FileUtil.createDirectory(crunchCacheDir)) {
+      return;
+    }
+    final File tmpFile = FileUtil.createTempFile(crunchCacheDir, key, AndroidJpsUtil.CACHE_TMP_FILE_EXTENSION, true, true);
+    FileUtil.copy(crunchedFile, tmpFile);
+
+    if (!tmpFile.renameTo(cachedFile)) {
+      FileUtil.delete(tmpFile);
+    }
+  }
+
+  private static boolean crunchInParallel(@NotNull final CompileContext context,
+                                          @NotNull final IAndroidTarget androidTarget,
+                                          @NotNull Map<String, File> sources,
+                                          @NotNull Collection<String> toCrunch,
+                                          @NotNull final File resCacheDir,
+                                          @NotNull final JpsModule module) throws IOException {
+    final int batchCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), toCrunch.size() / MIN_BATCH_SIZE));
+    final List<Map<String, File>> batches = new ArrayList<Map<String, File>>(batchCount);
+
+    for (int i = 0; i < batchCount; i++) {
+      batches.add(new HashMap<String, File>());
+    }
+    int index = 0;
+
+    for (String relativePath : toCrunch) {
+      batches.get(index++ % batchCount).put(relativePath, sources.get(relativePath));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(batchCount, ConcurrencyUtil.newNamedThreadFactory(BUILDER_NAME));
+
+    try {
+      final List<Future<Map<AndroidCompilerMessageKind, List<String>>>> futures =
+        new ArrayList<Future<Map<AndroidCompilerMessageKind, List<String>>>>(batchCount);
+
+      for (final Map<String, File> batch : batches) {
+        futures.add(executor.submit(new Callable<Map<AndroidCompilerMessageKind, List<String>>>() {
+          @Override
+          public Map<AndroidCompilerMessageKind, List<String>> call() throws Exception {
+            return crunchBatch(androidTarget, batch, resCacheDir);
+          }
+        }));
+      }
+      boolean success = true;
+
+      for (Future<Map<AndroidCompilerMessageKind, List<String>>> future : futures) {
+        final Map<AndroidCompilerMessageKind, List<String>> messages;
+        try {
+          messages = future.get();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+        catch (ExecutionException e) {
+          AndroidJpsUtil.reportExceptionError(context, null, e, BUILDER_NAME);
+          success = false;
+          continue;
+        }
+        AndroidJpsUtil.addMessages(context, messages, BUILDER_NAME, module.getName());
+        final List<String> errors = messages.get(AndroidCompilerMessageKind.ERROR);
+        success &= errors == null || errors.isEmpty();
+      }
+      return success;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @NotNull
+  private static Map<AndroidCompilerMessageKind, List<String>> crunchBatch(@NotNull IAndroidTarget androidTarget,
+                                                                          @NotNull Map<String, File> batch,
+                                                                          @NotNull File resCacheDir) throws IOException {
+    final File stagingDir = FileUtil.createTempDirectory("android_crunch_batch", "tmp");
+    try {
+      for (Map.Entry<String, File> entry : batch.entrySet()) {
+        FileUtil.copy(entry.getValue(), new File(stagingDir, entry.getKey()));
+      }
+      final Map<AndroidCompilerMessageKind, List<String>> messages =
+        AndroidApt.crunch(androidTarget, Collections.singletonList(stagingDir.getPath()), resCacheDir.getPath());
+      return mapStagedPaths(messages, stagingDir, batch);
+    }
+    finally {
+      FileUtil.delete(stagingDir);
+    }
+  }
+
+  /**
+   * Replaces the paths of the staged copies in aapt messages with the paths of their sources, since the staging directory
+   * is deleted once the batch is crunched.
+   */
+  @NotNull
+  static Map<AndroidCompilerMessageKind, List<String>> mapStagedPaths(@NotNull Map<AndroidCompilerMessageKind, List<String>> messages,
+                                                                     @NotNull File stagingDir,
+                                                                     @NotNull Map<String, File> batch) {
+    final Map<AndroidCompilerMessageKind, List<String>> result = new HashMap<AndroidCompilerMessageKind, List<String>>();
+
+    for (Map.Entry<AndroidCompilerMessageKind, List<String>> entry : messages.entrySet()) {
+      final List<String> mapped = new ArrayList<String>(entry.getValue().size());
+
+      for (String message : entry.getValue()) {
+        if (message.contains(stagingDir.getPath())) {
+          for (Map.Entry<String, File> staged : batch.entrySet()) {
+            message = message.replace(new File(stagingDir, staged.getKey()).getPath(), staged.getValue().getPath());
+          }
+        }
+        mapped.add(message);
+      }
+      result.put(entry.getKey(), mapped);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the file that provides {@code relativePath}, honoring the priority of the resource directories (the first
+   * one wins, as in {@link AndroidApt#crunch}).
+   */
+  @Nullable
+  static File findSource(@NotNull List<String> inputDirs, @NotNull String relativePath) {
+    for (String inputDir : inputDirs) {
+      final File file = new File(inputDir, relativePath);
+
+      if (file.isFile()) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isPng(@NotNull File file) {
+    return FileUtilRt.extensionEquals(file.getName(), AndroidCommonUtils.PNG_EXTENSION);
+  }
+
   @NotNull
   @Override
   public String getPresentableName() {
@@ -0,0 +1,81 @@
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+public class AndroidPreDexCacheTest extends TestCase {
+  private File myCacheDir;
+  private File myWorkDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCacheDir = FileUtil.createTempDirectory("pre_dex_cache", null);
+    myWorkDir = FileUtil.createTempDirectory("pre_dex_work", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myCacheDir);
+      FileUtil.delete(myWorkDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testStoreAndRestore() throws Exception {
+    final AndroidPreDexCache cache = new AndroidPreDexCache(myCacheDir, "config", 1024);
+    final File jar = createFile(myWorkDir, "lib.jar", 10);
+    final String key = cache.computeKey(jar);
+    final File restored = new File(myWorkDir, "restored.jar");
+    assertFalse(cache.restore(key, restored));
+
+    cache.store(key, createFile(myWorkDir, "lib-dexed.jar", 20));
+    assertTrue(cache.restore(key, restored));
+    assertEquals(20, restored.length());
+
+    // the key depends on the configuration as well as on the contents
+    assertFalse(key.equals(new AndroidPreDexCache(myCacheDir, "other config", 1024).computeKey(jar)));
+  }
+
+  public void testTrimEvictsLeastRecentlyUsedEntries() throws Exception {
+    final AndroidPreDexCache cache = new AndroidPreDexCache(myCacheDir, "config", 25);
+    final File oldest = createFile(myCacheDir, "a.jar", 10);
+    final File used = createFile(myCacheDir, "b.jar", 10);
+    final File newest = createFile(myCacheDir, "c.jar", 10);
+    final long now = System.currentTimeMillis();
+    assertTrue(oldest.setLastModified(now - 30000));
+    assertTrue(used.setLastModified(now - 20000));
+    assertTrue(newest.setLastModified(now - 10000));
+
+    cache.trim();
+    assertFalse(oldest.exists());
+    assertTrue(used.exists());
+    assertTrue(newest.exists());
+  }
+
+  public void testTrimOnlyDeletesStaleTemporaryFiles() throws Exception {
+    final AndroidPreDexCache cache = new AndroidPreDexCache(myCacheDir, "config", 1);
+    final File stale = createFile(myCacheDir, "a.tmp", 10);
+    assertTrue(stale.setLastModified(System.currentTimeMillis() - 2 * AndroidJpsUtil.STALE_CACHE_TMP_FILE_AGE_MS));
+    // possibly still being written by another build process
+    final File fresh = createFile(myCacheDir, "b.tmp", 10);
+
+    cache.trim();
+    assertFalse(stale.exists());
+    assertTrue(fresh.exists());
+  }
+
+  @NotNull
+  private static File createFile(@NotNull File dir, @NotNull String name, int size) throws IOException {
+    final File file = new File(dir, name);
+    FileUtil.writeToFile(file, new byte[size]);
+    return file;
+  }
+}
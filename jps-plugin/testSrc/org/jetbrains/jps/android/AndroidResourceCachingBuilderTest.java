@@ -0,0 +1,83 @@
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+import org.jetbrains.android.util.AndroidCompilerMessageKind;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public class AndroidResourceCachingBuilderTest extends TestCase {
+  private File myDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myDir = FileUtil.createTempDirectory("android_resource_caching", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testMapStagedPaths() {
+    final File stagingDir = new File(myDir, "staging");
+    final File source = new File(myDir, "res" + File.separator + "drawable" + File.separator + "icon.png");
+    final String relativePath = "drawable" + File.separator + "icon.png";
+    final Map<String, File> batch = Collections.singletonMap(relativePath, source);
+    final String stagedPath = new File(stagingDir, relativePath).getPath();
+
+    final Map<AndroidCompilerMessageKind, List<String>> messages = new HashMap<AndroidCompilerMessageKind, List<String>>();
+    messages.put(AndroidCompilerMessageKind.ERROR, Arrays.asList("ERROR: Unable to process " + stagedPath, "unrelated error"));
+    messages.put(AndroidCompilerMessageKind.WARNING, Collections.<String>emptyList());
+
+    final Map<AndroidCompilerMessageKind, List<String>> mapped =
+      AndroidResourceCachingBuilder.mapStagedPaths(messages, stagingDir, batch);
+    assertEquals(Arrays.asList("ERROR: Unable to process " + source.getPath(), "unrelated error"),
+                 mapped.get(AndroidCompilerMessageKind.ERROR));
+    assertEquals(Collections.<String>emptyList(), mapped.get(AndroidCompilerMessageKind.WARNING));
+  }
+
+  public void testFindSourceHonorsDirectoryPriority() throws Exception {
+    final File highPriority = new File(myDir, "res1");
+    final File lowPriority = new File(myDir, "res2");
+    final String relativePath = "drawable" + File.separator + "icon.png";
+    createFile(new File(lowPriority, relativePath), 1);
+    final List<String> inputDirs = Arrays.asList(highPriority.getPath(), lowPriority.getPath());
+
+    assertEquals(new File(lowPriority, relativePath), AndroidResourceCachingBuilder.findSource(inputDirs, relativePath));
+    createFile(new File(highPriority, relativePath), 1);
+    assertEquals(new File(highPriority, relativePath), AndroidResourceCachingBuilder.findSource(inputDirs, relativePath));
+    assertNull(AndroidResourceCachingBuilder.findSource(inputDirs, "drawable" + File.separator + "missing.png"));
+  }
+
+  public void testCrunchCacheIsTrimmed() throws Exception {
+    final File cacheDir = new File(myDir, "crunch_cache");
+    final File crunched = createFile(new File(myDir, "crunched.png"), 10);
+    AndroidResourceCachingBuilder.storeInCrunchCache(cacheDir, "a", crunched);
+    AndroidResourceCachingBuilder.storeInCrunchCache(cacheDir, "b", crunched);
+    final File first = new File(cacheDir, "a.png");
+    final File second = new File(cacheDir, "b.png");
+    assertTrue(first.isFile());
+    assertTrue(second.isFile());
+    assertTrue(first.setLastModified(System.currentTimeMillis() - 10000));
+
+    AndroidJpsUtil.trimCacheDirectory(cacheDir, 15);
+    assertFalse(first.exists());
+    assertTrue(second.exists());
+  }
+
+  @NotNull
+  private static File createFile(@NotNull File file, int size) throws IOException {
+    FileUtil.writeToFile(file, new byte[size]);
+    return file;
+  }
+}
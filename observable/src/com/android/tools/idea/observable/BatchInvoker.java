@@ -15,13 +15,15 @@
  */
 package com.android.tools.idea.observable;
 
-import com.google.common.collect.Queues;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 import javax.swing.*;
-import java.util.Queue;
+import java.util.*;
 
 /**
  * A utility class which invokes some logic and, if multiple invocation requests come in at the
@@ -33,6 +35,11 @@ import java.util.Queue;
  * Doing this will allow us to avoid doing expensive updates on redundant, intermediate changes,
  * e.g. if you have five values in a complex mathematical calculation, and all values change in
  * the same frame, you only want to run the calculation once.
+ *
+ * Runnables which implement {@link Node} are additionally run in dependency order within a batch,
+ * so a value is only recomputed after all of the values it reads from have been updated. A
+ * runnable that is enqueued again while it is still waiting to run in the current batch is not
+ * deferred to another cycle, as it will see the latest values anyway.
  */
 public final class BatchInvoker {
   /**
@@ -59,18 +66,23 @@ public final class BatchInvoker {
   private final Strategy myStrategy;
 
   /**
-   * A current batch of runnables that are either running or will run soon.
+   * A current batch of runnables that are either running or will run soon. While a batch is
+   * running, runnables are removed from this set right before they are invoked.
    */
-  private final Queue<Runnable> myRunnables = Queues.newArrayDeque();
+  private final Set<Runnable> myRunnables = Sets.newLinkedHashSet();
 
   /**
    * A deferred batch of runnables, for those that are added by {@link #enqueue(Runnable)} while a
    * batch is already running. These will run immediately after the current batch finishes.
    */
-  private final Queue<Runnable> myDeferredRunnables = Queues.newArrayDeque();
+  private final Set<Runnable> myDeferredRunnables = Sets.newLinkedHashSet();
 
   private boolean myUpdateInProgress;
 
+  @NotNull private Stats myLastBatchStats = Stats.EMPTY;
+  private int myInvokedCount;
+  private int myCoalescedCount;
+
   public BatchInvoker() {
     this(ourOverrideStrategy != null ? ourOverrideStrategy : SWING_INVOKE_LATER_STRATEGY);
   }
@@ -86,8 +98,9 @@ public final class BatchInvoker {
    */
   public void enqueue(@NotNull Runnable runnable) {
     if (myUpdateInProgress) {
-      if (!myDeferredRunnables.contains(runnable)) {
-        myDeferredRunnables.add(runnable);
+      // A runnable still waiting in the current batch will pick up the latest values when it runs
+      if (myRunnables.contains(runnable) || !myDeferredRunnables.add(runnable)) {
+        myCoalescedCount++;
       }
       return;
     }
@@ -95,8 +108,8 @@ public final class BatchInvoker {
     // Prepare to run an update if we're the first update request. Any other requests that are made
     // before the update runs will get lumped in with it.
     boolean shouldInvoke = myRunnables.isEmpty();
-    if (!myRunnables.contains(runnable)) {
-      myRunnables.add(runnable);
+    if (!myRunnables.add(runnable)) {
+      myCoalescedCount++;
     }
 
     if (shouldInvoke) {
@@ -104,38 +117,58 @@ public final class BatchInvoker {
     }
   }
 
+  /**
+   * Returns counters describing the most recently completed batch.
+   */
+  @NotNull
+  public Stats getLastBatchStats() {
+    return myLastBatchStats;
+  }
+
   private void enqueueInvoke() {
     myStrategy.invoke(() -> {
       int cycleCount = 0;
       RuntimeException runnableExceptionChain = null;
-      while (true) {
-        myUpdateInProgress = true;
-        for (Runnable runnable : myRunnables) {
-          try {
-            runnable.run();
-          }
-          catch (RuntimeException ex) {
-            runnableExceptionChain = addExceptionCause(ex, runnableExceptionChain);
+      try {
+        while (true) {
+          myUpdateInProgress = true;
+          for (Runnable runnable : sortByDependencies(myRunnables)) {
+            if (!myRunnables.remove(runnable)) {
+              continue;
+            }
+            myInvokedCount++;
+            try {
+              runnable.run();
+            }
+            catch (RuntimeException ex) {
+              runnableExceptionChain = addExceptionCause(ex, runnableExceptionChain);
+            }
           }
-        }
-        myRunnables.clear();
+          myRunnables.clear();
 
-        myUpdateInProgress = false;
+          myUpdateInProgress = false;
 
-        if (!myDeferredRunnables.isEmpty()) {
-          cycleCount++;
-          if (cycleCount > MAX_CYCLE_COUNT) {
+          if (!myDeferredRunnables.isEmpty()) {
+            cycleCount++;
+            if (cycleCount > MAX_CYCLE_COUNT) {
+              myDeferredRunnables.clear();
+              throw new InfiniteCycleException(runnableExceptionChain);
+            }
+
+            myRunnables.addAll(myDeferredRunnables);
             myDeferredRunnables.clear();
-            throw new InfiniteCycleException(runnableExceptionChain);
           }
-
-          myRunnables.addAll(myDeferredRunnables);
-          myDeferredRunnables.clear();
-        }
-        else {
-          break;
+          else {
+            break;
+          }
         }
       }
+      finally {
+        myUpdateInProgress = false;
+        myLastBatchStats = new Stats(myInvokedCount, myCoalescedCount, cycleCount);
+        myInvokedCount = 0;
+        myCoalescedCount = 0;
+      }
 
       if (runnableExceptionChain != null) {
         throw runnableExceptionChain;
@@ -143,6 +176,130 @@ public final class BatchInvoker {
     });
   }
 
+  /**
+   * Orders a batch so that every {@link Node} runs after the nodes producing its inputs. Runnables
+   * that are not nodes, and nodes that are part of a dependency cycle, keep their enqueue order.
+   */
+  @NotNull
+  private static List<Runnable> sortByDependencies(@NotNull Collection<Runnable> runnables) {
+    Map<Object, List<Runnable>> producers = Maps.newHashMap();
+    for (Runnable runnable : runnables) {
+      if (runnable instanceof Node) {
+        Object output = ((Node)runnable).getOutput();
+        if (output != null) {
+          producers.computeIfAbsent(output, key -> Lists.newArrayList()).add(runnable);
+        }
+      }
+    }
+    if (producers.isEmpty()) {
+      return Lists.newArrayList(runnables);
+    }
+
+    Map<Runnable, Integer> inDegrees = Maps.newLinkedHashMap();
+    Map<Runnable, List<Runnable>> dependents = Maps.newHashMap();
+    for (Runnable runnable : runnables) {
+      int inDegree = 0;
+      if (runnable instanceof Node) {
+        for (Object input : ((Node)runnable).getInputs()) {
+          List<Runnable> inputProducers = producers.get(input);
+          if (inputProducers == null) {
+            continue;
+          }
+          for (Runnable producer : inputProducers) {
+            if (producer != runnable) {
+              dependents.computeIfAbsent(producer, key -> Lists.newArrayList()).add(runnable);
+              inDegree++;
+            }
+          }
+        }
+      }
+      inDegrees.put(runnable, inDegree);
+    }
+
+    // Kahn's algorithm: start from the runnables with no pending inputs, in enqueue order, and release each dependent once
+    // all of its producers have run.
+    List<Runnable> sorted = Lists.newArrayListWithCapacity(runnables.size());
+    Deque<Runnable> ready = new ArrayDeque<>();
+    for (Map.Entry<Runnable, Integer> entry : inDegrees.entrySet()) {
+      if (entry.getValue() == 0) {
+        ready.add(entry.getKey());
+      }
+    }
+    while (!ready.isEmpty()) {
+      Runnable runnable = ready.remove();
+      inDegrees.remove(runnable);
+      sorted.add(runnable);
+      for (Runnable dependent : dependents.getOrDefault(runnable, Collections.emptyList())) {
+        int inDegree = inDegrees.merge(dependent, -1, Integer::sum);
+        if (inDegree == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+    // Only cycles (e.g. a two-way binding) and the nodes depending on them are left, run them in the order they were enqueued in
+    sorted.addAll(inDegrees.keySet());
+    return sorted;
+  }
+
+  /**
+   * A runnable which recomputes a single value from a known set of input values. Batches run
+   * nodes in dependency order, so a node only runs after every node producing one of its inputs.
+   */
+  public interface Node extends Runnable {
+    /**
+     * The values this node reads from when it runs.
+     */
+    @NotNull
+    Collection<?> getInputs();
+
+    /**
+     * The value this node writes to when it runs, or {@code null} if it doesn't produce a value
+     * other nodes can depend on.
+     */
+    @Nullable
+    Object getOutput();
+  }
+
+  /**
+   * Counters collected while running a batch, useful for tracking down listeners that fire more
+   * often than expected.
+   */
+  public static final class Stats {
+    static final Stats EMPTY = new Stats(0, 0, 0);
+
+    private final int myInvokedCount;
+    private final int myCoalescedCount;
+    private final int myCycleCount;
+
+    Stats(int invokedCount, int coalescedCount, int cycleCount) {
+      myInvokedCount = invokedCount;
+      myCoalescedCount = coalescedCount;
+      myCycleCount = cycleCount;
+    }
+
+    /**
+     * The number of runnables (including listeners) that were run.
+     */
+    public int getInvokedCount() {
+      return myInvokedCount;
+    }
+
+    /**
+     * The number of enqueue requests that were dropped because an equal runnable was already
+     * waiting to run.
+     */
+    public int getCoalescedCount() {
+      return myCoalescedCount;
+    }
+
+    /**
+     * The number of extra cycles needed to run runnables that were enqueued by other runnables.
+     */
+    public int getCycleCount() {
+      return myCycleCount;
+    }
+  }
+
   /**
    * A strategy on how to handle invoking a batch of runnables.
    *
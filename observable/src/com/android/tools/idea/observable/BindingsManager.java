@@ -20,6 +20,8 @@ import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -218,7 +220,7 @@ public final class BindingsManager {
    * value on request. This class is used by both {@link OneWayBinding} and {@link TwoWayBinding}
    * to enqueue an update after they detect a change.
    */
-  private static final class DestUpdater<T> implements Runnable {
+  private static final class DestUpdater<T> implements BatchInvoker.Node {
     private final SettableValue<T> myDest;
     private final ObservableValue<T> mySrc;
 
@@ -232,6 +234,18 @@ public final class BindingsManager {
       myDest.set(mySrc.get());
     }
 
+    @NotNull
+    @Override
+    public Collection<?> getInputs() {
+      return Collections.singletonList(mySrc);
+    }
+
+    @NotNull
+    @Override
+    public Object getOutput() {
+      return myDest;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) return true;
@@ -20,6 +20,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -143,6 +147,72 @@ public final class BatchInvokerTest {
     assertThat(invokeResult.get()).isFalse();
   }
 
+  @Test
+  public void nodesRunInDependencyOrder() throws Exception {
+    TestInvokeStrategy testStrategy = new TestInvokeStrategy();
+    BatchInvoker invoker = new BatchInvoker(testStrategy);
+    List<String> order = new ArrayList<>();
+
+    // c <- b <- a, enqueued in reverse
+    invoker.enqueue(new RecordNode(order, "a", "b"));
+    invoker.enqueue(new RecordNode(order, "b", "c"));
+    invoker.enqueue(new RecordNode(order, "c", null));
+    testStrategy.updateOneStep();
+
+    assertThat(order).containsExactly("c", "b", "a").inOrder();
+  }
+
+  @Test
+  public void nodeCyclesFallBackToEnqueueOrder() throws Exception {
+    TestInvokeStrategy testStrategy = new TestInvokeStrategy();
+    BatchInvoker invoker = new BatchInvoker(testStrategy);
+    List<String> order = new ArrayList<>();
+
+    invoker.enqueue(new RecordNode(order, "a", "b"));
+    invoker.enqueue(new RecordNode(order, "b", "a"));
+    testStrategy.updateOneStep();
+
+    assertThat(order).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void pendingRunnablesAreNotDeferred() throws Exception {
+    TestInvokeStrategy testStrategy = new TestInvokeStrategy();
+    BatchInvoker invoker = new BatchInvoker(testStrategy);
+
+    IntWrapper intWrapper = new IntWrapper();
+    AddToValue addToValue = new AddToValue(0, intWrapper, 1);
+    DeferRunnable deferRunnable = new DeferRunnable(invoker);
+    deferRunnable.setRunnable(addToValue);
+
+    invoker.enqueue(deferRunnable);
+    invoker.enqueue(addToValue);
+    testStrategy.updateOneStep();
+
+    // addToValue was still waiting in the batch when it was enqueued again, so it only runs once
+    assertThat(intWrapper.value).isEqualTo(1);
+    BatchInvoker.Stats stats = invoker.getLastBatchStats();
+    assertThat(stats.getInvokedCount()).isEqualTo(2);
+    assertThat(stats.getCoalescedCount()).isEqualTo(1);
+    assertThat(stats.getCycleCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void statsCountDeferredCycles() throws Exception {
+    BatchInvoker invoker = new BatchInvoker(BatchInvoker.INVOKE_IMMEDIATELY_STRATEGY);
+
+    IntWrapper intWrapper = new IntWrapper();
+    DeferRunnable deferRunnable = new DeferRunnable(invoker);
+    deferRunnable.setRunnable(new AddToValue(0, intWrapper, 1));
+    invoker.enqueue(deferRunnable);
+
+    assertThat(intWrapper.value).isEqualTo(1);
+    BatchInvoker.Stats stats = invoker.getLastBatchStats();
+    assertThat(stats.getInvokedCount()).isEqualTo(2);
+    assertThat(stats.getCoalescedCount()).isEqualTo(0);
+    assertThat(stats.getCycleCount()).isEqualTo(1);
+  }
+
   private static final class IntWrapper {
     int value;
   }
@@ -206,4 +276,36 @@ public final class BatchInvokerTest {
       myOwningInvoker.enqueue(myOther);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * A node which records its name when run, reading from {@code input} and writing to its name.
+   */
+  private static final class RecordNode implements BatchInvoker.Node {
+    @NotNull private final List<String> myOrder;
+    @NotNull private final String myName;
+    @Nullable private final String myInput;
+
+    RecordNode(@NotNull List<String> order, @NotNull String name, @Nullable String input) {
+      myOrder = order;
+      myName = name;
+      myInput = input;
+    }
+
+    @Override
+    public void run() {
+      myOrder.add(myName);
+    }
+
+    @NotNull
+    @Override
+    public Collection<?> getInputs() {
+      return myInput != null ? Collections.singletonList(myInput) : Collections.emptyList();
+    }
+
+    @NotNull
+    @Override
+    public Object getOutput() {
+      return myName;
+    }
+  }
+}
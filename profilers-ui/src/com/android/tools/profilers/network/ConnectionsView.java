@@ -25,6 +25,7 @@ import com.android.tools.adtui.model.formatter.TimeAxisFormatter;
 import com.android.tools.profilers.ProfilerColors;
 import com.android.tools.profilers.ProfilerLayeredPane;
 import com.android.tools.profilers.network.httpdata.HttpData;
+import com.android.tools.profilers.network.httpdata.Payload;
 import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.ui.components.JBPanel;
@@ -41,9 +42,13 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.android.tools.profilers.ProfilerColors.DEFAULT_HOVER_COLOR;
 import static com.android.tools.profilers.ProfilerLayout.*;
@@ -53,6 +58,12 @@ import static com.android.tools.profilers.ProfilerLayout.*;
  * for network profiling. Each row in the table represents a single connection.
  */
 final class ConnectionsView {
+  /**
+   * Number of rows above and below the selected one whose response payloads are fetched in the background, so that
+   * moving the selection to a nearby connection shows its payload without waiting for the datastore.
+   */
+  private static final int PREFETCH_ROW_COUNT = 3;
+
   /**
    * Columns for each connection information
    */
@@ -131,6 +142,20 @@ final class ConnectionsView {
   @NotNull
   private final AspectObserver myAspectObserver;
 
+  /**
+   * Ids of the connections whose payloads are claimed by a prefetching task, so that moving the selection row by row doesn't
+   * queue the same payloads again. A task releases each id once it fetched or skipped its payload.
+   */
+  @NotNull
+  private final Set<Long> myPrefetchingIds = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Ids of the connections around the current selection. Prefetching tasks queued for a previous selection still fetch the
+   * payloads in this set, and skip the others.
+   */
+  @NotNull
+  private volatile Set<Long> myPrefetchWantedIds = Collections.emptySet();
+
   ConnectionsView(@NotNull NetworkProfilerStageView stageView) {
     myStage = stageView.getStage();
 
@@ -170,6 +195,7 @@ final class ConnectionsView {
       if (0 <= selectedRow && selectedRow < myTableModel.getRowCount()) {
         int modelRow = myConnectionsTable.convertRowIndexToModel(selectedRow);
         myStage.setSelectedConnection(myTableModel.getHttpData(modelRow));
+        prefetchPayloads(selectedRow);
       }
     });
 
@@ -224,6 +250,51 @@ final class ConnectionsView {
     });
   }
 
+  private void prefetchPayloads(int selectedRow) {
+    List<HttpData> rowsData = new ArrayList<>();
+    int lastRow = Math.min(myConnectionsTable.getRowCount() - 1, selectedRow + PREFETCH_ROW_COUNT);
+    for (int row = Math.max(0, selectedRow - PREFETCH_ROW_COUNT); row <= lastRow; ++row) {
+      if (row != selectedRow) {
+        rowsData.add(myTableModel.getHttpData(myConnectionsTable.convertRowIndexToModel(row)));
+      }
+    }
+    // Published before claiming, so a task releasing one of these ids afterwards sees that it is still wanted.
+    myPrefetchWantedIds = rowsData.stream().map(HttpData::getId).collect(Collectors.toSet());
+
+    // Payloads claimed by a task queued for a previous selection are left to that task.
+    List<HttpData> dataToPrefetch = rowsData.stream().filter(data -> myPrefetchingIds.add(data.getId())).collect(Collectors.toList());
+    if (dataToPrefetch.isEmpty()) {
+      return;
+    }
+
+    // The payloads end up in the shared payload cache, where the details view finds them.
+    NetworkConnectionsModel connectionsModel = myStage.getConnectionsModel();
+    myStage.getStudioProfilers().getIdeServices().getPoolExecutor().execute(() -> {
+      for (HttpData data : dataToPrefetch) {
+        long id = data.getId();
+        if (myPrefetchWantedIds.contains(id)) {
+          fetchAndRelease(connectionsModel, data);
+        }
+        else {
+          myPrefetchingIds.remove(id);
+          // The selection may have moved back near this row while the id was still claimed by this task.
+          if (myPrefetchWantedIds.contains(id) && myPrefetchingIds.add(id)) {
+            fetchAndRelease(connectionsModel, data);
+          }
+        }
+      }
+    });
+  }
+
+  private void fetchAndRelease(@NotNull NetworkConnectionsModel connectionsModel, @NotNull HttpData data) {
+    try {
+      Payload.newResponsePayload(connectionsModel, data).getBytes();
+    }
+    finally {
+      myPrefetchingIds.remove(data.getId());
+    }
+  }
+
   private void updateTableSelection() {
     HttpData selectedData = myStage.getSelectedConnection();
     if (selectedData != null) {
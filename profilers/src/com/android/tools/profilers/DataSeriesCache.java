@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers;
+
+import com.android.tools.profiler.proto.Common;
+import com.android.tools.profiler.protobuf3jarjar.MessageLite;
+import com.google.common.annotations.VisibleForTesting;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Client-side cache of the samples the data series fetch from the datastore, shared by all series of all sessions.
+ *
+ * Samples are grouped into fixed size time buckets per (client, session, stream). A request only fetches the buckets which are
+ * not cached yet, merging adjacent ones into a single RPC, so a timeline sliding forward only fetches the newly visible data, and
+ * several series reading the same stream (e.g. each memory category) share one RPC. A bucket is only kept once the request that
+ * fetched it also returned a sample past its end, since the most recent bucket may still be receiving data. Buckets are evicted in
+ * least recently used order once their estimated size exceeds a memory budget.
+ *
+ * Buckets mirror the datastore queries, which return the samples with start < timestamp <= end, so a bucket b holds the samples
+ * in (b * BUCKET_NS, (b + 1) * BUCKET_NS].
+ */
+public final class DataSeriesCache {
+  @VisibleForTesting static final long BUCKET_NS = TimeUnit.SECONDS.toNanos(5);
+  @VisibleForTesting static final long MEMORY_BUDGET_BYTES = 32 * 1024 * 1024;
+
+  /**
+   * Ranges spanning more buckets than this (e.g. unbounded ranges) are fetched directly, without going through the cache.
+   */
+  private static final long MAX_BUCKETS_PER_REQUEST = 2048;
+
+  /**
+   * Rough per-bucket and per-sample bookkeeping overhead, on top of the serialized size of the samples.
+   */
+  private static final int BUCKET_OVERHEAD_BYTES = 64;
+  private static final int SAMPLE_OVERHEAD_BYTES = 16;
+
+  private static final DataSeriesCache INSTANCE = new DataSeriesCache(MEMORY_BUDGET_BYTES);
+
+  /**
+   * Fetches the samples of a stream with start < timestamp <= end from the datastore.
+   */
+  public interface RangeFetcher<T> {
+    @NotNull
+    List<T> fetch(long startNs, long endNs);
+  }
+
+  private final long myMemoryBudget;
+
+  /**
+   * Clients are only held weakly and identified by a small id, so a client that goes away doesn't keep its buckets reachable;
+   * those are simply evicted over time.
+   */
+  private final Map<Object, Integer> myClientIds = new WeakHashMap<>();
+  private final LinkedHashMap<BucketKey, Bucket> myBuckets = new LinkedHashMap<>(16, 0.75f, true);
+  private int myNextClientId;
+  private long myMemorySize;
+
+  @VisibleForTesting
+  DataSeriesCache(long memoryBudget) {
+    myMemoryBudget = memoryBudget;
+  }
+
+  @NotNull
+  public static DataSeriesCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the samples of the given stream with startNs < timestamp <= endNs, in the order the fetcher returns them.
+   *
+   * @param client    the stub the fetcher uses, which scopes the cached samples to one connection to the datastore
+   * @param stream    identifies the kind of samples; fetchers sharing a stream name must return the same samples
+   * @param timestamp extracts the timestamp the datastore filters the samples by
+   */
+  @NotNull
+  public <T extends MessageLite> List<T> getSamples(@NotNull Object client,
+                                                    @NotNull Common.Session session,
+                                                    @NotNull String stream,
+                                                    long startNs,
+                                                    long endNs,
+                                                    @NotNull ToLongFunction<T> timestamp,
+                                                    @NotNull RangeFetcher<T> fetcher) {
+    long span = endNs - startNs;
+    if (span <= 0 || span / BUCKET_NS > MAX_BUCKETS_PER_REQUEST) {
+      return fetcher.fetch(startNs, endNs);
+    }
+
+    long firstBucket = Math.floorDiv(startNs, BUCKET_NS);
+    long lastBucket = Math.floorDiv(endNs - 1, BUCKET_NS);
+    int bucketCount = (int)(lastBucket - firstBucket + 1);
+    List<List<T>> samples = new ArrayList<>(Collections.nCopies(bucketCount, null));
+
+    StreamKey streamKey;
+    synchronized (this) {
+      streamKey = new StreamKey(getClientId(client), session, stream);
+      for (int i = 0; i < bucketCount; i++) {
+        Bucket bucket = myBuckets.get(new BucketKey(streamKey, firstBucket + i));
+        if (bucket != null) {
+          //noinspection unchecked
+          samples.set(i, (List<T>)bucket.mySamples);
+        }
+      }
+    }
+
+    // Fetch each run of missing buckets with a single request, outside of the lock as it blocks on the datastore.
+    BitSet complete = new BitSet(bucketCount);
+    for (int runStart = 0; runStart < bucketCount; runStart++) {
+      if (samples.get(runStart) != null) {
+        continue;
+      }
+      int runEnd = runStart;
+      while (runEnd + 1 < bucketCount && samples.get(runEnd + 1) == null) {
+        runEnd++;
+      }
+      for (int i = runStart; i <= runEnd; i++) {
+        samples.set(i, new ArrayList<>());
+      }
+      long runStartNs = (firstBucket + runStart) * BUCKET_NS;
+      long runEndNs = (firstBucket + runEnd + 1) * BUCKET_NS;
+      long latest = Long.MIN_VALUE;
+      for (T sample : fetcher.fetch(runStartNs, runEndNs)) {
+        long time = timestamp.applyAsLong(sample);
+        if (time <= runStartNs || time > runEndNs) {
+          continue;
+        }
+        samples.get((int)(Math.floorDiv(time - 1, BUCKET_NS) - firstBucket)).add(sample);
+        latest = Math.max(latest, time);
+      }
+      // Only buckets followed by newer data in the same response are complete; later ones may still be receiving samples. The
+      // latest timestamp seen by other requests can't be used, as they may have been answered after this one.
+      for (int i = runStart; i <= runEnd && (firstBucket + i + 1) * BUCKET_NS < latest; i++) {
+        complete.set(i);
+      }
+      runStart = runEnd;
+    }
+
+    if (!complete.isEmpty()) {
+      store(streamKey, firstBucket, samples, complete);
+    }
+
+    List<T> result = new ArrayList<>();
+    for (List<T> bucketSamples : samples) {
+      for (T sample : bucketSamples) {
+        long time = timestamp.applyAsLong(sample);
+        if (time > startNs && time <= endNs) {
+          result.add(sample);
+        }
+      }
+    }
+    return result;
+  }
+
+  @VisibleForTesting
+  synchronized long getMemorySize() {
+    return myMemorySize;
+  }
+
+  @VisibleForTesting
+  synchronized int getBucketCount() {
+    return myBuckets.size();
+  }
+
+  private synchronized <T extends MessageLite> void store(@NotNull StreamKey streamKey,
+                                                          long firstBucket,
+                                                          @NotNull List<List<T>> samples,
+                                                          @NotNull BitSet complete) {
+    for (int i = complete.nextSetBit(0); i >= 0; i = complete.nextSetBit(i + 1)) {
+      BucketKey key = new BucketKey(streamKey, firstBucket + i);
+      if (myBuckets.containsKey(key)) {
+        continue;
+      }
+      Bucket bucket = new Bucket(samples.get(i));
+      myBuckets.put(key, bucket);
+      myMemorySize += bucket.mySize;
+    }
+
+    Iterator<Bucket> iterator = myBuckets.values().iterator();
+    while (myMemorySize > myMemoryBudget && iterator.hasNext()) {
+      myMemorySize -= iterator.next().mySize;
+      iterator.remove();
+    }
+  }
+
+  private int getClientId(@NotNull Object client) {
+    return myClientIds.computeIfAbsent(client, c -> myNextClientId++);
+  }
+
+  private static final class Bucket {
+    @NotNull private final List<? extends MessageLite> mySamples;
+    private final long mySize;
+
+    Bucket(@NotNull List<? extends MessageLite> samples) {
+      mySamples = samples.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(samples);
+      long size = BUCKET_OVERHEAD_BYTES;
+      for (MessageLite sample : samples) {
+        size += sample.getSerializedSize() + SAMPLE_OVERHEAD_BYTES;
+      }
+      mySize = size;
+    }
+  }
+
+  private static final class StreamKey {
+    private final int myClientId;
+    @NotNull private final Common.Session mySession;
+    @NotNull private final String myStream;
+
+    StreamKey(int clientId, @NotNull Common.Session session, @NotNull String stream) {
+      myClientId = clientId;
+      mySession = session;
+      myStream = stream;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof StreamKey)) {
+        return false;
+      }
+      StreamKey other = (StreamKey)o;
+      return myClientId == other.myClientId && mySession.equals(other.mySession) && myStream.equals(other.myStream);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myClientId, mySession, myStream);
+    }
+  }
+
+  private static final class BucketKey {
+    @NotNull private final StreamKey myStream;
+    private final long myIndex;
+
+    BucketKey(@NotNull StreamKey stream, long index) {
+      myStream = stream;
+      myIndex = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof BucketKey)) {
+        return false;
+      }
+      BucketKey other = (BucketKey)o;
+      return myIndex == other.myIndex && myStream.equals(other.myStream);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * myStream.hashCode() + Long.hashCode(myIndex);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.android.tools.profiler.proto.CpuProfiler.CpuDataRequest;
 import com.android.tools.profiler.proto.CpuProfiler.CpuDataResponse;
 import com.android.tools.profiler.proto.CpuProfiler.CpuUsageData;
 import com.android.tools.profiler.proto.CpuServiceGrpc;
+import com.android.tools.profilers.DataSeriesCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -51,13 +52,22 @@ public class CpuUsageDataSeries implements DataSeries<Long> {
     // Get an extra padding on each side, to have a smooth rendering at the edges.
     // TODO: Change the CPU API to allow specifying this padding in the request as number of samples.
     long bufferNs = TimeUnit.SECONDS.toNanos(1);
-    CpuDataRequest.Builder dataRequestBuilder = CpuDataRequest.newBuilder()
-      .setSession(mySession)
-      .setStartTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs)
-      .setEndTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs);
-    CpuDataResponse response = myClient.getData(dataRequestBuilder.build());
+    // The app and other processes series read the same samples, so they share them through the cache.
+    List<CpuUsageData> samples = DataSeriesCache.getInstance().getSamples(
+      myClient, mySession, "cpu.usage",
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs,
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs,
+      CpuUsageData::getEndTimestamp,
+      (startNs, endNs) -> {
+        CpuDataRequest.Builder dataRequestBuilder = CpuDataRequest.newBuilder()
+          .setSession(mySession)
+          .setStartTimestamp(startNs)
+          .setEndTimestamp(endNs);
+        CpuDataResponse response = myClient.getData(dataRequestBuilder.build());
+        return response.getDataList();
+      });
     CpuUsageData lastCpuData = null;
-    for (CpuUsageData data : response.getDataList()) {
+    for (CpuUsageData data : samples) {
       long dataTimestamp = TimeUnit.NANOSECONDS.toMicros(data.getEndTimestamp());
 
       // If lastCpuData is null, it means the first CPU usage data was read. Assign it to lastCpuData and go to the next iteration.
@@ -22,25 +22,39 @@ import trebuchet.io.BufferProducer;
 import trebuchet.io.DataSlice;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
 /**
- * This class takes concatenated compressed atrace files and will on the fly decompress them one line at a time.
- * As lines are requested from nextLine this class will read in a chunk of the compressed atrace file decompress it
- * and return the next line decoded. Each line is returned as a string as the atrace file is encoded as a series of
- * strings.
+ * This class takes concatenated compressed atrace files and will on the fly decompress them.
+ * As data is requested this class will read in a chunk of the compressed atrace file and decompress it. The decompressed
+ * data is either returned one line at a time by {@link #getNextLine()}, or as slices of many complete lines by {@link #next()},
+ * so the trace importer does not pay a per line overhead on large traces.
  */
 public class AtraceDecompressor implements BufferProducer {
-  private static final int BUFFER_SIZE_BYTES = 2048;
+  private static final int BUFFER_SIZE_BYTES = 64 * 1024;
+  /**
+   * Slices returned by {@link #next()} contain at least this many bytes of complete lines, unless they are the last one.
+   */
+  private static final int SLICE_SIZE_BYTES = 1024 * 1024;
+  private static final String INITIAL_LINE = "# Initial Data Required by Importer";
   private byte[] myOutputBuffer = new byte[BUFFER_SIZE_BYTES];
   private byte[] myInputBuffer = new byte[BUFFER_SIZE_BYTES];
   private int myInputBufferOffset = 0;
+  /**
+   * Amount of data read from the file into the input buffer, including the data before {@link #myInputBufferOffset}.
+   */
+  private int myInputBufferLength = 0;
   private boolean myIsFinished = false;
   private Queue<String> myLineQueue = new LinkedList<>();
-  private String myLastPartialLine = "";
+  /**
+   * Decompressed data that has not been returned yet. It always starts at the beginning of a line.
+   */
+  private byte[] myPendingData = new byte[SLICE_SIZE_BYTES + BUFFER_SIZE_BYTES];
+  private int myPendingSize = 0;
   private InputStream myInputStream;
   private Inflater myInflater;
 
@@ -57,7 +71,7 @@ public class AtraceDecompressor implements BufferProducer {
     myInputStream.read(myInputBuffer, 0, HEADER.size());
     verifyHeader();
     myInputBufferOffset = 0;
-    myLineQueue.add("# Initial Data Required by Importer");
+    myLineQueue.add(INITIAL_LINE);
   }
 
   private void verifyHeader() throws IOException {
@@ -68,18 +82,29 @@ public class AtraceDecompressor implements BufferProducer {
   }
 
   /**
-   * Read as much data as we can from our input file, and set a new input buffer on the inflater.
+   * Read as much data as we can from our input file, keeping the data of the input buffer that was not consumed yet.
    */
-  private void fill() throws IOException {
+  private void read() throws IOException {
+    int remaining = myInputBufferLength - myInputBufferOffset;
     if (myInputBufferOffset != 0) {
-      shift(myInputBuffer, myInputBufferOffset, 0, myInputBuffer.length - myInputBufferOffset);
-      myInputBufferOffset = myInputBuffer.length - myInputBufferOffset;
+      shift(myInputBuffer, myInputBufferOffset, 0, remaining);
     }
-    int readAmount = myInputStream.read(myInputBuffer, myInputBufferOffset, myInputBuffer.length - myInputBufferOffset);
-    myInflater.setInput(myInputBuffer, 0, readAmount + myInputBufferOffset);
+    int readAmount = myInputStream.read(myInputBuffer, remaining, myInputBuffer.length - remaining);
+    myInputBufferLength = remaining + Math.max(0, readAmount);
     myInputBufferOffset = 0;
   }
 
+  /**
+   * Read as much data as we can from our input file, and set a new input buffer on the inflater.
+   *
+   * @return false if the end of the input file was reached and there was no data left to give to the inflater.
+   */
+  private boolean fill() throws IOException {
+    read();
+    myInflater.setInput(myInputBuffer, 0, myInputBufferLength);
+    return myInputBufferLength > 0;
+  }
+
   /**
    * Move data from one part of an array to another. This is used to shift data left before reading more data from the file.
    *
@@ -100,36 +125,66 @@ public class AtraceDecompressor implements BufferProducer {
    * @return the next line of data from the trace.
    */
   public String getNextLine() throws IOException, DataFormatException {
-    // Early out if we have no more data to read from the file, and we have no lines in our queue.
-    if (myIsFinished && myLineQueue.isEmpty()) {
-      return null;
+    // If our queue is empty we get the next block of lines, splitting it at each \n. A block always ends with \n.
+    while (myLineQueue.isEmpty()) {
+      byte[] block = nextBlock();
+      if (block == null) {
+        return null;
+      }
+      int lineStart = 0;
+      for (int i = 0; i < block.length; i++) {
+        if (block[i] == '\n') {
+          myLineQueue.add(new String(block, lineStart, i - lineStart, Charsets.UTF_8));
+          lineStart = i + 1;
+        }
+      }
     }
+    return myLineQueue.remove();
+  }
 
-    // If we have more data in the file, and our queue is empty we get the next block of lines.
-    while (myLineQueue.isEmpty()) {
+  /**
+   * Decompresses data until at least {@link #SLICE_SIZE_BYTES} bytes of complete lines are available, or the end of the
+   * file is reached.
+   *
+   * @return the decompressed lines, each terminated by \n, or null if there is no more data to read from the file.
+   */
+  @Nullable
+  private byte[] nextBlock() throws IOException, DataFormatException {
+    if (myIsFinished) {
+      return null;
+    }
 
+    while (true) {
       // If we are finished with our decompression buffer, we either are done with our input,
       // or we are done with this chunk of the file.
+      boolean endOfInput = false;
       if (myInflater.finished()) {
         // If we have no more input then we are at the end of the file, and have nothing left to
-        // decompress.
-        if (myInputStream.available() == 0) {
-          myIsFinished = true;
-          myInputStream.close();
-          myLineQueue.add(myLastPartialLine);
-          myLastPartialLine = "";
-          break;
+        // decompress. The next chunk may already be in our input buffer.
+        if (myInputBufferOffset >= myInputBufferLength && myInputStream.available() == 0) {
+          endOfInput = true;
         }
         else {
           // If we are only done with one chunk of the file, then we read the header and reset our
           // inflater.
+          if (myInputBufferLength - myInputBufferOffset < HEADER.size()) {
+            read();
+          }
           verifyHeader();
+          myInflater.end();
           myInflater = new Inflater();
         }
       }
+      if (!endOfInput && myInflater.needsInput()) {
+        endOfInput = !fill();
+      }
 
-      if (myInflater.needsInput()) {
-        fill();
+      if (endOfInput) {
+        // The last line of the file is returned even if it is empty, terminated by a \n like all other lines.
+        myIsFinished = true;
+        myInputStream.close();
+        appendPendingData(new byte[]{'\n'}, 1);
+        return takePendingData(myPendingSize);
       }
 
       // Need to keep track of where in our buffer the inflater has read to. To do this,
@@ -139,23 +194,35 @@ public class AtraceDecompressor implements BufferProducer {
       int bytesInOutputBuffer = myInflater.inflate(myOutputBuffer, 0, myOutputBuffer.length);
       inputBufferTotal = myInflater.getTotalIn() - inputBufferTotal;
       myInputBufferOffset += inputBufferTotal;
+      appendPendingData(myOutputBuffer, bytesInOutputBuffer);
 
-      // Create a string from our decompressed buffer, and split it into the lines for that string.
-      myLastPartialLine += new String(myOutputBuffer, 0, bytesInOutputBuffer);
-      // By default string split gets passed 0, this indicates that the string should return minimum number of split lines. -1 indicates
-      // that we want to return the actual number of splits. Allowing the split to handle the case of the last char of \n instead of
-      // dropping it we get an additional line. So foo\nbar\n ends up returning 3 lines ("foo", "bar", "") which works with our
-      // lastIndexOf('\n') substring below.
-      String[] lines = myLastPartialLine.split("\n", -1);
-
-      // Add each line to our queue and keep track of our partial line for the next time we decompress more info.
-      for (int i = 0; i < lines.length - 1; i++) {
-        myLineQueue.add(lines[i]);
+      // Only hand out complete lines, the partial line at the end is kept for the next block.
+      if (myPendingSize >= SLICE_SIZE_BYTES) {
+        for (int i = myPendingSize - 1; i >= 0; i--) {
+          if (myPendingData[i] == '\n') {
+            return takePendingData(i + 1);
+          }
+        }
       }
+    }
+  }
 
-      myLastPartialLine = myLastPartialLine.substring(myLastPartialLine.lastIndexOf('\n') + 1);
+  private void appendPendingData(byte[] data, int length) {
+    if (myPendingSize + length > myPendingData.length) {
+      myPendingData = Arrays.copyOf(myPendingData, Math.max(myPendingData.length * 2, myPendingSize + length));
     }
-    return myLineQueue.remove();
+    System.arraycopy(data, 0, myPendingData, myPendingSize, length);
+    myPendingSize += length;
+  }
+
+  /**
+   * Removes the first {@code length} bytes of the pending data and returns them.
+   */
+  private byte[] takePendingData(int length) {
+    byte[] result = Arrays.copyOf(myPendingData, length);
+    System.arraycopy(myPendingData, length, myPendingData, 0, myPendingSize - length);
+    myPendingSize -= length;
+    return result;
   }
 
   /**
@@ -173,21 +240,28 @@ public class AtraceDecompressor implements BufferProducer {
   }
 
   /**
-   * @return the next line used by {@link BufferProducer}. The parser assumes that each line ends
-   * with \n, so we add a return to the string before returning the next requested slice.
+   * @return the next slice used by {@link BufferProducer}. The parser assumes that each line ends with \n. Lines already
+   * split by {@link #getNextLine()} (including the initial line required by the importer) are returned one at a time with
+   * a \n added, after that each slice holds a block of complete lines.
+   * @throws IllegalStateException if the trace can't be read or decompressed
    */
   @Nullable
   @Override
   public DataSlice next() {
     try {
-      String line = getNextLine();
-      if (line != null) {
-        byte[] data = String.format("%s\n", line).getBytes();
+      byte[] data;
+      if (!myLineQueue.isEmpty()) {
+        data = (myLineQueue.remove() + "\n").getBytes(Charsets.UTF_8);
+      }
+      else {
+        data = nextBlock();
+      }
+      if (data != null) {
         return new DataSlice(data, 0, data.length);
       }
     }
     catch (IOException | DataFormatException ex) {
-      ex.printStackTrace();
+      throw new IllegalStateException("Failed to decompress the trace", ex);
     }
     return null;
   }
@@ -20,6 +20,8 @@ import com.android.tools.profilers.cpu.CaptureNode;
 import com.android.tools.profilers.cpu.CpuThreadInfo;
 import com.android.tools.profilers.cpu.TraceParser;
 import com.android.tools.profilers.cpu.nodemodel.SingleNameModel;
+import org.jetbrains.annotations.NotNull;
+import trebuchet.importers.ImportFeedback;
 import trebuchet.model.Model;
 import trebuchet.model.ProcessModel;
 import trebuchet.model.ThreadModel;
@@ -48,11 +50,40 @@ public class AtraceParser implements TraceParser {
     myProcessId = processId;
   }
 
+  /**
+   * Decompresses the trace on a pooled thread, while trebuchet parses the slices decompressed so far. The parsing itself stays
+   * sequential: trebuchet's FtraceImporterState resolves threads and processes and matches begin/end markers across lines, so
+   * the trace can't be split into chunks parsed independently.
+   */
   @Override
   public void parse(File file) throws IOException {
-    AtraceDecompressor reader = new AtraceDecompressor(file);
-    ImportTask task = new ImportTask(new PrintlnImportFeedback());
-    myModel = task.importBuffer(reader);
+    PrefetchingBufferProducer reader = new PrefetchingBufferProducer(new AtraceDecompressor(file));
+    // ImportTask reports the exceptions thrown by the reader instead of propagating them.
+    PrefetchingBufferProducer.ProducerException[] readerFailure = new PrefetchingBufferProducer.ProducerException[1];
+    ImportFeedback printlnFeedback = new PrintlnImportFeedback();
+    try {
+      ImportTask task = new ImportTask(new ImportFeedback() {
+        @Override
+        public void reportImportWarning(@NotNull String warning) {
+          printlnFeedback.reportImportWarning(warning);
+        }
+
+        @Override
+        public void reportImportException(@NotNull Throwable exception) {
+          if (exception instanceof PrefetchingBufferProducer.ProducerException) {
+            readerFailure[0] = (PrefetchingBufferProducer.ProducerException)exception;
+          }
+          printlnFeedback.reportImportException(exception);
+        }
+      });
+      myModel = task.importBuffer(reader);
+    }
+    finally {
+      reader.close();
+    }
+    if (readerFailure[0] != null) {
+      throw new IOException("Failed to read " + file, readerFailure[0].getCause());
+    }
     myCaptureTreeNodes = buildCaptureTreeNodes();
   }
 
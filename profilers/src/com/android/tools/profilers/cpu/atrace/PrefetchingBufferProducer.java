@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers.cpu.atrace;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import trebuchet.io.BufferProducer;
+import trebuchet.io.DataSlice;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a {@link BufferProducer} on a pooled thread, so that producing the next slices (e.g. decompressing the trace) overlaps
+ * with the importer parsing the current one. At most {@link #MAX_PENDING_SLICES} slices are buffered ahead of the importer.
+ * <p>
+ * If the wrapped producer fails, the slices produced before the failure are returned first, then {@link #next()} throws a
+ * {@link ProducerException} with the cause of the failure.
+ */
+public class PrefetchingBufferProducer implements BufferProducer {
+  private static final int MAX_PENDING_SLICES = 4;
+  /**
+   * Each producer occupies a thread until its data is consumed or it is closed. Producers beyond this limit wait for a free thread.
+   */
+  private static final int MAX_PRODUCING_THREADS = 2;
+  /**
+   * Marks the end of the data in the queue, as {@link BlockingQueue} does not accept null.
+   */
+  private static final DataSlice END_OF_DATA = new DataSlice(new byte[0], 0, 0);
+
+  private static final ExecutorService ourExecutorService =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("Atrace Prefetch", MAX_PRODUCING_THREADS);
+
+  private final BufferProducer myProducer;
+  private final BlockingQueue<DataSlice> mySlices = new ArrayBlockingQueue<>(MAX_PENDING_SLICES);
+  /**
+   * Set by whoever closes {@link #myProducer}: the producing task if it started, otherwise {@link #close()}.
+   */
+  private final AtomicBoolean myProducerClaimed = new AtomicBoolean();
+  private final Future<?> myTask;
+  /**
+   * Checked by the producing task before queuing each slice, so it stops even if the wrapped producer swallowed the interrupt.
+   */
+  private volatile boolean myIsClosed = false;
+  @Nullable private volatile Throwable myFailure;
+  private boolean myIsFinished = false;
+
+  public PrefetchingBufferProducer(@NotNull BufferProducer producer) {
+    myProducer = producer;
+    myTask = ourExecutorService.submit(this::produce);
+  }
+
+  private void produce() {
+    if (!myProducerClaimed.compareAndSet(false, true)) {
+      return; // Closed before the task started.
+    }
+    try {
+      DataSlice slice;
+      while ((slice = myProducer.next()) != null) {
+        if (myIsClosed) {
+          return;
+        }
+        mySlices.put(slice);
+      }
+      mySlices.put(END_OF_DATA);
+    }
+    catch (InterruptedException ignored) {
+      // The producer was closed before all of its data was consumed.
+    }
+    catch (Throwable t) {
+      // The failure is reported to the importer once it consumed the data produced so far (the queue publishes myFailure).
+      myFailure = t;
+      try {
+        mySlices.put(END_OF_DATA);
+      }
+      catch (InterruptedException ignored) {
+      }
+    }
+    finally {
+      myProducer.close();
+    }
+  }
+
+  /**
+   * @throws ProducerException if the wrapped producer failed, after all the slices it produced before failing are returned
+   */
+  @Nullable
+  @Override
+  public DataSlice next() {
+    if (myIsFinished) {
+      return null;
+    }
+    try {
+      DataSlice slice = mySlices.take();
+      if (slice != END_OF_DATA) {
+        return slice;
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    myIsFinished = true;
+
+    Throwable failure = myFailure;
+    if (failure != null) {
+      throw new ProducerException(failure);
+    }
+    return null;
+  }
+
+  /**
+   * Stops producing slices and closes the wrapped producer. This doesn't wait for the producing thread, which closes the wrapped
+   * producer itself once it stops (e.g. after it's done with a blocking read).
+   */
+  @Override
+  public void close() {
+    // Stop the producing task first, so it doesn't queue more slices once the queue is cleared.
+    myIsClosed = true;
+    if (myProducerClaimed.compareAndSet(false, true)) {
+      myTask.cancel(false);
+      myProducer.close();
+    }
+    else {
+      myTask.cancel(true);
+    }
+    mySlices.clear();
+  }
+
+  /**
+   * Thrown by {@link #next()} when the wrapped producer failed.
+   */
+  public static class ProducerException extends RuntimeException {
+    public ProducerException(@NotNull Throwable cause) {
+      super(cause);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import com.android.tools.adtui.model.SeriesData;
 import com.android.tools.profiler.proto.Common;
 import com.android.tools.profiler.proto.MemoryProfiler;
 import com.android.tools.profiler.proto.MemoryServiceGrpc;
+import com.android.tools.profilers.DataSeriesCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -47,14 +48,22 @@ public final class AllocStatsDataSeries implements DataSeries<Long> {
   public List<SeriesData<Long>> getDataForXRange(@NotNull Range timeCurrentRangeUs) {
     // TODO: Change the Memory API to allow specifying padding in the request as number of samples.
     long bufferNs = TimeUnit.SECONDS.toNanos(1);
-    MemoryProfiler.MemoryRequest.Builder dataRequestBuilder = MemoryProfiler.MemoryRequest.newBuilder()
-      .setSession(mySession)
-      .setStartTime(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs)
-      .setEndTime(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs);
-    MemoryProfiler.MemoryData response = myClient.getData(dataRequestBuilder.build());
+    List<MemoryProfiler.MemoryData.AllocStatsSample> samples = DataSeriesCache.getInstance().getSamples(
+      myClient, mySession, "memory.allocStats",
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs,
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs,
+      MemoryProfiler.MemoryData.AllocStatsSample::getTimestamp,
+      (startNs, endNs) -> {
+        MemoryProfiler.MemoryRequest.Builder dataRequestBuilder = MemoryProfiler.MemoryRequest.newBuilder()
+          .setSession(mySession)
+          .setStartTime(startNs)
+          .setEndTime(endNs);
+        MemoryProfiler.MemoryData response = myClient.getData(dataRequestBuilder.build());
+        return response.getAllocStatsSamplesList();
+      });
 
     List<SeriesData<Long>> seriesData = new ArrayList<>();
-    for (MemoryProfiler.MemoryData.AllocStatsSample sample : response.getAllocStatsSamplesList()) {
+    for (MemoryProfiler.MemoryData.AllocStatsSample sample : samples) {
       long dataTimestamp = TimeUnit.NANOSECONDS.toMicros(sample.getTimestamp());
       seriesData.add(new SeriesData<>(dataTimestamp, myFilter.apply(sample)));
     }
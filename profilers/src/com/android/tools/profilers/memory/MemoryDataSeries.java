@@ -23,6 +23,7 @@ import com.android.tools.profiler.proto.MemoryProfiler.MemoryData;
 import com.android.tools.profiler.proto.MemoryProfiler.MemoryData.MemorySample;
 import com.android.tools.profiler.proto.MemoryProfiler.MemoryRequest;
 import com.android.tools.profiler.proto.MemoryServiceGrpc;
+import com.android.tools.profilers.DataSeriesCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -47,14 +48,23 @@ public final class MemoryDataSeries implements DataSeries<Long> {
   public List<SeriesData<Long>> getDataForXRange(@NotNull Range timeCurrentRangeUs) {
     // TODO: Change the Memory API to allow specifying padding in the request as number of samples.
     long bufferNs = TimeUnit.SECONDS.toNanos(1);
-    MemoryRequest.Builder dataRequestBuilder = MemoryRequest.newBuilder()
-      .setSession(mySession)
-      .setStartTime(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs)
-      .setEndTime(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs);
-    MemoryData response = myClient.getData(dataRequestBuilder.build());
+    // Each memory category has its own series, all of which read the same samples, so they share them through the cache.
+    List<MemorySample> samples = DataSeriesCache.getInstance().getSamples(
+      myClient, mySession, "memory.samples",
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs,
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs,
+      MemorySample::getTimestamp,
+      (startNs, endNs) -> {
+        MemoryRequest.Builder dataRequestBuilder = MemoryRequest.newBuilder()
+          .setSession(mySession)
+          .setStartTime(startNs)
+          .setEndTime(endNs);
+        MemoryData response = myClient.getData(dataRequestBuilder.build());
+        return response.getMemSamplesList();
+      });
 
     List<SeriesData<Long>> seriesData = new ArrayList<>();
-    for (MemoryData.MemorySample sample : response.getMemSamplesList()) {
+    for (MemoryData.MemorySample sample : samples) {
       long dataTimestamp = TimeUnit.NANOSECONDS.toMicros(sample.getTimestamp());
       seriesData.add(new SeriesData<>(dataTimestamp, mySampleTransformer.apply(sample)));
     }
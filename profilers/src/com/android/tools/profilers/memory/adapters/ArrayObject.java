@@ -19,6 +19,8 @@ import com.android.tools.profilers.memory.adapters.ValueObject.ValueType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 public interface ArrayObject {
   @NotNull
   ValueType getArrayElementType();
@@ -26,6 +28,15 @@ public interface ArrayObject {
   @Nullable
   byte[] getAsByteArray();
 
+  /**
+   * Returns {@code length} elements of a byte array starting at {@code offset}, without copying the rest of the array.
+   */
+  @Nullable
+  default byte[] getAsByteArray(int offset, int length) {
+    byte[] bytes = getAsByteArray();
+    return bytes == null ? null : Arrays.copyOfRange(bytes, offset, offset + length);
+  }
+
   @Nullable
   char[] getAsCharArray();
 
@@ -21,13 +21,24 @@ import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.Map;
 
 public class BitmapDecoder {
   enum PixelFormat {
-    ARGB_8888,
-    RGB_565,
-    ALPHA_8
+    ARGB_8888(4),
+    RGB_565(2),
+    ALPHA_8(1);
+
+    private final int myBytesPerPixel;
+
+    PixelFormat(int bytesPerPixel) {
+      myBytesPerPixel = bytesPerPixel;
+    }
+
+    public int getBytesPerPixel() {
+      return myBytesPerPixel;
+    }
   }
 
   public interface BitmapDataProvider {
@@ -37,12 +48,20 @@ public class BitmapDecoder {
     @Nullable
     Dimension getDimension();
 
+    /**
+     * Returns {@code length} bytes of the pixel data starting at byte {@code offset}, or null if they are not available.
+     * The decoder requests the pixels a row at a time, so that the whole pixel buffer never needs to be copied.
+     */
     @Nullable
-    byte[] getPixelBytes(@NotNull Dimension size);
+    byte[] getPixelBytes(int offset, int length);
   }
 
   private interface BitmapExtractor {
-    BufferedImage getImage(int w, int h, byte[] data);
+    /**
+     * Converts every {@code sampling}-th pixel of a row of source pixels to ARGB, writing {@code count} pixels to
+     * {@code argb} starting at {@code argbOffset}.
+     */
+    void decodeRow(@NotNull byte[] row, int sampling, @NotNull int[] argb, int argbOffset, int count);
   }
 
   protected static final Map<PixelFormat, BitmapExtractor> SUPPORTED_FORMATS = ImmutableMap.of(
@@ -52,6 +71,16 @@ public class BitmapDecoder {
 
   @Nullable
   public static BufferedImage getBitmap(@NotNull BitmapDataProvider dataProvider) {
+    return getBitmap(dataProvider, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decodes the bitmap, downscaling it while decoding by skipping pixels, so that neither side of the returned image is
+   * larger than {@code maxDimension}. Only the rows of the bitmap which end up in the image are read from the provider,
+   * which makes this suitable for cheap thumbnails of large bitmaps.
+   */
+  @Nullable
+  public static BufferedImage getBitmap(@NotNull BitmapDataProvider dataProvider, int maxDimension) {
     PixelFormat config = dataProvider.getBitmapConfigName();
     if (config == null) {
       return null;
@@ -63,78 +92,66 @@ public class BitmapDecoder {
     }
 
     Dimension size = dataProvider.getDimension();
-    if (size == null) {
+    if (size == null || size.width <= 0 || size.height <= 0) {
       return null;
     }
 
-    return bitmapExtractor.getImage(size.width, size.height, dataProvider.getPixelBytes(size));
+    int largestDimension = Math.max(size.width, size.height);
+    int sampling = largestDimension <= maxDimension ? 1 : (largestDimension + maxDimension - 1) / Math.max(1, maxDimension);
+    int width = (size.width + sampling - 1) / sampling;
+    int height = (size.height + sampling - 1) / sampling;
+    int rowLength = size.width * config.getBytesPerPixel();
+
+    @SuppressWarnings("UndesirableClassUsage")
+    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    // Write the pixels straight into the backing array of the image, rather than going through setRGB for each of them.
+    int[] argb = ((DataBufferInt)bufferedImage.getRaster().getDataBuffer()).getData();
+    for (int y = 0; y < height; y++) {
+      byte[] row = dataProvider.getPixelBytes(y * sampling * rowLength, rowLength);
+      if (row == null || row.length < rowLength) {
+        return null;
+      }
+      bitmapExtractor.decodeRow(row, sampling, argb, y * width, width);
+    }
+
+    return bufferedImage;
   }
 
   private static class ARGB8888_BitmapExtractor implements BitmapExtractor {
     @Override
-    public BufferedImage getImage(int width, int height, byte[] rgba) {
-      @SuppressWarnings("UndesirableClassUsage")
-      BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-      for (int y = 0; y < height; y++) {
-        int stride = y * width;
-        for (int x = 0; x < width; x++) {
-          int i = (stride + x) * 4;
-          long argb = 0;
-          argb |= ((long) rgba[i    ] & 0xff) << 16; // r
-          argb |= ((long) rgba[i + 1] & 0xff) << 8;  // g
-          argb |= ((long) rgba[i + 2] & 0xff);       // b
-          argb |= ((long) rgba[i + 3] & 0xff) << 24; // a
-          bufferedImage.setRGB(x, y, (int) (argb & 0xffffffffL));
-        }
+    public void decodeRow(@NotNull byte[] rgba, int sampling, @NotNull int[] argb, int argbOffset, int count) {
+      int step = sampling * 4;
+      for (int x = 0, i = 0; x < count; x++, i += step) {
+        argb[argbOffset + x] = (rgba[i + 3] & 0xff) << 24 | // a
+                               (rgba[i] & 0xff) << 16 |     // r
+                               (rgba[i + 1] & 0xff) << 8 |  // g
+                               (rgba[i + 2] & 0xff);        // b
       }
-
-      return bufferedImage;
     }
   }
 
   private static class RGB565_BitmapExtractor implements BitmapExtractor {
     @Override
-    public BufferedImage getImage(int width, int height, byte[] rgb) {
-      int bytesPerPixel = 2;
-
-      @SuppressWarnings("UndesirableClassUsage")
-      BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-      for (int y = 0; y < height; y++) {
-        int stride = y * width;
-        for (int x = 0; x < width; x++) {
-          int index = (stride + x) * bytesPerPixel;
-          int value = (rgb[index] & 0x00ff) | (rgb[index + 1] << 8) & 0xff00;
-          // RGB565 to RGB888
-          // Multiply by 255/31 to convert from 5 bits (31 max) to 8 bits (255)
-          int r = ((value >>> 11) & 0x1f) * 255 / 31;
-          int g = ((value >>> 5) & 0x3f) * 255 / 63;
-          int b = ((value) & 0x1f) * 255 / 31;
-          int a = 0xFF;
-          int argb = a << 24 | r << 16 | g << 8 | b;
-          bufferedImage.setRGB(x, y, argb);
-        }
+    public void decodeRow(@NotNull byte[] rgb, int sampling, @NotNull int[] argb, int argbOffset, int count) {
+      int step = sampling * 2;
+      for (int x = 0, index = 0; x < count; x++, index += step) {
+        int value = (rgb[index] & 0x00ff) | (rgb[index + 1] << 8) & 0xff00;
+        // RGB565 to RGB888
+        // Multiply by 255/31 to convert from 5 bits (31 max) to 8 bits (255)
+        int r = ((value >>> 11) & 0x1f) * 255 / 31;
+        int g = ((value >>> 5) & 0x3f) * 255 / 63;
+        int b = ((value) & 0x1f) * 255 / 31;
+        argb[argbOffset + x] = 0xff << 24 | r << 16 | g << 8 | b;
       }
-
-      return bufferedImage;
     }
   }
 
   private static class ALPHA8_BitmapExtractor implements BitmapExtractor {
     @Override
-    public BufferedImage getImage(int width, int height, byte[] rgb) {
-      //noinspection UndesirableClassUsage
-      BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-      for (int y = 0; y < height; y++) {
-        int stride = y * width;
-        for (int x = 0; x < width; x++) {
-          int index = stride + x;
-          int value = rgb[index];
-          int argb = value << 24 | 0xff << 16 | 0xff << 8 | 0xff;
-          bufferedImage.setRGB(x, y, argb);
-        }
+    public void decodeRow(@NotNull byte[] alpha, int sampling, @NotNull int[] argb, int argbOffset, int count) {
+      for (int x = 0, index = 0; x < count; x++, index += sampling) {
+        argb[argbOffset + x] = alpha[index] << 24 | 0x00ffffff;
       }
-
-      return bufferedImage;
     }
   }
 }
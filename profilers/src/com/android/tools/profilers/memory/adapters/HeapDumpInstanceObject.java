@@ -250,6 +250,16 @@ class HeapDumpInstanceObject implements InstanceObject {
         return null;
       }
 
+      @Nullable
+      @Override
+      public byte[] getAsByteArray(int offset, int length) {
+        if (getArrayElementType() == BYTE) {
+          // Reads the requested range straight from the heap dump buffer
+          return arrayInstance.asRawByteArray(offset, length);
+        }
+        return null;
+      }
+
       @Nullable
       @Override
       public char[] getAsCharArray() {
@@ -24,6 +24,7 @@ import com.android.tools.profiler.proto.NetworkProfiler.NetworkDataRequest;
 import com.android.tools.profiler.proto.NetworkProfiler.NetworkDataResponse;
 import com.android.tools.profiler.proto.NetworkProfiler.NetworkProfilerData;
 import com.android.tools.profiler.proto.NetworkServiceGrpc;
+import com.android.tools.profilers.DataSeriesCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -50,13 +51,21 @@ public class NetworkOpenConnectionsDataSeries implements DataSeries<Long> {
 
     // TODO: Change the Network API to allow specifying padding in the request as number of samples.
     long bufferNs = TimeUnit.SECONDS.toNanos(1);
-    NetworkDataRequest.Builder dataRequestBuilder = NetworkDataRequest.newBuilder()
-      .setSession(mySession)
-      .setType(NetworkDataRequest.Type.CONNECTIONS)
-      .setStartTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs)
-      .setEndTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs);
-    NetworkDataResponse response = myClient.getData(dataRequestBuilder.build());
-    for (NetworkProfilerData data : response.getDataList()) {
+    List<NetworkProfilerData> samples = DataSeriesCache.getInstance().getSamples(
+      myClient, mySession, "network.connections",
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs,
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs,
+      NetworkProfilerData::getEndTimestamp,
+      (startNs, endNs) -> {
+        NetworkDataRequest.Builder dataRequestBuilder = NetworkDataRequest.newBuilder()
+          .setSession(mySession)
+          .setType(NetworkDataRequest.Type.CONNECTIONS)
+          .setStartTimestamp(startNs)
+          .setEndTimestamp(endNs);
+        NetworkDataResponse response = myClient.getData(dataRequestBuilder.build());
+        return response.getDataList();
+      });
+    for (NetworkProfilerData data : samples) {
       long xTimestamp = TimeUnit.NANOSECONDS.toMicros(data.getEndTimestamp());
       ConnectionData connectionData = data.getConnectionData();
       seriesData.add(new SeriesData<>(xTimestamp, (long)connectionData.getConnectionNumber()));
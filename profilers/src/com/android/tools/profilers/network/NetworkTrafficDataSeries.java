@@ -21,6 +21,7 @@ import com.android.tools.adtui.model.SeriesData;
 import com.android.tools.profiler.proto.Common;
 import com.android.tools.profiler.proto.NetworkProfiler;
 import com.android.tools.profiler.proto.NetworkServiceGrpc;
+import com.android.tools.profilers.DataSeriesCache;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -81,13 +82,22 @@ public class NetworkTrafficDataSeries implements DataSeries<Long> {
 
     // TODO: Change the Network API to allow specifying padding in the request as number of samples.
     long bufferNs = TimeUnit.SECONDS.toNanos(1);
-    NetworkProfiler.NetworkDataRequest.Builder dataRequestBuilder = NetworkProfiler.NetworkDataRequest.newBuilder()
-      .setSession(mySession)
-      .setType(NetworkProfiler.NetworkDataRequest.Type.SPEED)
-      .setStartTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs)
-      .setEndTimestamp(TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs);
-    NetworkProfiler.NetworkDataResponse response = myClient.getData(dataRequestBuilder.build());
-    for (NetworkProfiler.NetworkProfilerData data : response.getDataList()) {
+    // The sent and received series read the same samples, so they share them through the cache.
+    List<NetworkProfiler.NetworkProfilerData> samples = DataSeriesCache.getInstance().getSamples(
+      myClient, mySession, "network.speed",
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMin()) - bufferNs,
+      TimeUnit.MICROSECONDS.toNanos((long)timeCurrentRangeUs.getMax()) + bufferNs,
+      NetworkProfiler.NetworkProfilerData::getEndTimestamp,
+      (startNs, endNs) -> {
+        NetworkProfiler.NetworkDataRequest.Builder dataRequestBuilder = NetworkProfiler.NetworkDataRequest.newBuilder()
+          .setSession(mySession)
+          .setType(NetworkProfiler.NetworkDataRequest.Type.SPEED)
+          .setStartTimestamp(startNs)
+          .setEndTimestamp(endNs);
+        NetworkProfiler.NetworkDataResponse response = myClient.getData(dataRequestBuilder.build());
+        return response.getDataList();
+      });
+    for (NetworkProfiler.NetworkProfilerData data : samples) {
       long xTimestamp = TimeUnit.NANOSECONDS.toMicros(data.getEndTimestamp());
       NetworkProfiler.SpeedData speedData = data.getSpeedData();
       seriesData.add(new SeriesData<>(xTimestamp, myType.getBytes(speedData)));
@@ -20,11 +20,11 @@ import com.android.tools.profiler.protobuf3jarjar.ByteString;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -32,7 +32,6 @@ import java.util.zip.GZIPInputStream;
  */
 public abstract class Payload {
   @NotNull private final NetworkConnectionsModel myModel;
-  @Nullable private ByteString myCachedBytes;
 
   /**
    * Construct this class using {@link #newRequestPayload(NetworkConnectionsModel, HttpData)}
@@ -80,27 +79,36 @@ public abstract class Payload {
   protected abstract HttpData.Header getHeader();
 
   /**
-   * Get this payload as a byte string.
+   * Get this payload as a byte string. The decoded bytes are kept in the shared {@link PayloadCache}.
    */
   @NotNull
   public final ByteString getBytes() {
-    if (myCachedBytes != null) {
-      return myCachedBytes;
+    String id = getId();
+    if (StringUtil.isEmpty(id)) {
+      return myModel.requestBytes(StringUtil.notNullize(id));
     }
 
-    myCachedBytes = myModel.requestBytes(getId());
-    String contentEncoding = getHeader().getContentEncoding();
-    if (contentEncoding.toLowerCase().contains("gzip")) {
-      try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(myCachedBytes.toByteArray()))) {
-        myCachedBytes = ByteString.copyFrom(FileUtil.loadBytes(inputStream));
-      }
-      catch (IOException ignored) {
-        // If we got here, it means we failed to unzip data that was supposedly zipped. Just
-        // fallback and return the content directly.
-      }
-    }
+    boolean isGzipped = getHeader().getContentEncoding().toLowerCase().contains("gzip");
+    return PayloadCache.getInstance().get(myModel, (isGzipped ? "gzip:" : "raw:") + id, () -> {
+      ByteString bytes = myModel.requestBytes(id);
+      return isGzipped ? gunzip(bytes) : bytes;
+    });
+  }
 
-    return myCachedBytes;
+  /**
+   * Decompresses the given bytes without copying them into an intermediate array, or returns them as they are if they are
+   * not valid gzip data.
+   */
+  @NotNull
+  private static ByteString gunzip(@NotNull ByteString bytes) {
+    try (GZIPInputStream inputStream = new GZIPInputStream(bytes.newInput())) {
+      return ByteString.readFrom(inputStream);
+    }
+    catch (IOException ignored) {
+      // If we got here, it means we failed to unzip data that was supposedly zipped. Just
+      // fallback and return the content directly.
+      return bytes;
+    }
   }
 
   /**
@@ -117,7 +125,9 @@ public abstract class Payload {
     HttpData.ContentType contentType = getHeader().getContentType();
     try {
       payloadFile = FileUtil.createTempFile(getId(), StringUtil.notNullize(contentType.guessFileExtension()), true);
-      FileUtil.writeToFile(payloadFile, payload.toByteArray());
+      try (OutputStream out = new FileOutputStream(payloadFile)) {
+        payload.writeTo(out);
+      }
       // We don't expect the following call to fail but don't care if it does
       //noinspection ResultOfMethodCallIgnored
       payloadFile.setReadOnly();
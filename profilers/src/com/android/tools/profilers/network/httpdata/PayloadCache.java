@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers.network.httpdata;
+
+import com.android.tools.profiler.protobuf3jarjar.ByteString;
+import com.android.tools.profilers.network.NetworkConnectionsModel;
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.ShutDownTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * A cache of decoded payload bytes shared by all {@link Payload} instances, so that selecting the same connection again
+ * does not fetch and decompress its payload again, while the memory used by payloads stays bounded.
+ *
+ * Payloads are kept in memory up to a byte budget. The least recently used ones are then spilled to temporary files (up to
+ * a separate disk budget), which are read back when they are requested again.
+ */
+public final class PayloadCache {
+  private static final long DEFAULT_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+  private static final long DEFAULT_DISK_BUDGET_BYTES = 512L * 1024 * 1024;
+
+  private static final PayloadCache INSTANCE = new PayloadCache(DEFAULT_MEMORY_BUDGET_BYTES, DEFAULT_DISK_BUDGET_BYTES);
+
+  private final long myMemoryBudget;
+  private final long myDiskBudget;
+
+  /**
+   * Payload ids are only unique within the session of a {@link NetworkConnectionsModel}, so keys are prefixed with an id
+   * assigned to each model.
+   */
+  private final Map<NetworkConnectionsModel, Long> myModelIds = new WeakHashMap<>();
+  private long myNextModelId = 0;
+
+  // Both maps are in access order, so their first entry is the least recently used one.
+  private final LinkedHashMap<String, ByteString> myMemoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, SpilledEntry> myDiskEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private long myMemorySize = 0;
+  private long myDiskSize = 0;
+
+  /**
+   * Holds the spilled payloads. Created on the first spill and deleted on shutdown, so the files are not registered for
+   * deletion on exit one by one. Evicted files are deleted right away.
+   */
+  @Nullable private File mySpillDirectory;
+
+  @NotNull
+  public static PayloadCache getInstance() {
+    return INSTANCE;
+  }
+
+  @VisibleForTesting
+  public PayloadCache(long memoryBudget, long diskBudget) {
+    myMemoryBudget = memoryBudget;
+    myDiskBudget = diskBudget;
+  }
+
+  private static Logger getLogger() {
+    return Logger.getInstance(PayloadCache.class);
+  }
+
+  /**
+   * Returns the bytes cached for the given model and key, calling {@code loader} to compute them if they are not cached.
+   * The loader is called outside of any lock, so two threads asking for the same missing key may both call it.
+   */
+  @NotNull
+  public ByteString get(@NotNull NetworkConnectionsModel model, @NotNull String key, @NotNull Supplier<ByteString> loader) {
+    String modelKey;
+    SpilledEntry spilled;
+    synchronized (this) {
+      modelKey = getModelId(model) + ":" + key;
+      ByteString bytes = myMemoryEntries.get(modelKey);
+      if (bytes != null) {
+        return bytes;
+      }
+      spilled = myDiskEntries.get(modelKey);
+    }
+
+    ByteString bytes = spilled != null ? readSpilled(spilled) : null;
+    if (bytes == null) {
+      bytes = loader.get();
+    }
+    put(modelKey, bytes);
+    return bytes;
+  }
+
+  @VisibleForTesting
+  synchronized long getMemorySize() {
+    return myMemorySize;
+  }
+
+  @VisibleForTesting
+  synchronized long getDiskSize() {
+    return myDiskSize;
+  }
+
+  private long getModelId(@NotNull NetworkConnectionsModel model) {
+    Long id = myModelIds.get(model);
+    if (id == null) {
+      id = myNextModelId++;
+      myModelIds.put(model, id);
+    }
+    return id;
+  }
+
+  private void put(@NotNull String key, @NotNull ByteString bytes) {
+    List<Map.Entry<String, ByteString>> toSpill = new ArrayList<>();
+    synchronized (this) {
+      if (bytes.size() > myMemoryBudget) {
+        toSpill.add(new AbstractMap.SimpleEntry<>(key, bytes));
+      }
+      else if (!myMemoryEntries.containsKey(key)) {
+        myMemoryEntries.put(key, bytes);
+        myMemorySize += bytes.size();
+      }
+
+      Iterator<Map.Entry<String, ByteString>> iterator = myMemoryEntries.entrySet().iterator();
+      while (myMemorySize > myMemoryBudget && iterator.hasNext()) {
+        Map.Entry<String, ByteString> entry = iterator.next();
+        iterator.remove();
+        myMemorySize -= entry.getValue().size();
+        if (!myDiskEntries.containsKey(entry.getKey())) {
+          toSpill.add(entry);
+        }
+      }
+    }
+
+    // Files are written outside of the lock, so other payloads can still be served from memory meanwhile.
+    for (Map.Entry<String, ByteString> entry : toSpill) {
+      spill(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void spill(@NotNull String key, @NotNull ByteString bytes) {
+    if (bytes.isEmpty() || bytes.size() > myDiskBudget) {
+      return;
+    }
+
+    File file = null;
+    try {
+      file = FileUtil.createTempFile(getSpillDirectory(), "payload", ".bin", true, false);
+      try (OutputStream out = new FileOutputStream(file)) {
+        bytes.writeTo(out);
+      }
+    }
+    catch (IOException e) {
+      getLogger().warn("Failed to spill a network payload to disk", e);
+      if (file != null) {
+        FileUtil.delete(file);
+      }
+      return;
+    }
+
+    List<File> toDelete = new ArrayList<>();
+    synchronized (this) {
+      SpilledEntry previous = myDiskEntries.put(key, new SpilledEntry(file, bytes.size()));
+      myDiskSize += bytes.size();
+      if (previous != null) {
+        myDiskSize -= previous.mySize;
+        toDelete.add(previous.myFile);
+      }
+
+      Iterator<SpilledEntry> iterator = myDiskEntries.values().iterator();
+      while (myDiskSize > myDiskBudget && iterator.hasNext()) {
+        SpilledEntry entry = iterator.next();
+        iterator.remove();
+        myDiskSize -= entry.mySize;
+        toDelete.add(entry.myFile);
+      }
+    }
+
+    for (File fileToDelete : toDelete) {
+      FileUtil.delete(fileToDelete);
+    }
+  }
+
+  @NotNull
+  private synchronized File getSpillDirectory() throws IOException {
+    if (mySpillDirectory == null) {
+      File directory = FileUtil.createTempDirectory("network-payloads", null, false);
+      ShutDownTracker.getInstance().registerShutdownTask(() -> FileUtil.delete(directory));
+      mySpillDirectory = directory;
+    }
+    return mySpillDirectory;
+  }
+
+  /**
+   * Reads a spilled payload back, or returns null if its file was deleted (e.g. evicted by another thread meanwhile).
+   * <p>
+   * The file is streamed straight into the chunks of the returned {@link ByteString}, so the payload is copied only once. It
+   * is not memory mapped: the mapping would outlive the read until garbage collection, and would keep the file from being
+   * deleted on eviction on some platforms.
+   */
+  @Nullable
+  private static ByteString readSpilled(@NotNull SpilledEntry entry) {
+    try (InputStream in = new FileInputStream(entry.myFile)) {
+      ByteString bytes = ByteString.readFrom(in);
+      return bytes.size() == entry.mySize ? bytes : null;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static final class SpilledEntry {
+    @NotNull private final File myFile;
+    private final long mySize;
+
+    private SpilledEntry(@NotNull File file, long size) {
+      myFile = file;
+      mySize = size;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers;
+
+import com.android.tools.profiler.proto.MemoryProfiler.MemoryData.MemorySample;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.android.tools.profilers.DataSeriesCache.BUCKET_NS;
+import static com.google.common.truth.Truth.assertThat;
+
+public class DataSeriesCacheTest {
+  private static final long SAMPLE_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final Object myClient = new Object();
+  private final List<long[]> myRequests = new ArrayList<>();
+  private long myLatestSampleNs = 10 * BUCKET_NS;
+
+  @Test
+  public void returnsSamplesInRange() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    List<MemorySample> samples = getSamples(cache, "stream", BUCKET_NS / 2, 2 * BUCKET_NS);
+
+    assertThat(timestamps(samples)).isEqualTo(expectedTimestamps(BUCKET_NS / 2, 2 * BUCKET_NS));
+    assertThat(myRequests).hasSize(1);
+  }
+
+  @Test
+  public void slidingRangeOnlyFetchesNewBuckets() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    getSamples(cache, "stream", 0, 3 * BUCKET_NS);
+    myRequests.clear();
+
+    // The last bucket of the first request had no newer samples yet, so it is fetched again along with the new ones.
+    List<MemorySample> samples = getSamples(cache, "stream", BUCKET_NS + 1, 5 * BUCKET_NS);
+    assertThat(timestamps(samples)).isEqualTo(expectedTimestamps(BUCKET_NS + 1, 5 * BUCKET_NS));
+    assertThat(myRequests).hasSize(1);
+    assertThat(myRequests.get(0)).isEqualTo(new long[]{2 * BUCKET_NS, 5 * BUCKET_NS});
+  }
+
+  @Test
+  public void streamsAreSharedBetweenSeries() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    getSamples(cache, "stream", 0, 4 * BUCKET_NS);
+    getSamples(cache, "stream", 0, 4 * BUCKET_NS);
+    assertThat(myRequests).hasSize(2);
+    assertThat(myRequests.get(1)).isEqualTo(new long[]{3 * BUCKET_NS, 4 * BUCKET_NS});
+
+    getSamples(cache, "other", 0, 4 * BUCKET_NS);
+    assertThat(myRequests).hasSize(3);
+    assertThat(myRequests.get(2)).isEqualTo(new long[]{0, 4 * BUCKET_NS});
+  }
+
+  @Test
+  public void mostRecentBucketIsFetchedAgain() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    myLatestSampleNs = 2 * BUCKET_NS + BUCKET_NS / 2;
+    getSamples(cache, "stream", 0, 4 * BUCKET_NS);
+    assertThat(cache.getBucketCount()).isEqualTo(2);
+
+    myRequests.clear();
+    myLatestSampleNs = 4 * BUCKET_NS;
+    List<MemorySample> samples = getSamples(cache, "stream", 0, 4 * BUCKET_NS);
+    assertThat(timestamps(samples)).isEqualTo(expectedTimestamps(0, 4 * BUCKET_NS));
+    assertThat(myRequests).hasSize(1);
+    assertThat(myRequests.get(0)).isEqualTo(new long[]{2 * BUCKET_NS, 4 * BUCKET_NS});
+  }
+
+  @Test
+  public void bucketsAreNotCompletedByInterleavedFetches() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    myLatestSampleNs = BUCKET_NS + BUCKET_NS / 2;
+
+    // While the first request is in flight, new samples arrive and another series fetches the newer buckets.
+    List<MemorySample> samples = getSamples(cache, "stream", 0, 2 * BUCKET_NS, () -> {
+      myLatestSampleNs = 4 * BUCKET_NS;
+      getSamples(cache, "stream", 2 * BUCKET_NS, 4 * BUCKET_NS);
+    });
+    assertThat(samples).hasSize((int)((BUCKET_NS + BUCKET_NS / 2) / SAMPLE_INTERVAL_NS));
+
+    // The second bucket was incomplete in the first response, so it must not be cached even though the stream has newer data.
+    myRequests.clear();
+    samples = getSamples(cache, "stream", 0, 2 * BUCKET_NS);
+    assertThat(timestamps(samples)).isEqualTo(expectedTimestamps(0, 2 * BUCKET_NS));
+    assertThat(myRequests).hasSize(1);
+    assertThat(myRequests.get(0)).isEqualTo(new long[]{BUCKET_NS, 2 * BUCKET_NS});
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedBucketsOverBudget() {
+    DataSeriesCache budgetCache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    getSamples(budgetCache, "stream", 0, 2 * BUCKET_NS);
+    assertThat(budgetCache.getBucketCount()).isEqualTo(1);
+    long bucketSize = budgetCache.getMemorySize();
+
+    DataSeriesCache cache = new DataSeriesCache(3 * bucketSize);
+    getSamples(cache, "stream", 0, 7 * BUCKET_NS);
+    assertThat(cache.getBucketCount()).isEqualTo(3);
+    assertThat(cache.getMemorySize()).isAtMost(3 * bucketSize);
+
+    myRequests.clear();
+    getSamples(cache, "stream", 3 * BUCKET_NS, 6 * BUCKET_NS);
+    assertThat(myRequests).isEmpty();
+    getSamples(cache, "stream", 0, BUCKET_NS);
+    assertThat(myRequests).hasSize(1);
+  }
+
+  @Test
+  public void unboundedRangesAreNotCached() {
+    DataSeriesCache cache = new DataSeriesCache(DataSeriesCache.MEMORY_BUDGET_BYTES);
+    List<MemorySample> samples = getSamples(cache, "stream", 0, Long.MAX_VALUE);
+    assertThat(samples).hasSize((int)(myLatestSampleNs / SAMPLE_INTERVAL_NS));
+    assertThat(cache.getBucketCount()).isEqualTo(0);
+  }
+
+  @NotNull
+  private List<MemorySample> getSamples(@NotNull DataSeriesCache cache, @NotNull String stream, long startNs, long endNs) {
+    return getSamples(cache, stream, startNs, endNs, () -> {});
+  }
+
+  /**
+   * @param beforeResponse runs once the fetched samples are collected, before they are returned to the cache
+   */
+  @NotNull
+  private List<MemorySample> getSamples(@NotNull DataSeriesCache cache,
+                                        @NotNull String stream,
+                                        long startNs,
+                                        long endNs,
+                                        @NotNull Runnable beforeResponse) {
+    return cache.getSamples(myClient, ProfilersTestData.SESSION_DATA, stream, startNs, endNs, MemorySample::getTimestamp,
+                            (start, end) -> {
+                              myRequests.add(new long[]{start, end});
+                              List<MemorySample> samples = new ArrayList<>();
+                              for (long time = SAMPLE_INTERVAL_NS; time <= myLatestSampleNs; time += SAMPLE_INTERVAL_NS) {
+                                if (time > start && time <= end) {
+                                  samples.add(MemorySample.newBuilder().setTimestamp(time).setJavaMem(time).build());
+                                }
+                              }
+                              beforeResponse.run();
+                              return samples;
+                            });
+  }
+
+  @NotNull
+  private List<Long> expectedTimestamps(long startNs, long endNs) {
+    List<Long> timestamps = new ArrayList<>();
+    for (long time = SAMPLE_INTERVAL_NS; time <= myLatestSampleNs; time += SAMPLE_INTERVAL_NS) {
+      if (time > startNs && time <= endNs) {
+        timestamps.add(time);
+      }
+    }
+    return timestamps;
+  }
+
+  @NotNull
+  private static List<Long> timestamps(@NotNull List<MemorySample> samples) {
+    return samples.stream().map(MemorySample::getTimestamp).collect(Collectors.toList());
+  }
+}
@@ -65,6 +65,31 @@ class AtraceDecompressorTest {
     assertThat(myDecompressor.next()).isNull()
   }
 
+  @Test
+  fun testSlicesContainAllLines() {
+    val expected = StringBuilder()
+    for (line in myDecompressor.lines) {
+      expected.append(line).append('\n')
+    }
+
+    // Slices are produced on a separate thread and hold many lines each, but together contain the same data.
+    val producer = PrefetchingBufferProducer(AtraceDecompressor(CpuProfilerTestUtils.getTraceFile("atrace.ctrace")))
+    val actual = StringBuilder()
+    var sliceCount = 0
+    do {
+      val slice = producer.next()
+      if (slice != null) {
+        actual.append(slice.toString())
+        sliceCount++
+      }
+    }
+    while (slice != null)
+    producer.close()
+
+    assertThat(actual.toString()).isEqualTo(expected.toString())
+    assertThat(sliceCount).isLessThan(expected.count { it == '\n' })
+  }
+
   // Adding a kotlin property fopr AtraceDecompressor to assist with iterating lines.
   val AtraceDecompressor.lines: Iterator<String>
     get() = object : Iterator<String> {
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers.cpu.atrace
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assert.fail
+import org.junit.Test
+import trebuchet.io.BufferProducer
+import trebuchet.io.DataSlice
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class PrefetchingBufferProducerTest {
+
+  @Test
+  fun testFailureIsRethrownAfterProducedSlices() {
+    val failure = IllegalStateException("corrupt trace")
+    val producer = PrefetchingBufferProducer(FakeProducer(2, failure))
+
+    assertThat(producer.next().toString()).isEqualTo("0\n")
+    assertThat(producer.next().toString()).isEqualTo("1\n")
+    try {
+      producer.next()
+      fail()
+    }
+    catch (expected: PrefetchingBufferProducer.ProducerException) {
+      assertThat(expected.cause).isSameAs(failure)
+    }
+    producer.close()
+  }
+
+  @Test
+  fun testCloseDoesNotWaitForProducer() {
+    val fake = FakeProducer(Int.MAX_VALUE)
+    val producer = PrefetchingBufferProducer(fake)
+    assertThat(producer.next().toString()).isEqualTo("0\n")
+
+    // The producing thread is blocked on the full queue; closing stops it, and it then closes the wrapped producer.
+    producer.close()
+    assertThat(fake.closed.await(10, TimeUnit.SECONDS)).isTrue()
+  }
+
+  private class FakeProducer(private val sliceCount: Int, private val failure: RuntimeException? = null) : BufferProducer {
+    val closed = CountDownLatch(1)
+    private var produced = 0
+
+    override fun next(): DataSlice? {
+      if (produced == sliceCount) {
+        if (failure != null) throw failure
+        return null
+      }
+      val data = "${produced++}\n".toByteArray()
+      return DataSlice(data, 0, data.size)
+    }
+
+    override fun close() {
+      closed.countDown()
+    }
+  }
+}
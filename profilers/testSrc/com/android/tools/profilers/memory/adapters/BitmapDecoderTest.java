@@ -16,11 +16,16 @@
 package com.android.tools.profilers.memory.adapters;
 
 import com.google.common.collect.ImmutableSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
+import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.Arrays;
 
 import static com.android.tools.profilers.memory.adapters.ValueObject.ValueType.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
@@ -65,4 +70,77 @@ public class BitmapDecoderTest {
     assertNull(AndroidBitmapDataProvider.createDecoder(badBitmapInstance1));
     assertNull(AndroidBitmapDataProvider.createDecoder(badBitmapInstance2));
   }
+
+  @Test
+  public void decodeEachPixelFormat() {
+    BufferedImage argb8888 = BitmapDecoder.getBitmap(new TestDataProvider(BitmapDecoder.PixelFormat.ARGB_8888, 2, 1, new byte[]{
+      0x11, 0x22, 0x33, (byte)0xff, (byte)0x80, 0, 0, 0x7f}));
+    assertNotNull(argb8888);
+    assertEquals(0xff112233, argb8888.getRGB(0, 0));
+    assertEquals(0x7f800000, argb8888.getRGB(1, 0));
+
+    // Little endian 0xf800 is pure red, 0x001f pure blue
+    BufferedImage rgb565 = BitmapDecoder.getBitmap(new TestDataProvider(BitmapDecoder.PixelFormat.RGB_565, 1, 2, new byte[]{
+      0x00, (byte)0xf8, 0x1f, 0x00}));
+    assertNotNull(rgb565);
+    assertEquals(0xffff0000, rgb565.getRGB(0, 0));
+    assertEquals(0xff0000ff, rgb565.getRGB(0, 1));
+
+    BufferedImage alpha8 = BitmapDecoder.getBitmap(new TestDataProvider(BitmapDecoder.PixelFormat.ALPHA_8, 2, 1, new byte[]{
+      (byte)0x80, 0x01}));
+    assertNotNull(alpha8);
+    assertEquals(0x80ffffff, alpha8.getRGB(0, 0));
+    assertEquals(0x01ffffff, alpha8.getRGB(1, 0));
+  }
+
+  @Test
+  public void decodeDownscaledThumbnail() {
+    // 5x3 bitmap where every pixel's alpha is its index
+    byte[] pixels = new byte[15];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte)i;
+    }
+
+    BufferedImage thumbnail = BitmapDecoder.getBitmap(new TestDataProvider(BitmapDecoder.PixelFormat.ALPHA_8, 5, 3, pixels), 2);
+    assertNotNull(thumbnail);
+    assertEquals(2, thumbnail.getWidth());
+    assertEquals(1, thumbnail.getHeight());
+    assertEquals(0x00ffffff, thumbnail.getRGB(0, 0));
+    assertEquals(0x03ffffff, thumbnail.getRGB(1, 0));
+  }
+
+  @Test
+  public void decodeFailsOnTruncatedPixels() {
+    assertNull(BitmapDecoder.getBitmap(new TestDataProvider(BitmapDecoder.PixelFormat.ARGB_8888, 2, 2, new byte[8])));
+  }
+
+  private static final class TestDataProvider implements BitmapDecoder.BitmapDataProvider {
+    @NotNull private final BitmapDecoder.PixelFormat myFormat;
+    @NotNull private final Dimension myDimension;
+    @NotNull private final byte[] myPixels;
+
+    private TestDataProvider(@NotNull BitmapDecoder.PixelFormat format, int width, int height, @NotNull byte[] pixels) {
+      myFormat = format;
+      myDimension = new Dimension(width, height);
+      myPixels = pixels;
+    }
+
+    @NotNull
+    @Override
+    public BitmapDecoder.PixelFormat getBitmapConfigName() {
+      return myFormat;
+    }
+
+    @NotNull
+    @Override
+    public Dimension getDimension() {
+      return myDimension;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getPixelBytes(int offset, int length) {
+      return offset + length > myPixels.length ? null : Arrays.copyOfRange(myPixels, offset, offset + length);
+    }
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.profilers.network.httpdata;
+
+import com.android.tools.adtui.model.Range;
+import com.android.tools.profiler.protobuf3jarjar.ByteString;
+import com.android.tools.profilers.network.NetworkConnectionsModel;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class PayloadCacheTest {
+  private final NetworkConnectionsModel myModel = new FakeConnectionsModel();
+  private final AtomicInteger myLoadCount = new AtomicInteger();
+
+  @Test
+  public void cachedPayloadIsNotLoadedAgain() {
+    PayloadCache cache = new PayloadCache(100, 100);
+    assertThat(cache.get(myModel, "a", loader("first")).toStringUtf8()).isEqualTo("first");
+    assertThat(cache.get(myModel, "a", loader("second")).toStringUtf8()).isEqualTo("first");
+    assertThat(myLoadCount.get()).isEqualTo(1);
+    assertThat(cache.getMemorySize()).isEqualTo(5);
+  }
+
+  @Test
+  public void payloadsOfDifferentModelsAreKeptApart() {
+    PayloadCache cache = new PayloadCache(100, 100);
+    cache.get(myModel, "a", loader("first"));
+    assertThat(cache.get(new FakeConnectionsModel(), "a", loader("second")).toStringUtf8()).isEqualTo("second");
+  }
+
+  @Test
+  public void leastRecentlyUsedPayloadIsSpilledToDiskAndReadBack() {
+    PayloadCache cache = new PayloadCache(10, 100);
+    cache.get(myModel, "a", loader("aaaaaaaa"));
+    cache.get(myModel, "b", loader("bbbbbbbb"));
+    assertThat(cache.getMemorySize()).isEqualTo(8);
+    assertThat(cache.getDiskSize()).isEqualTo(8);
+
+    assertThat(cache.get(myModel, "a", loader("unexpected")).toStringUtf8()).isEqualTo("aaaaaaaa");
+    assertThat(myLoadCount.get()).isEqualTo(2);
+    // Reading "a" back moved it to memory, evicting "b" to disk
+    assertThat(cache.getMemorySize()).isEqualTo(8);
+    assertThat(cache.getDiskSize()).isEqualTo(16);
+  }
+
+  @Test
+  public void payloadsOverTheDiskBudgetAreLoadedAgain() {
+    PayloadCache cache = new PayloadCache(10, 10);
+    cache.get(myModel, "a", loader("aaaaaaaa"));
+    cache.get(myModel, "b", loader("bbbbbbbb"));
+    cache.get(myModel, "c", loader("cccccccc"));
+    assertThat(cache.getDiskSize()).isEqualTo(8);
+
+    assertThat(cache.get(myModel, "a", loader("reloaded")).toStringUtf8()).isEqualTo("reloaded");
+    assertThat(myLoadCount.get()).isEqualTo(4);
+  }
+
+  @NotNull
+  private Supplier<ByteString> loader(@NotNull String contents) {
+    return () -> {
+      myLoadCount.incrementAndGet();
+      return ByteString.copyFromUtf8(contents);
+    };
+  }
+
+  private static final class FakeConnectionsModel implements NetworkConnectionsModel {
+    @NotNull
+    @Override
+    public List<HttpData> getData(@NotNull Range timeCurrentRangeUs) {
+      throw new UnsupportedOperationException();
+    }
+
+    @NotNull
+    @Override
+    public ByteString requestBytes(@NotNull String id) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}